@@ -3,6 +3,10 @@ package g;
 import java.io.IOException;
 import java.util.Locale;
 
+import g.dao.EntityCache;
+import g.service.QuerySuggestionService;
+import g.service.RecipeService;
+import g.service.SearchIndexService;
 import g.utils.DBUtil;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -63,6 +67,17 @@ public class App extends Application {
         System.out.println("JavaFX application window should be visible now");
     }
 
+    /**
+     * Writes buffered data before the application exits, and logs how well the
+     * entity caches did.
+     */
+    @Override
+    public void stop() {
+        new RecipeService().flushPendingUpdates();
+        new QuerySuggestionService().flush();
+        EntityCache.logStatistics();
+    }
+
     /**
      * Changes the root node of the current scene to the specified FXML view.
      * 
@@ -87,7 +102,8 @@ public class App extends Application {
 
     /**
      * Main entry point for the application.
-     * Initializes the database and launches the JavaFX application.
+     * Initializes the database, brings the search index up to date
+     * and launches the JavaFX application.
      * 
      * @param args command line arguments
      */
@@ -95,6 +111,7 @@ public class App extends Application {
         Locale.setDefault(Locale.ENGLISH);
         DBUtil.initializeDatabase();
         DBUtil.initializeUserImageDirectory();
+        new SearchIndexService().backfill();
         launch(args);
     }
 }
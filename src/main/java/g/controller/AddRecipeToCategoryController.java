@@ -8,6 +8,7 @@ import java.util.logging.Logger;
 import java.util.logging.Level;
 
 import g.dto.CategoryResponse;
+import g.dto.RecipeDetailResponse;
 import g.service.CategoryService;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -80,6 +81,25 @@ public class AddRecipeToCategoryController implements Initializable {
         }
     }
 
+    /**
+     * Sets the recipe being operated on from its already loaded detail, whose
+     * categories are used as the initial selection without another query.
+     * 
+     * @param recipeDetail the recipe with its ingredients and categories
+     */
+    public void setRecipeDetail(RecipeDetailResponse recipeDetail) {
+        this.recipeId = recipeDetail.getRecipe().getRecipeId();
+        LOGGER.info("Setting current recipe ID: " + recipeId);
+
+        try {
+            originalCategories = recipeDetail.getCategories();
+            setupCategoryCheckboxes();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error setting up recipe categories for recipe ID: " + recipeId, e);
+            showAlert("Error", "Failed to load category data!");
+        }
+    }
+
     /**
      * Loads all categories and the categories currently associated with the recipe.
      */
@@ -0,0 +1,127 @@
+package g.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+
+/**
+ * Shows a suggestion popup below a text field while the user types.
+ * Suggestions are looked up synchronously on every edit, so the source must
+ * answer from memory, such as {@link g.service.IngredientSuggestionService}.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class AutocompleteSupport {
+
+    /** The field suggestions are shown for */
+    private final TextField field;
+
+    /** Source of suggestions for the current text */
+    private final Function<String, List<String>> source;
+
+    /** Called after a suggestion has been chosen */
+    private final Consumer<String> onChosen;
+
+    /** Popup listing the suggestions */
+    private final ContextMenu popup = new ContextMenu();
+
+    /** Whether the text is being set from a chosen suggestion */
+    private boolean applying;
+
+    private AutocompleteSupport(TextField field, Function<String, List<String>> source, Consumer<String> onChosen) {
+        this.field = field;
+        this.source = source;
+        this.onChosen = onChosen;
+        field.textProperty().addListener((obs, oldText, newText) -> update(newText));
+        field.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                popup.hide();
+            }
+        });
+    }
+
+    /**
+     * Attaches autocomplete to a text field.
+     *
+     * @param field the field to complete
+     * @param source returns the suggestions for the text typed so far
+     * @return the attached autocomplete
+     */
+    public static AutocompleteSupport attach(TextField field, Function<String, List<String>> source) {
+        return attach(field, source, null);
+    }
+
+    /**
+     * Attaches autocomplete to a text field and reports chosen suggestions.
+     *
+     * @param field the field to complete
+     * @param source returns the suggestions for the text typed so far
+     * @param onChosen called with the suggestion after it replaced the text, may be null
+     * @return the attached autocomplete
+     */
+    public static AutocompleteSupport attach(TextField field, Function<String, List<String>> source,
+            Consumer<String> onChosen) {
+        return new AutocompleteSupport(field, source, onChosen);
+    }
+
+    /**
+     * Hides the suggestion popup, for example when the text is submitted.
+     */
+    public void hide() {
+        popup.hide();
+    }
+
+    /**
+     * Refreshes the popup for the current text. Text set programmatically while
+     * the field is not focused, such as previous data, does not open the popup.
+     */
+    private void update(String text) {
+        if (applying || !field.isFocused() || text == null || text.isBlank()) {
+            popup.hide();
+            return;
+        }
+        String typed = text.trim();
+        List<MenuItem> items = new ArrayList<>();
+        for (String suggestion : source.apply(typed)) {
+            if (suggestion.equalsIgnoreCase(typed)) {
+                continue;
+            }
+            MenuItem item = new MenuItem(suggestion);
+            item.setMnemonicParsing(false);
+            item.setOnAction(e -> choose(suggestion));
+            items.add(item);
+        }
+        if (items.isEmpty()) {
+            popup.hide();
+            return;
+        }
+        popup.getItems().setAll(items);
+        if (!popup.isShowing()) {
+            popup.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    /**
+     * Replaces the text with the chosen suggestion.
+     */
+    private void choose(String suggestion) {
+        applying = true;
+        try {
+            field.setText(suggestion);
+            field.positionCaret(suggestion.length());
+        } finally {
+            applying = false;
+        }
+        popup.hide();
+        if (onChosen != null) {
+            onChosen.accept(suggestion);
+        }
+    }
+}
@@ -2,12 +2,15 @@ package g.controller;
 
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
 
 
+import g.dao.ChangeFeed;
 import g.dto.CategoryResponse;
 import g.service.CategoryService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -18,6 +21,9 @@ import javafx.scene.control.Label;
 /**
  * Controller for the category list view. This class handles the display and selection 
  * of categories, including loading categories from the service and managing the ListView.
+ * Each category can show how many recipes of the current search it holds.
+ * Categories created, renamed or deleted are patched into the list as the
+ * {@link ChangeFeed} reports them.
  * 
  * @author Junzhe Luo
  * @since 2025-6-15
@@ -40,11 +46,19 @@ public class CategoryListController implements Initializable {
     /** Callback for category selection events */
     private CategorySelectCallback callback;
 
+    /** Number of matches of the current search by category ID, null if not known */
+    private Map<Integer, Integer> facetCounts;
+
     /**
      * Constructor initializes the category service.
      */
     public CategoryListController() {
         this.categoryService = new CategoryService();
+        ChangeFeed.subscribe(change -> {
+            if (change.table() == ChangeFeed.Table.CATEGORY) {
+                Platform.runLater(() -> applyChange(change));
+            }
+        });
     }
 
     /**
@@ -104,7 +118,9 @@ public class CategoryListController implements Initializable {
                 if (empty || item == null) {
                     setGraphic(null);
                 } else {
-                    nameLabel.setText(item.getCategoryName());
+                    nameLabel.setText(facetCounts == null
+                            ? item.getCategoryName()
+                            : item.getCategoryName() + " (" + facetCounts.getOrDefault(item.getCategoryId(), 0) + ")");
                     setGraphic(card);
                 }
             }
@@ -136,6 +152,53 @@ public class CategoryListController implements Initializable {
         LOGGER.info("Category ListView refreshed");
     }
 
+    /**
+     * Patches one created, renamed or deleted category into the list, keeping
+     * the list in ID order and the selection on the same category.
+     * The category is read from the resident catalog, which is updated before
+     * the change is published.
+     * 
+     * @param change the category change
+     */
+    private void applyChange(ChangeFeed.Change change) {
+        ObservableList<CategoryResponse> items = listView.getItems();
+        int categoryId = change.categoryId();
+        int index = 0;
+        while (index < items.size() && items.get(index).getCategoryId() < categoryId) {
+            index++;
+        }
+        boolean present = index < items.size() && items.get(index).getCategoryId() == categoryId;
+        CategoryResponse category = change.kind() == ChangeFeed.Kind.DELETE
+                ? null
+                : categoryService.getCategoryById(categoryId);
+        if (category == null) {
+            if (present) {
+                items.remove(index);
+            }
+        } else if (present) {
+            boolean selected = listView.getSelectionModel().getSelectedIndex() == index;
+            items.set(index, category);
+            if (selected) {
+                listView.getSelectionModel().select(index);
+            }
+        } else {
+            items.add(index, category);
+        }
+        updateEmptyLabelVisibility(items.isEmpty());
+        LOGGER.fine("Category ListView patched: " + change);
+    }
+
+    /**
+     * Shows the number of matches of the current search next to each category.
+     * 
+     * @param counts the number of matches by category ID, categories without matches may be absent;
+     *        null to show the names alone
+     */
+    public void setFacetCounts(Map<Integer, Integer> counts) {
+        this.facetCounts = counts;
+        listView.refresh();
+    }
+
     /**
      * Gets the name of the currently selected category.
      * 
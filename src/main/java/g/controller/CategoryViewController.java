@@ -1,6 +1,8 @@
 package g.controller;
 
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.logging.Logger;
 
@@ -95,17 +97,16 @@ public class CategoryViewController implements Initializable {
         recipeDetailCardController.setCallback(new RecipeDetailCardController.DetailCallback() {
             @Override
             public void onRecipeDeleted(int recipeId) {
-                listViewController.loadRecipesByCategory(currentCategoryId);
+                // The list removes the recipe itself when the change feed reports the delete
                 recipeDetailCardController.showEmptyMessage();
             }
             @Override
             public void onRecipeUpdated(int recipeId) {
-                listViewController.loadRecipesByCategory(currentCategoryId);
-                recipeDetailCardController.loadRecipeData(recipeId);
+                // The card has already reloaded the recipe, and the list patches the title
             }
             @Override
             public void onRecipeCategorized() {
-                listViewController.loadRecipesByCategory(currentCategoryId);
+                // The list adds or removes the recipe as the change feed reports the new categories
             }
             @Override
             public void onBack() {
@@ -129,6 +130,7 @@ public class CategoryViewController implements Initializable {
         categoryListController.setOnItemSelected(category -> {
             if (category != null) {
                 currentCategoryId = category.getCategoryId();
+                searchBarController.setFacetScope(currentCategoryId);
                 listViewController.loadRecipesByCategory(currentCategoryId);
                 recipeDetailCardController.showEmptyMessage(); 
                 categoryEmptyLabel.setVisible(false);
@@ -136,6 +138,7 @@ public class CategoryViewController implements Initializable {
                 listViewController.setListViewVisible(true);
             } else {
                 currentCategoryId = NO_CATEGORY_SELECTED;
+                searchBarController.setFacetScope(null);
                 listViewController.clearList(); 
                 recipeDetailCardController.showEmptyMessage();
                 categoryEmptyLabel.setText("Select a Category");
@@ -150,11 +153,21 @@ public class CategoryViewController implements Initializable {
      * Sets up the callback for recipe selection.
      */
     private void setupRecipeSelectionCallback() {
-        listViewController.setCallback(recipeId -> {
-            if (recipeId != NO_CATEGORY_SELECTED) {
-                recipeDetailCardController.loadRecipeData(recipeId);
-            } else {
-                recipeDetailCardController.showEmptyMessage(); 
+        listViewController.setCallback(new ListViewController.ActionCallback() {
+            @Override
+            public void onRecipeSelected(int recipeId) {
+                if (recipeId != NO_CATEGORY_SELECTED) {
+                    recipeDetailCardController.loadRecipeData(recipeId);
+                } else {
+                    recipeDetailCardController.showEmptyMessage(); 
+                }
+            }
+
+            @Override
+            public void onRecipesDeleted(List<Integer> recipeIds) {
+                if (recipeIds.contains(recipeDetailCardController.getRecipeId())) {
+                    recipeDetailCardController.showEmptyMessage();
+                }
             }
         });
     }
@@ -163,13 +176,31 @@ public class CategoryViewController implements Initializable {
      * Sets up the callback for search functionality.
      */
     private void setupSearchCallback() {
-        searchBarController.setCallback(keyword -> {
-            if (currentCategoryId > 0) {
-                listViewController.searchInCategory(currentCategoryId, keyword);
-            } else {
-                listViewController.clearList(); 
+        searchBarController.setCallback(new SearchBarController.SearchCallback() {
+            @Override
+            public void onSearch(String keyword) {
+                if (currentCategoryId > 0) {
+                    listViewController.searchInCategory(currentCategoryId, keyword);
+                } else {
+                    listViewController.clearList(); 
+                }
+                recipeDetailCardController.showEmptyMessage();
+            }
+
+            @Override
+            public void onSubmit(String keyword) {
+                if (currentCategoryId > 0) {
+                    listViewController.searchRankedInCategory(currentCategoryId, keyword);
+                } else {
+                    listViewController.clearList(); 
+                }
+                recipeDetailCardController.showEmptyMessage();
+            }
+
+            @Override
+            public void onFacetCounts(Map<Integer, Integer> categoryCounts) {
+                categoryListController.setFacetCounts(categoryCounts);
             }
-            recipeDetailCardController.showEmptyMessage();
         });
     }
 
@@ -202,7 +233,6 @@ public class CategoryViewController implements Initializable {
                 if (success) {
                     LOGGER.info("Category created successfully: " + name);
                     showAlert(Alert.AlertType.INFORMATION, "Category created successfully!");
-                    categoryListController.refreshList();
                 } else {
                     LOGGER.warning("Failed to create category: " + name);
                     showAlert(Alert.AlertType.ERROR, "Failed to create category!");
@@ -244,7 +274,6 @@ public class CategoryViewController implements Initializable {
                 if (success) {
                     LOGGER.info("Category updated successfully: " + currentName + " -> " + newName);
                     showAlert(Alert.AlertType.INFORMATION, "Category updated successfully!");
-                    categoryListController.refreshList();
                 } else {
                     LOGGER.warning("Failed to update category: " + currentName);
                     showAlert(Alert.AlertType.ERROR, "Failed to update category!");
@@ -287,7 +316,6 @@ public class CategoryViewController implements Initializable {
                     LOGGER.info("Category deleted successfully: " + categoryName);
                     showAlert(Alert.AlertType.INFORMATION, "Category deleted successfully!");
                     currentCategoryId = NO_CATEGORY_SELECTED;
-                    categoryListController.refreshList();
                     listViewController.clearList();
                     recipeDetailCardController.showEmptyMessage();
                     categoryEmptyLabel.setVisible(true);
@@ -320,12 +348,10 @@ public class CategoryViewController implements Initializable {
     }
 
     /**
-     * Refreshes the data when CategoryView is shown.
+     * Refreshes the data when CategoryView is shown. The category list is kept
+     * current by the change feed and is not reloaded.
      */
     public void refreshData() {
-        if (categoryListController != null) {
-            categoryListController.refreshList();
-        }
         if (listViewController != null && currentCategoryId > 0) {
             listViewController.loadRecipesByCategory(currentCategoryId);
         } else if (listViewController != null) {
@@ -12,6 +12,7 @@ import java.util.List;
 import g.dto.RecipeDetailRequest;
 import g.model.Ingredient;
 import g.model.Recipe;
+import g.service.IngredientSuggestionService;
 import g.service.RecipeService;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -36,6 +37,8 @@ public class CreateViewController {
 
     /** Service for recipe operations */
     private final RecipeService recipeService;
+    /** Service for ingredient name and unit suggestions */
+    private final IngredientSuggestionService suggestionService;
     /** TextField for recipe title */
     @FXML
     private TextField titleField;
@@ -81,6 +84,8 @@ public class CreateViewController {
      */
     public CreateViewController() {
         this.recipeService = new RecipeService();
+        this.suggestionService = new IngredientSuggestionService();
+        this.suggestionService.preload();
     }
 
     /**
@@ -294,6 +299,8 @@ public class CreateViewController {
         quantityField.setPromptText("Amount(Only Integer)");
         TextField unitField = new TextField();
         unitField.setPromptText("Unit");
+        AutocompleteSupport.attach(nameField, suggestionService::suggestNames);
+        AutocompleteSupport.attach(unitField, suggestionService::suggestUnits);
         Button addButton = new Button("+");
         addButton.getStyleClass().add("button");
         addButton.setOnAction(e -> addIngredient());
@@ -310,6 +317,24 @@ public class CreateViewController {
         updateRemoveButtons(); 
     }
 
+    /**
+     * Fills the ingredient rows from pasted ingredient lines, one per line,
+     * using the rows left empty before adding new ones.
+     */
+    @FXML
+    private void pasteIngredientsClicked() {
+        IngredientPaste.ask(ingredientContainer.getScene().getWindow()).ifPresent(text -> {
+            List<IngredientPaste.Row> rows = IngredientPaste.parse(text);
+            if (rows.isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING, "No ingredient lines found");
+                alert.setTitle("Warning");
+                alert.showAndWait();
+                return;
+            }
+            IngredientPaste.fill(ingredientContainer, rows, this::addIngredient);
+        });
+    }
+
     /**
      * Updates the state of remove buttons for all ingredient rows. Only enabled if more than one row exists.
      */
@@ -0,0 +1,127 @@
+package g.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import g.dto.RecipeDetailResponse;
+import g.dto.RecipeSummaryResponse;
+import g.model.Recipe;
+import g.service.RecipeService;
+import g.utils.BackgroundExecutor;
+import g.utils.ImageCache;
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * Warms the detail and the image of recipes the user is likely to open next:
+ * the neighbours of the selected recipe, and a recipe hovered for a moment.
+ * Work runs on {@link BackgroundExecutor#prefetch()} and only fills the shared
+ * caches read by {@link RecipeService#getRecipeById(int)} and {@link ImageCache},
+ * so the detail card then renders without waiting. Moving the selection
+ * cancels everything not yet done for the previous one.
+ * All methods must be called on the JavaFX application thread.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class DetailPrefetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(DetailPrefetcher.class.getName());
+
+    /** How long the pointer must rest on a cell before its recipe is prefetched */
+    private static final Duration HOVER_DELAY = Duration.millis(300);
+
+    /** Service whose detail cache is warmed */
+    private final RecipeService recipeService;
+
+    /** Fires the prefetch of the hovered recipe once the pointer has rested */
+    private final PauseTransition hoverDelay = new PauseTransition(HOVER_DELAY);
+
+    /** Prefetches queued or running for the current selection */
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    /** Incremented whenever the selection moves; older prefetches stop between steps */
+    private volatile long generation;
+
+    /**
+     * Constructs a prefetcher.
+     *
+     * @param recipeService the service whose detail cache is warmed
+     */
+    public DetailPrefetcher(RecipeService recipeService) {
+        this.recipeService = recipeService;
+    }
+
+    /**
+     * Prefetches the recipes before and after the selected one, cancelling the
+     * prefetches of the previous selection.
+     *
+     * @param items the items of the list
+     * @param selectedIndex the index of the selected item, or -1 if none
+     */
+    public void selectionChanged(List<RecipeSummaryResponse> items, int selectedIndex) {
+        cancel();
+        if (selectedIndex < 0 || selectedIndex >= items.size()) {
+            return;
+        }
+        if (selectedIndex + 1 < items.size()) {
+            submit(items.get(selectedIndex + 1));
+        }
+        if (selectedIndex > 0) {
+            submit(items.get(selectedIndex - 1));
+        }
+    }
+
+    /**
+     * Starts the hover delay of a cell; its recipe is prefetched if the pointer
+     * is still on it when the delay ends.
+     *
+     * @param item the hovered item
+     */
+    public void hoverStarted(RecipeSummaryResponse item) {
+        hoverDelay.setOnFinished(event -> submit(item));
+        hoverDelay.playFromStart();
+    }
+
+    /**
+     * Stops the hover delay when the pointer leaves a cell.
+     */
+    public void hoverEnded() {
+        hoverDelay.stop();
+    }
+
+    /**
+     * Cancels every prefetch not yet finished.
+     */
+    public void cancel() {
+        generation++;
+        hoverDelay.stop();
+        for (Future<?> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Queues the prefetch of one recipe for the current selection.
+     */
+    private void submit(RecipeSummaryResponse item) {
+        pending.removeIf(Future::isDone);
+        long submitted = generation;
+        int recipeId = item.getRecipeId();
+        pending.add(BackgroundExecutor.prefetch().submit(() -> {
+            if (submitted != generation) {
+                return;
+            }
+            RecipeDetailResponse detail = recipeService.getRecipeById(recipeId);
+            Recipe recipe = detail.getRecipe();
+            if (recipe == null || submitted != generation) {
+                return;
+            }
+            ImageCache.get(recipe.getImgAddr(), false);
+            LOGGER.fine("Prefetched recipe " + recipeId);
+        }));
+    }
+}
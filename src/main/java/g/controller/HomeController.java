@@ -1,22 +1,39 @@
 package g.controller;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
+import g.service.transfer.CookbookArchive;
+import g.service.transfer.CookbookArchiver;
+import g.service.transfer.RecipeExporter;
+import g.service.transfer.RecipeImporter;
+import g.utils.BackgroundExecutor;
+import g.utils.ProgressListener;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 /**
  * Controller for the home view. This class handles the main navigation and recipe management,
- * including displaying recipe lists, recipe details, and managing the create recipe functionality.
+ * including displaying recipe lists, recipe details, and managing the create, import and export recipe functionality.
  *
  * @author Junzhe Luo
  * @since 2025-6-15
@@ -25,6 +42,9 @@ public class HomeController implements Initializable {
     
     /** Logger for logging messages */
     private static final Logger LOGGER = Logger.getLogger(HomeController.class.getName());
+
+    /** Extension of JSON lines exports */
+    private static final String JSON_LINES = ".jsonl";
     
     /** Controller for the recipe list view */
     @FXML
@@ -50,6 +70,15 @@ public class HomeController implements Initializable {
     @FXML 
     private Parent recipeDetailCard;
 
+    /** Imports recipe files */
+    private final RecipeImporter recipeImporter = new RecipeImporter();
+
+    /** Exports the library */
+    private final RecipeExporter recipeExporter = new RecipeExporter();
+
+    /** Exports and imports the library with its images */
+    private final CookbookArchiver cookbookArchiver = new CookbookArchiver();
+
     /**
      * Initializes the controller, sets up callbacks and default view.
      * This method configures the interaction between different components
@@ -70,9 +99,19 @@ public class HomeController implements Initializable {
      * Sets up the callback for the list view controller to handle recipe selection.
      */
     private void setupListViewControllerCallback() {
-        listViewController.setCallback(recipeId -> {
-            recipeDetailCardController.loadRecipeData(recipeId);
-            showDetailPane();
+        listViewController.setCallback(new ListViewController.ActionCallback() {
+            @Override
+            public void onRecipeSelected(int recipeId) {
+                recipeDetailCardController.loadRecipeData(recipeId);
+                showDetailPane();
+            }
+
+            @Override
+            public void onRecipesDeleted(List<Integer> recipeIds) {
+                if (recipeIds.contains(recipeDetailCardController.getRecipeId())) {
+                    showEmptyPane();
+                }
+            }
         });
     }
 
@@ -83,18 +122,18 @@ public class HomeController implements Initializable {
         recipeDetailCardController.setCallback(new RecipeDetailCardController.DetailCallback() {
             @Override
             public void onRecipeDeleted(int recipeId) {
-                listViewController.refreshList();
+                // The list removes the recipe itself when the change feed reports the delete
                 showEmptyPane();
             }
             
             @Override
             public void onRecipeUpdated(int recipeId) {
-                listViewController.refreshListAndRetainSelection(recipeId);
+                // The list updates the title in place, keeping the selection
             }
 
             @Override
             public void onRecipeCategorized() {
-                listViewController.refreshList();
+                // Categories are not shown in the list of all recipes
             }
             
             @Override
@@ -114,6 +153,11 @@ public class HomeController implements Initializable {
             public void onSearch(String query) {
                 listViewController.search(query);
             }
+
+            @Override
+            public void onSubmit(String query) {
+                listViewController.searchRanked(query);
+            }
         });
     }
 
@@ -131,10 +175,8 @@ public class HomeController implements Initializable {
             scene.getStylesheets().add(getClass().getResource("/g/app.css").toExternalForm());
             CreateViewController controller = loader.getController();
             
-            controller.setOnCreateSuccess(() -> {
-                LOGGER.info("CreateView created successfully, refreshing ListView");
-                listViewController.refreshList();
-            });
+            controller.setOnCreateSuccess(() ->
+                LOGGER.info("CreateView created successfully, the ListView appends it from the change feed"));
             
             Stage stage = new Stage();
             stage.setTitle("Create Recipe");
@@ -145,6 +187,126 @@ public class HomeController implements Initializable {
         }
     }
 
+    /**
+     * Handles the import recipes button click event. Asks for a CSV, JSON
+     * lines or cookbook archive file and imports it on the writer thread,
+     * showing its progress.
+     * The list reloads by itself once the recipes are in.
+     */
+    @FXML
+    public void onImportClicked() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Recipes");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Recipe files", "*.jsonl", "*.ndjson", "*.csv",
+                        "*" + CookbookArchive.EXTENSION),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(emptyPane.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        runWithProgress("Import Recipes", "Importing " + file.getName(), BackgroundExecutor.writer(),
+                Modality.APPLICATION_MODAL, progress -> {
+            RecipeImporter.Result result = isArchive(file)
+                    ? cookbookArchiver.importArchive(file.toPath(), progress)
+                    : recipeImporter.importFile(file.toPath(), progress);
+            if (result == null) {
+                return null;
+            }
+            return "Imported " + result.imported() + " recipes"
+                    + (result.skipped() > 0 ? ", skipped " + result.skipped() + " invalid records" : "")
+                    + (result.resumedAfter() > 0 ? ", resuming after " + result.resumedAfter() + " records" : "")
+                    + ".";
+        }, "Failed to import " + file.getName() + ". Import it again to resume where it stopped.");
+    }
+
+    /**
+     * Handles the export recipes button click event. Asks where to save and
+     * exports every recipe as JSON lines, or as a cookbook archive holding
+     * their images too, on a thread of its own. Its progress window is not
+     * modal, so recipes can be browsed and edited while it runs.
+     */
+    @FXML
+    public void onExportClicked() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Recipes");
+        chooser.setInitialFileName("cookbook");
+        FileChooser.ExtensionFilter archiveFilter =
+                new FileChooser.ExtensionFilter("Cookbook archive with images", "*" + CookbookArchive.EXTENSION);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("JSON lines", "*" + JSON_LINES), archiveFilter);
+        File chosen = chooser.showSaveDialog(emptyPane.getScene().getWindow());
+        if (chosen == null) {
+            return;
+        }
+        File file = withExtension(chosen,
+                chooser.getSelectedExtensionFilter() == archiveFilter ? CookbookArchive.EXTENSION : JSON_LINES);
+        ExecutorService exportThread = BackgroundExecutor.newPool("cookbook-export", 1);
+        runWithProgress("Export Recipes", "Exporting to " + file.getName(), exportThread, Modality.NONE, progress -> {
+            long exported = isArchive(file)
+                    ? cookbookArchiver.exportArchive(file.toPath(), progress)
+                    : recipeExporter.exportFile(file.toPath(), progress);
+            return exported < 0 ? null : "Exported " + exported + " recipes.";
+        }, "Failed to export to " + file.getName() + ".");
+        exportThread.shutdown();
+    }
+
+    /**
+     * Whether a chosen file is a cookbook archive, by its extension.
+     */
+    private static boolean isArchive(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(CookbookArchive.EXTENSION);
+    }
+
+    /**
+     * Gives a file chosen to save to the extension of the format picked,
+     * unless the name typed already ends with the extension of an export format.
+     */
+    private static File withExtension(File file, String extension) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(JSON_LINES) || name.endsWith(CookbookArchive.EXTENSION)) {
+            return file;
+        }
+        return new File(file.getParentFile(), file.getName() + extension);
+    }
+
+    /**
+     * Runs a long transfer on an executor behind a progress window, then tells
+     * the user how it went.
+     *
+     * @param title the title of the result alert
+     * @param task the text of the progress window
+     * @param executor the executor to run the transfer on
+     * @param modality whether the progress window blocks the rest of the application
+     * @param work the transfer, given the listener to report to; returns the
+     *        message to show, or null if it failed
+     * @param failure the message to show if it failed
+     */
+    private void runWithProgress(String title, String task, Executor executor, Modality modality,
+                                 Function<ProgressListener, String> work, String failure) {
+        ProgressBar bar = new ProgressBar(0);
+        Stage progressStage = RecipeBulkActions.progressWindow(emptyPane.getScene().getWindow(), task, bar, modality);
+        ProgressListener progress = (done, total) -> Platform.runLater(() -> bar.setProgress((double) done / total));
+        executor.execute(() -> {
+            String result = null;
+            try {
+                result = work.apply(progress);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, task + " failed", e);
+            }
+            String message = result;
+            Platform.runLater(() -> {
+                progressStage.close();
+                Alert alert = message == null
+                        ? new Alert(Alert.AlertType.ERROR, failure)
+                        : new Alert(Alert.AlertType.INFORMATION, message);
+                alert.setTitle(message == null ? "Error" : title);
+                alert.setHeaderText(null);
+                alert.showAndWait();
+            });
+        });
+    }
+
     /**
      * Shows the empty pane and hides the recipe detail card.
      * This method is called when no recipe is selected or when returning from detail view.
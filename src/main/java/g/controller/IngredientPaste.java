@@ -0,0 +1,159 @@
+package g.controller;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import g.utils.IngredientLineParser;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.input.Clipboard;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Window;
+
+/**
+ * Fills the ingredient rows of the create and update views from pasted
+ * ingredient lines, such as a recipe copied from a web page, one ingredient
+ * per line. Each line is split into name, amount and unit with
+ * {@link IngredientLineParser}.
+ * <p>
+ * The amount field only takes whole numbers, and a quantity such as "1/4"
+ * is not rounded into one: it is written into the amount field as it reads,
+ * so saving points it out and the user picks the amount. A line without a
+ * quantity leaves the amount empty.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+final class IngredientPaste {
+
+    /** Denominators a quantity is written with, smallest first so fractions come out reduced */
+    private static final int[] DENOMINATORS = {2, 3, 4, 8};
+
+    /** Tolerance when matching a quantity to a fraction */
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * One parsed line, as the texts of the fields of an ingredient row.
+     *
+     * @param name the ingredient name
+     * @param amount the amount, or an empty string if the line has none
+     * @param unit the unit, or an empty string if the line has none
+     */
+    record Row(String name, String amount, String unit) {
+    }
+
+    private IngredientPaste() {
+    }
+
+    /**
+     * Asks for ingredient lines in a dialog, starting from the text on the
+     * clipboard.
+     *
+     * @param owner the window the dialog belongs to
+     * @return the text entered, or empty if the dialog was cancelled
+     */
+    static Optional<String> ask(Window owner) {
+        TextArea lines = new TextArea(Clipboard.getSystemClipboard().hasString()
+                ? Clipboard.getSystemClipboard().getString() : "");
+        lines.setPromptText("2 1/2 cups plain flour, sifted\n200g sugar\n3 eggs");
+        lines.setPrefRowCount(12);
+        lines.setPrefColumnCount(40);
+
+        Dialog<String> dialog = new Dialog<>();
+        dialog.initOwner(owner);
+        dialog.setTitle("Paste Ingredients");
+        dialog.setHeaderText("One ingredient per line");
+        dialog.getDialogPane().setContent(lines);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.setResultConverter(button -> button == ButtonType.OK ? lines.getText() : null);
+        return dialog.showAndWait();
+    }
+
+    /**
+     * Parses ingredient lines, skipping blank lines and lines without a name.
+     *
+     * @param text the lines
+     * @return the rows, in the order of the lines
+     */
+    static List<Row> parse(String text) {
+        IngredientLineParser parser = new IngredientLineParser();
+        List<Row> rows = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            if (!parser.parse(line)) {
+                continue;
+            }
+            String amount = parser.hasQuantity() ? amount(parser.quantity()) : "";
+            rows.add(new Row(parser.name(), amount, parser.unit()));
+        }
+        return rows;
+    }
+
+    /**
+     * Writes rows into the ingredient rows of a view, filling the rows left
+     * empty first and adding one per remaining row.
+     *
+     * @param container the box holding the ingredient rows
+     * @param rows the rows to write
+     * @param addRow adds an empty ingredient row at the end of the container
+     */
+    static void fill(VBox container, List<Row> rows, Runnable addRow) {
+        int next = 0;
+        for (Row row : rows) {
+            List<TextField> fields = null;
+            while (fields == null && next < container.getChildren().size()) {
+                List<TextField> candidate = fields(container.getChildren().get(next++));
+                if (candidate.size() >= 3 && candidate.stream().allMatch(field -> field.getText().isBlank())) {
+                    fields = candidate;
+                }
+            }
+            if (fields == null) {
+                addRow.run();
+                next = container.getChildren().size();
+                fields = fields(container.getChildren().get(next - 1));
+            }
+            fields.get(0).setText(row.name());
+            fields.get(1).setText(row.amount());
+            fields.get(2).setText(row.unit());
+        }
+    }
+
+    /**
+     * Gets the text fields of an ingredient row: name, amount and unit.
+     */
+    private static List<TextField> fields(Node node) {
+        List<TextField> fields = new ArrayList<>(3);
+        if (node instanceof HBox row) {
+            for (Node child : row.getChildren()) {
+                if (child instanceof TextField field) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Writes a quantity as it would be typed: a whole number, a fraction or
+     * mixed number such as "1 1/2", or a decimal number.
+     */
+    private static String amount(double quantity) {
+        long whole = (long) Math.floor(quantity);
+        double fraction = quantity - whole;
+        if (fraction < EPSILON) {
+            return Long.toString(whole);
+        }
+        for (int denominator : DENOMINATORS) {
+            long numerator = Math.round(fraction * denominator);
+            if (numerator > 0 && numerator < denominator && Math.abs(fraction * denominator - numerator) < EPSILON) {
+                return (whole > 0 ? whole + " " : "") + numerator + "/" + denominator;
+            }
+        }
+        return BigDecimal.valueOf(quantity).stripTrailingZeros().toPlainString();
+    }
+}
@@ -1,26 +1,44 @@
 package g.controller;
 
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import g.dao.ChangeFeed;
 import g.dto.RecipeSummaryResponse;
 import g.service.CategoryService;
+import g.service.LiveSearchService;
+import g.service.MixedScriptTokenizer;
 import g.service.RecipeService;
+import g.service.query.QueryParser;
+import g.utils.BackgroundExecutor;
+import g.utils.ImageCache;
+import g.utils.ListReconciler;
+import g.utils.TitleScanKernel;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Label;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.image.Image;
 
-import java.io.File;
-
 /**
  * Controller for the recipe list view. This class handles the display and selection of recipes,
  * including loading recipes by category, searching, and managing the ListView component.
+ * Writes reported by the {@link ChangeFeed} are patched into the shown and cached lists
+ * one row at a time, so the list is not reloaded after a recipe is edited.
  *
  * @author Junzhe Luo
  * @since 2025-6-15
@@ -30,12 +48,36 @@ public class ListViewController implements Initializable {
     /** Logger for logging messages */
     private static final Logger LOGGER = Logger.getLogger(ListViewController.class.getName());
 
+    /** Folds titles and keywords for filtering, ignoring case and accents */
+    private static final UnaryOperator<String> TITLE_FOLD = new MixedScriptTokenizer()::normalize;
+
     /** Service for recipe operations */
     private final RecipeService recipeService;
     
     /** Service for category operations */
     private final CategoryService categoryService;
 
+    /** Service for search-as-you-type queries */
+    private final LiveSearchService liveSearchService;
+
+    /** Incremented whenever the list content is replaced; stale search results are dropped */
+    private volatile long listGeneration;
+
+    /** Whether a further page of search results is being loaded */
+    private boolean loadingMore;
+
+    /** Warms the details of the recipes next to the selection and under the pointer */
+    private final DetailPrefetcher prefetcher;
+
+    /** Unfiltered summaries of each scope shown so far, keyed by scope */
+    private final Map<Integer, ScopeSnapshot> scopeCache = new HashMap<>();
+
+    /** The snapshot shown unfiltered, whose patches reach the ListView by themselves; null otherwise */
+    private ScopeSnapshot shownSnapshot;
+
+    /** Patches of the changes received so far, applied one after another */
+    private CompletableFuture<Void> patches = CompletableFuture.completedFuture(null);
+
     /** ListView for displaying recipes */
     @FXML
     private ListView<RecipeSummaryResponse> listView;
@@ -46,15 +88,15 @@ public class ListViewController implements Initializable {
     /** Callback for recipe selection events */
     private ActionCallback callback;
 
-    /** User image directory */
-    private static final String USER_IMG_DIR = System.getProperty("user.home") + File.separator + ".cookbook" + File.separator + "imgs";
-
     /**
      * Constructor initializes the recipe and category services.
      */
     public ListViewController() {
         this.recipeService = new RecipeService();
         this.categoryService = new CategoryService();
+        this.liveSearchService = new LiveSearchService(recipeService, categoryService);
+        this.prefetcher = new DetailPrefetcher(recipeService);
+        ChangeFeed.subscribe(this::onChange);
     }
 
     /**
@@ -87,9 +129,7 @@ public class ListViewController implements Initializable {
      * Sets up the ListView with initial data and cell factory.
      */
     private void setupListView() {
-        List<RecipeSummaryResponse> rawList = fetchAllRecipeSummary();
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(rawList);
-        listView.setItems(observableList);
+        showScope(LiveSearchService.ALL_RECIPES);
 
         listView.setCellFactory(lv -> new javafx.scene.control.ListCell<RecipeSummaryResponse>() {
             private final javafx.scene.layout.VBox card = new javafx.scene.layout.VBox();
@@ -122,10 +162,14 @@ public class ListViewController implements Initializable {
                 
                 card.setOnMouseEntered(e -> {
                     card.setStyle("-fx-background-color: #f8f9fa; -fx-background-radius: 12; -fx-padding: 12; -fx-effect: dropshadow(gaussian, #a5d8ff, 8, 0.2, 0, 4); -fx-cursor: hand; -fx-scale-x: 1.02; -fx-scale-y: 1.02;");
+                    if (getItem() != null) {
+                        prefetcher.hoverStarted(getItem());
+                    }
                 });
                 
                 card.setOnMouseExited(e -> {
                     card.setStyle("-fx-background-color: white; -fx-background-radius: 12; -fx-padding: 12; -fx-effect: dropshadow(gaussian, #dee2e6, 4, 0.1, 0, 2); -fx-cursor: hand; -fx-scale-x: 1.0; -fx-scale-y: 1.0;");
+                    prefetcher.hoverEnded();
                 });
                 
                 setGraphic(card);
@@ -138,19 +182,12 @@ public class ListViewController implements Initializable {
                     setGraphic(null);
                 } else {
                     titleLabel.setText(item.getTitle());
+                    if (getIndex() == getListView().getItems().size() - 1) {
+                        loadMoreResults();
+                    }
                     
                     
-                    Image img = null;
-                    if (item.getImgAddr() != null && !item.getImgAddr().isEmpty()) {
-                        String imgFileName = item.getImgAddr();
-                        if (imgFileName.startsWith("imgs/")) {
-                            imgFileName = imgFileName.substring(5);
-                        }
-                        File imgFile = new File(USER_IMG_DIR + File.separator + imgFileName);
-                        if (imgFile.exists() && imgFile.isFile()) {
-                            img = new Image(imgFile.toURI().toString(), true);
-                        }
-                    }
+                    Image img = ImageCache.get(item.getImgAddr(), true);
                     if (img != null) {
                         imageView.setImage(img);
                     } else {
@@ -164,9 +201,19 @@ public class ListViewController implements Initializable {
     }
 
     /**
-     * Sets up the mouse click handler for recipe selection.
+     * Sets up the mouse click handler for recipe selection, prefetching of the
+     * recipes next to the selection, and the context menu acting on every
+     * selected recipe, several being selected with Ctrl or Shift.
      */
     private void setupMouseClickHandler() {
+        listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        listView.setContextMenu(new RecipeBulkActions(listView, recipeService, categoryService, recipeIds -> {
+            if (callback != null) {
+                callback.onRecipesDeleted(recipeIds);
+            }
+        }).createMenu());
+        listView.getSelectionModel().selectedIndexProperty().addListener((obs, oldIndex, newIndex) ->
+                prefetcher.selectionChanged(listView.getItems(), newIndex.intValue()));
         listView.setOnMouseClicked(event -> {
             RecipeSummaryResponse selected = listView.getSelectionModel().getSelectedItem();
             if (selected != null && callback != null) {
@@ -182,24 +229,16 @@ public class ListViewController implements Initializable {
      */
     public void loadRecipesByCategory(int categoryId) {
         LOGGER.info("Loading recipes for category ID: " + categoryId);
-        List<RecipeSummaryResponse> rawList = categoryService.getRecipeSummaryByCategoryId(categoryId);
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(rawList);
-        listView.setItems(observableList);
+        showScope(categoryId);
         LOGGER.info("ListView loaded recipes for the category");
-
-        updateEmptyLabelVisibility(observableList.isEmpty());
     }
 
     /**
      * Refreshes the recipe list with all recipes.
      */
     public void refreshList() {
-        List<RecipeSummaryResponse> rawList = fetchAllRecipeSummary();
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(rawList);
-        listView.setItems(observableList);
+        showScope(LiveSearchService.ALL_RECIPES);
         LOGGER.info("ListView refreshed");
-
-        updateEmptyLabelVisibility(observableList.isEmpty());
     }
 
     /**
@@ -209,86 +248,555 @@ public class ListViewController implements Initializable {
      */
     public void refreshListInCategory(int categoryId) {
         LOGGER.info("Refreshing list in category ID: " + categoryId);
-        List<RecipeSummaryResponse> rawList = categoryService.getRecipeSummaryByCategoryId(categoryId);
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(rawList);
-        listView.setItems(observableList);
+        showScope(categoryId);
         LOGGER.info("ListView refreshed in category");
-
-        updateEmptyLabelVisibility(observableList.isEmpty());
     }
 
     /**
-     * Refreshes the recipe list and retains the selection of a specific recipe.
+     * Reloads all recipes and retains the selection of a specific recipe.
+     * The reloaded list is reconciled with the one shown, so only the rows
+     * that changed are laid out again and the list keeps its scroll position.
      * 
      * @param recipeIdToKeepSelected The recipe ID to keep selected
      */
     public void refreshListAndRetainSelection(int recipeIdToKeepSelected) {
-        refreshList();
-
-        for (RecipeSummaryResponse item : listView.getItems()) {
-            if (item.getRecipeId() == recipeIdToKeepSelected) {
-                listView.getSelectionModel().select(item);
-                break;
-            }
-        }
+        showScope(LiveSearchService.ALL_RECIPES, true);
+        selectRecipe(recipeIdToKeepSelected);
+        LOGGER.info("ListView refreshed");
     }
 
     /**
-     * Searches recipes by keyword and updates the ListView.
+     * Filters all recipes by title keyword and updates the ListView.
+     * The unfiltered list is cached, so typing or clearing the keyword does
+     * not query the database unless recipes were written in the meantime.
+     * A keyword between slashes, such as /^chicken.*soup$/, is matched as a
+     * regular expression against the titles as written, ignoring case only.
      * 
      * @param keyword The search keyword
      */
     public void search(String keyword) {
-        List<RecipeSummaryResponse> rawList = fetchAllRecipeSummary();
-        List<RecipeSummaryResponse> filteredList;
-        
-        if (keyword == null || keyword.isBlank()) {
-            filteredList = rawList;
-        } else {
-            filteredList = rawList.stream()
-                    .filter(item -> item.getTitle() != null && 
-                            item.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                    .toList();
-        }
-        
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(filteredList);
-        listView.setItems(observableList);
-        LOGGER.info("ListView filtered and refreshed by keyword");
-
-        updateEmptyLabelVisibility(observableList.isEmpty());
+        filterScope(LiveSearchService.ALL_RECIPES, keyword);
     }
 
     /**
-     * Searches recipes in a specific category by keyword and updates the ListView.
+     * Filters the recipes of a specific category by title keyword and updates the ListView.
      * 
      * @param categoryId The category ID
      * @param keyword The search keyword
      */
     public void searchInCategory(int categoryId, String keyword) {
-        List<RecipeSummaryResponse> rawList = categoryService.getRecipeSummaryByCategoryId(categoryId);
-        List<RecipeSummaryResponse> filteredList;
-        
+        filterScope(categoryId, keyword);
+    }
+
+    /**
+     * Searches all recipes by relevance across titles, ingredients and instructions.
+     * The query runs in the background; only the result of the most recent
+     * search is shown, earlier searches still running are cancelled.
+     * 
+     * @param keyword The search keyword
+     */
+    public void searchRanked(String keyword) {
+        searchRankedInScope(LiveSearchService.ALL_RECIPES, keyword);
+    }
+
+    /**
+     * Searches the recipes of a specific category by relevance.
+     * 
+     * @param categoryId The category ID
+     * @param keyword The search keyword
+     */
+    public void searchRankedInCategory(int categoryId, String keyword) {
+        searchRankedInScope(categoryId, keyword);
+    }
+
+    /**
+     * Starts a background ranked search and shows its first page if no newer
+     * content has been put in the list in the meantime.
+     * 
+     * @param scope {@link LiveSearchService#ALL_RECIPES} or a category ID
+     * @param keyword The search keyword
+     */
+    private void searchRankedInScope(int scope, String keyword) {
         if (keyword == null || keyword.isBlank()) {
-            filteredList = rawList;
-        } else {
-            filteredList = rawList.stream()
-                    .filter(item -> item.getTitle() != null && 
-                            item.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                    .toList();
+            filterScope(scope, "");
+            return;
         }
-        
-        ObservableList<RecipeSummaryResponse> observableList = FXCollections.observableArrayList(filteredList);
-        listView.setItems(observableList);
-        LOGGER.info("ListView filtered and refreshed by category and keyword");
+        long generation = ++listGeneration;
+        loadingMore = false;
+        liveSearchService.search(scope, keyword).thenAccept(results -> Platform.runLater(() -> {
+            if (generation == listGeneration) {
+                setItems(FXCollections.observableArrayList(results));
+                LOGGER.info("ListView refreshed with ranked results");
+            }
+        }));
+    }
 
-        updateEmptyLabelVisibility(observableList.isEmpty());
+    /**
+     * Appends the next page of ranked search results once the last cell is shown.
+     */
+    private void loadMoreResults() {
+        if (loadingMore || !liveSearchService.hasMore()) {
+            return;
+        }
+        loadingMore = true;
+        long generation = listGeneration;
+        liveSearchService.loadMore().thenAccept(results -> Platform.runLater(() -> {
+            loadingMore = false;
+            if (generation == listGeneration && !results.isEmpty()) {
+                listView.getItems().addAll(results);
+                LOGGER.info("ListView appended " + results.size() + " more search results");
+            }
+        }));
+    }
+
+    /**
+     * Shows every recipe of a scope, reloading it only if it changed since it was cached.
+     * 
+     * @param scope {@link LiveSearchService#ALL_RECIPES} or a category ID
+     */
+    private void showScope(int scope) {
+        showScope(scope, false);
+    }
+
+    /**
+     * Shows every recipe of a scope. A scope reloaded because it is out of date,
+     * or because a reload is forced, is reconciled into the cached one, so a
+     * scope that was shown already keeps its unchanged cells.
+     * 
+     * @param scope {@link LiveSearchService#ALL_RECIPES} or a category ID
+     * @param reload true to reload the scope even if it is current
+     */
+    private void showScope(int scope, boolean reload) {
+        listGeneration++;
+        liveSearchService.reset();
+        ScopeSnapshot snapshot = scopeCache.get(scope);
+        if (snapshot == null || reload || !snapshot.isCurrent()) {
+            snapshot = merge(loadScope(scope));
+        }
+        if (snapshot != shownSnapshot) {
+            showSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * Caches a freshly loaded scope. If the scope was cached already, the cached
+     * items are reconciled with the loaded ones by recipe ID and kept, so a list
+     * showing them only sees the rows that changed; the first visible recipe and
+     * the selected one stay where the user left them.
+     * 
+     * @param loaded the loaded scope
+     * @return the cached scope, now holding the loaded items
+     */
+    private ScopeSnapshot merge(ScopeSnapshot loaded) {
+        ScopeSnapshot cached = scopeCache.get(loaded.scope);
+        if (cached == null) {
+            scopeCache.put(loaded.scope, loaded);
+            return loaded;
+        }
+        boolean shown = cached == shownSnapshot;
+        RecipeSummaryResponse selected = shown ? listView.getSelectionModel().getSelectedItem() : null;
+        VirtualFlow<?> flow = shown ? virtualFlow() : null;
+        RecipeSummaryResponse anchor = flow != null && flow.getFirstVisibleCell() != null
+                ? (RecipeSummaryResponse) flow.getFirstVisibleCell().getItem()
+                : null;
+
+        int changes = ListReconciler.reconcile(cached.items, loaded.items,
+                RecipeSummaryResponse::getRecipeId, ListViewController::sameSummary);
+        cached.stamp = loaded.stamp;
+        cached.kernel = loaded.kernel;
+        LOGGER.info("Reconciled scope " + loaded.scope + ": " + changes + " rows changed of " + cached.items.size());
+
+        if (shown && changes > 0) {
+            int anchorIndex = anchor == null ? -1 : indexOfRecipe(anchor.getRecipeId());
+            if (anchorIndex >= 0 && flow.getFirstVisibleCell() != null
+                    && flow.getFirstVisibleCell().getIndex() != anchorIndex) {
+                flow.scrollToTop(anchorIndex);
+            }
+            if (selected != null) {
+                selectRecipe(selected.getRecipeId());
+            }
+            updateEmptyLabelVisibility(cached.items.isEmpty());
+        }
+        return cached;
+    }
+
+    /**
+     * Tells whether two summaries of the same recipe would be shown the same way.
+     */
+    private static boolean sameSummary(RecipeSummaryResponse a, RecipeSummaryResponse b) {
+        return a.getTitle().equals(b.getTitle()) && a.getImgAddr().equals(b.getImgAddr());
+    }
+
+    /**
+     * Selects a recipe of the list shown, unless it is selected already.
+     * 
+     * @param recipeId the recipe ID
+     */
+    private void selectRecipe(int recipeId) {
+        int index = indexOfRecipe(recipeId);
+        if (index >= 0 && listView.getSelectionModel().getSelectedIndex() != index) {
+            listView.getSelectionModel().clearAndSelect(index);
+        }
+    }
+
+    /**
+     * Finds a recipe in the list shown.
+     * 
+     * @return the index of the recipe, or -1 if it is not shown
+     */
+    private int indexOfRecipe(int recipeId) {
+        List<RecipeSummaryResponse> items = listView.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getRecipeId() == recipeId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the flow laying out the cells of the ListView.
+     * 
+     * @return the flow, or null before the ListView has a skin
+     */
+    private VirtualFlow<?> virtualFlow() {
+        return listView.lookup(".virtual-flow") instanceof VirtualFlow<?> flow ? flow : null;
+    }
+
+    /**
+     * Shows the recipes of a scope whose titles contain the keyword. If the
+     * cached scope is out of date it is reloaded in the background first.
+     * A keyword using the query language, such as title:curry time:&lt;30,
+     * cannot be matched against titles and runs a ranked search instead.
+     * 
+     * @param scope {@link LiveSearchService#ALL_RECIPES} or a category ID
+     * @param keyword The search keyword
+     */
+    private void filterScope(int scope, String keyword) {
+        String key = keyword == null ? "" : keyword.trim();
+        if (!filtersTitles(key)) {
+            searchRankedInScope(scope, key);
+            return;
+        }
+        long generation = ++listGeneration;
+        liveSearchService.reset();
+
+        ScopeSnapshot snapshot = scopeCache.get(scope);
+        if (snapshot != null && snapshot.isCurrent()) {
+            applyFilter(snapshot, key, generation);
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> loadScope(scope), BackgroundExecutor.io())
+                .thenAccept(loaded -> Platform.runLater(() -> {
+                    ScopeSnapshot merged = merge(loaded);
+                    if (generation == listGeneration) {
+                        applyFilter(merged, key, generation);
+                    }
+                }));
+    }
+
+    /**
+     * Shows the items of a snapshot whose title contains the keyword, or matches
+     * it if the keyword is a regular expression between slashes. The titles are
+     * scanned by the snapshot's {@link TitleScanKernel} in the background, since
+     * a user-supplied expression can take long, and the result is shown only if
+     * no newer content has been put in the list in the meantime. A newer filter
+     * or search cancels a regular expression scan still running.
+     * 
+     * @param snapshot the unfiltered scope
+     * @param key the trimmed keyword, empty to show everything
+     * @param generation the list generation this filter belongs to
+     */
+    private void applyFilter(ScopeSnapshot snapshot, String key, long generation) {
+        if (key.isEmpty()) {
+            if (snapshot != shownSnapshot) {
+                showSnapshot(snapshot);
+            }
+            return;
+        }
+        Pattern pattern = regexOf(key);
+        TitleScanKernel kernel = snapshot.kernel();
+        // The items may be patched while the scan runs, the hits index this copy
+        List<RecipeSummaryResponse> items = List.copyOf(snapshot.items);
+        CompletableFuture.supplyAsync(() -> pattern != null
+                        ? kernel.find(pattern, () -> generation != listGeneration)
+                        : kernel.find(key), BackgroundExecutor.io())
+                .thenAccept(hits -> Platform.runLater(() -> {
+                    if (generation != listGeneration) {
+                        return;
+                    }
+                    ObservableList<RecipeSummaryResponse> filtered = FXCollections.observableArrayList();
+                    for (int index : hits) {
+                        filtered.add(items.get(index));
+                    }
+                    setItems(filtered);
+                    LOGGER.info("ListView filtered by keyword: " + hits.length + " of " + items.size());
+                }));
+    }
+
+    /**
+     * Tells whether a keyword is matched against titles only when typed, rather
+     * than run as a ranked search: plain words, or a regular expression
+     * between slashes. An empty keyword shows the whole scope.
+     * 
+     * @param keyword the trimmed keyword
+     * @return true if typing the keyword filters the list by title
+     */
+    static boolean filtersTitles(String keyword) {
+        return QueryParser.isPlain(keyword) || regexOf(keyword) != null;
+    }
+
+    /**
+     * Compiles a keyword of the form /expression/ into a case-insensitive pattern.
+     * 
+     * @param key the trimmed keyword
+     * @return the pattern, or null if the keyword is not a valid regular expression
+     */
+    private static Pattern regexOf(String key) {
+        if (key.length() < 3 || !key.startsWith("/") || !key.endsWith("/")) {
+            return null;
+        }
+        try {
+            return Pattern.compile(key.substring(1, key.length() - 1), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } catch (PatternSyntaxException e) {
+            LOGGER.fine("Not a valid regular expression, matching it as text: " + key);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the unfiltered summaries of a scope, stamped with the current data version,
+     * and packs their titles for filtering.
+     * 
+     * @param scope {@link LiveSearchService#ALL_RECIPES} or a category ID
+     * @return the loaded snapshot
+     */
+    private ScopeSnapshot loadScope(int scope) {
+        long stamp = ChangeFeed.sequence();
+        List<RecipeSummaryResponse> rawList = scope == LiveSearchService.ALL_RECIPES
+                ? fetchAllRecipeSummary()
+                : categoryService.getRecipeSummaryByCategoryId(scope);
+        List<String> titles = rawList.stream().map(RecipeSummaryResponse::getTitle).toList();
+        return new ScopeSnapshot(scope, stamp, FXCollections.observableArrayList(rawList),
+                new TitleScanKernel(titles, TITLE_FOLD));
+    }
+
+    /**
+     * Puts the items into the ListView and updates the empty label.
+     * 
+     * @param items the recipe summaries to show
+     */
+    private void setItems(ObservableList<RecipeSummaryResponse> items) {
+        shownSnapshot = null;
+        listView.setItems(items);
+        updateEmptyLabelVisibility(items.isEmpty());
+    }
+
+    /**
+     * Shows every item of a snapshot, through a view that follows its patches.
+     * 
+     * @param snapshot the unfiltered scope
+     */
+    private void showSnapshot(ScopeSnapshot snapshot) {
+        setItems(new FilteredList<>(snapshot.items));
+        shownSnapshot = snapshot;
+    }
+
+    /**
+     * Queues the patch of a change reported by the feed. The summary a patch
+     * needs is read in the background; patches are then applied on the JavaFX
+     * thread in the order the changes were published.
+     * 
+     * @param change the change, received on the writing thread
+     */
+    private synchronized void onChange(ChangeFeed.Change change) {
+        boolean needsSummary = change.recipeId() != ChangeFeed.ANY && (change.kind() == ChangeFeed.Kind.INSERT
+                ? change.table() != ChangeFeed.Table.CATEGORY
+                : change.kind() == ChangeFeed.Kind.UPDATE && change.table() == ChangeFeed.Table.RECIPE);
+        patches = patches
+                .thenApplyAsync(ignored -> needsSummary ? recipeService.getRecipeSummaryById(change.recipeId()) : null,
+                        BackgroundExecutor.io())
+                .handle((summary, error) -> {
+                    Platform.runLater(() -> applyChange(change, needsSummary ? summary : null, needsSummary && summary == null));
+                    return null;
+                });
+    }
+
+    /**
+     * Applies a change to every cached scope that has seen all earlier changes,
+     * and to the list shown if it is not one of them. Scopes that missed a change,
+     * or whose patch could not be read, stay out of date and are reloaded when
+     * next shown. A change of recipe {@link ChangeFeed#ANY} leaves every scope
+     * out of date, and the scope shown is reloaded at once. Every patch is idempotent, since a scope loaded while the write
+     * was running may already contain it.
+     * 
+     * @param change the change
+     * @param summary the summary of the changed recipe, null if the change needs none
+     * @param unreadable true if the summary was needed but could not be read
+     */
+    private void applyChange(ChangeFeed.Change change, RecipeSummaryResponse summary, boolean unreadable) {
+        if (change.table() == ChangeFeed.Table.CATEGORY) {
+            if (change.kind() == ChangeFeed.Kind.DELETE) {
+                scopeCache.remove(change.categoryId());
+            }
+            advance(change);
+            return;
+        }
+        if (unreadable) {
+            LOGGER.warning("Could not read the recipe of " + change + ", the lists will be reloaded");
+            return;
+        }
+        if (change.table() == ChangeFeed.Table.RECIPE && change.recipeId() == ChangeFeed.ANY) {
+            // A bulk import: every scope is now out of date, and the one shown is reloaded
+            if (shownSnapshot != null) {
+                showScope(shownSnapshot.scope, true);
+            }
+            return;
+        }
+        RecipeSummaryResponse selected = listView.getSelectionModel().getSelectedItem();
+        boolean shownChanged = false;
+        for (ScopeSnapshot snapshot : scopeCache.values()) {
+            boolean current = snapshot.stamp == change.sequence() - 1;
+            if ((current || snapshot == shownSnapshot) && snapshot.patch(change, summary)) {
+                snapshot.kernel = null;
+                shownChanged |= snapshot == shownSnapshot;
+            }
+        }
+        if (shownSnapshot == null && change.table() == ChangeFeed.Table.RECIPE) {
+            shownChanged = patchShown(change, summary);
+        }
+        advance(change);
+        if (!shownChanged) {
+            return;
+        }
+        if (selected != null && summary != null && selected.getRecipeId() == summary.getRecipeId()) {
+            selectRecipe(summary.getRecipeId());
+        }
+        updateEmptyLabelVisibility(listView.getItems().isEmpty());
+    }
+
+    /**
+     * Patches a filtered or searched list, which no snapshot backs: an edited
+     * recipe is updated in place and a deleted one removed. New recipes and
+     * category assignments are left out, as the list may not be showing them.
+     * 
+     * @return true if the list changed
+     */
+    private boolean patchShown(ChangeFeed.Change change, RecipeSummaryResponse summary) {
+        ObservableList<RecipeSummaryResponse> items = listView.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getRecipeId() != change.recipeId()) {
+                continue;
+            }
+            if (change.kind() == ChangeFeed.Kind.DELETE) {
+                items.remove(i);
+                return true;
+            }
+            if (change.kind() == ChangeFeed.Kind.UPDATE) {
+                items.set(i, summary);
+                return true;
+            }
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Records that a change was applied to every scope that was current before it.
+     */
+    private void advance(ChangeFeed.Change change) {
+        for (ScopeSnapshot snapshot : scopeCache.values()) {
+            if (snapshot.stamp == change.sequence() - 1) {
+                snapshot.stamp = change.sequence();
+            }
+        }
+    }
+
+    /**
+     * Unfiltered recipe summaries of one scope, together with the sequence
+     * number of the last {@link ChangeFeed} change they include. The number is
+     * read before loading, so a write racing with the load is patched in again
+     * rather than missed. The kernel holds the folded titles in the same order
+     * as the items, and is rebuilt on first use after a patch.
+     */
+    private static final class ScopeSnapshot {
+        private final int scope;
+        private long stamp;
+        private final ObservableList<RecipeSummaryResponse> items;
+        private TitleScanKernel kernel;
+
+        ScopeSnapshot(int scope, long stamp, ObservableList<RecipeSummaryResponse> items, TitleScanKernel kernel) {
+            this.scope = scope;
+            this.stamp = stamp;
+            this.items = items;
+            this.kernel = kernel;
+        }
+
+        boolean isCurrent() {
+            return stamp == ChangeFeed.sequence();
+        }
+
+        TitleScanKernel kernel() {
+            if (kernel == null) {
+                kernel = new TitleScanKernel(items.stream().map(RecipeSummaryResponse::getTitle).toList(), TITLE_FOLD);
+            }
+            return kernel;
+        }
+
+        /**
+         * Applies a change to the items of this scope.
+         * 
+         * @return true if the items changed
+         */
+        boolean patch(ChangeFeed.Change change, RecipeSummaryResponse summary) {
+            boolean allRecipes = scope == LiveSearchService.ALL_RECIPES;
+            if (change.table() == ChangeFeed.Table.RECIPE) {
+                return switch (change.kind()) {
+                    case INSERT -> allRecipes && append(summary);
+                    case UPDATE -> replace(summary);
+                    case DELETE -> items.removeIf(item -> item.getRecipeId() == change.recipeId());
+                };
+            }
+            if (allRecipes || change.categoryId() != ChangeFeed.ANY && change.categoryId() != scope) {
+                return false;
+            }
+            if (change.kind() == ChangeFeed.Kind.INSERT) {
+                return append(summary);
+            }
+            if (change.recipeId() == ChangeFeed.ANY) {
+                boolean changed = !items.isEmpty();
+                items.clear();
+                return changed;
+            }
+            return items.removeIf(item -> item.getRecipeId() == change.recipeId());
+        }
+
+        private boolean append(RecipeSummaryResponse summary) {
+            if (items.stream().anyMatch(item -> item.getRecipeId() == summary.getRecipeId())) {
+                return false;
+            }
+            return items.add(summary);
+        }
+
+        private boolean replace(RecipeSummaryResponse summary) {
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i).getRecipeId() == summary.getRecipeId()) {
+                    items.set(i, summary);
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     /**
      * Clears the recipe list in the ListView.
      */
     public void clearList() {
-        listView.getItems().clear();
+        listGeneration++;
+        liveSearchService.reset();
+        shownSnapshot = null;
+        listView.setItems(FXCollections.observableArrayList());
         if (centerEmptyLabel != null) {
             centerEmptyLabel.setVisible(false);
             centerEmptyLabel.setManaged(false);
@@ -320,6 +828,14 @@ public class ListViewController implements Initializable {
          * @param recipeId the ID of the selected recipe
          */
         void onRecipeSelected(int recipeId);
+
+        /**
+         * Called when recipes selected in the list were deleted together.
+         * 
+         * @param recipeIds the IDs of the deleted recipes
+         */
+        default void onRecipesDeleted(List<Integer> recipeIds) {
+        }
     }
 
     /**
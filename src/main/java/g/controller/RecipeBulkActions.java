@@ -0,0 +1,243 @@
+package g.controller;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.dto.CategoryResponse;
+import g.dto.RecipeSummaryResponse;
+import g.service.CategoryService;
+import g.service.RecipeService;
+import g.utils.BackgroundExecutor;
+import g.utils.ProgressListener;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+/**
+ * Context menu of the recipe list acting on every selected recipe at once:
+ * delete them, or add them to or remove them from a category. Each action is
+ * a single transaction run on {@link BackgroundExecutor#writer()}, and a
+ * progress window is shown while a large selection is written. The list
+ * itself is patched by the change events of the write.
+ * All methods must be called on the JavaFX application thread.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class RecipeBulkActions {
+
+    private static final Logger LOGGER = Logger.getLogger(RecipeBulkActions.class.getName());
+
+    /** Selections larger than this show a progress window while they are written */
+    private static final int PROGRESS_THRESHOLD = 500;
+
+    /** The list whose selected recipes are acted on */
+    private final ListView<RecipeSummaryResponse> listView;
+
+    /** Service for deleting recipes */
+    private final RecipeService recipeService;
+
+    /** Service for category operations */
+    private final CategoryService categoryService;
+
+    /** Told the IDs of the recipes deleted, once their delete has committed */
+    private final Consumer<List<Integer>> onDeleted;
+
+    /**
+     * Constructs the actions of a list.
+     *
+     * @param listView the list whose selected recipes are acted on
+     * @param recipeService the service for deleting recipes
+     * @param categoryService the service for category operations
+     * @param onDeleted told the IDs of the recipes deleted
+     */
+    public RecipeBulkActions(ListView<RecipeSummaryResponse> listView, RecipeService recipeService,
+                             CategoryService categoryService, Consumer<List<Integer>> onDeleted) {
+        this.listView = listView;
+        this.recipeService = recipeService;
+        this.categoryService = categoryService;
+        this.onDeleted = onDeleted;
+    }
+
+    /**
+     * Builds the context menu. The category submenus are filled each time the
+     * menu opens, so they list the categories as they are then.
+     *
+     * @return the context menu to set on the list
+     */
+    public ContextMenu createMenu() {
+        MenuItem delete = new MenuItem("Delete Selected");
+        delete.setOnAction(e -> deleteSelected());
+        Menu addTo = new Menu("Add Selected to Category");
+        Menu removeFrom = new Menu("Remove Selected from Category");
+
+        ContextMenu menu = new ContextMenu(delete, addTo, removeFrom);
+        menu.setOnShowing(e -> {
+            boolean empty = listView.getSelectionModel().getSelectedItems().isEmpty();
+            delete.setDisable(empty);
+            addTo.setDisable(empty);
+            removeFrom.setDisable(empty);
+            addTo.getItems().clear();
+            removeFrom.getItems().clear();
+            for (CategoryResponse category : categoryService.getAllCategories()) {
+                MenuItem add = new MenuItem(category.getCategoryName());
+                add.setOnAction(event -> addSelectedTo(category));
+                addTo.getItems().add(add);
+                MenuItem remove = new MenuItem(category.getCategoryName());
+                remove.setOnAction(event -> removeSelectedFrom(category));
+                removeFrom.getItems().add(remove);
+            }
+        });
+        return menu;
+    }
+
+    /**
+     * Deletes the selected recipes after the user confirms.
+     */
+    private void deleteSelected() {
+        List<Integer> recipeIds = selectedRecipeIds();
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Confirm");
+        confirm.setHeaderText(null);
+        confirm.setContentText("Are you sure you want to delete " + recipeIds.size()
+                + (recipeIds.size() == 1 ? " recipe?" : " recipes?"));
+        var result = confirm.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return;
+        }
+        run("Deleting recipes", recipeIds,
+                progress -> recipeService.deleteRecipes(recipeIds, progress),
+                deleted -> {
+                    if (deleted < 0) {
+                        showError("Failed to delete the selected recipes, nothing was deleted");
+                    } else {
+                        onDeleted.accept(recipeIds);
+                    }
+                });
+    }
+
+    /**
+     * Adds the selected recipes to a category.
+     */
+    private void addSelectedTo(CategoryResponse category) {
+        List<Integer> recipeIds = selectedRecipeIds();
+        run("Adding recipes to " + category.getCategoryName(), recipeIds,
+                progress -> categoryService.addRecipesToCategories(recipeIds, List.of(category.getCategoryId()), progress),
+                added -> {
+                    if (added < 0) {
+                        showError("Failed to add the selected recipes to " + category.getCategoryName());
+                    }
+                });
+    }
+
+    /**
+     * Removes the selected recipes from a category.
+     */
+    private void removeSelectedFrom(CategoryResponse category) {
+        List<Integer> recipeIds = selectedRecipeIds();
+        run("Removing recipes from " + category.getCategoryName(), recipeIds,
+                progress -> categoryService.removeRecipesFromCategories(recipeIds, List.of(category.getCategoryId()), progress),
+                removed -> {
+                    if (removed < 0) {
+                        showError("Failed to remove the selected recipes from " + category.getCategoryName());
+                    }
+                });
+    }
+
+    /**
+     * Gets the IDs of the selected recipes, in list order.
+     */
+    private List<Integer> selectedRecipeIds() {
+        return listView.getSelectionModel().getSelectedItems().stream()
+                .map(RecipeSummaryResponse::getRecipeId)
+                .toList();
+    }
+
+    /**
+     * Runs a bulk write on the writer thread, showing its progress if the
+     * selection is large, and hands its result back on the JavaFX thread.
+     *
+     * @param title the title of the progress window
+     * @param recipeIds the recipes written
+     * @param work the write, given the listener to report its progress to
+     * @param done called with the result of the write
+     */
+    private void run(String title, List<Integer> recipeIds, Function<ProgressListener, Integer> work,
+                     Consumer<Integer> done) {
+        ProgressBar bar = recipeIds.size() > PROGRESS_THRESHOLD ? new ProgressBar(0) : null;
+        Stage progressStage = bar != null ? progressWindow(listView.getScene().getWindow(), title, bar,
+                Modality.APPLICATION_MODAL) : null;
+        ProgressListener progress = bar == null
+                ? ProgressListener.NONE
+                : (handled, total) -> Platform.runLater(() -> bar.setProgress((double) handled / total));
+        long start = System.nanoTime();
+        BackgroundExecutor.writer().execute(() -> {
+            int result;
+            try {
+                result = work.apply(progress);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, title + " failed", e);
+                result = -1;
+            }
+            int outcome = result;
+            LOGGER.info(title + ": " + recipeIds.size() + " recipes, result " + outcome + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            Platform.runLater(() -> {
+                if (progressStage != null) {
+                    progressStage.close();
+                }
+                done.accept(outcome);
+            });
+        });
+    }
+
+    /**
+     * Opens a window with a progress bar. Writes make it modal, so the list
+     * is not edited while they run; work that leaves the recipes alone, such
+     * as an export, does not. The caller closes it when the work is done.
+     *
+     * @param owner the window the progress window belongs to
+     * @param title the title of the work
+     * @param bar the progress bar to show
+     * @param modality whether the window blocks the rest of the application
+     * @return the progress window
+     */
+    static Stage progressWindow(Window owner, String title, ProgressBar bar, Modality modality) {
+        bar.setPrefWidth(300);
+        VBox content = new VBox(10, new Label(title + "..."), bar);
+        content.setPadding(new Insets(20));
+
+        Stage stage = new Stage();
+        stage.setTitle(title);
+        stage.initOwner(owner);
+        stage.initModality(modality);
+        stage.setOnCloseRequest(e -> e.consume());
+        stage.setScene(new Scene(content));
+        stage.show();
+        return stage;
+    }
+
+    /**
+     * Shows an error alert.
+     */
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR, message);
+        alert.setTitle("Error");
+        alert.showAndWait();
+    }
+}
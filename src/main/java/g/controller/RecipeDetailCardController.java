@@ -1,6 +1,5 @@
 package g.controller;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
@@ -12,6 +11,7 @@ import g.model.Ingredient;
 import g.model.Recipe;
 import g.service.CalculateService;
 import g.service.RecipeService;
+import g.utils.ImageCache;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -53,8 +53,8 @@ public class RecipeDetailCardController implements Initializable {
     /** The current recipe ID */
     private int recipeId;
 
-    /** User image directory */
-    private static final String USER_IMG_DIR = System.getProperty("user.home") + File.separator + ".cookbook" + File.separator + "imgs";
+    /** The current recipe with its ingredients and categories, shared with scaling and the dialogs */
+    private RecipeDetailResponse recipeDetail;
 
     /** Update view controller */
     @FXML
@@ -163,18 +163,33 @@ public class RecipeDetailCardController implements Initializable {
         if (serveSpinner.getValueFactory() == null) {
             serveSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 100, 1));
         }
+        serveSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (recipeDetail != null && newValue != null) {
+                updateIngredientsBox(newValue);
+            }
+        });
         System.out.println("RecipeDetailCardController initialized");
     }
 
     /**
-     * Loads recipe data by recipe ID and updates the detail view.
+     * Gets the ID of the recipe the card was last loaded with.
+     * 
+     * @return the recipe ID
+     */
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    /**
+     * Loads recipe data by recipe ID and updates the detail view. The detail and
+     * image usually come warm from the caches filled by {@link DetailPrefetcher}.
      * 
      * @param recipeId The recipe ID
      */
     @FXML
     public void loadRecipeData(int recipeId) {
         this.recipeId = recipeId;
-        RecipeDetailResponse recipeDetail = recipeService.getRecipeById(recipeId);
+        this.recipeDetail = recipeService.getRecipeById(recipeId);
         Recipe recipe = recipeDetail.getRecipe();
         this.title.setText(recipe.getTitle());
         this.prepTime.setText(String.valueOf(recipe.getPrepTime()));
@@ -183,22 +198,9 @@ public class RecipeDetailCardController implements Initializable {
                 recipe.getServe());
         serveSpinner.setValueFactory(valueFactory);
         serveSpinner.setEditable(true);
-        serveSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
-            updateIngredientsBox(recipeId, newValue);
-        });
-        updateIngredientsBox(recipeId, serveSpinner.getValue());
+        updateIngredientsBox(serveSpinner.getValue());
         instructionsLabel.setText(recipe.getInstruction());
-        Image img = null;
-        if (recipe.getImgAddr() != null && !recipe.getImgAddr().isEmpty()) {
-            String imgFileName = recipe.getImgAddr();
-            if (imgFileName.startsWith("imgs/")) {
-                imgFileName = imgFileName.substring(5);
-            }
-            File imgFile = new File(USER_IMG_DIR + File.separator + imgFileName);
-            if (imgFile.exists() && imgFile.isFile()) {
-                img = new Image(imgFile.toURI().toString(), true);
-            }
-        }
+        Image img = ImageCache.get(recipe.getImgAddr(), true);
         if (img != null) {
             imgView.setImage(img);
         } else {
@@ -242,12 +244,22 @@ public class RecipeDetailCardController implements Initializable {
             this.updateViewController = loader.getController();
             Scene scene = new Scene(root, 1000, 600);
             scene.getStylesheets().add(getClass().getResource("/g/app.css").toExternalForm());
-            RecipeDetailResponse recipeDetail = recipeService.getRecipeById(recipeId);
-            updateViewController.setPreviousData(recipeDetail);
-            updateViewController.setUpdateCallback(() -> {
-                loadRecipeData(recipeId);
-                if (callback != null) {
-                    callback.onRecipeUpdated(recipeId);
+            updateViewController.setPreviousData(recipeService.getRecipeById(recipeId));
+            int updatedRecipeId = recipeId;
+            updateViewController.setUpdateCallback(new UpdateViewController.UpdateCallback() {
+                @Override
+                public void onUpdateSuccess() {
+                    loadRecipeData(updatedRecipeId);
+                    if (callback != null) {
+                        callback.onRecipeUpdated(updatedRecipeId);
+                    }
+                }
+
+                @Override
+                public void onUpdateFailed() {
+                    if (recipeId == updatedRecipeId) {
+                        loadRecipeData(updatedRecipeId);
+                    }
                 }
             });
             Stage stage = new Stage();
@@ -295,7 +307,7 @@ public class RecipeDetailCardController implements Initializable {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/g/AddRecipeToCategory.fxml"));
             Parent root = loader.load();
             AddRecipeToCategoryController controller = loader.getController();
-            controller.setRecipeId(recipeId);
+            controller.setRecipeDetail(recipeService.getRecipeById(recipeId));
             controller.setOnCategorized(() -> {
                 if (callback != null) {
                     callback.onRecipeCategorized();
@@ -335,13 +347,12 @@ public class RecipeDetailCardController implements Initializable {
     }
 
     /**
-     * Updates the ingredients display based on servings.
+     * Updates the ingredients display of the current recipe based on servings.
      * 
-     * @param recipeId The recipe ID
      * @param serve    The number of servings
      */
-    private void updateIngredientsBox(int recipeId, int serve) {
-        CalculateResponse scaledIngredients = calculateService.IngredientCalculate(recipeId, serve);
+    private void updateIngredientsBox(int serve) {
+        CalculateResponse scaledIngredients = calculateService.IngredientCalculate(recipeDetail, serve);
         List<Ingredient> ingredientsList = scaledIngredients.getIngredients();
         ingredientsBox.getChildren().clear();
         GridPane grid = new GridPane();
@@ -1,14 +1,35 @@
 package g.controller;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import g.dto.FacetCountsResponse;
+import g.service.DataVersions;
+import g.service.DataVersions.Table;
+import g.service.FacetService;
+import g.service.QuerySuggestionService;
+import g.utils.BackgroundExecutor;
+import javafx.application.Platform;
+import javafx.animation.PauseTransition;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Tooltip;
+import javafx.util.Duration;
 
 /**
  * Controller for the search bar component.
  * This class handles search functionality including performing searches,
- * clearing search results, and managing search callbacks.
+ * clearing search results, and managing search callbacks. Searches also
+ * run as the user types, debounced so that only a pause in typing fires one.
+ * Titles and past queries are suggested below the field, most chosen first.
+ * Submitted keywords may use the query language of {@link g.service.query.QueryParser};
+ * the total time and servings filters next to the field add clauses of that language.
+ * Each time filter shows how many recipes match the search with it selected,
+ * once the search runs over titles, ingredients and instructions; while typed
+ * words only filter the list by title, no counts are shown.
  * 
  * @author Junzhe Luo
  * @since 2025-6-15
@@ -27,22 +48,101 @@ public class SearchBarController {
     @FXML
     private Button clearButton;
 
+    /** Total time range filter */
+    @FXML
+    private ComboBox<String> timeFilter;
+
+    /** Servings range filter */
+    @FXML
+    private ComboBox<String> servingsFilter;
+
     /** Search callback */
     private SearchCallback callback;
 
+    /** Summary of the query language shown when hovering the search field */
+    private static final String QUERY_HELP =
+            "Words match titles, ingredients and instructions.\n"
+            + "Filters: title:curry ingredient:coconut category:Dinner\n"
+            + "time:<30 prep:<=10 cook:>60 serves:6-8\n"
+            + "Combine with OR, exclude with -category:Spicy, quote names with spaces.";
+
+    /** Delay after the last keystroke before a search is fired */
+    private static final Duration DEBOUNCE_DELAY = Duration.millis(250);
+
+    /** Timer restarted on every keystroke, fires the search when it elapses */
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE_DELAY);
+
+    /** Query of the last search fired, with its filters, used to skip duplicate searches */
+    private String lastKeyword = "";
+
+    /** Service for query suggestions */
+    private final QuerySuggestionService suggestionService = new QuerySuggestionService();
+
+    /** Suggestion popup of the search field */
+    private AutocompleteSupport suggestions;
+
+    /** Service for the counts shown next to filters and categories */
+    private final FacetService facetService = new FacetService();
+
+    /** Counts of the last facet query, null until loaded */
+    private FacetCountsResponse facets;
+
+    /** Keyword and servings clause the facets were counted for */
+    private String facetQuery;
+
+    /** Data version the facets were counted at */
+    private long facetStamp;
+
+    /** Incremented for each facet count started; stale counts are dropped */
+    private long facetGeneration;
+
+    /** Category the time filter counts are shown for, null for all recipes */
+    private Integer facetScope;
+
+    /** Whether filter labels are being replaced, so their change is not a user action */
+    private boolean relabeling;
+
+    /**
+     * Initializes the controller and starts listening for keystrokes.
+     */
+    @FXML
+    public void initialize() {
+        debounce.setOnFinished(event -> fireSearch(false));
+        searchField.textProperty().addListener((obs, oldText, newText) -> debounce.playFromStart());
+        suggestions = AutocompleteSupport.attach(searchField, suggestionService::suggest, chosen -> performSearch(null));
+        suggestionService.preload();
+        searchField.setTooltip(new Tooltip(QUERY_HELP));
+        for (TimeFilter filter : TimeFilter.values()) {
+            timeFilter.getItems().add(filter.label);
+        }
+        timeFilter.getSelectionModel().selectFirst();
+        for (ServingsFilter filter : ServingsFilter.values()) {
+            servingsFilter.getItems().add(filter.label);
+        }
+        servingsFilter.getSelectionModel().selectFirst();
+        refreshFacets("");
+    }
+
     /**
-     * Performs a search operation using the current search field text.
+     * Submits the current search field text as a full search.
      * This method is called when the search button is clicked or
      * when the enter key is pressed in the search field.
      * 
-     * @param event the action event that triggered the search
+     * @param event the action event that triggered the search, null when a suggestion was chosen
      */
     @FXML
     public void performSearch(ActionEvent event) {
-        String keyword = searchField.getText();
+        debounce.stop();
+        suggestions.hide();
+        String text = searchField.getText();
+        String keyword = text == null ? "" : text.trim();
+        String query = withFilters(keyword);
+        lastKeyword = query;
+        suggestionService.recordSelection(keyword);
         if (callback != null) {
-            callback.onSearch(keyword == null ? "" : keyword.trim());
+            callback.onSubmit(query);
         }
+        refreshFacets(keyword);
     }
 
     /**
@@ -54,8 +154,205 @@ public class SearchBarController {
     @FXML
     public void clearSearch(ActionEvent event) {
         searchField.clear();
+        debounce.stop();
+        fireSearch(true);
+    }
+
+    /**
+     * Fires a search with the current search field text.
+     * 
+     * @param force true to search even if the keyword has not changed
+     */
+    private void fireSearch(boolean force) {
+        String text = searchField.getText();
+        String keyword = text == null ? "" : text.trim();
+        String query = withFilters(keyword);
+        if (!force && query.equals(lastKeyword)) {
+            return;
+        }
+        lastKeyword = query;
         if (callback != null) {
-            callback.onSearch(""); 
+            callback.onSearch(query);
+        }
+        if (!query.isEmpty() && ListViewController.filtersTitles(query)) {
+            hideFacets();
+        } else {
+            refreshFacets(keyword);
+        }
+    }
+
+    /**
+     * Searches again when a range filter changes.
+     *
+     * @param event the action event of the filter
+     */
+    @FXML
+    public void filterChanged(ActionEvent event) {
+        if (relabeling) {
+            return;
+        }
+        debounce.stop();
+        fireSearch(false);
+    }
+
+    /**
+     * Sets the category whose matches the time filter counts show.
+     *
+     * @param categoryId the category ID, or null for all recipes
+     */
+    public void setFacetScope(Integer categoryId) {
+        facetScope = categoryId;
+        showFacets();
+    }
+
+    /**
+     * Appends the query clauses of the selected range filters to the keyword,
+     * so they run as indexed predicates together with the keyword and the
+     * category of the list.
+     *
+     * @param keyword the trimmed keyword
+     * @return the keyword followed by the filter clauses
+     */
+    private String withFilters(String keyword) {
+        return join(join(keyword, selectedTimeFilter().clause), selectedServingsFilter().clause);
+    }
+
+    /**
+     * Counts the matches of the keyword and the servings filter by category and
+     * total time, in the background. The time filter is left out of the count
+     * and applied to the counts instead, so every time filter shows how many
+     * matches selecting it would give, and changing it needs no new count.
+     *
+     * @param keyword the trimmed keyword
+     */
+    private void refreshFacets(String keyword) {
+        String query = join(keyword, selectedServingsFilter().clause);
+        long stamp = DataVersions.stamp(Table.RECIPE, Table.CATEGORY_RECIPE);
+        if (facets != null && query.equals(facetQuery) && stamp == facetStamp) {
+            showFacets();
+            return;
+        }
+        long generation = ++facetGeneration;
+        CompletableFuture.supplyAsync(() -> facetService.countFacets(query), BackgroundExecutor.io())
+                .thenAccept(counted -> Platform.runLater(() -> {
+                    if (generation == facetGeneration) {
+                        facets = counted;
+                        facetQuery = query;
+                        facetStamp = stamp;
+                        showFacets();
+                    }
+                }));
+    }
+
+    /**
+     * Removes the counts from the time filter labels and the categories, for a
+     * list filtered by title, which the counts over all text fields do not
+     * describe. A count still running is dropped.
+     */
+    private void hideFacets() {
+        facetGeneration++;
+        facets = null;
+        facetQuery = null;
+        relabeling = true;
+        try {
+            int selected = timeFilter.getSelectionModel().getSelectedIndex();
+            for (TimeFilter filter : TimeFilter.values()) {
+                timeFilter.getItems().set(filter.ordinal(), filter.label);
+            }
+            timeFilter.getSelectionModel().select(selected);
+        } finally {
+            relabeling = false;
+        }
+        if (callback != null) {
+            callback.onFacetCounts(null);
+        }
+    }
+
+    /**
+     * Shows the facet counts in the time filter labels and passes the category
+     * counts under the selected time filter to the callback.
+     */
+    private void showFacets() {
+        if (facets == null) {
+            return;
+        }
+        relabeling = true;
+        try {
+            int selected = timeFilter.getSelectionModel().getSelectedIndex();
+            for (TimeFilter filter : TimeFilter.values()) {
+                int count = facets.getCount(facetScope, filter.fromBucket, filter.toBucket);
+                timeFilter.getItems().set(filter.ordinal(), filter.label + " (" + count + ")");
+            }
+            timeFilter.getSelectionModel().select(selected);
+        } finally {
+            relabeling = false;
+        }
+        if (callback != null) {
+            TimeFilter filter = selectedTimeFilter();
+            callback.onFacetCounts(facets.getCategoryCounts(filter.fromBucket, filter.toBucket));
+        }
+    }
+
+    private TimeFilter selectedTimeFilter() {
+        int index = timeFilter.getSelectionModel().getSelectedIndex();
+        return index < 0 ? TimeFilter.ANY : TimeFilter.values()[index];
+    }
+
+    private ServingsFilter selectedServingsFilter() {
+        int index = servingsFilter.getSelectionModel().getSelectedIndex();
+        return index < 0 ? ServingsFilter.ANY : ServingsFilter.values()[index];
+    }
+
+    /**
+     * Joins two query parts with a space, skipping empty parts.
+     */
+    private static String join(String first, String second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        return second.isEmpty() ? first : first + " " + second;
+    }
+
+    /**
+     * Total time filters, with the query clause each adds and the
+     * {@link FacetCountsResponse} time buckets it covers.
+     */
+    private enum TimeFilter {
+        ANY("Any time", "", 0, FacetCountsResponse.TIME_BUCKETS - 1),
+        UP_TO_15("Up to 15 min", "time:<=15", 0, 0),
+        UP_TO_30("Up to 30 min", "time:<=30", 0, 1),
+        UP_TO_60("Up to 1 hour", "time:<=60", 0, 2),
+        OVER_60("Over 1 hour", "time:>60", 3, 3);
+
+        private final String label;
+        private final String clause;
+        private final int fromBucket;
+        private final int toBucket;
+
+        TimeFilter(String label, String clause, int fromBucket, int toBucket) {
+            this.label = label;
+            this.clause = clause;
+            this.fromBucket = fromBucket;
+            this.toBucket = toBucket;
+        }
+    }
+
+    /**
+     * Servings filters, with the query clause each adds.
+     */
+    private enum ServingsFilter {
+        ANY("Any servings", ""),
+        ONE_TO_TWO("Serves 1-2", "serves:1-2"),
+        THREE_TO_FIVE("Serves 3-5", "serves:3-5"),
+        SIX_TO_EIGHT("Serves 6-8", "serves:6-8"),
+        NINE_OR_MORE("Serves 9+", "serves:>=9");
+
+        private final String label;
+        private final String clause;
+
+        ServingsFilter(String label, String clause) {
+            this.label = label;
+            this.clause = clause;
         }
     }
 
@@ -79,8 +376,29 @@ public class SearchBarController {
         /**
          * Called when a search operation is performed.
          * 
-         * @param keyword the search keyword (trimmed and non-null)
+         * @param keyword the search keyword (trimmed and non-null), followed by the clauses of the selected filters
          */
         void onSearch(String keyword);
+
+        /**
+         * Called when the user explicitly submits a search with the search
+         * button or the enter key. Defaults to {@link #onSearch(String)}.
+         * 
+         * @param keyword the search keyword (trimmed and non-null), followed by the clauses of the selected filters
+         */
+        default void onSubmit(String keyword) {
+            onSearch(keyword);
+        }
+
+        /**
+         * Called when the number of matches of the current search in each
+         * category is known, under the selected time filter, or when the counts
+         * no longer apply to the list. Does nothing by default.
+         * 
+         * @param categoryCounts the number of matches by category ID, categories without matches are absent;
+         *        null if no counts are to be shown
+         */
+        default void onFacetCounts(Map<Integer, Integer> categoryCounts) {
+        }
     }
 }
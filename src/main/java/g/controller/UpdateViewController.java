@@ -7,13 +7,19 @@ import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import g.dto.RecipeDetailRequest;
 import g.dto.RecipeDetailResponse;
 import g.model.Ingredient;
 import g.model.Recipe;
+import g.service.IngredientSuggestionService;
 import g.service.RecipeService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -39,6 +45,9 @@ public class UpdateViewController {
     /** Service for recipe operations */
     private final RecipeService recipeService;
 
+    /** Service for ingredient name and unit suggestions */
+    private final IngredientSuggestionService suggestionService;
+
     /** Previous data */
     @FXML
     private RecipeDetailResponse previousData;
@@ -104,6 +113,8 @@ public class UpdateViewController {
      */
     public UpdateViewController() {
         this.recipeService = new RecipeService();
+        this.suggestionService = new IngredientSuggestionService();
+        this.suggestionService.preload();
     }
 
     /**
@@ -161,6 +172,8 @@ public class UpdateViewController {
 
                 TextField unitField = new TextField(ingredient.getIngredientUnit());
                 unitField.setPromptText("Unit");
+                AutocompleteSupport.attach(nameField, suggestionService::suggestNames);
+                AutocompleteSupport.attach(unitField, suggestionService::suggestUnits);
 
                 Button addButton = new Button("+");
                 addButton.getStyleClass().add("button");
@@ -279,6 +292,8 @@ public class UpdateViewController {
 
         TextField unitField = new TextField();
         unitField.setPromptText("Unit");
+        AutocompleteSupport.attach(nameField, suggestionService::suggestNames);
+        AutocompleteSupport.attach(unitField, suggestionService::suggestUnits);
 
         Button addButton = new Button("+");
         addButton.getStyleClass().add("button");
@@ -304,6 +319,24 @@ public class UpdateViewController {
         updateRemoveButtons(); 
     }
     
+    /**
+     * Fills the ingredient rows from pasted ingredient lines, one per line,
+     * using the rows left empty before adding new ones.
+     */
+    @FXML
+    private void pasteIngredientsClicked() {
+        IngredientPaste.ask(ingredientContainer.getScene().getWindow()).ifPresent(text -> {
+            List<IngredientPaste.Row> rows = IngredientPaste.parse(text);
+            if (rows.isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING, "No ingredient lines found");
+                alert.setTitle("Warning");
+                alert.showAndWait();
+                return;
+            }
+            IngredientPaste.fill(ingredientContainer, rows, this::addIngredient);
+        });
+    }
+
     /**
      * Updates the state of remove buttons for all ingredient rows. Only enabled if more than one row exists.
      */
@@ -501,20 +534,64 @@ public class UpdateViewController {
             }
         }
 
-        RecipeDetailRequest request = new RecipeDetailRequest(recipe, ingredients, deletedPairIds);
-        boolean success = recipeService.updateRecipe(request);
-        if (success) {
-            Alert info = new Alert(Alert.AlertType.INFORMATION, "Recipe updated successfully!", ButtonType.OK);
+        Set<Recipe.Field> changedFields = recipe.changedFields(previousData.getRecipe());
+        Set<Integer> changedPairIds = changedPairIds(ingredients);
+        boolean addedIngredients = ingredients.stream().anyMatch(ingredient -> ingredient.getPairId() <= 0);
+        if (changedFields.isEmpty() && changedPairIds.isEmpty() && deletedPairIds.isEmpty() && !addedIngredients) {
+            Alert info = new Alert(Alert.AlertType.INFORMATION, "No changes to save", ButtonType.OK);
             info.setTitle("Info");
             info.showAndWait();
+            ((Stage) submitButton.getScene().getWindow()).close();
+            return;
+        }
 
-            if (updateCallback != null) {
-                updateCallback.onUpdateSuccess();
+        RecipeDetailRequest request = new RecipeDetailRequest(recipe, ingredients, deletedPairIds,
+                changedFields, changedPairIds);
+        UpdateCallback callback = updateCallback;
+        recipeService.updateRecipeLater(request).thenAccept(saved -> Platform.runLater(() -> {
+            if (saved) {
+                Alert info = new Alert(Alert.AlertType.INFORMATION, "Recipe updated successfully!", ButtonType.OK);
+                info.setTitle("Info");
+                info.show();
+            } else {
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Failed to save the recipe, the changes were undone");
+                alert.setTitle("Error");
+                alert.show();
+                if (callback != null) {
+                    callback.onUpdateFailed();
+                }
             }
+        }));
 
-            Stage stage = (Stage) submitButton.getScene().getWindow();
-            stage.close();
+        // The update is shown at once; the confirmation above waits until it is written
+        if (updateCallback != null) {
+            updateCallback.onUpdateSuccess();
         }
+
+        Stage stage = (Stage) submitButton.getScene().getWindow();
+        stage.close();
+    }
+
+    /**
+     * Finds the existing ingredients the user edited, by comparing each row
+     * with the ingredient it was loaded from.
+     *
+     * @param ingredients the ingredients read from the form
+     * @return the pair IDs of the edited ingredients
+     */
+    private Set<Integer> changedPairIds(List<Ingredient> ingredients) {
+        Map<Integer, Ingredient> loaded = new HashMap<>();
+        for (Ingredient ingredient : previousData.getIngredients()) {
+            loaded.put(ingredient.getPairId(), ingredient);
+        }
+        Set<Integer> changed = new HashSet<>();
+        for (Ingredient ingredient : ingredients) {
+            int pairId = ingredient.getPairId();
+            if (pairId > 0 && (!loaded.containsKey(pairId) || !ingredient.sameContent(loaded.get(pairId)))) {
+                changed.add(pairId);
+            }
+        }
+        return changed;
     }
 
     /**
@@ -525,9 +602,17 @@ public class UpdateViewController {
      */
     public interface UpdateCallback {
         /**
-         * Called when the update recipe is successful.
+         * Called when the update recipe is successful. The update is shown at
+         * once and written in the background.
          */
         void onUpdateSuccess();
+
+        /**
+         * Called when an update already shown could not be written, so the
+         * recipe should be shown as stored again.
+         */
+        default void onUpdateFailed() {
+        }
     }
 
     /** Update callback */
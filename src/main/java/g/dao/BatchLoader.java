@@ -0,0 +1,147 @@
+package g.dao;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import g.utils.BackgroundExecutor;
+
+/**
+ * Merges lookups by ID into batched queries, in the manner of a DataLoader.
+ * A lookup registers its ID and waits; the first ID registered after a
+ * dispatch queues the next one on {@link BackgroundExecutor#batch()}, so every
+ * ID registered by any thread before that task runs, or while the task before
+ * it is still querying, is loaded by one query. Lookups of an ID already being
+ * loaded share its future instead of queueing it again.
+ * <p>
+ * The batch thread plays the part of a DataLoader's event loop tick. It only
+ * runs the batch function, so lookups blocking on it from the I/O threads
+ * cannot deadlock, and the IDs of one {@link #getAll(int[])} are always
+ * registered together and loaded by the same query.
+ *
+ * @param <V> the type of the loaded values
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+final class BatchLoader<V> {
+
+    /** Loads the values of several IDs, returning null if the query failed */
+    private final Function<int[], Map<Integer, V>> batchFunction;
+
+    /** Futures of every ID registered and not yet loaded */
+    private final Map<Integer, CompletableFuture<V>> inFlight = new HashMap<>();
+
+    /** Futures of the IDs registered since the last dispatch */
+    private Map<Integer, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /** Whether a dispatch is queued and has not taken the pending IDs yet */
+    private boolean scheduled;
+
+    /**
+     * Constructs a loader.
+     *
+     * @param batchFunction loads the values of several IDs, omitting IDs not
+     *        found and returning null if the query failed
+     */
+    BatchLoader(Function<int[], Map<Integer, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    /**
+     * Loads one value, together with any other IDs registered meanwhile.
+     *
+     * @param id the ID to load
+     * @return the value, or null if it was not found or the query failed
+     */
+    V get(int id) {
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = register(id);
+            schedule();
+        }
+        return future.join();
+    }
+
+    /**
+     * Loads several values, in as few queries as the IDs already in flight allow.
+     *
+     * @param ids the IDs to load
+     * @return the values found by ID; missing IDs are absent
+     */
+    Map<Integer, V> getAll(int[] ids) {
+        Map<Integer, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        synchronized (this) {
+            for (int id : ids) {
+                futures.put(id, register(id));
+            }
+            schedule();
+        }
+        Map<Integer, V> values = new HashMap<>();
+        for (Map.Entry<Integer, CompletableFuture<V>> entry : futures.entrySet()) {
+            V value = entry.getValue().join();
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Registers an ID for the next dispatch, or joins the load already covering it.
+     * Must be called holding the lock.
+     */
+    private CompletableFuture<V> register(int id) {
+        CompletableFuture<V> future = inFlight.get(id);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            inFlight.put(id, future);
+            pending.put(id, future);
+        }
+        return future;
+    }
+
+    /**
+     * Queues a dispatch of the pending IDs, unless one is queued already.
+     * Must be called holding the lock.
+     */
+    private void schedule() {
+        if (!scheduled && !pending.isEmpty()) {
+            scheduled = true;
+            BackgroundExecutor.batch().execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Loads every pending ID with one call of the batch function, on the
+     * batch thread.
+     */
+    private void dispatch() {
+        Map<Integer, CompletableFuture<V>> batch;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        int[] ids = new int[batch.size()];
+        int i = 0;
+        for (int id : batch.keySet()) {
+            ids[i++] = id;
+        }
+        Map<Integer, V> values = null;
+        try {
+            values = batchFunction.apply(ids);
+        } finally {
+            synchronized (this) {
+                inFlight.keySet().removeAll(batch.keySet());
+            }
+            for (Map.Entry<Integer, CompletableFuture<V>> entry : batch.entrySet()) {
+                entry.getValue().complete(values == null ? null : values.get(entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package g.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import g.model.Category;
+
+/**
+ * Resident copy of the category table, owned by {@link CategoryDAO}.
+ * The table is read once, the first time a category is looked up, and kept
+ * as an immutable {@link Snapshot}. Creating, renaming or deleting a category
+ * publishes a new snapshot derived from the current one, so readers never
+ * lock and never see a half-applied change. Writes are idempotent: applying
+ * one that the initial load already saw leaves the snapshot unchanged.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+final class CategoryCatalog {
+
+    /** The current snapshot, null until loaded */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Gets the current snapshot, loading it on first use.
+     *
+     * @param loader reads every category from the database, returning null on error
+     * @return the snapshot, or null if it could not be loaded
+     */
+    Snapshot snapshot(Supplier<List<Category>> loader) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                List<Category> categories = loader.get();
+                if (categories == null) {
+                    return null;
+                }
+                snapshot = Snapshot.of(categories);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Records a created or renamed category.
+     *
+     * @param categoryId the category ID
+     * @param categoryName the category name
+     */
+    synchronized void put(int categoryId, String categoryName) {
+        if (snapshot != null) {
+            snapshot = snapshot.with(categoryId, categoryName);
+        }
+    }
+
+    /**
+     * Records a deleted category.
+     *
+     * @param categoryId the category ID
+     */
+    synchronized void remove(int categoryId) {
+        if (snapshot != null) {
+            snapshot = snapshot.without(categoryId);
+        }
+    }
+
+    /**
+     * Drops the snapshot after a write that could not be applied to it,
+     * so the table is read again on next use.
+     */
+    synchronized void reset() {
+        snapshot = null;
+    }
+
+    /**
+     * Immutable state of the category table. Categories are kept in ID order in
+     * two parallel arrays, indexed by an open-addressing table from ID to array
+     * position, so a lookup by ID is a few array reads without boxing.
+     */
+    static final class Snapshot {
+
+        private final int[] ids;
+        private final String[] names;
+
+        /** Position + 1 of the category hashed to each slot, 0 for an empty slot */
+        private final int[] slots;
+
+        private Snapshot(int[] ids, String[] names) {
+            this.ids = ids;
+            this.names = names;
+            int capacity = Integer.highestOneBit(Math.max(4, ids.length * 2 - 1)) << 1;
+            this.slots = new int[capacity];
+            for (int i = 0; i < ids.length; i++) {
+                int slot = slotOf(ids[i]);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        /**
+         * Builds a snapshot from rows read from the database.
+         */
+        static Snapshot of(List<Category> categories) {
+            Category[] sorted = categories.toArray(new Category[0]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a.getCategoryId(), b.getCategoryId()));
+            int[] ids = new int[sorted.length];
+            String[] names = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = sorted[i].getCategoryId();
+                names[i] = sorted[i].getCategoryName();
+            }
+            return new Snapshot(ids, names);
+        }
+
+        /**
+         * Gets a category by ID.
+         *
+         * @param categoryId the category ID
+         * @return a new Category, or null if there is no such category
+         */
+        Category get(int categoryId) {
+            int index = indexOf(categoryId);
+            return index < 0 ? null : new Category(ids[index], names[index]);
+        }
+
+        /**
+         * Gets every category, in ID order.
+         *
+         * @return new Category objects the caller may modify
+         */
+        List<Category> getAll() {
+            List<Category> categories = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                categories.add(new Category(ids[i], names[i]));
+            }
+            return categories;
+        }
+
+        /**
+         * Derives a snapshot with a category added or renamed.
+         */
+        Snapshot with(int categoryId, String categoryName) {
+            int index = indexOf(categoryId);
+            if (index >= 0) {
+                if (names[index].equals(categoryName)) {
+                    return this;
+                }
+                String[] renamed = names.clone();
+                renamed[index] = categoryName;
+                return new Snapshot(ids, renamed);
+            }
+            int insertAt = -Arrays.binarySearch(ids, categoryId) - 1;
+            int[] newIds = new int[ids.length + 1];
+            String[] newNames = new String[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insertAt);
+            System.arraycopy(names, 0, newNames, 0, insertAt);
+            newIds[insertAt] = categoryId;
+            newNames[insertAt] = categoryName;
+            System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+            System.arraycopy(names, insertAt, newNames, insertAt + 1, ids.length - insertAt);
+            return new Snapshot(newIds, newNames);
+        }
+
+        /**
+         * Derives a snapshot without a category.
+         */
+        Snapshot without(int categoryId) {
+            int index = indexOf(categoryId);
+            if (index < 0) {
+                return this;
+            }
+            int[] newIds = new int[ids.length - 1];
+            String[] newNames = new String[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(names, 0, newNames, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            System.arraycopy(names, index + 1, newNames, index, ids.length - index - 1);
+            return new Snapshot(newIds, newNames);
+        }
+
+        /**
+         * Finds the array position of an ID, or -1 if absent.
+         */
+        private int indexOf(int categoryId) {
+            int slot = slotOf(categoryId);
+            while (slots[slot] != 0) {
+                int index = slots[slot] - 1;
+                if (ids[index] == categoryId) {
+                    return index;
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Hashes an ID to its first slot.
+         */
+        private int slotOf(int categoryId) {
+            int hash = categoryId * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (slots.length - 1);
+        }
+    }
+}
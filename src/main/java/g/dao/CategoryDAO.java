@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -15,7 +16,8 @@ import g.utils.DBUtil;
 /**
  * Data Access Object for Category table.
  * This class provides database operations for managing recipe categories
- * including CRUD operations and category retrieval.
+ * including CRUD operations and category retrieval. Reads are served from
+ * a resident {@link CategoryCatalog}, loaded once and updated by every write.
  * 
  * @author Xinyuan Jiang
  * @since 2025-6-15
@@ -29,9 +31,11 @@ public class CategoryDAO {
     private static final String CREATE_CATEGORY_SQL = "INSERT INTO category (category_name) VALUES (?)";
     private static final String DELETE_CATEGORY_SQL = "DELETE FROM category WHERE category_id = ?";
     private static final String UPDATE_CATEGORY_SQL = "UPDATE category SET category_name = ? WHERE category_id = ?";
-    private static final String GET_CATEGORY_BY_ID_SQL = "SELECT category_id, category_name FROM category WHERE category_id = ?";
     private static final String GET_ALL_CATEGORIES_SQL = "SELECT * FROM category";
 
+    /** Every category, shared by all instances */
+    private static final CategoryCatalog CATALOG = new CategoryCatalog();
+
     /**
      * Creates a new category in the database.
      * 
@@ -45,14 +49,27 @@ public class CategoryDAO {
         }
 
         try (Connection conn = DBUtil.getConnection(); 
-             PreparedStatement stmt = conn.prepareStatement(CREATE_CATEGORY_SQL)) {
+             PreparedStatement stmt = conn.prepareStatement(CREATE_CATEGORY_SQL, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, categoryName.trim());
             int rowsAffected = stmt.executeUpdate();
             LOGGER.info("Category created: " + categoryName + ", rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        int categoryId = generatedKeys.getInt(1);
+                        CATALOG.put(categoryId, categoryName.trim());
+                RecipeDAO.invalidateDetails();
+                        ChangeFeed.publish(ChangeFeed.Table.CATEGORY, ChangeFeed.Kind.INSERT, ChangeFeed.ANY, categoryId);
+                    } else {
+                        CATALOG.reset();
+                    }
+                }
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error creating category: " + categoryName, e);
+            CATALOG.reset();
             return false;
         }
     }
@@ -72,6 +89,9 @@ public class CategoryDAO {
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
                 LOGGER.info("Category deleted: " + categoryId + ", rows affected: " + rowsAffected);
+                CATALOG.remove(categoryId);
+                RecipeDAO.invalidateDetails();
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY, ChangeFeed.Kind.DELETE, ChangeFeed.ANY, categoryId);
                 return true;
             } else {
                 throw new SQLException("No category deleted. The category may not exist.");
@@ -102,15 +122,21 @@ public class CategoryDAO {
             stmt.setInt(2, categoryId);
             int rowsAffected = stmt.executeUpdate();
             LOGGER.info("Category updated: " + categoryId + ", rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                CATALOG.put(categoryId, categoryName.trim());
+                RecipeDAO.invalidateDetails();
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY, ChangeFeed.Kind.UPDATE, ChangeFeed.ANY, categoryId);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating category: " + categoryId, e);
+            CATALOG.reset();
             return false;
         }
     }
 
     /**
-     * Retrieves categories by their IDs.
+     * Retrieves categories by their IDs, in the order of the IDs given.
      * 
      * @param categoryIds the list of category IDs to retrieve
      * @return a list of categories found, empty list if none found or error occurs
@@ -122,34 +148,35 @@ public class CategoryDAO {
             return categories;
         }
 
-        try (Connection conn = DBUtil.getConnection(); 
-             PreparedStatement stmt = conn.prepareStatement(GET_CATEGORY_BY_ID_SQL)) {
-            
-            for (int categoryId : categoryIds) {
-                stmt.setInt(1, categoryId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        categories.add(new Category(
-                            rs.getInt("category_id"),
-                            rs.getString("category_name")
-                        ));
-                    }
-                }
-            }
-            LOGGER.info("Retrieved " + categories.size() + " categories by IDs");
-            return categories;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving categories by IDs", e);
+        CategoryCatalog.Snapshot snapshot = CATALOG.snapshot(this::loadAllCategories);
+        if (snapshot == null) {
             return categories;
         }
+        for (int categoryId : categoryIds) {
+            Category category = snapshot.get(categoryId);
+            if (category != null) {
+                categories.add(category);
+            }
+        }
+        return categories;
     }
 
     /**
-     * Retrieves all categories from the database.
+     * Retrieves all categories, in ID order.
      * 
      * @return a list of all categories, null if an error occurs
      */
     public List<Category> getAllCategories() {
+        CategoryCatalog.Snapshot snapshot = CATALOG.snapshot(this::loadAllCategories);
+        return snapshot == null ? null : snapshot.getAll();
+    }
+
+    /**
+     * Reads all categories from the database to fill the catalog.
+     * 
+     * @return a list of all categories, null if an error occurs
+     */
+    private List<Category> loadAllCategories() {
         try (Connection conn = DBUtil.getConnection(); 
              PreparedStatement stmt = conn.prepareStatement(GET_ALL_CATEGORIES_SQL); 
              ResultSet rs = stmt.executeQuery()) {
@@ -161,7 +188,7 @@ public class CategoryDAO {
                     rs.getString("category_name")
                 ));
             }
-            LOGGER.info("Retrieved " + categories.size() + " categories");
+            LOGGER.info("Loaded " + categories.size() + " categories into the catalog");
             return categories;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error retrieving all categories", e);
@@ -169,4 +196,14 @@ public class CategoryDAO {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Records a category created by a write elsewhere, such as an import.
+     * 
+     * @param categoryId the category ID
+     * @param categoryName the category name
+     */
+    static void cached(int categoryId, String categoryName) {
+        CATALOG.put(categoryId, categoryName);
+    }
+
+}
@@ -3,11 +3,16 @@ package g.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import g.utils.DBUtil;
+import g.utils.ProgressListener;
 
 /**
  * Data Access Object for CategoryRecipe table.
@@ -18,6 +23,29 @@ import g.utils.DBUtil;
  */
 public class CategoryRecipeDAO {
 
+    private static final Logger LOGGER = Logger.getLogger(CategoryRecipeDAO.class.getName());
+
+    /** Unmodifiable category ID lists by recipe ID, shared by all instances and invalidated by every write */
+    private static final EntityCache<List<Integer>> CATEGORY_IDS =
+            new EntityCache<>("recipe categories", 256);
+
+    /** Links the recipes of a chunk to the categories, skipping links that exist or point nowhere */
+    private static final String ADD_LINKS_SQL =
+        "INSERT INTO category_recipe (category_id, recipe_id) SELECT c.category_id, r.recipe_id " +
+        "FROM category c, recipe r WHERE c.category_id IN (SELECT value FROM json_each(?)) " +
+        "AND r.recipe_id IN (SELECT value FROM json_each(?)) " +
+        "ON CONFLICT DO NOTHING RETURNING category_id, recipe_id";
+
+    /** Unlinks the recipes of a chunk from the categories */
+    private static final String REMOVE_LINKS_SQL =
+        "DELETE FROM category_recipe WHERE category_id IN (SELECT value FROM json_each(?)) " +
+        "AND recipe_id IN (SELECT value FROM json_each(?)) RETURNING category_id, recipe_id";
+
+    /** Unlinks a recipe from every category not in a set */
+    private static final String REMOVE_OTHER_LINKS_SQL =
+        "DELETE FROM category_recipe WHERE recipe_id = ? " +
+        "AND category_id NOT IN (SELECT value FROM json_each(?)) RETURNING category_id, recipe_id";
+
     /**
      * Adds a recipe to multiple categories in the database.
      *
@@ -42,11 +70,19 @@ public class CategoryRecipeDAO {
             for (int count : rowsAffected) {
                 if (count == 0) return false;
             }
+            CATEGORY_IDS.invalidate(recipeId);
+            RecipeDAO.invalidateDetail(recipeId);
+            for (int categoryId : categoryIds) {
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY_RECIPE, ChangeFeed.Kind.INSERT, recipeId, categoryId);
+            }
             return true;
             
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            CATEGORY_IDS.invalidate(recipeId);
+            RecipeDAO.invalidateDetail(recipeId);
         }
     }
 
@@ -63,11 +99,19 @@ public class CategoryRecipeDAO {
             stmt.setInt(1, recipeId);
 
             int rowsAffected = stmt.executeUpdate();
+            if (rowsAffected > 0) {
+                CATEGORY_IDS.invalidate(recipeId);
+                RecipeDAO.invalidateDetail(recipeId);
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY_RECIPE, ChangeFeed.Kind.DELETE, recipeId, ChangeFeed.ANY);
+            }
             return rowsAffected > 0;
 
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            CATEGORY_IDS.invalidate(recipeId);
+            RecipeDAO.invalidateDetail(recipeId);
         }
     }
 
@@ -83,14 +127,157 @@ public class CategoryRecipeDAO {
         String sql = "DELETE FROM category_recipe WHERE category_id = ?";
         try (Connection conn = DBUtil.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, categoryId);
-            stmt.executeUpdate(); 
+            if (stmt.executeUpdate() > 0) {
+                CATEGORY_IDS.invalidateAll();
+                RecipeDAO.invalidateDetails();
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY_RECIPE, ChangeFeed.Kind.DELETE, ChangeFeed.ANY, categoryId);
+            }
             return true; 
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            CATEGORY_IDS.invalidateAll();
+            RecipeDAO.invalidateDetails();
+        }
+    }
+
+    /**
+     * Sets the categories of a recipe in one transaction: links to categories
+     * not in the list are removed and missing ones added, so an unchanged link
+     * is neither written nor reported.
+     *
+     * @param recipeId the ID of the recipe
+     * @param categoryIds the IDs of the categories the recipe should be in
+     * @return true if the transaction committed, false otherwise
+     */
+    public boolean replaceCategories(int recipeId, List<Integer> categoryIds) {
+        String categories = categoryIds.toString();
+        String recipes = "[" + recipeId + "]";
+        List<int[]> removed = new ArrayList<>();
+        List<int[]> added = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement remove = conn.prepareStatement(REMOVE_OTHER_LINKS_SQL);
+                 PreparedStatement add = conn.prepareStatement(ADD_LINKS_SQL)) {
+                remove.setInt(1, recipeId);
+                remove.setString(2, categories);
+                readLinks(remove, removed);
+                add.setString(1, categories);
+                add.setString(2, recipes);
+                readLinks(add, added);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error setting the categories of recipe " + recipeId + ", rolled back", e);
+            return false;
+        } finally {
+            CATEGORY_IDS.invalidate(recipeId);
+            RecipeDAO.invalidateDetail(recipeId);
+        }
+        publish(ChangeFeed.Kind.DELETE, removed);
+        publish(ChangeFeed.Kind.INSERT, added);
+        return true;
+    }
+
+    /**
+     * Adds many recipes to some categories in one transaction, with one
+     * set-based INSERT per {@link RecipeDAO#BULK_CHUNK} recipes. Links that
+     * already exist are kept, and IDs of missing recipes or categories skipped.
+     *
+     * @param recipeIds the IDs of the recipes
+     * @param categoryIds the IDs of the categories
+     * @param progress told how many recipes were handled after each chunk
+     * @return the number of links added, or -1 if the transaction was rolled back
+     */
+    public int addRecipesToCategories(int[] recipeIds, List<Integer> categoryIds, ProgressListener progress) {
+        return writeLinks(ADD_LINKS_SQL, ChangeFeed.Kind.INSERT, recipeIds, categoryIds, progress);
+    }
+
+    /**
+     * Removes many recipes from some categories in one transaction, with one
+     * set-based DELETE per {@link RecipeDAO#BULK_CHUNK} recipes.
+     *
+     * @param recipeIds the IDs of the recipes
+     * @param categoryIds the IDs of the categories
+     * @param progress told how many recipes were handled after each chunk
+     * @return the number of links removed, or -1 if the transaction was rolled back
+     */
+    public int removeRecipesFromCategories(int[] recipeIds, List<Integer> categoryIds, ProgressListener progress) {
+        return writeLinks(REMOVE_LINKS_SQL, ChangeFeed.Kind.DELETE, recipeIds, categoryIds, progress);
+    }
+
+    /**
+     * Runs a link statement over the recipes chunk by chunk in one transaction,
+     * then publishes a change for every link it returned.
+     */
+    private int writeLinks(String sql, ChangeFeed.Kind kind, int[] recipeIds, List<Integer> categoryIds,
+                           ProgressListener progress) {
+        String categories = categoryIds.toString();
+        List<int[]> links = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int from = 0; from < recipeIds.length; from += RecipeDAO.BULK_CHUNK) {
+                    int to = Math.min(from + RecipeDAO.BULK_CHUNK, recipeIds.length);
+                    stmt.setString(1, categories);
+                    stmt.setString(2, Arrays.toString(Arrays.copyOfRange(recipeIds, from, to)));
+                    readLinks(stmt, links);
+                    progress.progress(to, recipeIds.length);
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error writing category links of " + recipeIds.length + " recipes, rolled back", e);
+            return -1;
+        } finally {
+            for (int recipeId : recipeIds) {
+                CATEGORY_IDS.invalidate(recipeId);
+                RecipeDAO.invalidateDetail(recipeId);
+            }
+        }
+        LOGGER.info("Wrote " + links.size() + " category links of " + recipeIds.length + " recipes in one transaction");
+        publish(kind, links);
+        return links.size();
+    }
+
+    /**
+     * Collects the category and recipe IDs returned by a link statement.
+     */
+    private static void readLinks(PreparedStatement stmt, List<int[]> links) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                links.add(new int[] {rs.getInt("category_id"), rs.getInt("recipe_id")});
+            }
+        }
+    }
+
+    /**
+     * Publishes one change per link written.
+     */
+    private static void publish(ChangeFeed.Kind kind, List<int[]> links) {
+        for (int[] link : links) {
+            ChangeFeed.publish(ChangeFeed.Table.CATEGORY_RECIPE, kind, link[1], link[0]);
         }
     }
 
+    /**
+     * Drops the cached categories of a recipe whose links were removed by a
+     * write elsewhere, such as the cascade of a recipe delete.
+     *
+     * @param recipeId the ID of the recipe
+     */
+    static void invalidate(int recipeId) {
+        CATEGORY_IDS.invalidate(recipeId);
+        RecipeDAO.invalidateDetail(recipeId);
+    }
+
     /**
      * Retrieves all recipe IDs associated with a given category ID.
      *
@@ -120,9 +307,19 @@ public class CategoryRecipeDAO {
      * Retrieves all category IDs associated with a given recipe ID.
      *
      * @param recipeId the ID of the recipe to retrieve category IDs for
-     * @return a list of category IDs associated with the recipe, or an empty list if an error occurs
+     * @return an unmodifiable list of category IDs associated with the recipe, or an empty list if an error occurs
      */
     public List<Integer> getCategoryIdsByRecipeId(int recipeId) {
+        List<Integer> categoryIds = CATEGORY_IDS.get(recipeId, this::loadCategoryIdsByRecipeId);
+        return categoryIds != null ? categoryIds : Collections.emptyList();
+    }
+
+    /**
+     * Reads the category IDs of a recipe from the database.
+     * 
+     * @return the category IDs, or null if they could not be read
+     */
+    private List<Integer> loadCategoryIdsByRecipeId(int recipeId) {
         String sql = "SELECT category_id FROM category_recipe WHERE recipe_id = ?";
         List<Integer> categoryIds = new ArrayList<>();
 
@@ -138,11 +335,11 @@ public class CategoryRecipeDAO {
                 }
             }
 
-            return categoryIds;
+            return List.copyOf(categoryIds);
 
         } catch (Exception e) {
             e.printStackTrace();
-            return Collections.emptyList();
+            return null;
         }
     }
 
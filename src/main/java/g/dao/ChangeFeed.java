@@ -0,0 +1,116 @@
+package g.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Row-level change events published by the DAOs after each successful write.
+ * Views subscribe to patch what they show in place, instead of reloading it
+ * after every write. Events are published from the DAOs rather than from an
+ * SQLite update hook, since every DAO call opens its own connection and a
+ * hook would only see the writes of the connection it was registered on.
+ * <p>
+ * Listeners are called synchronously on the writing thread, in the order the
+ * writes happened, and must hand any slow or UI work to another thread.
+ * <p>
+ * A bulk import is reported as a single {@link Kind#INSERT} into
+ * {@link Table#RECIPE} with recipe {@link #ANY}, rather than one event per
+ * row; views reload what they show when they receive it.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class ChangeFeed {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeFeed.class.getName());
+
+    /** ID of a change that applies to every recipe or every category */
+    public static final int ANY = -1;
+
+    /**
+     * Tables whose rows are reported.
+     */
+    public enum Table {
+        RECIPE,
+        CATEGORY,
+        CATEGORY_RECIPE
+    }
+
+    /**
+     * Kinds of row change.
+     */
+    public enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * One row change.
+     *
+     * @param sequence the number of the change, one more than the change before it
+     * @param table the table written
+     * @param kind the kind of change
+     * @param recipeId the recipe of the row, or {@link #ANY} if the change is not about one recipe
+     * @param categoryId the category of the row, or {@link #ANY} if the change is not about one category
+     */
+    public record Change(long sequence, Table table, Kind kind, int recipeId, int categoryId) {
+    }
+
+    /** Subscribed listeners */
+    private static final List<Consumer<Change>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /** Sequence number of the last change published */
+    private static volatile long sequence;
+
+    private ChangeFeed() {
+    }
+
+    /**
+     * Subscribes a listener to every change published from now on.
+     *
+     * @param listener called on the writing thread with each change
+     */
+    public static void subscribe(Consumer<Change> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Stops sending changes to a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public static void unsubscribe(Consumer<Change> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Gets the sequence number of the last change published. Something read
+     * from the database after this call includes every change up to it.
+     *
+     * @return the sequence number, 0 before the first change
+     */
+    public static long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Publishes a change to every listener. Publishing is serialized, so
+     * listeners see changes in sequence order. A failing listener is logged
+     * and does not affect the write or the other listeners.
+     */
+    static synchronized void publish(Table table, Kind kind, int recipeId, int categoryId) {
+        Change change = new Change(sequence + 1, table, kind, recipeId, categoryId);
+        sequence = change.sequence();
+        for (Consumer<Change> listener : LISTENERS) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Change listener failed on " + change, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package g.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Read-through cache of rows loaded by a DAO, keyed by an integer ID.
+ * The DAO owning a cache invalidates the affected keys in every method that
+ * writes the underlying table, so an entry never outlives the row it was read
+ * from. The least recently used entries are evicted beyond the capacity.
+ * <p>
+ * Entries are immutable snapshots shared by every reader: a hit returns the
+ * cached instance itself, without copying it, so a value must not be modified
+ * once its loader returned it. This is what lets one cache be read from
+ * several threads.
+ * <p>
+ * Hits and misses are counted; {@link #logStatistics()} reports the hit ratio
+ * of every cache.
+ *
+ * @param <V> the type of the cached values
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class EntityCache<V> {
+
+    private static final Logger LOGGER = Logger.getLogger(EntityCache.class.getName());
+
+    /** Every cache created, for reporting */
+    private static final List<EntityCache<?>> CACHES = new ArrayList<>();
+
+    /** Name shown in the statistics */
+    private final String name;
+
+    /** Cached values by ID, least recently used first */
+    private final Map<Integer, V> entries;
+
+    /** Incremented by every invalidation, so loads that raced a write are not kept */
+    private long generation;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param name the name shown in the statistics
+     * @param capacity the maximum number of entries
+     */
+    EntityCache(String name, int capacity) {
+        this.name = name;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > capacity;
+            }
+        };
+        synchronized (CACHES) {
+            CACHES.add(this);
+        }
+    }
+
+    /**
+     * Gets a value from the cache, or loads it on a miss. A null value, meaning
+     * the row was not found or could not be read, is returned but not cached.
+     * A value whose load overlapped an invalidation is returned but not cached
+     * either, since it may predate the write.
+     *
+     * @param id the ID of the value
+     * @param loader reads the value from the database
+     * @return the shared value, or null if the loader returned null
+     */
+    V get(int id, IntFunction<V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            V cached = entries.get(id);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        V loaded = loader.apply(id);
+        if (loaded == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the value of an ID after its row was written.
+     *
+     * @param id the ID of the value
+     */
+    synchronized void invalidate(int id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    /**
+     * Drops every value, after a write whose affected IDs are not known.
+     */
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Gets the share of reads served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 before the first read
+     */
+    public synchronized double getHitRatio() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    /**
+     * Describes the size and hit ratio of this cache.
+     *
+     * @return the statistics as a single line
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d entries, %d hits, %d misses, hit ratio %.1f%%",
+                name, entries.size(), hits, misses, getHitRatio() * 100);
+    }
+
+    /**
+     * Logs the statistics of every cache.
+     */
+    public static void logStatistics() {
+        synchronized (CACHES) {
+            for (EntityCache<?> cache : CACHES) {
+                LOGGER.info(cache.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package g.dao;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import g.model.Ingredient;
+import g.model.Recipe;
+import g.utils.DBUtil;
+import g.utils.ProgressListener;
+
+/**
+ * Data Access Object for exporting the whole library. Recipes are streamed
+ * one at a time, with their ingredients and category names, in the form an
+ * import takes; nothing but the recipe being handed out is held in memory.
+ * <p>
+ * Everything is read in one read transaction. The database is in WAL mode,
+ * so the export sees the library as it was when it started while edits made
+ * meanwhile commit without waiting for it.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class ExportDAO {
+
+    /** Recipes between two progress reports */
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private static final String COUNT_RECIPES_SQL = "SELECT COUNT(*) FROM recipe";
+    private static final String GET_ALL_CATEGORIES_SQL = "SELECT category_id, category_name FROM category";
+    private static final String RECIPES_SQL =
+        "SELECT recipe_id, title, prep_time, cook_time, instruction, img_addr, serve FROM recipe ORDER BY recipe_id";
+    private static final String INGREDIENTS_SQL =
+        "SELECT recipe_id, ingredient_name, ingredient_amount, unit FROM ingredient ORDER BY recipe_id, pair_id";
+    private static final String LINKS_SQL =
+        "SELECT recipe_id, category_id FROM category_recipe ORDER BY recipe_id, category_id";
+
+    /**
+     * Receives the exported recipes, in recipe ID order.
+     */
+    @FunctionalInterface
+    public interface RecipeSink {
+
+        /**
+         * Handles one recipe. The lists of the row are reused for the next
+         * recipe, so they must not be kept.
+         *
+         * @param row the recipe with its ingredients and category names
+         * @throws IOException if the recipe cannot be written out
+         */
+        void accept(ImportDAO.RecipeRow row) throws IOException;
+    }
+
+    /**
+     * Streams every recipe to a sink. The recipes, ingredients and category
+     * links are read by three cursors in recipe ID order and merged, so each
+     * table is scanned once, in index order, whatever the size of the library.
+     *
+     * @param sink receives each recipe
+     * @param progress told the number of recipes exported every thousand recipes
+     * @return the number of recipes exported
+     * @throws SQLException if the database cannot be read
+     * @throws IOException if the sink fails
+     */
+    public long exportAll(RecipeSink sink, ProgressListener progress) throws SQLException, IOException {
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int total = count(conn);
+                Map<Integer, String> categoryNames = categoryNames(conn);
+                try (PreparedStatement recipeStmt = conn.prepareStatement(RECIPES_SQL);
+                     PreparedStatement ingredientStmt = conn.prepareStatement(INGREDIENTS_SQL);
+                     PreparedStatement linkStmt = conn.prepareStatement(LINKS_SQL);
+                     ResultSet recipes = recipeStmt.executeQuery();
+                     ResultSet ingredients = ingredientStmt.executeQuery();
+                     ResultSet links = linkStmt.executeQuery()) {
+                    List<Ingredient> recipeIngredients = new ArrayList<>();
+                    List<String> recipeCategories = new ArrayList<>();
+                    boolean moreIngredients = ingredients.next();
+                    boolean moreLinks = links.next();
+                    long exported = 0;
+                    while (recipes.next()) {
+                        int recipeId = recipes.getInt(1);
+                        Recipe recipe = new Recipe();
+                        recipe.setRecipeId(recipeId);
+                        recipe.setTitle(recipes.getString(2));
+                        recipe.setPrepTime(recipes.getInt(3));
+                        recipe.setCookTime(recipes.getInt(4));
+                        recipe.setInstruction(recipes.getString(5));
+                        recipe.setImgAddr(recipes.getString(6));
+                        recipe.setServe(recipes.getInt(7));
+
+                        recipeIngredients.clear();
+                        while (moreIngredients && ingredients.getInt(1) <= recipeId) {
+                            if (ingredients.getInt(1) == recipeId) {
+                                Ingredient ingredient = new Ingredient();
+                                ingredient.setRecipeId(recipeId);
+                                ingredient.setIngredientName(ingredients.getString(2));
+                                ingredient.setIngredientAmount(ingredients.getInt(3));
+                                ingredient.setIngredientUnit(ingredients.getString(4));
+                                recipeIngredients.add(ingredient);
+                            }
+                            moreIngredients = ingredients.next();
+                        }
+                        recipeCategories.clear();
+                        while (moreLinks && links.getInt(1) <= recipeId) {
+                            String name = links.getInt(1) == recipeId ? categoryNames.get(links.getInt(2)) : null;
+                            if (name != null) {
+                                recipeCategories.add(name);
+                            }
+                            moreLinks = links.next();
+                        }
+
+                        sink.accept(new ImportDAO.RecipeRow(recipe, recipeIngredients, recipeCategories));
+                        if (++exported % PROGRESS_INTERVAL == 0) {
+                            progress.progress((int) exported, total);
+                        }
+                    }
+                    progress.progress((int) exported, Math.max(total, (int) exported));
+                    return exported;
+                }
+            } finally {
+                conn.rollback();
+            }
+        }
+    }
+
+    private static int count(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(COUNT_RECIPES_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static Map<Integer, String> categoryNames(Connection conn) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_CATEGORIES_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return names;
+    }
+}
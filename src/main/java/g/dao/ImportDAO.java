@@ -0,0 +1,345 @@
+package g.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.model.Ingredient;
+import g.model.Recipe;
+import g.utils.DBUtil;
+
+/**
+ * Data Access Object for bulk imports. Recipes are written through a
+ * {@link Session}, which keeps one transaction open over thousands of
+ * recipes and inserts their rows in JDBC batches. Each commit also records
+ * how many input records are in, in the import_job table, so an import
+ * stopped by a crash resumes after the last commit instead of starting over.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class ImportDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(ImportDAO.class.getName());
+
+    /** Rows sent to SQLite per JDBC batch */
+    static final int BATCH_SIZE = 1000;
+
+    private static final String GET_CHECKPOINT_SQL =
+        "SELECT size, modified, records_done FROM import_job WHERE source = ?";
+    private static final String SAVE_CHECKPOINT_SQL =
+        "INSERT INTO import_job (source, size, modified, records_done) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT(source) DO UPDATE SET size = excluded.size, modified = excluded.modified, " +
+        "records_done = excluded.records_done";
+    private static final String CLEAR_CHECKPOINT_SQL = "DELETE FROM import_job WHERE source = ?";
+    /** The highest recipe ID ever handed out, so imported IDs never reuse a deleted one */
+    private static final String LAST_RECIPE_ID_SQL =
+        "SELECT MAX(IFNULL((SELECT MAX(recipe_id) FROM recipe), 0), " +
+        "IFNULL((SELECT seq FROM sqlite_sequence WHERE name = 'recipe'), 0))";
+    private static final String INSERT_RECIPE_SQL =
+        "INSERT INTO recipe (recipe_id, title, prep_time, cook_time, instruction, img_addr, serve) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_INGREDIENT_SQL =
+        "INSERT INTO ingredient (recipe_id, ingredient_name, ingredient_amount, unit) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_LINK_SQL =
+        "INSERT OR IGNORE INTO category_recipe (category_id, recipe_id) VALUES (?, ?)";
+    private static final String INSERT_CATEGORY_SQL =
+        "INSERT INTO category (category_name) VALUES (?) RETURNING category_id";
+    private static final String GET_ALL_CATEGORIES_SQL = "SELECT category_id, category_name FROM category";
+
+    /**
+     * One recipe to import, with the names of the categories it belongs to.
+     *
+     * @param recipe the recipe, whose ID is ignored
+     * @param ingredients its ingredients, whose IDs are ignored
+     * @param categories the names of its categories, created if missing
+     */
+    public record RecipeRow(Recipe recipe, List<Ingredient> ingredients, List<String> categories) {
+    }
+
+    /**
+     * How far an unfinished import of a file has come.
+     *
+     * @param size the size of the file when it was imported
+     * @param modified the modification time of the file, in milliseconds
+     * @param recordsDone the number of input records committed
+     */
+    public record Checkpoint(long size, long modified, long recordsDone) {
+    }
+
+    /**
+     * Gets the checkpoint of an unfinished import.
+     *
+     * @param source the absolute path of the imported file
+     * @return the checkpoint, or null if there is none or it cannot be read
+     */
+    public Checkpoint getCheckpoint(String source) {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_CHECKPOINT_SQL)) {
+            stmt.setString(1, source);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new Checkpoint(rs.getLong(1), rs.getLong(2), rs.getLong(3)) : null;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading import checkpoint of " + source, e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes the checkpoint of an import, once it finished or will restart.
+     *
+     * @param source the absolute path of the imported file
+     * @return true if the checkpoint is gone, false if an error occurred
+     */
+    public boolean clearCheckpoint(String source) {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CLEAR_CHECKPOINT_SQL)) {
+            stmt.setString(1, source);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error clearing import checkpoint of " + source, e);
+            return false;
+        }
+    }
+
+    /**
+     * Announces recipes committed by import sessions as a single
+     * {@link ChangeFeed.Kind#INSERT} of recipe {@link ChangeFeed#ANY}, telling
+     * views to reload rather than patch thousands of rows. Called after the
+     * import, once the data versions, indexes and search index are up to
+     * date, so the views reloading read the imported recipes.
+     */
+    public void publishImported() {
+        ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.INSERT, ChangeFeed.ANY, ChangeFeed.ANY);
+    }
+
+    /**
+     * Opens a session writing the recipes of one file, and begins its first
+     * transaction.
+     *
+     * @param checkpoint where the file stands: its size and modification time,
+     *        and the number of its records already committed
+     * @param source the absolute path of the imported file
+     * @return the session, to be closed by the caller
+     * @throws SQLException if the database cannot be opened or locked
+     */
+    public Session open(String source, Checkpoint checkpoint) throws SQLException {
+        return new Session(source, checkpoint);
+    }
+
+    /**
+     * A running import. Recipes added are batched and written to the open
+     * transaction; {@link #commit(long)} commits them together with the
+     * checkpoint and begins the next transaction. Recipe IDs are assigned
+     * here rather than by SQLite, so a whole batch of recipes, ingredients and
+     * links can be sent at once. It is safe since the first statement of each
+     * transaction takes the write lock, before the next free ID is read.
+     * <p>
+     * Each commit publishes the categories it created. The recipes are not
+     * announced by the session: once the caller has brought everything
+     * derived from the tables up to date, it calls {@link #publishImported()}.
+     * Closing the session rolls back what was added since the last commit.
+     * A session is used by one thread.
+     */
+    public final class Session implements AutoCloseable {
+
+        private final String source;
+        private final long size;
+        private final long modified;
+        private final Connection conn;
+        private final PreparedStatement recipes;
+        private final PreparedStatement ingredients;
+        private final PreparedStatement links;
+        private final PreparedStatement categories;
+        private final PreparedStatement checkpoint;
+
+        /** Category IDs by lower-cased name */
+        private final Map<String, Integer> categoryIds = new HashMap<>();
+
+        /** Categories created in the open transaction */
+        private final List<Category> createdCategories = new ArrayList<>();
+
+        private int lastRecipeId;
+        private int batched;
+        private int uncommitted;
+
+        private Session(String source, Checkpoint start) throws SQLException {
+            this.source = source;
+            this.size = start.size();
+            this.modified = start.modified();
+            this.conn = DBUtil.getConnection();
+            try {
+                conn.setAutoCommit(false);
+                recipes = conn.prepareStatement(INSERT_RECIPE_SQL);
+                ingredients = conn.prepareStatement(INSERT_INGREDIENT_SQL);
+                links = conn.prepareStatement(INSERT_LINK_SQL);
+                categories = conn.prepareStatement(INSERT_CATEGORY_SQL);
+                checkpoint = conn.prepareStatement(SAVE_CHECKPOINT_SQL);
+                begin(start.recordsDone());
+                try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_CATEGORIES_SQL);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        categoryIds.putIfAbsent(key(rs.getString(2)), rs.getInt(1));
+                    }
+                }
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Adds a recipe to the open transaction. Its categories are looked up
+         * by name, ignoring case, and created if missing.
+         *
+         * @param row the recipe to import
+         * @return the ID given to the recipe
+         * @throws SQLException if a batch cannot be written; the session must then be closed
+         */
+        public int add(RecipeRow row) throws SQLException {
+            int recipeId = ++lastRecipeId;
+            Recipe recipe = row.recipe();
+            recipes.setInt(1, recipeId);
+            recipes.setString(2, recipe.getTitle());
+            recipes.setInt(3, recipe.getPrepTime());
+            recipes.setInt(4, recipe.getCookTime());
+            recipes.setString(5, recipe.getInstruction());
+            recipes.setString(6, recipe.getImgAddr());
+            recipes.setInt(7, recipe.getServe());
+            recipes.addBatch();
+            for (Ingredient ingredient : row.ingredients()) {
+                ingredients.setInt(1, recipeId);
+                ingredients.setString(2, ingredient.getIngredientName());
+                ingredients.setInt(3, ingredient.getIngredientAmount());
+                ingredients.setString(4, ingredient.getIngredientUnit());
+                ingredients.addBatch();
+            }
+            for (String name : row.categories()) {
+                links.setInt(1, categoryId(name));
+                links.setInt(2, recipeId);
+                links.addBatch();
+            }
+            uncommitted++;
+            if (++batched >= BATCH_SIZE) {
+                flush();
+            }
+            return recipeId;
+        }
+
+        /**
+         * Gets the number of recipes added since the last commit.
+         *
+         * @return the number of uncommitted recipes
+         */
+        public int uncommitted() {
+            return uncommitted;
+        }
+
+        /**
+         * Commits the recipes added so far, recording how many input records
+         * they cover, and begins the next transaction.
+         *
+         * @param recordsDone the number of input records committed, counting skipped ones
+         * @throws SQLException if the commit fails; the session must then be closed
+         */
+        public void commit(long recordsDone) throws SQLException {
+            flush();
+            saveCheckpoint(recordsDone);
+            conn.commit();
+            uncommitted = 0;
+            for (Category category : createdCategories) {
+                CategoryDAO.cached(category.id(), category.name());
+                ChangeFeed.publish(ChangeFeed.Table.CATEGORY, ChangeFeed.Kind.INSERT, ChangeFeed.ANY, category.id());
+            }
+            createdCategories.clear();
+            begin(recordsDone);
+        }
+
+        /**
+         * Rolls back what was not committed.
+         */
+        @Override
+        public void close() {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error rolling back import of " + source, e);
+            }
+            for (Category category : createdCategories) {
+                categoryIds.remove(key(category.name()));
+            }
+            DBUtil.close(conn);
+        }
+
+        /**
+         * Takes the write lock by saving the checkpoint first, then reads the
+         * last recipe ID, which no other connection can change until commit.
+         */
+        private void begin(long recordsDone) throws SQLException {
+            saveCheckpoint(recordsDone);
+            try (PreparedStatement stmt = conn.prepareStatement(LAST_RECIPE_ID_SQL);
+                 ResultSet rs = stmt.executeQuery()) {
+                lastRecipeId = rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+
+        private void saveCheckpoint(long recordsDone) throws SQLException {
+            checkpoint.setString(1, source);
+            checkpoint.setLong(2, size);
+            checkpoint.setLong(3, modified);
+            checkpoint.setLong(4, recordsDone);
+            checkpoint.executeUpdate();
+        }
+
+        /**
+         * Sends the batched rows, parents first so the foreign keys hold.
+         */
+        private void flush() throws SQLException {
+            if (batched == 0) {
+                return;
+            }
+            recipes.executeBatch();
+            ingredients.executeBatch();
+            links.executeBatch();
+            batched = 0;
+        }
+
+        private int categoryId(String name) throws SQLException {
+            String trimmed = name.trim();
+            Integer categoryId = categoryIds.get(key(trimmed));
+            if (categoryId != null) {
+                return categoryId;
+            }
+            categories.setString(1, trimmed);
+            try (ResultSet rs = categories.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Category " + trimmed + " was not created");
+                }
+                categoryId = rs.getInt(1);
+            }
+            categoryIds.put(key(trimmed), categoryId);
+            createdCategories.add(new Category(categoryId, trimmed));
+            return categoryId;
+        }
+
+        private static String key(String name) {
+            return name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A category created by an import.
+     */
+    private record Category(int id, String name) {
+    }
+}
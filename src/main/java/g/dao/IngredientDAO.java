@@ -4,8 +4,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import g.model.Ingredient;
 import g.utils.DBUtil;
@@ -20,6 +26,17 @@ import g.utils.DBUtil;
  */
 public class IngredientDAO {
 
+    /**
+     * Inserts an ingredient, or updates the row holding its pair ID. A null
+     * pair ID always inserts; the update is skipped, writing no row, if the
+     * pair ID belongs to another recipe.
+     */
+    private static final String UPSERT_INGREDIENT_SQL =
+        "INSERT INTO ingredient (pair_id, recipe_id, ingredient_name, ingredient_amount, unit) VALUES (?, ?, ?, ?, ?) " +
+        "ON CONFLICT(pair_id) DO UPDATE SET ingredient_name = excluded.ingredient_name, " +
+        "ingredient_amount = excluded.ingredient_amount, unit = excluded.unit " +
+        "WHERE ingredient.recipe_id = excluded.recipe_id";
+
     /**
      * Adds a new ingredient to the database for a specific recipe.
      * 
@@ -59,6 +76,8 @@ public class IngredientDAO {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            RecipeDAO.invalidateDetail(recipeId);
         }
     }
     
@@ -82,6 +101,8 @@ public class IngredientDAO {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            RecipeDAO.invalidateDetails();
         }
     }
 
@@ -105,6 +126,8 @@ public class IngredientDAO {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            RecipeDAO.invalidateDetail(recipeId);
         }
     }
 
@@ -138,6 +161,103 @@ public class IngredientDAO {
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            RecipeDAO.invalidateDetail(recipeId);
+        }
+    }
+
+    /**
+     * Writes the ingredient changes of one recipe edit on a connection whose
+     * transaction the caller commits: removed rows are deleted as one batch,
+     * and the changed and new rows are written as another through a single
+     * UPSERT, new rows getting their pair ID from the insert and changed rows
+     * updating the row with theirs. Rows of the edit that did not change are
+     * skipped. The cached recipe detail is left alone; the caller invalidates
+     * it once the transaction is over.
+     * 
+     * @param conn the connection of the transaction
+     * @param recipeId the ID of the recipe the ingredients belong to
+     * @param ingredients the ingredients of the recipe after the edit
+     * @param changedPairIds the pair IDs of the existing ingredients to write, or null to write all of them
+     * @param deletedPairIds the pair IDs of the ingredients removed by the edit
+     * @throws SQLException if a row could not be written, or a changed row belongs to another recipe
+     */
+    void writeIngredients(Connection conn, int recipeId, List<Ingredient> ingredients,
+                          Set<Integer> changedPairIds, List<Integer> deletedPairIds) throws SQLException {
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM ingredient WHERE pair_id = ? AND recipe_id = ?");
+             PreparedStatement upsert = conn.prepareStatement(UPSERT_INGREDIENT_SQL)) {
+
+            int deletes = 0;
+            for (int pairId : deletedPairIds) {
+                if (pairId > 0) {
+                    delete.setInt(1, pairId);
+                    delete.setInt(2, recipeId);
+                    delete.addBatch();
+                    deletes++;
+                }
+            }
+            int upserts = 0;
+            for (Ingredient ingredient : ingredients) {
+                int pairId = ingredient.getPairId();
+                if (pairId > 0 && changedPairIds != null && !changedPairIds.contains(pairId)) {
+                    continue;
+                }
+                if (pairId > 0) {
+                    upsert.setInt(1, pairId);
+                } else {
+                    upsert.setNull(1, Types.INTEGER);
+                }
+                upsert.setInt(2, recipeId);
+                upsert.setString(3, ingredient.getIngredientName());
+                upsert.setInt(4, ingredient.getIngredientAmount());
+                upsert.setString(5, ingredient.getIngredientUnit());
+                upsert.addBatch();
+                upserts++;
+            }
+            if (deletes > 0) {
+                delete.executeBatch();
+            }
+            if (upserts > 0) {
+                for (int count : upsert.executeBatch()) {
+                    if (count == 0) {
+                        throw new SQLException("A changed ingredient of recipe " + recipeId + " belongs to another recipe");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the ingredients of many recipes with one query, for bulk
+     * operations that need the rows they are about to remove.
+     * 
+     * @param recipeIds the IDs of the recipes
+     * @return the ingredients of all the recipes, or an empty list if they could not be read
+     */
+    public List<Ingredient> getIngredientsByRecipeIds(int[] recipeIds) {
+        String sql = "SELECT * FROM ingredient WHERE recipe_id IN (SELECT value FROM json_each(?))";
+        List<Ingredient> ingredients = new ArrayList<>();
+
+        try (Connection conn = DBUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, Arrays.toString(recipeIds));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Ingredient ingredient = new Ingredient();
+                    ingredient.setPairId(rs.getInt("pair_id"));
+                    ingredient.setRecipeId(rs.getInt("recipe_id"));
+                    ingredient.setIngredientName(rs.getString("ingredient_name"));
+                    ingredient.setIngredientAmount(rs.getInt("ingredient_amount"));
+                    ingredient.setIngredientUnit(rs.getString("unit"));
+                    ingredients.add(ingredient);
+                }
+            }
+            return ingredients;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
         }
     }
 
@@ -175,4 +295,48 @@ public class IngredientDAO {
             return ingredients; 
         }
     }
+
+    /**
+     * Counts how many ingredient rows use each distinct ingredient name.
+     * 
+     * @return a map from ingredient name to usage count, or an empty map if none found
+     */
+    public Map<String, Integer> getIngredientNameCounts() {
+        return countDistinct("SELECT ingredient_name, COUNT(*) FROM ingredient "
+                + "WHERE ingredient_name IS NOT NULL AND TRIM(ingredient_name) <> '' GROUP BY ingredient_name");
+    }
+
+    /**
+     * Counts how many ingredient rows use each distinct unit.
+     * 
+     * @return a map from unit to usage count, or an empty map if none found
+     */
+    public Map<String, Integer> getUnitCounts() {
+        return countDistinct("SELECT unit, COUNT(*) FROM ingredient "
+                + "WHERE unit IS NOT NULL AND TRIM(unit) <> '' GROUP BY unit");
+    }
+
+    /**
+     * Runs a two-column (value, count) grouping query.
+     * 
+     * @param sql the query to run
+     * @return a map from value to count
+     */
+    private Map<String, Integer> countDistinct(String sql) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        try (Connection conn = DBUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getInt(2));
+            }
+            return counts;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return counts;
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package g.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handle to an in-flight query that allows another thread to abort it.
+ * The DAO attaches its statement while the query runs, and {@link #cancel()}
+ * forwards to {@link Statement#cancel()} so SQLite interrupts the scan.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class QueryHandle {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryHandle.class.getName());
+
+    /** The statement currently executing, null if none */
+    private Statement statement;
+
+    /** Whether cancellation has been requested */
+    private boolean cancelled;
+
+    /**
+     * Attaches the statement about to be executed.
+     *
+     * @param statement the statement to attach
+     * @throws SQLException if the handle has already been cancelled
+     */
+    synchronized void attach(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled");
+        }
+        this.statement = statement;
+    }
+
+    /**
+     * Detaches the statement once the query has finished.
+     */
+    synchronized void detach() {
+        this.statement = null;
+    }
+
+    /**
+     * Requests cancellation of the query. Safe to call from any thread,
+     * before, during or after execution.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to cancel statement", e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether cancellation has been requested.
+     *
+     * @return true if the query was cancelled
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,82 @@
+package g.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import g.utils.DBUtil;
+
+/**
+ * Data Access Object for QueryLog table.
+ * This class records how often each search query was chosen, so that
+ * search suggestions can be ranked by popularity.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class QueryLogDAO {
+
+    /**
+     * Retrieves the selection count of every logged query.
+     *
+     * @return a map from query text to its count, or an empty map if none found
+     */
+    public Map<String, Integer> getQueryCounts() {
+        String sql = "SELECT query_text, hits FROM query_log WHERE hits > 0";
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        try (Connection conn = DBUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                counts.put(rs.getString("query_text"), rs.getInt("hits"));
+            }
+            return counts;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return counts;
+        }
+    }
+
+    /**
+     * Adds to the selection counts of several queries in one transaction,
+     * inserting the queries not logged yet.
+     *
+     * @param increments the amount to add to each query's count
+     * @return true if all counts were written, false otherwise
+     */
+    public boolean incrementCounts(Map<String, Integer> increments) {
+        if (increments.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT INTO query_log (query_text, hits, last_used) VALUES (?, ?, ?) "
+                + "ON CONFLICT(query_text) DO UPDATE SET hits = hits + excluded.hits, last_used = excluded.last_used";
+
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<String, Integer> entry : increments.entrySet()) {
+                    stmt.setString(1, entry.getKey());
+                    stmt.setInt(2, entry.getValue());
+                    stmt.setLong(3, now);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -6,12 +6,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
+import g.model.Category;
+import g.model.Ingredient;
 import g.model.Recipe;
 import g.utils.DBUtil;
+import g.utils.ProgressListener;
 
 /**
  * Data Access Object for Recipe tables.
@@ -24,18 +33,47 @@ import g.utils.DBUtil;
 public class RecipeDAO {
     
     private static final Logger LOGGER = Logger.getLogger(RecipeDAO.class.getName());
+
+    /**
+     * Recipe detail aggregates by recipe ID, shared by all instances and
+     * invalidated by every write to the recipe, its ingredients or its categories
+     */
+    private static final EntityCache<RecipeDetail> DETAILS = new EntityCache<>("recipe details", 256);
+
+    /** Recipe IDs a bulk statement is given at once; progress is reported after each */
+    static final int BULK_CHUNK = 500;
+
+    /** Merges concurrent summary lookups into one query, shared by all instances */
+    private static final BatchLoader<Recipe> SUMMARIES = new BatchLoader<>(RecipeDAO::loadRecipeSummaries);
     
     // SQL queries for recipe operations
     // Using prepared statements to prevent SQL injection and improve performance
     private static final String CREATE_RECIPE_SQL = 
         "INSERT INTO recipe (title, prep_time, cook_time, instruction, img_addr, serve) VALUES (?, ?, ?, ?, ?, ?)";
     private static final String DELETE_RECIPE_SQL = "DELETE FROM recipe WHERE recipe_id = ?";
+    private static final String DELETE_RECIPES_SQL =
+        "DELETE FROM recipe WHERE recipe_id IN (SELECT value FROM json_each(?)) RETURNING recipe_id";
     private static final String UPDATE_RECIPE_SQL = 
         "UPDATE recipe SET title = ?, prep_time = ?, cook_time = ?, instruction = ?, img_addr = ?, serve = ? WHERE recipe_id = ?";
     private static final String GET_RECIPE_BY_ID_SQL = "SELECT * FROM recipe WHERE recipe_id = ?";
-    private static final String GET_RECIPE_SUMMARY_BY_ID_SQL = "SELECT recipe_id, title, img_addr FROM recipe WHERE recipe_id = ?";
+    private static final String GET_RECIPE_SUMMARIES_BY_IDS_SQL =
+        "SELECT recipe_id, title, img_addr FROM recipe WHERE recipe_id IN (SELECT value FROM json_each(?))";
     private static final String GET_RECIPE_SUMMARY_BY_TITLE_SQL = "SELECT recipe_id, title, img_addr FROM recipe WHERE title LIKE ?";
     private static final String GET_ALL_RECIPE_SUMMARY_SQL = "SELECT recipe_id, title, img_addr FROM recipe";
+    private static final String RECIPE_DETAIL_SQL =
+        "SELECT 0 AS part, recipe_id AS id, title AS name, prep_time AS amount, cook_time, serve, " +
+        "instruction AS text, img_addr FROM recipe WHERE recipe_id = ? " +
+        "UNION ALL SELECT 1, pair_id, ingredient_name, ingredient_amount, NULL, NULL, unit, NULL " +
+        "FROM ingredient WHERE recipe_id = ? " +
+        "UNION ALL SELECT 2, c.category_id, c.category_name, NULL, NULL, NULL, NULL, NULL " +
+        "FROM category_recipe cr JOIN category c ON c.category_id = cr.category_id WHERE cr.recipe_id = ? " +
+        "ORDER BY part, id";
+    private static final String RECIPE_TEXT_SQL =
+        "SELECT r.recipe_id, r.title, r.instruction, " +
+        "(SELECT group_concat(i.ingredient_name, char(10)) FROM ingredient i WHERE i.recipe_id = r.recipe_id) AS ingredients " +
+        "FROM recipe r";
+    private static final String RECIPE_TEXT_IDS_SQL =
+        " WHERE r.recipe_id IN (SELECT value FROM json_each(?))";
 
     /**
      * Creates a new recipe in the database.
@@ -75,6 +113,7 @@ public class RecipeDAO {
                     if (generatedKeys.next()) {
                         int recipeId = generatedKeys.getInt(1);
                         LOGGER.info("Generated Recipe ID: " + recipeId);
+                        ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.INSERT, recipeId, ChangeFeed.ANY);
                         return recipeId;
                     }
                 }
@@ -87,6 +126,60 @@ public class RecipeDAO {
         }
     }
 
+    /**
+     * Creates a recipe and its ingredients in one transaction, so no reader
+     * ever sees the recipe without its ingredients. Either both are written
+     * or, if a statement fails, neither is. The change event is published
+     * once the transaction has committed.
+     * 
+     * @param recipe the recipe to create; its ID is ignored
+     * @param ingredients the ingredients of the recipe, all new
+     * @return the generated recipe ID if successful, -1 otherwise
+     * @throws IllegalArgumentException if the title is null or empty, or if times/serve are negative
+     */
+    public int createRecipe(Recipe recipe, List<Ingredient> ingredients) {
+        String title = recipe.getTitle();
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("Recipe title cannot be null or empty");
+        }
+        if (recipe.getPrepTime() < 0 || recipe.getCookTime() < 0 || recipe.getServe() < 0) {
+            throw new IllegalArgumentException("Times and serving size cannot be negative");
+        }
+
+        int recipeId;
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(CREATE_RECIPE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, title.trim());
+                    stmt.setInt(2, recipe.getPrepTime());
+                    stmt.setInt(3, recipe.getCookTime());
+                    stmt.setString(4, recipe.getInstruction() != null ? recipe.getInstruction().trim() : "");
+                    stmt.setString(5, recipe.getImgAddr() != null ? recipe.getImgAddr().trim() : "");
+                    stmt.setInt(6, recipe.getServe());
+                    stmt.executeUpdate();
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("No recipe ID was generated");
+                        }
+                        recipeId = generatedKeys.getInt(1);
+                    }
+                }
+                new IngredientDAO().writeIngredients(conn, recipeId, ingredients, null, List.of());
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error creating recipe: " + title + ", rolled back", e);
+            return -1;
+        }
+        LOGGER.info("Created recipe " + recipeId + " with " + ingredients.size() + " ingredients in one transaction");
+        ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.INSERT, recipeId, ChangeFeed.ANY);
+        return recipeId;
+    }
+
     /**
      * Deletes a recipe from the database.
      * 
@@ -100,13 +193,68 @@ public class RecipeDAO {
             stmt.setInt(1, recipeId);
             int rowsAffected = stmt.executeUpdate();
             LOGGER.info("Recipe deleted: " + recipeId + ", rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                // Invalidated before publishing, so listeners reading the recipe see the write
+                DETAILS.invalidate(recipeId);
+                ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.DELETE, recipeId, ChangeFeed.ANY);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting recipe: " + recipeId, e);
             return false;
+        } finally {
+            DETAILS.invalidate(recipeId);
         }
     }
 
+    /**
+     * Deletes many recipes in one transaction. The IDs are sent
+     * {@link #BULK_CHUNK} at a time to a single set-based DELETE, and the
+     * ingredients and category links of the deleted recipes go with them
+     * through their cascading foreign keys. Either every recipe is deleted or,
+     * if a statement fails, none is. Change events are published once the
+     * transaction has committed.
+     * 
+     * @param recipeIds the IDs of the recipes to delete; IDs of missing recipes are skipped
+     * @param progress told how many IDs were handled after each chunk
+     * @return the IDs of the recipes deleted, or null if the transaction was rolled back
+     */
+    public List<Integer> deleteRecipes(int[] recipeIds, ProgressListener progress) {
+        List<Integer> deleted = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_RECIPES_SQL)) {
+                for (int from = 0; from < recipeIds.length; from += BULK_CHUNK) {
+                    int to = Math.min(from + BULK_CHUNK, recipeIds.length);
+                    stmt.setString(1, Arrays.toString(Arrays.copyOfRange(recipeIds, from, to)));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            deleted.add(rs.getInt(1));
+                        }
+                    }
+                    progress.progress(to, recipeIds.length);
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error deleting " + recipeIds.length + " recipes, rolled back", e);
+            return null;
+        } finally {
+            for (int recipeId : recipeIds) {
+                DETAILS.invalidate(recipeId);
+                CategoryRecipeDAO.invalidate(recipeId);
+            }
+        }
+        LOGGER.info("Deleted " + deleted.size() + " of " + recipeIds.length + " recipes in one transaction");
+        for (int recipeId : deleted) {
+            ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.DELETE, recipeId, ChangeFeed.ANY);
+        }
+        return deleted;
+    }
+
     /**
      * Updates a recipe in the database.
      * 
@@ -141,13 +289,137 @@ public class RecipeDAO {
 
             int rowsAffected = stmt.executeUpdate();
             LOGGER.info("Recipe updated: " + recipeId + ", rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                // Invalidated before publishing, so listeners reading the recipe see the write
+                DETAILS.invalidate(recipeId);
+                ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.UPDATE, recipeId, ChangeFeed.ANY);
+            }
             return rowsAffected > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating recipe: " + recipeId, e);
             return false;
+        } finally {
+            DETAILS.invalidate(recipeId);
+        }
+    }
+
+    /**
+     * Updates several recipes and their ingredients in one transaction, so a
+     * batch of edits costs a single commit. Either every edit is written or,
+     * if any of them fails, none is. Change events are published once the
+     * transaction has committed.
+     * <p>
+     * Only what an edit marks as changed is written: the recipe row is updated
+     * in the changed columns alone and not at all if none changed, and only the
+     * changed and new ingredient rows are sent to the database.
+     * 
+     * @param edits the edits to write, at most one per recipe
+     * @return true if every edit was written, false if the transaction was rolled back
+     */
+    public boolean updateRecipes(List<RecipeEdit> edits) {
+        if (edits.isEmpty()) {
+            return true;
+        }
+        IngredientDAO ingredientDAO = new IngredientDAO();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (RecipeEdit edit : edits) {
+                    Recipe recipe = edit.recipe();
+                    if (recipe.getTitle() == null || recipe.getTitle().trim().isEmpty()) {
+                        throw new IllegalArgumentException("Recipe title cannot be null or empty");
+                    }
+                    if (recipe.getPrepTime() < 0 || recipe.getCookTime() < 0 || recipe.getServe() < 0) {
+                        throw new IllegalArgumentException("Times and serving size cannot be negative");
+                    }
+                    Set<Recipe.Field> fields = edit.changedFields() != null
+                            ? edit.changedFields() : EnumSet.allOf(Recipe.Field.class);
+                    if (!(fields.isEmpty() ? recipeExists(conn, recipe.getRecipeId()) : updateFields(conn, recipe, fields))) {
+                        throw new SQLException("Recipe " + recipe.getRecipeId() + " no longer exists");
+                    }
+                    ingredientDAO.writeIngredients(conn, recipe.getRecipeId(), edit.ingredients(),
+                            edit.changedPairIds(), edit.deletedPairIds());
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error updating " + edits.size() + " recipes, rolled back", e);
+            return false;
+        } finally {
+            for (RecipeEdit edit : edits) {
+                DETAILS.invalidate(edit.recipe().getRecipeId());
+            }
+        }
+        LOGGER.info("Updated " + edits.size() + " recipes in one transaction");
+        for (RecipeEdit edit : edits) {
+            ChangeFeed.publish(ChangeFeed.Table.RECIPE, ChangeFeed.Kind.UPDATE, edit.recipe().getRecipeId(), ChangeFeed.ANY);
+        }
+        return true;
+    }
+
+    /**
+     * Writes some columns of a recipe row with an UPDATE naming only them.
+     * 
+     * @return true if the row exists
+     */
+    private static boolean updateFields(Connection conn, Recipe recipe, Set<Recipe.Field> fields) throws SQLException {
+        StringJoiner sql = new StringJoiner(", ", "UPDATE recipe SET ", " WHERE recipe_id = ?");
+        for (Recipe.Field field : fields) {
+            sql.add(switch (field) {
+                case TITLE -> "title = ?";
+                case PREP_TIME -> "prep_time = ?";
+                case COOK_TIME -> "cook_time = ?";
+                case INSTRUCTION -> "instruction = ?";
+                case IMG_ADDR -> "img_addr = ?";
+                case SERVE -> "serve = ?";
+            });
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Recipe.Field field : fields) {
+                switch (field) {
+                    case TITLE -> stmt.setString(index, recipe.getTitle().trim());
+                    case PREP_TIME -> stmt.setInt(index, recipe.getPrepTime());
+                    case COOK_TIME -> stmt.setInt(index, recipe.getCookTime());
+                    case INSTRUCTION -> stmt.setString(index, recipe.getInstruction() != null ? recipe.getInstruction().trim() : "");
+                    case IMG_ADDR -> stmt.setString(index, recipe.getImgAddr() != null ? recipe.getImgAddr().trim() : "");
+                    case SERVE -> stmt.setInt(index, recipe.getServe());
+                }
+                index++;
+            }
+            stmt.setInt(index, recipe.getRecipeId());
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Tells whether a recipe row exists, for edits that leave the row itself alone.
+     */
+    private static boolean recipeExists(Connection conn, int recipeId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM recipe WHERE recipe_id = ?")) {
+            stmt.setInt(1, recipeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
         }
     }
 
+    /**
+     * One recipe edit written by {@link #updateRecipes(List)}.
+     * 
+     * @param recipe the recipe row after the edit
+     * @param ingredients the ingredients after the edit; those without a pair ID are inserted
+     * @param deletedPairIds the pair IDs of the ingredients removed by the edit
+     * @param changedFields the recipe fields to write, or null to write all of them
+     * @param changedPairIds the pair IDs of the existing ingredients to write, or null to write all of them
+     */
+    public record RecipeEdit(Recipe recipe, List<Ingredient> ingredients, List<Integer> deletedPairIds,
+                             Set<Recipe.Field> changedFields, Set<Integer> changedPairIds) {
+    }
+
     /**
      * Retrieves a complete recipe by its ID.
      * 
@@ -185,32 +457,165 @@ public class RecipeDAO {
     }
 
     /**
-     * Retrieves a recipe summary (ID, title, image) by its ID.
+     * Retrieves a recipe with its ingredients and categories. Details are
+     * served from a cache until the recipe, one of its ingredients or its
+     * categories are written, and every reader gets the same shared instance.
+     * 
+     * @param recipeId the ID of the recipe to retrieve
+     * @return the recipe with its ingredients and categories, null if not found or an error occurs
+     */
+    public RecipeDetail getRecipeDetail(int recipeId) {
+        return DETAILS.get(recipeId, this::loadRecipeDetail);
+    }
+
+    /**
+     * Reads a recipe with its ingredients and categories in one statement,
+     * the three parts being told apart by the first column.
+     */
+    private RecipeDetail loadRecipeDetail(int recipeId) {
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RECIPE_DETAIL_SQL)) {
+
+            stmt.setInt(1, recipeId);
+            stmt.setInt(2, recipeId);
+            stmt.setInt(3, recipeId);
+
+            Recipe recipe = null;
+            List<Ingredient> ingredients = new ArrayList<>();
+            List<Category> categories = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    switch (rs.getInt("part")) {
+                        case 0 -> {
+                            recipe = new Recipe();
+                            recipe.setRecipeId(rs.getInt("id"));
+                            recipe.setTitle(rs.getString("name"));
+                            recipe.setPrepTime(rs.getInt("amount"));
+                            recipe.setCookTime(rs.getInt("cook_time"));
+                            recipe.setServe(rs.getInt("serve"));
+                            recipe.setInstruction(rs.getString("text"));
+                            recipe.setImgAddr(rs.getString("img_addr"));
+                        }
+                        case 1 -> {
+                            Ingredient ingredient = new Ingredient();
+                            ingredient.setPairId(rs.getInt("id"));
+                            ingredient.setRecipeId(recipeId);
+                            ingredient.setIngredientName(rs.getString("name"));
+                            ingredient.setIngredientAmount(rs.getInt("amount"));
+                            ingredient.setIngredientUnit(rs.getString("text"));
+                            ingredients.add(ingredient);
+                        }
+                        default -> categories.add(new Category(rs.getInt("id"), rs.getString("name")));
+                    }
+                }
+            }
+            if (recipe == null) {
+                LOGGER.info("No recipe found for ID: " + recipeId);
+                return null;
+            }
+            return new RecipeDetail(recipe, ingredients, categories);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error retrieving recipe detail: " + recipeId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the cached detail of a recipe after its ingredients or categories
+     * were written by another DAO.
+     * 
+     * @param recipeId the ID of the recipe
+     */
+    static void invalidateDetail(int recipeId) {
+        DETAILS.invalidate(recipeId);
+    }
+
+    /**
+     * Drops every cached detail, after a write whose recipes are not known,
+     * such as renaming a category.
+     */
+    static void invalidateDetails() {
+        DETAILS.invalidateAll();
+    }
+
+    /**
+     * A recipe with its ingredients and categories, as read by
+     * {@link #getRecipeDetail(int)}. An instance is an immutable snapshot
+     * shared by every reader: the lists are unmodifiable, and the recipe,
+     * ingredients and categories in it must not be modified; callers that
+     * edit them work on copies.
+     * 
+     * @param recipe the recipe
+     * @param ingredients the ingredients, in the order they were added
+     * @param categories the categories, in ID order
+     */
+    public record RecipeDetail(Recipe recipe, List<Ingredient> ingredients, List<Category> categories) {
+
+        public RecipeDetail {
+            ingredients = List.copyOf(ingredients);
+            categories = List.copyOf(categories);
+        }
+    }
+
+    /**
+     * Retrieves a recipe summary (ID, title, image) by its ID. Lookups made at
+     * the same time by other threads are answered by the same query.
      * 
      * @param recipeId the ID of the recipe to retrieve
      * @return the Recipe object with summary information if found, null otherwise
      */
     public Recipe getRecipeSummaryById(int recipeId) {
+        Recipe recipe = SUMMARIES.get(recipeId);
+        if (recipe == null) {
+            LOGGER.info("No recipe found for ID: " + recipeId);
+            return null;
+        }
+        return new Recipe(recipe);
+    }
+
+    /**
+     * Retrieves the summaries (ID, title, image) of several recipes with one query.
+     * 
+     * @param recipeIds the IDs of the recipes to retrieve
+     * @return the Recipe objects with summary information by ID; IDs not found are absent
+     */
+    public Map<Integer, Recipe> getRecipeSummariesByIds(int[] recipeIds) {
+        Map<Integer, Recipe> recipes = new HashMap<>();
+        if (recipeIds.length == 0) {
+            return recipes;
+        }
+        for (Map.Entry<Integer, Recipe> entry : SUMMARIES.getAll(recipeIds).entrySet()) {
+            recipes.put(entry.getKey(), new Recipe(entry.getValue()));
+        }
+        return recipes;
+    }
+
+    /**
+     * Reads the summaries of a batch of recipes for {@link #SUMMARIES}.
+     * 
+     * @return the summaries by ID, or null if the query failed
+     */
+    private static Map<Integer, Recipe> loadRecipeSummaries(int[] recipeIds) {
         try (Connection conn = DBUtil.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(GET_RECIPE_SUMMARY_BY_ID_SQL)) {
+             PreparedStatement stmt = conn.prepareStatement(GET_RECIPE_SUMMARIES_BY_IDS_SQL)) {
 
-            stmt.setInt(1, recipeId);
+            stmt.setString(1, Arrays.toString(recipeIds));
 
+            Map<Integer, Recipe> recipes = new HashMap<>();
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
+                while (rs.next()) {
                     Recipe recipe = new Recipe();
                     recipe.setRecipeId(rs.getInt("recipe_id"));
                     recipe.setTitle(rs.getString("title"));
                     recipe.setImgAddr(rs.getString("img_addr"));
-                    return recipe;
-                } else {
-                    LOGGER.info("No recipe found for ID: " + recipeId);
-                    return null;
+                    recipes.put(recipe.getRecipeId(), recipe);
                 }
             }
+            LOGGER.fine("Loaded " + recipes.size() + " of " + recipeIds.length + " recipe summaries");
+            return recipes;
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error retrieving recipe summary: " + recipeId, e);
-            return null; 
+            LOGGER.log(Level.SEVERE, "Error retrieving recipe summaries: " + Arrays.toString(recipeIds), e);
+            return null;
         }
     }
 
@@ -222,33 +627,125 @@ public class RecipeDAO {
      * @throws IllegalArgumentException if keyword is null
      */
     public List<Recipe> getRecipeSummaryByTitle(String keyword) {
+        return getRecipeSummaryByTitle(keyword, null);
+    }
+
+    /**
+     * Searches for recipes by title keyword. The query can be aborted from
+     * another thread through the given handle, in which case the recipes
+     * read so far are discarded and an empty list is returned.
+     * 
+     * @param keyword the keyword to search for in recipe titles
+     * @param handle the cancellation handle, or null if the query cannot be cancelled
+     * @return a list of Recipe objects with summary information
+     * @throws IllegalArgumentException if keyword is null
+     */
+    public List<Recipe> getRecipeSummaryByTitle(String keyword, QueryHandle handle) {
         if (keyword == null) {
             throw new IllegalArgumentException("Search keyword cannot be null");
         }
         
-        List<Recipe> recipes = new ArrayList<>();
-
         try (Connection conn = DBUtil.getConnection();
              PreparedStatement stmt = conn.prepareStatement(GET_RECIPE_SUMMARY_BY_TITLE_SQL)) {
 
             stmt.setString(1, "%" + keyword.trim() + "%");
+            List<Recipe> recipes = executeSummaryQuery(stmt, handle);
+
+            LOGGER.info("Found " + recipes.size() + " recipes matching keyword: " + keyword);
+            return recipes;
+        } catch (SQLException e) {
+            if (handle != null && handle.isCancelled()) {
+                LOGGER.fine("Search cancelled for keyword: " + keyword);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching recipes by title: " + keyword, e);
+            }
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Streams the searchable text of recipes to the visitor, one row at a time,
+     * without building a list. Used to build the search index.
+     * 
+     * @param recipeIds the IDs of the recipes to read, or null for all recipes
+     * @param visitor the visitor receiving each row
+     * @return true if the scan completed, false if it failed
+     */
+    public boolean scanRecipeText(int[] recipeIds, RecipeTextVisitor visitor) {
+        String sql = recipeIds == null ? RECIPE_TEXT_SQL : RECIPE_TEXT_SQL + RECIPE_TEXT_IDS_SQL;
 
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (recipeIds != null) {
+                stmt.setString(1, Arrays.toString(recipeIds));
+            }
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Recipe recipe = new Recipe();
-                    recipe.setRecipeId(rs.getInt("recipe_id"));
-                    recipe.setTitle(rs.getString("title"));
-                    recipe.setImgAddr(rs.getString("img_addr"));
-                    
-                    recipes.add(recipe);
+                    visitor.visit(
+                        rs.getInt("recipe_id"),
+                        rs.getString("title"),
+                        rs.getString("ingredients"),
+                        rs.getString("instruction")
+                    );
                 }
             }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error scanning recipe text", e);
+            return false;
+        }
+    }
 
-            LOGGER.info("Found " + recipes.size() + " recipes matching keyword: " + keyword);
+    /**
+     * Receives the searchable text of a recipe, one row at a time.
+     * 
+     * @author Xinyuan Jiang
+     * @since 2025-6-15
+     */
+    public interface RecipeTextVisitor {
+        /**
+         * Called for each recipe row.
+         * 
+         * @param recipeId the recipe ID
+         * @param title the recipe title
+         * @param ingredients the ingredient names separated by newlines, or null if none
+         * @param instruction the cooking instructions, or null
+         */
+        void visit(int recipeId, String title, String ingredients, String instruction);
+    }
+
+    /**
+     * Executes a summary query, registering the statement with the handle
+     * so that it can be cancelled while rows are being read.
+     * 
+     * @param stmt the prepared summary statement
+     * @param handle the cancellation handle, or null
+     * @return the recipes read from the result set
+     * @throws SQLException if the query fails or is cancelled
+     */
+    private List<Recipe> executeSummaryQuery(PreparedStatement stmt, QueryHandle handle) throws SQLException {
+        List<Recipe> recipes = new ArrayList<>();
+        if (handle != null) {
+            handle.attach(stmt);
+        }
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                if (handle != null && handle.isCancelled()) {
+                    throw new SQLException("Query cancelled");
+                }
+                Recipe recipe = new Recipe();
+                recipe.setRecipeId(rs.getInt("recipe_id"));
+                recipe.setTitle(rs.getString("title"));
+                recipe.setImgAddr(rs.getString("img_addr"));
+
+                recipes.add(recipe);
+            }
             return recipes;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching recipes by title: " + keyword, e);
-            return recipes; 
+        } finally {
+            if (handle != null) {
+                handle.detach();
+            }
         }
     }
 
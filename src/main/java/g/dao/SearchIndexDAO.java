@@ -0,0 +1,308 @@
+package g.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.model.SearchDocument;
+import g.utils.DBUtil;
+
+/**
+ * Data Access Object for the recipe search index.
+ * The index has two parts: the recipe_search table stores the normalized text
+ * of every recipe, and the recipe_fts full-text table stores its tokens, with
+ * the recipe ID as rowid. Searches run the conditions compiled by
+ * {@link g.service.query.QueryPlanner}, which look up text in recipe_fts, and
+ * return the normalized text for scoring, so nothing is normalized again.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class SearchIndexDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(SearchIndexDAO.class.getName());
+
+    private static final String UPSERT_DOCUMENT_SQL =
+        "INSERT OR REPLACE INTO recipe_search (recipe_id, tokenizer, title_norm, ingredients_norm, instruction_norm) " +
+        "VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_TOKENS_SQL = "DELETE FROM recipe_fts WHERE rowid = ?";
+    private static final String INSERT_TOKENS_SQL =
+        "INSERT INTO recipe_fts (rowid, title, ingredients, instruction) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_DOCUMENT_SQL = "DELETE FROM recipe_search WHERE recipe_id = ?";
+    private static final String STALE_RECIPE_IDS_SQL =
+        "SELECT r.recipe_id FROM recipe r LEFT JOIN recipe_search s ON s.recipe_id = r.recipe_id " +
+        "WHERE s.recipe_id IS NULL OR s.tokenizer <> ?";
+    private static final String DELETE_ORPHAN_TOKENS_SQL =
+        "DELETE FROM recipe_fts WHERE rowid NOT IN (SELECT recipe_id FROM recipe)";
+    private static final String DELETE_ORPHAN_DOCUMENTS_SQL =
+        "DELETE FROM recipe_search WHERE recipe_id NOT IN (SELECT recipe_id FROM recipe)";
+    private static final String SEARCH_SQL =
+        "SELECT r.recipe_id, COALESCE(s.title_norm, '') AS title_norm, " +
+        "COALESCE(s.ingredients_norm, '') AS ingredients_norm, COALESCE(s.instruction_norm, '') AS instruction_norm " +
+        "FROM recipe r LEFT JOIN recipe_search s ON s.recipe_id = r.recipe_id " +
+        "WHERE ";
+    private static final String FACET_HITS_SQL = "WITH hits AS MATERIALIZED (SELECT r.recipe_id, ";
+    private static final String FACET_COUNTS_SQL =
+        ") SELECT cr.category_id, h.bucket, COUNT(*) FROM hits h " +
+        "JOIN category_recipe cr ON cr.recipe_id = h.recipe_id GROUP BY cr.category_id, h.bucket " +
+        "UNION ALL SELECT NULL, bucket, COUNT(*) FROM hits GROUP BY bucket";
+    private static final String SEARCH_CATEGORY_SQL =
+        " AND r.recipe_id IN (SELECT recipe_id FROM category_recipe WHERE category_id = ?)";
+    private static final String SEARCH_IDS_SQL =
+        " AND r.recipe_id IN (SELECT value FROM json_each(?))";
+
+    /**
+     * Writes the index entries of several recipes in one transaction,
+     * replacing any previous entries.
+     *
+     * @param tokenizer the name of the tokenizer that produced the entries
+     * @param documents the entries to write
+     * @return true if all entries were written, false otherwise
+     */
+    public boolean indexRecipes(String tokenizer, List<SearchDocument> documents) {
+        if (documents.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement upsert = conn.prepareStatement(UPSERT_DOCUMENT_SQL);
+                 PreparedStatement deleteTokens = conn.prepareStatement(DELETE_TOKENS_SQL);
+                 PreparedStatement insertTokens = conn.prepareStatement(INSERT_TOKENS_SQL)) {
+
+                for (SearchDocument document : documents) {
+                    upsert.setInt(1, document.getRecipeId());
+                    upsert.setString(2, tokenizer);
+                    upsert.setString(3, document.getTitle());
+                    upsert.setString(4, document.getIngredients());
+                    upsert.setString(5, document.getInstruction());
+                    upsert.addBatch();
+
+                    deleteTokens.setInt(1, document.getRecipeId());
+                    deleteTokens.addBatch();
+
+                    insertTokens.setInt(1, document.getRecipeId());
+                    insertTokens.setString(2, document.getTitleTokens());
+                    insertTokens.setString(3, document.getIngredientTokens());
+                    insertTokens.setString(4, document.getInstructionTokens());
+                    insertTokens.addBatch();
+                }
+                upsert.executeBatch();
+                deleteTokens.executeBatch();
+                insertTokens.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error indexing " + documents.size() + " recipes", e);
+            return false;
+        }
+    }
+
+    /**
+     * Removes the index entry of a recipe.
+     *
+     * @param recipeId the recipe ID
+     * @return true if the entry no longer exists, false if the removal failed
+     */
+    public boolean removeRecipe(int recipeId) {
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement deleteDocument = conn.prepareStatement(DELETE_DOCUMENT_SQL);
+                 PreparedStatement deleteTokens = conn.prepareStatement(DELETE_TOKENS_SQL)) {
+                deleteDocument.setInt(1, recipeId);
+                deleteDocument.executeUpdate();
+                deleteTokens.setInt(1, recipeId);
+                deleteTokens.executeUpdate();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing recipe " + recipeId + " from the search index", e);
+            return false;
+        }
+    }
+
+    /**
+     * Lists the recipes missing from the index or indexed by another tokenizer.
+     *
+     * @param tokenizer the name of the current tokenizer
+     * @return the IDs of the recipes to index, empty on error
+     */
+    public List<Integer> getStaleRecipeIds(String tokenizer) {
+        List<Integer> recipeIds = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(STALE_RECIPE_IDS_SQL)) {
+
+            stmt.setString(1, tokenizer);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    recipeIds.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error listing stale search index entries", e);
+        }
+        return recipeIds;
+    }
+
+    /**
+     * Removes the index entries of recipes that no longer exist.
+     *
+     * @return the number of entries removed, -1 on error
+     */
+    public int removeOrphans() {
+        try (Connection conn = DBUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(DELETE_ORPHAN_TOKENS_SQL);
+            return stmt.executeUpdate(DELETE_ORPHAN_DOCUMENTS_SQL);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error removing orphaned search index entries", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Counts the recipes matching a condition compiled by the query planner, by
+     * category and total time bucket. The matches are collected once and both
+     * groupings run over them in the same statement: one row per category and
+     * bucket, then one row per bucket over all matches, with a null category.
+     *
+     * @param condition the condition on the recipe table aliased {@code r}, or null for all recipes
+     * @param parameters the values bound to the parameters of the condition
+     * @param bucketLimits the upper bounds of the time buckets but the last, ascending
+     * @param visitor the visitor receiving each count
+     * @return true if the counts were read, false on error
+     */
+    public boolean countFacets(String condition, List<Object> parameters, int[] bucketLimits, FacetVisitor visitor) {
+        StringBuilder sql = new StringBuilder(FACET_HITS_SQL).append("CASE");
+        for (int i = 0; i < bucketLimits.length; i++) {
+            sql.append(" WHEN r.total_time <= ? THEN ").append(i);
+        }
+        sql.append(" ELSE ").append(bucketLimits.length).append(" END AS bucket FROM recipe r");
+        if (condition != null) {
+            sql.append(" WHERE ").append(condition);
+        }
+        sql.append(FACET_COUNTS_SQL);
+
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            for (int limit : bucketLimits) {
+                stmt.setInt(index++, limit);
+            }
+            for (Object parameter : parameters) {
+                stmt.setObject(index++, parameter);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int categoryId = rs.getInt(1);
+                    visitor.visit(rs.wasNull() ? null : categoryId, rs.getInt(2), rs.getInt(3));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting facets of: " + condition, e);
+            return false;
+        }
+    }
+
+    /**
+     * Receives the facet counts read by {@link #countFacets}.
+     */
+    public interface FacetVisitor {
+        /**
+         * Receives one count.
+         *
+         * @param categoryId the category ID, or null for the count over all categories
+         * @param bucket the time bucket index
+         * @param count the number of matching recipes
+         */
+        void visit(Integer categoryId, int bucket, int count);
+    }
+
+    /**
+     * Streams the recipes matching a condition compiled by the query planner
+     * to the visitor with their normalized text, one row at a time. A recipe
+     * not indexed yet, such as one imported before the index is backfilled,
+     * still matches conditions on categories and times, with empty text.
+     *
+     * @param condition the condition on the recipe table aliased {@code r}
+     * @param parameters the values bound to the parameters of the condition
+     * @param categoryId the category to restrict the search to, or null for all recipes
+     * @param recipeIds the recipe IDs to restrict the search to, or null for no restriction
+     * @param handle the cancellation handle, or null if the query cannot be cancelled
+     * @param visitor the visitor receiving each matching row
+     * @return true if the search completed, false if it failed or was cancelled
+     */
+    public boolean search(String condition, List<Object> parameters, Integer categoryId, int[] recipeIds,
+            QueryHandle handle, RecipeDAO.RecipeTextVisitor visitor) {
+        StringBuilder sql = new StringBuilder(SEARCH_SQL).append('(').append(condition).append(')');
+        if (categoryId != null) {
+            sql.append(SEARCH_CATEGORY_SQL);
+        }
+        if (recipeIds != null) {
+            sql.append(SEARCH_IDS_SQL);
+        }
+
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            for (Object parameter : parameters) {
+                stmt.setObject(index++, parameter);
+            }
+            if (categoryId != null) {
+                stmt.setInt(index++, categoryId);
+            }
+            if (recipeIds != null) {
+                stmt.setString(index++, Arrays.toString(recipeIds));
+            }
+
+            if (handle != null) {
+                handle.attach(stmt);
+            }
+            int rows = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (handle != null && handle.isCancelled()) {
+                        throw new SQLException("Query cancelled");
+                    }
+                    visitor.visit(
+                        rs.getInt("recipe_id"),
+                        rs.getString("title_norm"),
+                        rs.getString("ingredients_norm"),
+                        rs.getString("instruction_norm")
+                    );
+                    rows++;
+                }
+            } finally {
+                if (handle != null) {
+                    handle.detach();
+                }
+            }
+            LOGGER.fine("Search index returned " + rows + " candidates for: " + condition);
+            return true;
+        } catch (SQLException e) {
+            if (handle != null && handle.isCancelled()) {
+                LOGGER.fine("Search cancelled for: " + condition);
+            } else {
+                LOGGER.log(Level.SEVERE, "Error searching the index for: " + condition, e);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package g.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the facet counts of a search.
+ * Matches are counted by category and by total time bucket together, so the
+ * count of a category under any time filter, and the count of a time bucket
+ * within any category, are sums of stored cells and need no further query.
+ * Bucket {@code i} holds total times up to {@code TIME_BUCKET_LIMITS[i]}
+ * minutes; the last bucket holds everything above the last limit.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class FacetCountsResponse {
+
+    /** Upper bounds in minutes of the total time buckets, except the last one */
+    public static final int[] TIME_BUCKET_LIMITS = {15, 30, 60};
+
+    /** Number of total time buckets */
+    public static final int TIME_BUCKETS = TIME_BUCKET_LIMITS.length + 1;
+
+    /** Matches per time bucket, over all categories */
+    private final int[] totals;
+
+    /** Matches per time bucket, by category ID */
+    private final Map<Integer, int[]> byCategory;
+
+    /**
+     * Constructs empty facet counts, to be filled with {@link #add(Integer, int, int)}.
+     */
+    public FacetCountsResponse() {
+        this.totals = new int[TIME_BUCKETS];
+        this.byCategory = new HashMap<>();
+    }
+
+    /**
+     * Adds matches to a cell.
+     *
+     * @param categoryId the category ID, or null for the count over all categories
+     * @param bucket the time bucket index
+     * @param count the number of matches
+     */
+    public void add(Integer categoryId, int bucket, int count) {
+        int[] cells = categoryId == null ? totals : byCategory.computeIfAbsent(categoryId, id -> new int[TIME_BUCKETS]);
+        cells[bucket] += count;
+    }
+
+    /**
+     * Gets the number of matches in a range of time buckets.
+     *
+     * @param categoryId the category ID, or null for all categories
+     * @param fromBucket the first bucket, inclusive
+     * @param toBucket the last bucket, inclusive
+     * @return the number of matches
+     */
+    public int getCount(Integer categoryId, int fromBucket, int toBucket) {
+        int[] cells = categoryId == null ? totals : byCategory.get(categoryId);
+        if (cells == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int bucket = fromBucket; bucket <= toBucket; bucket++) {
+            count += cells[bucket];
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of matches of every category in a range of time buckets.
+     * Categories without matches are absent.
+     *
+     * @param fromBucket the first bucket, inclusive
+     * @param toBucket the last bucket, inclusive
+     * @return the number of matches by category ID
+     */
+    public Map<Integer, Integer> getCategoryCounts(int fromBucket, int toBucket) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Integer categoryId : byCategory.keySet()) {
+            int count = getCount(categoryId, fromBucket, toBucket);
+            if (count > 0) {
+                counts.put(categoryId, count);
+            }
+        }
+        return counts;
+    }
+}
@@ -1,6 +1,7 @@
 package g.dto;
 
 import java.util.List;
+import java.util.Set;
 
 import g.model.Ingredient;
 import g.model.Recipe;
@@ -23,6 +24,12 @@ public class RecipeDetailRequest {
     private List<Ingredient> ingredients;
     private List<Integer> deleteIds;
 
+    /** Recipe fields the user changed, or null if unknown and all are written */
+    private Set<Recipe.Field> changedFields;
+
+    /** Pair IDs of the existing ingredients the user changed, or null if unknown and all are written */
+    private Set<Integer> changedPairIds;
+
     /**
      * Default constructor for RecipeDetailRequest.
      */
@@ -42,6 +49,24 @@ public class RecipeDetailRequest {
         this.deleteIds = deleteIds;
     }
 
+    /**
+     * Constructs a new RecipeDetailRequest that also records what the user
+     * changed, so only the changed columns and ingredient rows are written.
+     * Ingredients without a pair ID are new and always written.
+     * 
+     * @param recipe the recipe to be updated
+     * @param ingredients the list of ingredients for the recipe
+     * @param deleteIds the list of ingredient IDs to be deleted
+     * @param changedFields the recipe fields changed, or null to write all of them
+     * @param changedPairIds the pair IDs of the existing ingredients changed, or null to write all of them
+     */
+    public RecipeDetailRequest(Recipe recipe, List<Ingredient> ingredients, List<Integer> deleteIds,
+                               Set<Recipe.Field> changedFields, Set<Integer> changedPairIds) {
+        this(recipe, ingredients, deleteIds);
+        this.changedFields = changedFields;
+        this.changedPairIds = changedPairIds;
+    }
+
     /**
      * Gets the recipe to be updated.
      * 
@@ -96,12 +121,50 @@ public class RecipeDetailRequest {
         this.deleteIds = deleteIds;
     }
 
+    /**
+     * Gets the recipe fields the user changed.
+     * 
+     * @return the changed fields, or null if unknown and all of them are written
+     */
+    public Set<Recipe.Field> getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * Sets the recipe fields the user changed.
+     * 
+     * @param changedFields the changed fields, or null to write all of them
+     */
+    public void setChangedFields(Set<Recipe.Field> changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    /**
+     * Gets the pair IDs of the existing ingredients the user changed.
+     * 
+     * @return the changed pair IDs, or null if unknown and all ingredients are written
+     */
+    public Set<Integer> getChangedPairIds() {
+        return changedPairIds;
+    }
+
+    /**
+     * Sets the pair IDs of the existing ingredients the user changed.
+     * 
+     * @param changedPairIds the changed pair IDs, or null to write all ingredients
+     */
+    public void setChangedPairIds(Set<Integer> changedPairIds) {
+        this.changedPairIds = changedPairIds;
+    }
+
     @Override
     public String toString() {
         return "RecipeDetailRequest{" +
                 "recipe=" + recipe +
                 ", ingredients=" + ingredients +
                 ", deleteIds=" + deleteIds +
+                ", changedFields=" + changedFields +
+                ", changedPairIds=" + changedPairIds +
                 '}';
     }
 }
@@ -1,5 +1,6 @@
 package g.dto;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import g.model.Ingredient;
@@ -8,7 +9,11 @@ import g.model.Recipe;
 /**
  * Data Transfer Object for recipe detail responses.
  * This class is used to transfer complete recipe information including
- * ingredients from the service layer to the presentation layer.
+ * ingredients and categories from the service layer to the presentation layer.
+ * <p>
+ * Instances are immutable: the recipe and ingredients are copied in and each
+ * getter returns fresh copies, so one instance can be shared by the detail
+ * card, ingredient scaling and the categorize dialog.
  * 
  * @author Xinyuan Jiang
  * @since 2025-6-15
@@ -19,8 +24,9 @@ public class RecipeDetailResponse {
      * The recipe information.
      * This field contains the recipe details such as title, preparation time, etc.
      */
-    private Recipe recipe;
-    private List<Ingredient> ingredients;
+    private final Recipe recipe;
+    private final List<Ingredient> ingredients;
+    private final List<CategoryResponse> categories;
 
     /**
      * Constructs a new RecipeDetailResponse with the specified parameters.
@@ -29,26 +35,58 @@ public class RecipeDetailResponse {
      * @param ingredients the list of ingredients for the recipe
      */
     public RecipeDetailResponse(Recipe recipe, List<Ingredient> ingredients) {
-        this.recipe = recipe;
-        this.ingredients = ingredients;
+        this(recipe, ingredients, List.of());
+    }
+
+    /**
+     * Constructs a new RecipeDetailResponse with the specified parameters.
+     * 
+     * @param recipe the recipe information
+     * @param ingredients the list of ingredients for the recipe
+     * @param categories the categories the recipe belongs to
+     */
+    public RecipeDetailResponse(Recipe recipe, List<Ingredient> ingredients, List<CategoryResponse> categories) {
+        this.recipe = recipe != null ? new Recipe(recipe) : null;
+        this.ingredients = copyOf(ingredients != null ? ingredients : List.of());
+        this.categories = List.copyOf(categories);
     }
 
     /**
      * Gets the recipe information.
      * 
-     * @return the recipe
+     * @return a copy of the recipe, or null if the recipe was not found
      */
     public Recipe getRecipe() {
-        return recipe;
+        return recipe != null ? new Recipe(recipe) : null;
     }
 
     /**
      * Gets the list of ingredients for the recipe.
      * 
-     * @return the list of ingredients
+     * @return a copy of the list of ingredients
      */
     public List<Ingredient> getIngredients() {
-        return ingredients;
+        return copyOf(ingredients);
+    }
+
+    /**
+     * Gets the categories the recipe belongs to.
+     * 
+     * @return an unmodifiable list of categories
+     */
+    public List<CategoryResponse> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Copies a list of ingredients, ingredient by ingredient.
+     */
+    private static List<Ingredient> copyOf(List<Ingredient> ingredients) {
+        List<Ingredient> copy = new ArrayList<>(ingredients.size());
+        for (Ingredient ingredient : ingredients) {
+            copy.add(new Ingredient(ingredient));
+        }
+        return copy;
     }
 
     @Override
@@ -56,6 +94,7 @@ public class RecipeDetailResponse {
         return "RecipeDetailResponse{" +
                 "recipe=" + recipe +
                 ", ingredients=" + ingredients +
+                ", categories=" + categories +
                 '}';
     }
 }
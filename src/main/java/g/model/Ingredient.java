@@ -1,5 +1,7 @@
 package g.model;
 
+import java.util.Objects;
+
 /**
  * Represents an ingredient in a recipe.
  * This class encapsulates the information about an ingredient including
@@ -56,6 +58,19 @@ public class Ingredient {
         this.ingredientUnit = ingredientUnit != null ? ingredientUnit.trim() : "";
     }
 
+    /**
+     * Constructs a copy of another ingredient, field by field and without validation.
+     * 
+     * @param other the ingredient to copy
+     */
+    public Ingredient(Ingredient other) {
+        this.pairId = other.pairId;
+        this.recipeId = other.recipeId;
+        this.ingredientName = other.ingredientName;
+        this.ingredientAmount = other.ingredientAmount;
+        this.ingredientUnit = other.ingredientUnit;
+    }
+
     /**
      * Gets the unique identifier for this ingredient-recipe pair.
      * 
@@ -154,6 +169,20 @@ public class Ingredient {
         this.ingredientUnit = ingredientUnit != null ? ingredientUnit.trim() : "";
     }
 
+    /**
+     * Tells whether this ingredient holds the same name, amount and unit as
+     * another, a missing unit counting as empty.
+     * 
+     * @param other the ingredient to compare with
+     * @return true if writing this ingredient over the other would change nothing
+     */
+    public boolean sameContent(Ingredient other) {
+        return Objects.equals(ingredientName, other.ingredientName)
+                && ingredientAmount == other.ingredientAmount
+                && Objects.equals(ingredientUnit != null ? ingredientUnit : "",
+                        other.ingredientUnit != null ? other.ingredientUnit : "");
+    }
+
     /**
      * Returns a string representation of the ingredient.
      * 
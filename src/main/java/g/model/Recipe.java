@@ -1,5 +1,8 @@
 package g.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Represents a recipe in the cookbook application.
  * This class encapsulates all the information about a recipe including
@@ -32,6 +35,18 @@ public class Recipe {
     /** Serving size */
     private int serve;
 
+    /**
+     * The fields of a recipe an edit can change, each stored in its own column.
+     */
+    public enum Field {
+        TITLE,
+        PREP_TIME,
+        COOK_TIME,
+        INSTRUCTION,
+        IMG_ADDR,
+        SERVE
+    }
+
     /**
      * Default constructor for Recipe.
      */
@@ -67,6 +82,21 @@ public class Recipe {
         this.serve = serve;
     }
     
+    /**
+     * Constructs a copy of another recipe, field by field and without validation.
+     * 
+     * @param other the recipe to copy
+     */
+    public Recipe(Recipe other) {
+        this.recipeId = other.recipeId;
+        this.title = other.title;
+        this.prepTime = other.prepTime;
+        this.cookTime = other.cookTime;
+        this.instruction = other.instruction;
+        this.imgAddr = other.imgAddr;
+        this.serve = other.serve;
+    }
+
     /**
      * Gets the unique identifier of this recipe.
      * 
@@ -218,6 +248,44 @@ public class Recipe {
         return prepTime + cookTime;
     }
     
+    /**
+     * Tells which fields differ from an earlier version of this recipe, as they
+     * would be stored: text is compared trimmed, and a missing instruction or
+     * image address counts as empty.
+     * 
+     * @param before the recipe as it was before the edit
+     * @return the changed fields, empty if the edit changed nothing
+     */
+    public Set<Field> changedFields(Recipe before) {
+        Set<Field> changed = EnumSet.noneOf(Field.class);
+        if (!stored(title).equals(stored(before.title))) {
+            changed.add(Field.TITLE);
+        }
+        if (prepTime != before.prepTime) {
+            changed.add(Field.PREP_TIME);
+        }
+        if (cookTime != before.cookTime) {
+            changed.add(Field.COOK_TIME);
+        }
+        if (!stored(instruction).equals(stored(before.instruction))) {
+            changed.add(Field.INSTRUCTION);
+        }
+        if (!stored(imgAddr).equals(stored(before.imgAddr))) {
+            changed.add(Field.IMG_ADDR);
+        }
+        if (serve != before.serve) {
+            changed.add(Field.SERVE);
+        }
+        return changed;
+    }
+
+    /**
+     * Normalizes a text field the way it is written to the database.
+     */
+    private static String stored(String text) {
+        return text != null ? text.trim() : "";
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,118 @@
+package g.model;
+
+/**
+ * Represents the search index entry of a recipe.
+ * It holds the normalized text of each searchable field, used to score matches,
+ * and the tokens of each field joined by spaces, used to find them.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class SearchDocument {
+
+    /** Recipe ID */
+    private final int recipeId;
+
+    /** Normalized title */
+    private final String title;
+
+    /** Normalized ingredient names separated by newlines */
+    private final String ingredients;
+
+    /** Normalized instructions */
+    private final String instruction;
+
+    /** Title tokens separated by spaces */
+    private final String titleTokens;
+
+    /** Ingredient tokens separated by spaces */
+    private final String ingredientTokens;
+
+    /** Instruction tokens separated by spaces */
+    private final String instructionTokens;
+
+    /**
+     * Constructs a new SearchDocument.
+     *
+     * @param recipeId the recipe ID
+     * @param title the normalized title
+     * @param ingredients the normalized ingredient names separated by newlines
+     * @param instruction the normalized instructions
+     * @param titleTokens the title tokens separated by spaces
+     * @param ingredientTokens the ingredient tokens separated by spaces
+     * @param instructionTokens the instruction tokens separated by spaces
+     */
+    public SearchDocument(int recipeId, String title, String ingredients, String instruction,
+            String titleTokens, String ingredientTokens, String instructionTokens) {
+        this.recipeId = recipeId;
+        this.title = title;
+        this.ingredients = ingredients;
+        this.instruction = instruction;
+        this.titleTokens = titleTokens;
+        this.ingredientTokens = ingredientTokens;
+        this.instructionTokens = instructionTokens;
+    }
+
+    /**
+     * Gets the recipe ID.
+     *
+     * @return the recipe ID
+     */
+    public int getRecipeId() {
+        return recipeId;
+    }
+
+    /**
+     * Gets the normalized title.
+     *
+     * @return the normalized title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the normalized ingredient names.
+     *
+     * @return the normalized ingredient names separated by newlines
+     */
+    public String getIngredients() {
+        return ingredients;
+    }
+
+    /**
+     * Gets the normalized instructions.
+     *
+     * @return the normalized instructions
+     */
+    public String getInstruction() {
+        return instruction;
+    }
+
+    /**
+     * Gets the title tokens.
+     *
+     * @return the title tokens separated by spaces
+     */
+    public String getTitleTokens() {
+        return titleTokens;
+    }
+
+    /**
+     * Gets the ingredient tokens.
+     *
+     * @return the ingredient tokens separated by spaces
+     */
+    public String getIngredientTokens() {
+        return ingredientTokens;
+    }
+
+    /**
+     * Gets the instruction tokens.
+     *
+     * @return the instruction tokens separated by spaces
+     */
+    public String getInstructionTokens() {
+        return instructionTokens;
+    }
+}
@@ -3,9 +3,8 @@ package g.service;
 import java.util.ArrayList;
 import java.util.List;
 
-import g.dao.IngredientDAO;
-import g.dao.RecipeDAO;
 import g.dto.CalculateResponse;
+import g.dto.RecipeDetailResponse;
 import g.model.Ingredient;
 
 /**
@@ -19,52 +18,21 @@ import g.model.Ingredient;
 public class CalculateService {
 
     /**
-     * Data Access Object for ingredients.
-     * This DAO is used to interact with the ingredient data in the database.
-     */
-    private final IngredientDAO ingredientDAO;
-    private final RecipeDAO recipeDAO;
-        
-    /**
-     * Default constructor for CalculateService.
-     */
-    public CalculateService() {
-        this.ingredientDAO = new IngredientDAO();
-        this.recipeDAO = new RecipeDAO();
-    }
-
-    /**
-     * Calculates the scaled ingredient amounts for a recipe based on the desired number of servings.
+     * Calculates the scaled ingredient amounts of an already loaded recipe,
+     * without reading it again.
      * 
-     * @param recipeId the ID of the recipe to calculate ingredients for
+     * @param detail the recipe with its ingredients
      * @param serve the desired number of servings
      * @return a CalculateResponse containing the scaled ingredients
      */
-    public CalculateResponse IngredientCalculate(int recipeId, int serve) {
-       
-        CalculateResponse response = new CalculateResponse();
-
-        List<Ingredient> ingredients = ingredientDAO.getIngredientsByRecipeId(recipeId);
-
-        int originalServe = recipeDAO.getRecipeById(recipeId).getServe();
-
-
-        double scaleFactor = (double) serve / originalServe;
-
+    public CalculateResponse IngredientCalculate(RecipeDetailResponse detail, int serve) {
+        double scaleFactor = (double) serve / detail.getRecipe().getServe();
 
         List<Ingredient> scaledIngredients = new ArrayList<>();
-        for (Ingredient ingredient : ingredients) {
-            Ingredient result = new Ingredient();
-            result.setPairId(ingredient.getPairId());
-            result.setRecipeId(ingredient.getRecipeId());
-            result.setIngredientName(ingredient.getIngredientName());
-            result.setIngredientAmount((int) Math.ceil(ingredient.getIngredientAmount() * scaleFactor));
-            result.setIngredientUnit(ingredient.getIngredientUnit());
-            scaledIngredients.add(result);
+        for (Ingredient ingredient : detail.getIngredients()) {
+            ingredient.setIngredientAmount((int) Math.ceil(ingredient.getIngredientAmount() * scaleFactor));
+            scaledIngredients.add(ingredient);
         }
-
-        response.setIngredients(scaledIngredients);
-
-        return response;
+        return new CalculateResponse(scaledIngredients);
     }
 }
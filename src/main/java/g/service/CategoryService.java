@@ -3,6 +3,7 @@ package g.service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -13,6 +14,8 @@ import g.dto.CategoryResponse;
 import g.dto.RecipeSummaryResponse;
 import g.model.Category;
 import g.model.Recipe;
+import g.service.DataVersions.Table;
+import g.utils.ProgressListener;
 
 /**
  * Service class for managing recipe categories.
@@ -43,9 +46,9 @@ public class CategoryService {
     }
 
     /**
-     * Updates the categories associated with a recipe.
-     * This method first clears existing category associations and then
-     * adds the new category associations.
+     * Updates the categories associated with a recipe. Links to categories no
+     * longer selected are removed and new ones added in one transaction, so
+     * the recipe is never left with only part of the change.
      * 
      * @param categoryIds the list of category IDs to associate with the recipe
      * @param recipeId the ID of the recipe to update
@@ -53,32 +56,14 @@ public class CategoryService {
      */
     public boolean updateRecipeToCategory(List<Integer> categoryIds, int recipeId) {
         try {
-            
-            List<Integer> currentCategoryIds = categoryRecipeDAO.getCategoryIdsByRecipeId(recipeId);
-
-            if ((currentCategoryIds == null || currentCategoryIds.isEmpty()) && 
-                (categoryIds == null || categoryIds.isEmpty())) {
-                LOGGER.info("No categories to update for recipe " + recipeId);
-                return true;
-            }
-
-            if (currentCategoryIds != null && !currentCategoryIds.isEmpty()) {
-                boolean clearSuccess = categoryRecipeDAO.clearCategoriesForRecipe(recipeId);
-                if (!clearSuccess) {
-                    LOGGER.warning("Failed to clear old category relations for recipe " + recipeId);
-                    return false;
-                }
-            }
-
-            if (categoryIds != null && !categoryIds.isEmpty()) {
-                boolean addSuccess = categoryRecipeDAO.addToCategory(categoryIds, recipeId);
-                if (!addSuccess) {
-                    LOGGER.warning("Failed to add recipe " + recipeId + " to categories");
-                    return false;
-                }
-                LOGGER.info("Recipe " + recipeId + " successfully added to categories");
+            boolean success = categoryRecipeDAO.replaceCategories(recipeId,
+                    categoryIds != null ? categoryIds : List.of());
+            DataVersions.bump(Table.CATEGORY_RECIPE);
+            if (!success) {
+                LOGGER.warning("Failed to update categories for recipe " + recipeId);
+                return false;
             }
-
+            LOGGER.info("Recipe " + recipeId + " categories updated successfully");
             return true;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error updating recipe categories for recipe " + recipeId, e);
@@ -86,6 +71,41 @@ public class CategoryService {
         }
     }
 
+    /**
+     * Adds many recipes to some categories in one transaction. Recipes already
+     * in a category stay as they are.
+     * 
+     * @param recipeIds the IDs of the recipes
+     * @param categoryIds the IDs of the categories to add them to
+     * @param progress told how many recipes were handled as the write proceeds
+     * @return the number of links added, or -1 if the write failed and nothing changed
+     */
+    public int addRecipesToCategories(List<Integer> recipeIds, List<Integer> categoryIds, ProgressListener progress) {
+        int added = categoryRecipeDAO.addRecipesToCategories(
+                recipeIds.stream().mapToInt(Integer::intValue).toArray(), categoryIds, progress);
+        if (added != 0) {
+            DataVersions.bump(Table.CATEGORY_RECIPE);
+        }
+        return added;
+    }
+
+    /**
+     * Removes many recipes from some categories in one transaction.
+     * 
+     * @param recipeIds the IDs of the recipes
+     * @param categoryIds the IDs of the categories to remove them from
+     * @param progress told how many recipes were handled as the write proceeds
+     * @return the number of links removed, or -1 if the write failed and nothing changed
+     */
+    public int removeRecipesFromCategories(List<Integer> recipeIds, List<Integer> categoryIds, ProgressListener progress) {
+        int removed = categoryRecipeDAO.removeRecipesFromCategories(
+                recipeIds.stream().mapToInt(Integer::intValue).toArray(), categoryIds, progress);
+        if (removed != 0) {
+            DataVersions.bump(Table.CATEGORY_RECIPE);
+        }
+        return removed;
+    }
+
     /**
      * Creates a new category.
      * 
@@ -101,6 +121,7 @@ public class CategoryService {
         try {
             boolean success = categoryDAO.createCategory(categoryName.trim());
             if (success) {
+                DataVersions.bump(Table.CATEGORY);
                 LOGGER.info("Category '" + categoryName + "' created successfully");
             } else {
                 LOGGER.warning("Failed to create category '" + categoryName + "'");
@@ -122,6 +143,7 @@ public class CategoryService {
         try {
             
             boolean clearSuccess = categoryRecipeDAO.removeAllRecipesFromCategory(categoryId);
+            DataVersions.bump(Table.CATEGORY_RECIPE);
             if (!clearSuccess) {
                 LOGGER.warning("Failed to clear recipe relations for category " + categoryId);
                 return false;
@@ -135,6 +157,7 @@ public class CategoryService {
                 return false;
             }
             if (deleteSuccess) {
+                DataVersions.bump(Table.CATEGORY);
                 LOGGER.info("Category " + categoryId + " deleted successfully");
             } else {
                 LOGGER.warning("Failed to delete category " + categoryId);
@@ -162,6 +185,7 @@ public class CategoryService {
         try {
             boolean success = categoryDAO.updateCategory(categoryId, categoryName.trim());
             if (success) {
+                DataVersions.bump(Table.CATEGORY);
                 LOGGER.info("Category " + categoryId + " updated successfully");
             } else {
                 LOGGER.warning("Failed to update category " + categoryId);
@@ -199,20 +223,51 @@ public class CategoryService {
             return Collections.emptyList();
         }
     }
-   
+
+    /**
+     * Retrieves one category by its ID.
+     *
+     * @param categoryId the ID of the category
+     * @return the CategoryResponse, or null if there is no such category
+     */
+    public CategoryResponse getCategoryById(int categoryId) {
+        List<Category> categories = categoryDAO.getCategoriesByIds(List.of(categoryId));
+        if (categories.isEmpty()) {
+            return null;
+        }
+        Category category = categories.get(0);
+        return new CategoryResponse(category.getCategoryId(), category.getCategoryName());
+    }
+
     /**
-     * Retrieves recipe summaries for a specific category.
+     * Retrieves recipe summaries for a specific category. The list is served from
+     * {@link QueryResultCache} until a recipe or a category assignment is written.
      * 
      * @param categoryId the ID of the category
-     * @return a list of RecipeSummaryResponse objects, empty list if error occurs
+     * @return an unmodifiable list of RecipeSummaryResponse objects, empty list if error occurs
      */
     public List<RecipeSummaryResponse> getRecipeSummaryByCategoryId(int categoryId) {
+        List<RecipeSummaryResponse> responses = QueryResultCache.get(
+                new QueryResultCache.Key("summaries", categoryId, ""),
+                () -> loadRecipeSummaryByCategoryId(categoryId), Table.RECIPE, Table.CATEGORY_RECIPE);
+        return responses == null ? Collections.emptyList() : responses;
+    }
+
+    /**
+     * Loads the recipe summaries of a category from the database.
+     * 
+     * @param categoryId the ID of the category
+     * @return the summaries, null if they could not be read
+     */
+    private List<RecipeSummaryResponse> loadRecipeSummaryByCategoryId(int categoryId) {
         try {
             List<Integer> recipeIds = categoryRecipeDAO.getRecipeIdsByCategoryId(categoryId);
+            Map<Integer, Recipe> recipes = recipeDAO.getRecipeSummariesByIds(
+                    recipeIds.stream().mapToInt(Integer::intValue).toArray());
             List<RecipeSummaryResponse> responses = new ArrayList<>();
 
             for (int recipeId : recipeIds) {
-                Recipe recipe = recipeDAO.getRecipeSummaryById(recipeId);
+                Recipe recipe = recipes.get(recipeId);
                 if (recipe != null) {
                     responses.add(new RecipeSummaryResponse(
                         recipe.getRecipeId(),
@@ -223,10 +278,10 @@ public class CategoryService {
             }
 
             LOGGER.info("Retrieved " + responses.size() + " recipes for category " + categoryId);
-            return responses;
+            return List.copyOf(responses);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error retrieving recipes for category " + categoryId, e);
-            return Collections.emptyList();
+            return null;
         }
     }
 
@@ -0,0 +1,66 @@
+package g.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-table version counters. Every service method that writes to a table
+ * bumps its counter, so anything derived from the table can tell whether it
+ * is still current by comparing the version it was built from.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class DataVersions {
+
+    /**
+     * Tables whose versions are tracked.
+     */
+    public enum Table {
+        RECIPE,
+        INGREDIENT,
+        CATEGORY,
+        CATEGORY_RECIPE
+    }
+
+    /** Current version of each table, indexed by ordinal */
+    private static final AtomicLongArray VERSIONS = new AtomicLongArray(Table.values().length);
+
+    private DataVersions() {
+    }
+
+    /**
+     * Gets the current version of a table.
+     *
+     * @param table the table
+     * @return the version, incremented on every write
+     */
+    public static long get(Table table) {
+        return VERSIONS.get(table.ordinal());
+    }
+
+    /**
+     * Gets a combined stamp for several tables. Versions only grow, so the stamp
+     * changes whenever any of the tables is written.
+     *
+     * @param tables the tables
+     * @return the sum of their versions
+     */
+    public static long stamp(Table... tables) {
+        long stamp = 0;
+        for (Table table : tables) {
+            stamp += VERSIONS.get(table.ordinal());
+        }
+        return stamp;
+    }
+
+    /**
+     * Records a write to the given tables.
+     *
+     * @param tables the tables written
+     */
+    public static void bump(Table... tables) {
+        for (Table table : tables) {
+            VERSIONS.incrementAndGet(table.ordinal());
+        }
+    }
+}
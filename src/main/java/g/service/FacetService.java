@@ -0,0 +1,61 @@
+package g.service;
+
+import java.util.List;
+
+import g.dao.SearchIndexDAO;
+import g.dto.FacetCountsResponse;
+import g.service.query.QueryPlan;
+import g.service.query.QueryPlanner;
+
+/**
+ * Service counting the matches of a search by category and total time, for
+ * the counts shown next to categories and time filters. All counts come from
+ * a single statement over the matches of the query; no query is issued per
+ * category or per bucket.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class FacetService {
+
+    private final QueryPlanner queryPlanner;
+    private final SearchIndexDAO searchIndexDAO;
+
+    /**
+     * Default constructor for FacetService.
+     */
+    public FacetService() {
+        this(new QueryPlanner(), new SearchIndexDAO());
+    }
+
+    /**
+     * Constructs a new FacetService with the specified planner and DAO.
+     */
+    public FacetService(QueryPlanner queryPlanner, SearchIndexDAO searchIndexDAO) {
+        this.queryPlanner = queryPlanner;
+        this.searchIndexDAO = searchIndexDAO;
+    }
+
+    /**
+     * Counts the matches of a query by category and by
+     * {@link FacetCountsResponse#TIME_BUCKET_LIMITS time bucket}.
+     *
+     * @param query the query, blank to count all recipes
+     * @return the counts, all zero if nothing matches or the count failed
+     */
+    public FacetCountsResponse countFacets(String query) {
+        FacetCountsResponse facets = new FacetCountsResponse();
+        String condition = null;
+        List<Object> parameters = List.of();
+        if (query != null && !query.isBlank()) {
+            QueryPlan plan = queryPlanner.plan(query);
+            if (plan.isEmpty()) {
+                return facets;
+            }
+            condition = plan.getCondition();
+            parameters = plan.getParameters();
+        }
+        searchIndexDAO.countFacets(condition, parameters, FacetCountsResponse.TIME_BUCKET_LIMITS, facets::add);
+        return facets;
+    }
+}
@@ -0,0 +1,156 @@
+package g.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import g.dao.IngredientDAO;
+import g.model.Ingredient;
+import g.utils.BackgroundExecutor;
+import g.utils.PrefixTrie;
+
+/**
+ * Service for ingredient name and unit autocomplete.
+ * Every distinct name and unit is kept in a {@link PrefixTrie} ranked by the
+ * number of ingredient rows using it. The tries are built once in the background
+ * from {@link IngredientDAO} and shared by every instance; afterwards
+ * {@link RecipeService} keeps them current as recipes are saved, so they are
+ * never rebuilt. Lookups only read memory and are cheap enough to run on
+ * every keystroke.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class IngredientSuggestionService {
+
+    private static final Logger LOGGER = Logger.getLogger(IngredientSuggestionService.class.getName());
+
+    /** Maximum number of suggestions returned per lookup */
+    public static final int MAX_SUGGESTIONS = PrefixTrie.DEFAULT_TOP_K;
+
+    /** Ingredient names by usage count, null until loaded */
+    private static volatile PrefixTrie names;
+
+    /** Units by usage count, null until loaded */
+    private static volatile PrefixTrie units;
+
+    /** The load in progress or completed, null if not started */
+    private static CompletableFuture<Void> loading;
+
+    private final IngredientDAO ingredientDAO;
+
+    /**
+     * Default constructor for IngredientSuggestionService.
+     */
+    public IngredientSuggestionService() {
+        this(new IngredientDAO());
+    }
+
+    /**
+     * Constructs a new IngredientSuggestionService with the specified DAO.
+     */
+    public IngredientSuggestionService(IngredientDAO ingredientDAO) {
+        this.ingredientDAO = ingredientDAO;
+    }
+
+    /**
+     * Starts building the suggestion tries in the background if not done yet.
+     */
+    public void preload() {
+        synchronized (IngredientSuggestionService.class) {
+            if (loading != null) {
+                return;
+            }
+            loading = CompletableFuture.runAsync(this::load, BackgroundExecutor.io());
+        }
+    }
+
+    /**
+     * Rebuilds the tries in the background after a write too large to record
+     * row by row, such as an import. The old tries keep answering until the
+     * new ones are built. Does nothing if they were never loaded.
+     */
+    public void reload() {
+        synchronized (IngredientSuggestionService.class) {
+            if (loading == null) {
+                return;
+            }
+            loading = loading.handle((ignored, error) -> null)
+                    .thenRunAsync(this::load, BackgroundExecutor.io());
+        }
+    }
+
+    /**
+     * Suggests ingredient names starting with the prefix, most used first.
+     * Returns nothing until the tries are built.
+     *
+     * @param prefix the text typed so far
+     * @return up to {@link #MAX_SUGGESTIONS} names
+     */
+    public List<String> suggestNames(String prefix) {
+        return suggest(names, prefix);
+    }
+
+    /**
+     * Suggests units starting with the prefix, most used first.
+     * Returns nothing until the tries are built.
+     *
+     * @param prefix the text typed so far
+     * @return up to {@link #MAX_SUGGESTIONS} units
+     */
+    public List<String> suggestUnits(String prefix) {
+        return suggest(units, prefix);
+    }
+
+    /**
+     * Checks whether the tries are built and kept up to date.
+     *
+     * @return true if saved ingredients must be recorded
+     */
+    public boolean isLoaded() {
+        return names != null;
+    }
+
+    /**
+     * Records an ingredient row being added or removed.
+     *
+     * @param ingredient the ingredient, ignored if null
+     * @param delta +1 when the row was added, -1 when it was removed
+     */
+    public void record(Ingredient ingredient, int delta) {
+        PrefixTrie nameTrie = names;
+        PrefixTrie unitTrie = units;
+        if (ingredient == null || nameTrie == null || unitTrie == null) {
+            return;
+        }
+        nameTrie.add(ingredient.getIngredientName(), delta);
+        unitTrie.add(ingredient.getIngredientUnit(), delta);
+    }
+
+    /**
+     * Builds both tries from the usage counts in the database.
+     */
+    private void load() {
+        long start = System.nanoTime();
+        PrefixTrie nameTrie = build(ingredientDAO.getIngredientNameCounts());
+        PrefixTrie unitTrie = build(ingredientDAO.getUnitCounts());
+        units = unitTrie;
+        names = nameTrie;
+        LOGGER.info("Ingredient suggestions loaded: " + nameTrie.size() + " names, " + unitTrie.size()
+                + " units in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static PrefixTrie build(Map<String, Integer> counts) {
+        PrefixTrie trie = new PrefixTrie();
+        trie.addAll(counts);
+        return trie;
+    }
+
+    private static List<String> suggest(PrefixTrie trie, String prefix) {
+        if (trie == null || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return trie.suggest(prefix, MAX_SUGGESTIONS);
+    }
+}
@@ -0,0 +1,197 @@
+package g.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Logger;
+
+import g.dao.QueryHandle;
+import g.dto.RecipeSummaryResponse;
+import g.service.query.QueryParser;
+import g.utils.BackgroundExecutor;
+
+/**
+ * Service for ranked recipe searches started from the UI.
+ * Each call to {@link #search(int, String)} supersedes the previous one: the
+ * in-flight query is cancelled at the statement level, and when the new keyword
+ * extends the previous one only the recipes matched by the previous search are
+ * scanned again. Results are ranked by relevance and returned a page at a time.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class LiveSearchService {
+
+    private static final Logger LOGGER = Logger.getLogger(LiveSearchService.class.getName());
+
+    /** Scope identifier for searching across all recipes */
+    public static final int ALL_RECIPES = 0;
+
+    /** Number of ranked results returned per page */
+    public static final int PAGE_SIZE = 50;
+
+    private final RecipeService recipeService;
+    private final CategoryService categoryService;
+
+    /** The search currently running, null if none */
+    private CompletableFuture<List<RecipeSummaryResponse>> inFlight;
+
+    /** Cancellation handle of the query currently running */
+    private QueryHandle inFlightHandle;
+
+    /** Scope of the last completed search */
+    private int lastScope = -1;
+
+    /** Case-folded keyword of the last completed search, null if it used query operators */
+    private String lastKeyword;
+
+    /** Cursor of the last completed search, null if it was not a ranked search */
+    private RankedSearchCursor lastCursor;
+
+    /**
+     * Default constructor for LiveSearchService.
+     */
+    public LiveSearchService() {
+        this(new RecipeService(), new CategoryService());
+    }
+
+    /**
+     * Constructs a new LiveSearchService with the specified services.
+     */
+    public LiveSearchService(RecipeService recipeService, CategoryService categoryService) {
+        this.recipeService = recipeService;
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * Starts a search off the calling thread, cancelling any search still running.
+     * A blank keyword lists every recipe of the scope; otherwise the first page
+     * of ranked results is returned and {@link #loadMore()} fetches the rest.
+     *
+     * @param scope {@link #ALL_RECIPES} or the ID of the category to search in
+     * @param keyword the keyword typed by the user
+     * @return a future completed with the results, or cancelled if superseded
+     */
+    public synchronized CompletableFuture<List<RecipeSummaryResponse>> search(int scope, String keyword) {
+        cancel();
+
+        String trimmed = keyword == null ? "" : keyword.trim();
+        String folded = trimmed.toLowerCase(Locale.ROOT);
+        boolean plain = QueryParser.isPlain(trimmed);
+        RankedSearchCursor narrowable = plain && canNarrow(scope, folded) ? lastCursor : null;
+        QueryHandle handle = new QueryHandle();
+        // Set before chaining, so a search that completes at once is still remembered
+        inFlightHandle = handle;
+
+        CompletableFuture<RankedSearchCursor> cursorFuture = CompletableFuture.supplyAsync(() -> {
+            if (folded.isEmpty()) {
+                return null;
+            }
+            if (narrowable != null) {
+                LOGGER.fine("Narrowing previous results for keyword: " + trimmed);
+                return recipeService.narrowRanked(narrowable, trimmed, handle);
+            }
+            return recipeService.searchRanked(trimmed, PAGE_SIZE, scope == ALL_RECIPES ? null : scope, handle);
+        }, BackgroundExecutor.io());
+
+        // Async, as a blank keyword completes at once and listing the scope must not run on the caller
+        CompletableFuture<List<RecipeSummaryResponse>> future = cursorFuture.thenApplyAsync(cursor -> {
+            List<RecipeSummaryResponse> results = cursor == null ? listScope(scope) : cursor.next();
+            if (handle.isCancelled()) {
+                throw new CancellationException("Search superseded: " + trimmed);
+            }
+            remember(handle, scope, plain ? folded : null, cursor);
+            return results;
+        }, BackgroundExecutor.io());
+
+        inFlight = future;
+        return future;
+    }
+
+    /**
+     * Fetches the next page of the last completed search off the calling thread.
+     *
+     * @return a future completed with the next page, empty if there are no more results
+     */
+    public synchronized CompletableFuture<List<RecipeSummaryResponse>> loadMore() {
+        RankedSearchCursor cursor = lastCursor;
+        if (cursor == null || !cursor.hasMore()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return CompletableFuture.supplyAsync(cursor::next, BackgroundExecutor.io());
+    }
+
+    /**
+     * Checks whether the last completed search has results not yet returned.
+     *
+     * @return true if {@link #loadMore()} would return more results
+     */
+    public synchronized boolean hasMore() {
+        return lastCursor != null && lastCursor.hasMore();
+    }
+
+    /**
+     * Cancels the search currently running, if any.
+     */
+    public synchronized void cancel() {
+        if (inFlightHandle != null) {
+            inFlightHandle.cancel();
+        }
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+        inFlight = null;
+        inFlightHandle = null;
+    }
+
+    /**
+     * Forgets the previous results so the next search queries the whole scope.
+     * Must be called after the underlying recipes have changed.
+     */
+    public synchronized void reset() {
+        cancel();
+        lastScope = -1;
+        lastKeyword = null;
+        lastCursor = null;
+    }
+
+    /**
+     * Checks whether the previous search can be narrowed for the new keyword.
+     * Both keywords must be plain words, whose terms all match as token
+     * prefixes, and a keyword starting with the previous one only extends its
+     * last term or adds terms, so the previous matches are a superset of the
+     * new ones. Operators break this: extending a negated word or a time limit
+     * can match more recipes, not fewer.
+     */
+    private boolean canNarrow(int scope, String folded) {
+        return lastCursor != null
+                && lastScope == scope
+                && lastKeyword != null
+                && !folded.isEmpty()
+                && folded.startsWith(lastKeyword);
+    }
+
+    /**
+     * Records a completed search if it is still the latest one.
+     */
+    private synchronized void remember(QueryHandle handle, int scope, String folded, RankedSearchCursor cursor) {
+        if (handle != inFlightHandle) {
+            return;
+        }
+        lastScope = scope;
+        lastKeyword = folded;
+        lastCursor = cursor;
+        inFlight = null;
+        inFlightHandle = null;
+    }
+
+    /**
+     * Lists every recipe of the scope, unranked.
+     */
+    private List<RecipeSummaryResponse> listScope(int scope) {
+        return scope == ALL_RECIPES
+                ? recipeService.getAllRecipeSummary()
+                : categoryService.getRecipeSummaryByCategoryId(scope);
+    }
+}
@@ -0,0 +1,141 @@
+package g.service;
+
+import java.lang.Character.UnicodeScript;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizer for text mixing CJK and alphabetic scripts.
+ * Normalization decomposes compatibility characters (full-width letters become
+ * ASCII), strips accents from alphabetic scripts and folds case. CJK text has no
+ * spaces between words, so each run of CJK characters is indexed as overlapping
+ * bigrams plus its last character; every character then starts some token and
+ * any CJK query of one or more characters can be matched by token prefix.
+ * Other letters and digits form one token per word.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class MixedScriptTokenizer implements Tokenizer {
+
+    /** Name stored with indexed recipes, change it when the output changes */
+    private static final String NAME = "mixed-script-1";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * Normalizes text: NFKD decomposition, removal of combining marks following
+     * non-CJK characters, simple Unicode case folding, then NFC recomposition.
+     * Marks following CJK characters, such as Japanese voicing marks, are kept.
+     */
+    @Override
+    public String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean afterCjk = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+            int type = Character.getType(cp);
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK) {
+                if (afterCjk) {
+                    folded.appendCodePoint(cp);
+                }
+                continue;
+            }
+            afterCjk = isCjk(cp);
+            if (cp == '\u00DF') {
+                folded.append("ss");
+            } else {
+                folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+            }
+        }
+        return Normalizer.normalize(folded, Normalizer.Form.NFC);
+    }
+
+    @Override
+    public List<String> tokenize(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                i = cjkRun(normalized, i, tokens);
+            } else if (isWordPart(cp)) {
+                int start = i;
+                while (i < length) {
+                    int next = normalized.codePointAt(i);
+                    if (!isWordPart(next) || isCjk(next)) {
+                        break;
+                    }
+                    i += Character.charCount(next);
+                }
+                tokens.add(normalized.substring(start, i));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Emits the bigrams and the final character of the CJK run starting at the index.
+     *
+     * @return the index following the run
+     */
+    private static int cjkRun(String text, int start, List<String> tokens) {
+        int previous = start;
+        int current = start + Character.charCount(text.codePointAt(start));
+        while (current < text.length()) {
+            int cp = text.codePointAt(current);
+            if (!isCjk(cp) && !isMark(cp)) {
+                break;
+            }
+            int end = current + Character.charCount(cp);
+            if (isMark(cp)) {
+                current = end;
+                continue;
+            }
+            int bigramEnd = end;
+            while (bigramEnd < text.length() && isMark(text.codePointAt(bigramEnd))) {
+                bigramEnd += Character.charCount(text.codePointAt(bigramEnd));
+            }
+            tokens.add(text.substring(previous, bigramEnd));
+            previous = current;
+            current = end;
+        }
+        tokens.add(text.substring(previous, current));
+        return current;
+    }
+
+    /**
+     * Checks whether a code point belongs to a script written without spaces.
+     */
+    static boolean isCjk(int cp) {
+        UnicodeScript script = UnicodeScript.of(cp);
+        return script == UnicodeScript.HAN
+                || script == UnicodeScript.HIRAGANA
+                || script == UnicodeScript.KATAKANA
+                || script == UnicodeScript.HANGUL
+                || cp == '\u30FC';
+    }
+
+    private static boolean isWordPart(int cp) {
+        return Character.isLetterOrDigit(cp) || isMark(cp);
+    }
+
+    private static boolean isMark(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+}
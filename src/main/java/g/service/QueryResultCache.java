@@ -0,0 +1,128 @@
+package g.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import g.service.DataVersions.Table;
+
+/**
+ * Cache of list and search results shared by the services, keyed by
+ * (kind, scope, query). Each entry is stamped with the {@link DataVersions} of
+ * the tables its result was read from, taken before reading, and is served
+ * only while those versions are unchanged. A stale or missing entry is loaded
+ * once: concurrent requests for the same key wait for the same load instead
+ * of querying the database again. The least recently used entries are evicted
+ * beyond {@link #CAPACITY}.
+ * <p>
+ * Cached values are shared between callers and must not be modified.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class QueryResultCache {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryResultCache.class.getName());
+
+    /** Maximum number of cached results */
+    static final int CAPACITY = 64;
+
+    /** Cached results, least recently used first */
+    private static final Map<Key, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private QueryResultCache() {
+    }
+
+    /**
+     * Identifies a cached result.
+     *
+     * @param kind the kind of result, such as summaries, a ranking or a recipe detail
+     * @param scope {@link LiveSearchService#ALL_RECIPES}, a category ID, or the ID of a single recipe
+     * @param query the query with its filters, empty for an unfiltered list
+     */
+    record Key(String kind, int scope, String query) {
+    }
+
+    /**
+     * A result being loaded or loaded, with the data version it was read at.
+     */
+    private static final class Entry {
+        private final long stamp;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+
+        Entry(long stamp) {
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Gets a result from the cache, or loads it if it is missing or any of its
+     * tables was written since it was loaded. A loader returning null, for
+     * example because its query was cancelled, caches nothing; requests that
+     * were waiting for it then load the result themselves.
+     *
+     * @param key the key of the result
+     * @param loader loads the result, may return null
+     * @param tables the tables the result is read from
+     * @return the result, null if it could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(Key key, Supplier<T> loader, Table... tables) {
+        while (true) {
+            long stamp = DataVersions.stamp(tables);
+            Entry entry;
+            boolean owner = false;
+            synchronized (ENTRIES) {
+                entry = ENTRIES.get(key);
+                if (entry == null || entry.stamp != stamp) {
+                    entry = new Entry(stamp);
+                    ENTRIES.put(key, entry);
+                    owner = true;
+                }
+            }
+            if (owner) {
+                LOGGER.fine("Loading " + key);
+                return load(key, entry, loader);
+            }
+            Object value = entry.value.join();
+            if (value != null) {
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    static void clear() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    /**
+     * Runs the loader for an entry this thread created and completes the entry,
+     * removing it if nothing was loaded.
+     */
+    private static <T> T load(Key key, Entry entry, Supplier<T> loader) {
+        T value = null;
+        try {
+            value = loader.get();
+            return value;
+        } finally {
+            if (value == null) {
+                synchronized (ENTRIES) {
+                    ENTRIES.remove(key, entry);
+                }
+            }
+            entry.value.complete(value);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package g.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import g.dao.QueryLogDAO;
+import g.dao.RecipeDAO;
+import g.model.Recipe;
+import g.service.DataVersions.Table;
+import g.utils.BackgroundExecutor;
+import g.utils.PrefixTrie;
+
+/**
+ * Service for search bar suggestions.
+ * Recipe titles and past queries are kept in one {@link PrefixTrie} ranked by
+ * how often they were chosen, so each keystroke only costs a walk down the
+ * prefix. Selections update the trie immediately but are written to the query
+ * log in batches: they are buffered and flushed periodically, when enough have
+ * accumulated, and on shutdown through {@link #flush()}.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class QuerySuggestionService {
+
+    private static final Logger LOGGER = Logger.getLogger(QuerySuggestionService.class.getName());
+
+    /** Maximum number of suggestions returned per lookup */
+    public static final int MAX_SUGGESTIONS = PrefixTrie.DEFAULT_TOP_K;
+
+    /** Count given to every recipe title so titles are suggested before being chosen */
+    private static final int TITLE_WEIGHT = 1;
+
+    /** Number of buffered selections that triggers a flush */
+    private static final int FLUSH_THRESHOLD = 32;
+
+    /** Seconds between periodic flushes of buffered selections */
+    private static final long FLUSH_INTERVAL_SECONDS = 30;
+
+    /** Titles and past queries by selection count, null until loaded */
+    private static volatile PrefixTrie suggestions;
+
+    /** Recipe table version the titles were loaded from */
+    private static volatile long titlesVersion = -1;
+
+    /** The load in progress, null if none */
+    private static CompletableFuture<Void> loading;
+
+    /** Selections not yet written to the query log, guarded by itself */
+    private static final Map<String, Integer> PENDING = new HashMap<>();
+
+    /** Whether the periodic flush has been scheduled */
+    private static boolean flushScheduled;
+
+    private final QueryLogDAO queryLogDAO;
+    private final RecipeDAO recipeDAO;
+
+    /**
+     * Default constructor for QuerySuggestionService.
+     */
+    public QuerySuggestionService() {
+        this(new QueryLogDAO(), new RecipeDAO());
+    }
+
+    /**
+     * Constructs a new QuerySuggestionService with the specified DAOs.
+     */
+    public QuerySuggestionService(QueryLogDAO queryLogDAO, RecipeDAO recipeDAO) {
+        this.queryLogDAO = queryLogDAO;
+        this.recipeDAO = recipeDAO;
+    }
+
+    /**
+     * Starts building the suggestions in the background if they are missing or
+     * the recipe titles changed since they were built.
+     */
+    public void preload() {
+        synchronized (QuerySuggestionService.class) {
+            if (loading != null || titlesVersion == DataVersions.get(Table.RECIPE)) {
+                return;
+            }
+            loading = CompletableFuture.runAsync(this::load, BackgroundExecutor.io())
+                    .whenComplete((ignored, error) -> {
+                        synchronized (QuerySuggestionService.class) {
+                            loading = null;
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Suggests titles and past queries starting with the prefix, most chosen first.
+     * Returns nothing until the suggestions are built; stale suggestions are
+     * still served while they are rebuilt.
+     *
+     * @param prefix the text typed so far
+     * @return up to {@link #MAX_SUGGESTIONS} suggestions
+     */
+    public List<String> suggest(String prefix) {
+        preload();
+        PrefixTrie trie = suggestions;
+        if (trie == null || prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return trie.suggest(prefix, MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Records that the user chose a query, either by submitting it or by
+     * picking it from the suggestions. The count is buffered, not written.
+     *
+     * @param query the chosen query, ignored if blank
+     */
+    public void recordSelection(String query) {
+        if (query == null || query.isBlank()) {
+            return;
+        }
+        String trimmed = query.trim();
+        PrefixTrie trie = suggestions;
+        if (trie != null) {
+            trie.add(trimmed, 1);
+        }
+
+        boolean full;
+        synchronized (PENDING) {
+            PENDING.merge(trimmed, 1, Integer::sum);
+            full = PENDING.size() >= FLUSH_THRESHOLD;
+            if (!flushScheduled) {
+                flushScheduled = true;
+                BackgroundExecutor.scheduler().scheduleWithFixedDelay(this::flush,
+                        FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        if (full) {
+            BackgroundExecutor.io().execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes the buffered selections to the query log in one transaction.
+     * Selections that could not be written are kept for the next flush.
+     */
+    public void flush() {
+        Map<String, Integer> batch;
+        synchronized (PENDING) {
+            if (PENDING.isEmpty()) {
+                return;
+            }
+            batch = new HashMap<>(PENDING);
+            PENDING.clear();
+        }
+        if (!queryLogDAO.incrementCounts(batch)) {
+            LOGGER.warning("Failed to write " + batch.size() + " query log entries, keeping them for the next flush");
+            synchronized (PENDING) {
+                batch.forEach((query, hits) -> PENDING.merge(query, hits, Integer::sum));
+            }
+        }
+    }
+
+    /**
+     * Builds the suggestions from the recipe titles, the query log and the
+     * selections not yet flushed. Titles are added first so their spelling is
+     * kept when a past query differs only by case.
+     */
+    private void load() {
+        long version = DataVersions.get(Table.RECIPE);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Recipe recipe : recipeDAO.getAllRecipeSummary()) {
+            counts.merge(recipe.getTitle(), TITLE_WEIGHT, Integer::sum);
+        }
+        queryLogDAO.getQueryCounts().forEach((query, hits) -> counts.merge(query, hits, Integer::sum));
+        synchronized (PENDING) {
+            PENDING.forEach((query, hits) -> counts.merge(query, hits, Integer::sum));
+        }
+
+        PrefixTrie trie = new PrefixTrie();
+        trie.addAll(counts);
+        suggestions = trie;
+        titlesVersion = version;
+        LOGGER.fine("Search suggestions loaded: " + trie.size() + " entries");
+    }
+}
@@ -0,0 +1,283 @@
+package g.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import g.dao.RecipeDAO;
+import g.dto.RecipeSummaryResponse;
+import g.model.Recipe;
+
+/**
+ * Cursor over ranked search results, returned by {@link RecipeService#searchRanked}.
+ * Only the ID and score of each match are kept, in two primitive arrays. Each call
+ * to {@link #next()} selects the following page with a heap bounded by the page
+ * size, so no full sort is done and only the recipes actually shown are loaded,
+ * one query per page.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class RankedSearchCursor {
+
+    /** Initial capacity of the candidate arrays */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Stamp of a cursor whose matches were not ranked, such as a blank or failed search */
+    static final long UNRANKED = -1;
+
+    private final RecipeDAO recipeDAO;
+
+    /** The query this cursor was created for */
+    private final String query;
+
+    /** Number of results returned per page */
+    private final int pageSize;
+
+    /** The category searched in, or null for all recipes */
+    private final Integer categoryId;
+
+    /** {@link DataVersions} stamp of all tables the matches were ranked at, or {@link #UNRANKED} */
+    private final long stamp;
+
+    /** IDs of the matching recipes, in scan order */
+    private int[] ids = new int[INITIAL_CAPACITY];
+
+    /** Scores of the matching recipes, parallel to {@link #ids} */
+    private float[] scores = new float[INITIAL_CAPACITY];
+
+    /** Number of matching recipes */
+    private int size;
+
+    /** Number of results already returned */
+    private int emitted;
+
+    /** Score of the last result returned */
+    private float lastScore = Float.POSITIVE_INFINITY;
+
+    /** ID of the last result returned */
+    private int lastId = Integer.MIN_VALUE;
+
+    /**
+     * Constructs an empty cursor.
+     *
+     * @param recipeDAO the DAO used to load the summaries of each page
+     * @param query the query this cursor was created for
+     * @param pageSize the number of results returned per page
+     * @param categoryId the category searched in, or null for all recipes
+     * @param stamp the stamp of all tables the matches are ranked at, or {@link #UNRANKED}
+     */
+    RankedSearchCursor(RecipeDAO recipeDAO, String query, int pageSize, Integer categoryId, long stamp) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.recipeDAO = recipeDAO;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.categoryId = categoryId;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Creates a cursor over the same matches, positioned before the first page.
+     * The candidate arrays are shared, so the matches of this cursor must be
+     * complete; this lets a cached search be served to several callers, each
+     * paging on its own.
+     *
+     * @return a new cursor over the same matches
+     */
+    RankedSearchCursor copy() {
+        RankedSearchCursor copy = new RankedSearchCursor(recipeDAO, query, pageSize, categoryId, stamp);
+        copy.ids = ids;
+        copy.scores = scores;
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Adds a scored match. Called while the candidates are scanned.
+     *
+     * @param recipeId the recipe ID
+     * @param score the relevance score
+     */
+    void add(int recipeId, float score) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        ids[size] = recipeId;
+        scores[size] = score;
+        size++;
+    }
+
+    /**
+     * Returns the next page of results, best first.
+     *
+     * @return the next page, empty when all results have been returned
+     */
+    public synchronized List<RecipeSummaryResponse> next() {
+        int[] heap = new int[pageSize];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (!after(scores[i], ids[i], lastScore, lastId)) {
+                continue;
+            }
+            if (heapSize < pageSize) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++);
+            } else if (before(i, heap[0])) {
+                heap[0] = i;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        int[] page = new int[heapSize];
+        for (int n = heapSize - 1; n >= 0; n--) {
+            page[n] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+
+        int[] pageIds = new int[page.length];
+        for (int n = 0; n < page.length; n++) {
+            pageIds[n] = ids[page[n]];
+        }
+        Map<Integer, Recipe> recipes = recipeDAO.getRecipeSummariesByIds(pageIds);
+        List<RecipeSummaryResponse> results = new ArrayList<>(page.length);
+        for (int recipeId : pageIds) {
+            Recipe recipe = recipes.get(recipeId);
+            if (recipe != null) {
+                results.add(new RecipeSummaryResponse(recipe.getRecipeId(), recipe.getTitle(), recipe.getImgAddr()));
+            }
+        }
+        if (page.length > 0) {
+            int last = page[page.length - 1];
+            lastScore = scores[last];
+            lastId = ids[last];
+            emitted += page.length;
+        }
+        return results;
+    }
+
+    /**
+     * Checks whether more results remain after those already returned.
+     *
+     * @return true if {@link #next()} would return a non-empty page
+     */
+    public synchronized boolean hasMore() {
+        return emitted < size;
+    }
+
+    /**
+     * Gets the total number of matching recipes.
+     *
+     * @return the number of matches
+     */
+    public int getTotalMatches() {
+        return size;
+    }
+
+    /**
+     * Gets the number of results returned per page.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the category searched in.
+     *
+     * @return the category ID, or null if all recipes were searched
+     */
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * Gets the query this cursor was created for.
+     *
+     * @return the query
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the {@link DataVersions} stamp of all tables the matches were ranked at.
+     *
+     * @return the stamp, or {@link #UNRANKED} if the matches were not ranked
+     */
+    long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Gets the IDs of all matching recipes, in no particular order.
+     *
+     * @return a copy of the matching IDs
+     */
+    int[] getMatchingIds() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Checks whether (score, id) ranks strictly after (refScore, refId):
+     * higher scores first, ties broken by ascending ID.
+     */
+    private static boolean after(float score, int id, float refScore, int refId) {
+        return score < refScore || (score == refScore && id > refId);
+    }
+
+    /**
+     * Checks whether candidate a ranks before candidate b.
+     */
+    private boolean before(int a, int b) {
+        return after(scores[b], ids[b], scores[a], ids[a]);
+    }
+
+    /**
+     * Restores the heap upwards. The root is the worst ranked candidate kept.
+     */
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(heap[parent], heap[index])) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    /**
+     * Restores the heap downwards from the root.
+     */
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < heapSize && before(heap[left], heap[right])) {
+                worst = right;
+            }
+            if (!before(heap[index], heap[worst])) {
+                break;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -2,15 +2,30 @@ package g.service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
 
 import g.dao.IngredientDAO;
+import g.dao.QueryHandle;
 import g.dao.RecipeDAO;
+import g.dao.SearchIndexDAO;
+import g.dto.CategoryResponse;
 import g.dto.RecipeDetailRequest;
 import g.dto.RecipeDetailResponse;
 import g.dto.RecipeSummaryResponse;
+import g.model.Category;
 import g.model.Ingredient;
 import g.model.Recipe;
+import g.service.DataVersions.Table;
+import g.service.query.QueryPlan;
+import g.service.query.QueryPlanner;
+import g.utils.ProgressListener;
 
 /**
  * Service class for managing recipes and their ingredients.
@@ -22,6 +37,12 @@ import g.model.Recipe;
  */
 public class RecipeService {
 
+    private static final Logger LOGGER = Logger.getLogger(RecipeService.class.getName());
+
+    /** Recipe edits accepted but not yet written, shared by all instances */
+    private static final RecipeWriteQueue PENDING_UPDATES =
+            new RecipeWriteQueue(batch -> new RecipeService().updateRecipes(batch));
+
     /**
      * Data Access Object for recipes.
      * This DAO is used to interact with the recipe data in the database.
@@ -29,12 +50,21 @@ public class RecipeService {
     private final RecipeDAO recipeDAO;
     private final IngredientDAO ingredientDAO;
 
+    /** Autocomplete index kept current as ingredients are saved */
+    private final IngredientSuggestionService suggestionService;
+
+    /** Full-text index kept current as recipes are saved */
+    private final SearchIndexService searchIndex;
+
+    /** Compiles search queries, with a cache shared by all instances */
+    private final QueryPlanner queryPlanner;
+    private final SearchIndexDAO searchIndexDAO;
+
     /**
      * Default constructor for RecipeService.
      */
     public RecipeService() {
-        this.recipeDAO = new RecipeDAO();
-        this.ingredientDAO = new IngredientDAO();
+        this(new RecipeDAO(), new IngredientDAO());
     }
 
     /**
@@ -43,10 +73,16 @@ public class RecipeService {
     public RecipeService(RecipeDAO recipeDAO, IngredientDAO ingredientDAO) {
         this.recipeDAO = recipeDAO;
         this.ingredientDAO = ingredientDAO;
+        this.suggestionService = new IngredientSuggestionService(ingredientDAO);
+        this.searchIndex = new SearchIndexService();
+        this.searchIndexDAO = new SearchIndexDAO();
+        this.queryPlanner = new QueryPlanner(searchIndex.getTokenizer());
     }
 
     /**
-     * Creates a new recipe along with its ingredients.
+     * Creates a new recipe along with its ingredients, in one transaction.
+     * The data versions are bumped once both are written, so nothing cached
+     * in between can hold the recipe without its ingredients.
      * 
      * @param request the request containing recipe and ingredient details
      * @return true if the recipe was created successfully, false otherwise
@@ -55,32 +91,18 @@ public class RecipeService {
 
         Recipe recipe = request.getRecipe();
         List<Ingredient> ingredients = request.getIngredients();
-        int createRecipeResult = recipeDAO.createRecipe(
-                recipe.getTitle(),
-                recipe.getPrepTime(),
-                recipe.getCookTime(),
-                recipe.getInstruction(),
-                recipe.getImgAddr(),
-                recipe.getServe()
-        );
+        int createRecipeResult = recipeDAO.createRecipe(recipe, ingredients);
 
         if (createRecipeResult == -1) {
-            System.out.println("RecipeService failed to create recipe");
+            LOGGER.fine("Recipe not created: " + recipe.getTitle());
             return false;
         }
+        DataVersions.bump(Table.RECIPE, Table.INGREDIENT);
 
         for (Ingredient ingredient : ingredients) {
-            boolean createIngredientResult = ingredientDAO.addIngredient(
-                    createRecipeResult,
-                    ingredient.getIngredientName(),
-                    ingredient.getIngredientAmount(),
-                    ingredient.getIngredientUnit()
-            );
-            if (!createIngredientResult) {
-                System.out.println("RecipeService failed to insert ingredient: " + ingredient);
-                return false;
-            }
+            suggestionService.record(ingredient, 1);
         }
+        searchIndex.reindex(createRecipeResult);
         return true;
     }
 
@@ -91,86 +113,179 @@ public class RecipeService {
      * @return true if the recipe and its ingredients were deleted successfully, false otherwise
      */
     public boolean deleteRecipe(int recipeId) {
-        boolean deleteIngredients = ingredientDAO.deleteIngredientsByRecipeId(recipeId);
-        boolean deletedRecipe = recipeDAO.deleteRecipe(recipeId);
-        if (!deleteIngredients) {
-            return false;
-        } else if (!deletedRecipe) {
-            return false;
+        return deleteRecipes(List.of(recipeId), ProgressListener.NONE) > 0;
+    }
+
+    /**
+     * Deletes many recipes in one transaction, their ingredients and category
+     * links going with them, then brings the autocomplete and search indexes
+     * up to date.
+     * 
+     * @param recipeIds the IDs of the recipes to delete
+     * @param progress told how many recipes were handled as the delete proceeds
+     * @return the number of recipes deleted, or -1 if none could be
+     */
+    public int deleteRecipes(List<Integer> recipeIds, ProgressListener progress) {
+        PENDING_UPDATES.flush();
+        int[] ids = recipeIds.stream().mapToInt(Integer::intValue).toArray();
+        List<Ingredient> previous = suggestionService.isLoaded()
+                ? ingredientDAO.getIngredientsByRecipeIds(ids)
+                : List.of();
+        List<Integer> deleted = recipeDAO.deleteRecipes(ids, progress);
+        if (deleted == null) {
+            return -1;
         }
-        return true;
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+        DataVersions.bump(Table.RECIPE, Table.INGREDIENT, Table.CATEGORY_RECIPE);
+        searchIndex.removeDeleted();
+        Set<Integer> deletedIds = new HashSet<>(deleted);
+        for (Ingredient ingredient : previous) {
+            if (deletedIds.contains(ingredient.getRecipeId())) {
+                suggestionService.record(ingredient, -1);
+            }
+        }
+        return deleted.size();
     }
 
     /**
-     * Updates an existing recipe and its ingredients.
+     * Updates an existing recipe and its ingredients. Only the fields and
+     * ingredient rows the request marks as changed are written, in one
+     * transaction, and nothing is written if it marks no change.
      * 
      * @param request the request containing updated recipe and ingredient details
      * @return true if the recipe was updated successfully, false otherwise
      */
     public boolean updateRecipe(RecipeDetailRequest request) {
-        Recipe recipe = request.getRecipe();
-        System.out.println("RecipeService: Updating recipe with id " + recipe.getRecipeId());
-        List<Ingredient> ingredients = request.getIngredients();
-        List<Integer> deleteList = request.getDeleteIds();
-        for (int pairId : deleteList) {
-            System.out.println("RecipeService: Deleting ingredient with pairId " + pairId);
-            ingredientDAO.deleteIngredient(pairId);
+        PENDING_UPDATES.flush();
+        LOGGER.fine("Updating recipe " + request.getRecipe().getRecipeId());
+        if (!hasChanges(request)) {
+            return true;
         }
-        
-        for (Ingredient ingredient : ingredients) {
-            if (ingredient.getPairId() == 0) {
-               
-                boolean insertIngredientResult = ingredientDAO.addIngredient(
-                        recipe.getRecipeId(),
-                        ingredient.getIngredientName(),
-                        ingredient.getIngredientAmount(),
-                        ingredient.getIngredientUnit());
-                if (!insertIngredientResult) {
-                    System.out.println("Failed to insert ingredient: " + ingredient);
-                    return false;
-                }
-            } else {
-                boolean updateIngredientResult = ingredientDAO.updateIngredient(
-                        ingredient.getPairId(),
-                        recipe.getRecipeId(),
-                        ingredient.getIngredientName(),
-                        ingredient.getIngredientAmount(),
-                        ingredient.getIngredientUnit()
-                );
-                if (!updateIngredientResult) {
-                    System.out.println("Failed to update ingredient: " + ingredient);
-                    return false;
-                }
+        return updateRecipes(List.of(request));
+    }
+
+    /**
+     * Accepts an update to be written in the background. Until it is written,
+     * {@link #getRecipeById(int)} already returns the updated recipe, so the UI
+     * can show the edit at once. Updates made within a short interval are
+     * written in one transaction, and further updates of a recipe still waiting
+     * replace the earlier one. An update marking no change is not queued.
+     * 
+     * @param request the request containing updated recipe and ingredient details
+     * @return completes with true once the update is written, or false if it
+     *         failed and the recipe is left as it was before
+     */
+    public CompletableFuture<Boolean> updateRecipeLater(RecipeDetailRequest request) {
+        if (!hasChanges(request)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (Ingredient ingredient : request.getIngredients()) {
+            ingredients.add(new Ingredient(ingredient));
+        }
+        List<Integer> deleteIds = request.getDeleteIds() != null ? new ArrayList<>(request.getDeleteIds()) : new ArrayList<>();
+        Set<Recipe.Field> changedFields = request.getChangedFields() != null
+                ? EnumSet.copyOf(request.getChangedFields()) : null;
+        Set<Integer> changedPairIds = request.getChangedPairIds() != null
+                ? new HashSet<>(request.getChangedPairIds()) : null;
+        return PENDING_UPDATES.submit(new RecipeDetailRequest(new Recipe(request.getRecipe()), ingredients, deleteIds,
+                changedFields, changedPairIds));
+    }
+
+    /**
+     * Writes every update accepted by {@link #updateRecipeLater(RecipeDetailRequest)}
+     * and not yet written, before returning. Called when the application exits.
+     */
+    public void flushPendingUpdates() {
+        PENDING_UPDATES.flush();
+    }
+
+    /**
+     * Tells whether an update would write anything: a changed field, a changed,
+     * new or removed ingredient, or changes that were not tracked.
+     */
+    private static boolean hasChanges(RecipeDetailRequest request) {
+        if (request.getChangedFields() == null || !request.getChangedFields().isEmpty()) {
+            return true;
+        }
+        if (request.getDeleteIds() != null && !request.getDeleteIds().isEmpty()) {
+            return true;
+        }
+        for (Ingredient ingredient : request.getIngredients()) {
+            if (ingredient.getPairId() <= 0 || request.getChangedPairIds() == null
+                    || request.getChangedPairIds().contains(ingredient.getPairId())) {
+                return true;
             }
         }
+        return false;
+    }
 
-        boolean updateRecipeResult = recipeDAO.updateRecipe(
-                recipe.getRecipeId(),
-                recipe.getTitle(),
-                recipe.getPrepTime(),
-                recipe.getCookTime(),
-                recipe.getInstruction(),
-                recipe.getImgAddr(),
-                recipe.getServe()
-        );
-        if (!updateRecipeResult) {
-            System.out.println("Failed to create recipe");
+    /**
+     * Writes a batch of updates in one transaction, then brings the
+     * autocomplete and search indexes up to date.
+     * 
+     * @param requests the updates, at most one per recipe
+     * @return true if the transaction committed, false if it was rolled back
+     */
+    private boolean updateRecipes(List<RecipeDetailRequest> requests) {
+        Map<Integer, List<Ingredient>> previous = new HashMap<>();
+        List<RecipeDAO.RecipeEdit> edits = new ArrayList<>(requests.size());
+        for (RecipeDetailRequest request : requests) {
+            int recipeId = request.getRecipe().getRecipeId();
+            if (suggestionService.isLoaded()) {
+                previous.put(recipeId, ingredientDAO.getIngredientsByRecipeId(recipeId));
+            }
+            edits.add(new RecipeDAO.RecipeEdit(request.getRecipe(), request.getIngredients(),
+                    request.getDeleteIds() != null ? request.getDeleteIds() : List.of(),
+                    request.getChangedFields(), request.getChangedPairIds()));
+        }
+        if (!recipeDAO.updateRecipes(edits)) {
             return false;
         }
+        DataVersions.bump(Table.RECIPE, Table.INGREDIENT);
+        for (RecipeDetailRequest request : requests) {
+            int recipeId = request.getRecipe().getRecipeId();
+            if (previous.containsKey(recipeId)) {
+                for (Ingredient ingredient : previous.get(recipeId)) {
+                    suggestionService.record(ingredient, -1);
+                }
+                for (Ingredient ingredient : request.getIngredients()) {
+                    suggestionService.record(ingredient, 1);
+                }
+            }
+            searchIndex.reindex(recipeId);
+        }
         return true;
     }
 
     /**
-     * Retrieves a recipe by its ID along with its ingredients.
+     * Retrieves a recipe by its ID along with its ingredients and categories.
+     * The three are read in one statement and kept in the DAO's entity cache
+     * until any of them is written, so opening a recipe again does not query
+     * the database. The response is immutable, so the detail card, ingredient
+     * scaling and the categorize dialog share it. An update accepted by
+     * {@link #updateRecipeLater(RecipeDetailRequest)} and not written yet is
+     * returned in place of the stored recipe and ingredients.
      * 
      * @param recipeId the ID of the recipe to retrieve
-     * @return a RecipeDetailResponse containing the recipe and its ingredients
+     * @return a RecipeDetailResponse containing the recipe, its ingredients and its categories;
+     *         its recipe is null if the recipe was not found
      */
     public RecipeDetailResponse getRecipeById(int recipeId) {
-        Recipe recipe = recipeDAO.getRecipeById(recipeId);
-        List<Ingredient> ingredients = ingredientDAO.getIngredientsByRecipeId(recipeId);
-        RecipeDetailResponse response = new RecipeDetailResponse(recipe, ingredients);
-        return response;
+        RecipeDAO.RecipeDetail detail = recipeDAO.getRecipeDetail(recipeId);
+        if (detail == null) {
+            return new RecipeDetailResponse(null, List.of());
+        }
+        List<CategoryResponse> categories = new ArrayList<>(detail.categories().size());
+        for (Category category : detail.categories()) {
+            categories.add(new CategoryResponse(category.getCategoryId(), category.getCategoryName()));
+        }
+        RecipeDetailRequest pending = PENDING_UPDATES.pending(recipeId);
+        return pending == null
+                ? new RecipeDetailResponse(detail.recipe(), detail.ingredients(), categories)
+                : new RecipeDetailResponse(pending.getRecipe(), pending.getIngredients(), categories);
     }
 
     /**
@@ -180,9 +295,21 @@ public class RecipeService {
      * @return a list of RecipeSummaryResponse containing recipe summaries
      */
     public List<RecipeSummaryResponse> getRecipeSummaryByTitle(String keyword) {
+        return getRecipeSummaryByTitle(keyword, null);
+    }
+
+    /**
+     * Retrieves a list of recipe summaries filtered by title keyword.
+     * The query can be cancelled from another thread through the handle.
+     * 
+     * @param keyword the keyword to filter recipe titles
+     * @param handle the cancellation handle, or null if the query cannot be cancelled
+     * @return a list of RecipeSummaryResponse containing recipe summaries
+     */
+    public List<RecipeSummaryResponse> getRecipeSummaryByTitle(String keyword, QueryHandle handle) {
         List<RecipeSummaryResponse> responses = new ArrayList<>();
         try {
-            List<Recipe> recipes = recipeDAO.getRecipeSummaryByTitle(keyword);
+            List<Recipe> recipes = recipeDAO.getRecipeSummaryByTitle(keyword, handle);
             for (Recipe recipe : recipes) {
                 RecipeSummaryResponse response = new RecipeSummaryResponse(
                         recipe.getRecipeId(),
@@ -191,19 +318,131 @@ public class RecipeService {
                 );
                 responses.add(response);
             }
-            return responses;
+            return List.copyOf(responses);
         } catch (Exception e) {
             e.printStackTrace();
-            return Collections.emptyList();
+            return null;
+        }
+    }
+
+    /**
+     * Searches recipes by relevance. The query is compiled by {@link QueryPlanner}:
+     * plain words must each start a word of the title, an ingredient name or the
+     * instructions, and field, category, time and serving filters can be combined
+     * with OR and negated with a leading minus. Matches are ranked by
+     * {@link RelevanceScorer} on their stored normalized text while they are
+     * streamed from the database; only their IDs and scores are kept by the
+     * returned cursor.
+     * 
+     * @param query the query typed by the user
+     * @param pageSize the number of results returned per page
+     * @param categoryId the category to search in, or null for all recipes
+     * @param handle the cancellation handle, or null if the search cannot be cancelled
+     * @return a cursor over the ranked results, empty if the search failed or was cancelled
+     */
+    public RankedSearchCursor searchRanked(String query, int pageSize, Integer categoryId, QueryHandle handle) {
+        return cachedRank(query, pageSize, categoryId, null, handle);
+    }
+
+    /**
+     * Narrows a previous ranked search to a query extending it. Only the recipes
+     * matched by the previous search are considered, so the index lookup is
+     * restricted to them instead of covering the whole library. If anything was
+     * written since the previous search was ranked, its matches may miss recipes
+     * and the whole scope is searched instead.
+     * 
+     * @param previous the cursor of the previous search
+     * @param query the new query, starting with the previous query
+     * @param handle the cancellation handle, or null if the search cannot be cancelled
+     * @return a cursor over the ranked results of the new query
+     */
+    public RankedSearchCursor narrowRanked(RankedSearchCursor previous, String query, QueryHandle handle) {
+        return cachedRank(query, previous.getPageSize(), previous.getCategoryId(), previous, handle);
+    }
+
+    /**
+     * Serves a ranked search from {@link QueryResultCache}, ranking it only if no
+     * search with the same query, scope and page size completed since the last
+     * write. A narrowed search only uses the previous matches if they were ranked
+     * at the current data version, where it ranks the same matches as a full
+     * one, so both share an entry.
+     */
+    private RankedSearchCursor cachedRank(String query, int pageSize, Integer categoryId, RankedSearchCursor previous,
+            QueryHandle handle) {
+        if (query == null || query.isBlank()) {
+            return new RankedSearchCursor(recipeDAO, query, pageSize, categoryId, RankedSearchCursor.UNRANKED);
+        }
+        QueryResultCache.Key key = new QueryResultCache.Key("ranked/" + pageSize,
+                categoryId == null ? LiveSearchService.ALL_RECIPES : categoryId, query.trim());
+        RankedSearchCursor cursor = QueryResultCache.get(key,
+                () -> rank(query, pageSize, categoryId, previous, handle), Table.values());
+        return cursor == null
+                ? new RankedSearchCursor(recipeDAO, query, pageSize, categoryId, RankedSearchCursor.UNRANKED)
+                : cursor.copy();
+    }
+
+    /**
+     * Looks up and scores the candidates of a ranked search. The stamp is read
+     * before the index, so the cursor never claims a version newer than the
+     * rows it saw; the previous matches restrict the lookup only if nothing was
+     * written since they were ranked.
+     * 
+     * @param previous the cursor of the search being narrowed, or null to search the whole scope
+     * @return the cursor holding every match, null if the search failed or was cancelled
+     */
+    private RankedSearchCursor rank(String query, int pageSize, Integer categoryId, RankedSearchCursor previous,
+            QueryHandle handle) {
+        long stamp = DataVersions.stamp(Table.values());
+        int[] recipeIds = previous != null && previous.getStamp() == stamp ? previous.getMatchingIds() : null;
+        RankedSearchCursor cursor = new RankedSearchCursor(recipeDAO, query, pageSize, categoryId, stamp);
+        if (recipeIds != null && recipeIds.length == 0) {
+            return cursor;
         }
+        QueryPlan plan = queryPlanner.plan(query);
+        if (plan.isEmpty()) {
+            return cursor;
+        }
+        RelevanceScorer scorer = new RelevanceScorer(plan.getRankingTerms());
+        boolean completed = searchIndexDAO.search(plan.getCondition(), plan.getParameters(), categoryId, recipeIds, handle,
+                (recipeId, title, ingredients, instruction) ->
+                        cursor.add(recipeId, scorer.score(title, ingredients, instruction)));
+        return completed ? cursor : null;
     }
 
     /**
-     * Retrieves all recipe summaries.
+     * Retrieves all recipe summaries. The list is served from
+     * {@link QueryResultCache} until a recipe is written.
      * 
-     * @return a list of RecipeSummaryResponse containing all recipe summaries
+     * @return an unmodifiable list of RecipeSummaryResponse containing all recipe summaries
      */
     public List<RecipeSummaryResponse> getAllRecipeSummary() {
+        List<RecipeSummaryResponse> responses = QueryResultCache.get(
+                new QueryResultCache.Key("summaries", LiveSearchService.ALL_RECIPES, ""),
+                this::loadAllRecipeSummary, Table.RECIPE);
+        return responses == null ? Collections.emptyList() : responses;
+    }
+
+    /**
+     * Retrieves the summary of one recipe. Lookups made at the same time by
+     * other threads are answered by the same query.
+     * 
+     * @param recipeId the ID of the recipe
+     * @return the RecipeSummaryResponse, or null if the recipe was not found or could not be read
+     */
+    public RecipeSummaryResponse getRecipeSummaryById(int recipeId) {
+        Recipe recipe = recipeDAO.getRecipeSummaryById(recipeId);
+        if (recipe == null) {
+            return null;
+        }
+        return new RecipeSummaryResponse(recipe.getRecipeId(), recipe.getTitle(), recipe.getImgAddr());
+    }
+
+    /**
+     * Loads all recipe summaries from the database.
+     * 
+     * @return the summaries, null if they could not be read
+     */
+    private List<RecipeSummaryResponse> loadAllRecipeSummary() {
         List<RecipeSummaryResponse> responses = new ArrayList<>();
         try {
             List<Recipe> recipes = recipeDAO.getAllRecipeSummary();
@@ -215,10 +454,10 @@ public class RecipeService {
                 );
                 responses.add(response);
             }
-            return responses;
+            return List.copyOf(responses);
         } catch (Exception e) {
             e.printStackTrace();
-            return Collections.emptyList();
+            return null;
         }
     }
 }
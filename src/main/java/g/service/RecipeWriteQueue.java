@@ -0,0 +1,208 @@
+package g.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import g.dto.RecipeDetailRequest;
+import g.utils.BackgroundExecutor;
+
+/**
+ * Write-behind queue for recipe edits, owned by {@link RecipeService}.
+ * An edit is accepted at once and written later: edits queued within
+ * {@link #FLUSH_INTERVAL_MILLIS} of the first one are written together in one
+ * transaction by the single {@link BackgroundExecutor#writer()} thread, and
+ * several edits of the same recipe collapse into the last one. Until written,
+ * a queued edit is what {@link #pending(int)} reports, so readers can show it
+ * as if it were saved.
+ * <p>
+ * Each edit is answered by a future completing with true once written, or
+ * with false if it could not be, so the UI can revert to what the database
+ * still holds. {@link #flush()} writes everything queued before returning,
+ * and is called on shutdown.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+final class RecipeWriteQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(RecipeWriteQueue.class.getName());
+
+    /** Milliseconds between the first queued edit and the write of its batch */
+    static final long FLUSH_INTERVAL_MILLIS = 500;
+
+    /** Writes a batch of edits in one transaction, returning whether it committed */
+    private final Predicate<List<RecipeDetailRequest>> writer;
+
+    /** Edits not yet picked up by a write, by recipe ID, guarded by this */
+    private Map<Integer, Pending> queued = new LinkedHashMap<>();
+
+    /** Edits being written, by recipe ID, guarded by this */
+    private Map<Integer, Pending> writing = Map.of();
+
+    /** Whether a write of the queued edits has been scheduled, guarded by this */
+    private boolean flushScheduled;
+
+    /** Held while a batch is written, so writes never overlap */
+    private final Object writeLock = new Object();
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param writer writes a batch of edits in one transaction, returning
+     *        true if it committed and false if it was rolled back
+     */
+    RecipeWriteQueue(Predicate<List<RecipeDetailRequest>> writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Queues an edit. If an edit of the same recipe is still queued, the new
+     * one replaces it, keeping the ingredients both of them removed and the
+     * fields and rows both of them changed.
+     *
+     * @param request the edit, carrying the full recipe and ingredient list
+     * @return completes with true once the edit is written, false if it failed;
+     *         edits merged into one share the same future
+     */
+    synchronized CompletableFuture<Boolean> submit(RecipeDetailRequest request) {
+        int recipeId = request.getRecipe().getRecipeId();
+        Pending pending = queued.get(recipeId);
+        if (pending == null) {
+            pending = new Pending(request);
+            queued.put(recipeId, pending);
+        } else {
+            pending.merge(request);
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            BackgroundExecutor.scheduler().schedule(() -> BackgroundExecutor.writer().execute(this::writeQueued),
+                    FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Gets the edit of a recipe that is queued or being written.
+     *
+     * @param recipeId the recipe ID
+     * @return the latest unwritten edit, or null if the recipe has none
+     */
+    synchronized RecipeDetailRequest pending(int recipeId) {
+        Pending pending = queued.get(recipeId);
+        if (pending == null) {
+            pending = writing.get(recipeId);
+        }
+        return pending == null ? null : pending.request;
+    }
+
+    /**
+     * Writes every queued edit before returning. Called on shutdown, and before
+     * a recipe is written directly so the edits keep their order.
+     */
+    void flush() {
+        writeQueued();
+    }
+
+    /**
+     * Writes the queued edits as one batch. If the batch fails and holds several
+     * edits, they are retried one by one, so one bad edit does not sink the rest.
+     */
+    private void writeQueued() {
+        synchronized (writeLock) {
+            Map<Integer, Pending> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (queued.isEmpty()) {
+                    return;
+                }
+                batch = queued;
+                queued = new LinkedHashMap<>();
+                writing = batch;
+            }
+            List<Pending> failed = new ArrayList<>();
+            if (!write(batch.values())) {
+                if (batch.size() == 1) {
+                    failed.addAll(batch.values());
+                } else {
+                    for (Pending pending : batch.values()) {
+                        if (!write(List.of(pending))) {
+                            failed.add(pending);
+                        }
+                    }
+                }
+            }
+            synchronized (this) {
+                writing = Map.of();
+            }
+            for (Pending pending : batch.values()) {
+                pending.result.complete(!failed.contains(pending));
+            }
+            if (!failed.isEmpty()) {
+                LOGGER.warning("Failed to write " + failed.size() + " of " + batch.size() + " queued recipe edits");
+            }
+        }
+    }
+
+    /**
+     * Writes some edits in one transaction.
+     */
+    private boolean write(Collection<Pending> pendings) {
+        List<RecipeDetailRequest> requests = new ArrayList<>(pendings.size());
+        for (Pending pending : pendings) {
+            requests.add(pending.request);
+        }
+        try {
+            return writer.test(requests);
+        } catch (RuntimeException e) {
+            LOGGER.warning("Writing " + requests.size() + " recipe edits failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * The unwritten edit of one recipe and the future answering it.
+     */
+    private static final class Pending {
+        private RecipeDetailRequest request;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Pending(RecipeDetailRequest request) {
+            this.request = request;
+        }
+
+        /**
+         * Replaces the edit by a later one. Each edit carries the whole recipe,
+         * so only what the earlier edit changed needs carrying over: the
+         * ingredients it removed, and the fields and ingredient rows it changed,
+         * which stay to be written even if the later edit left them alone.
+         */
+        void merge(RecipeDetailRequest later) {
+            Set<Integer> deleted = new LinkedHashSet<>(request.getDeleteIds());
+            deleted.addAll(later.getDeleteIds());
+            request = new RecipeDetailRequest(later.getRecipe(), later.getIngredients(), new ArrayList<>(deleted),
+                    union(request.getChangedFields(), later.getChangedFields()),
+                    union(request.getChangedPairIds(), later.getChangedPairIds()));
+        }
+
+        /**
+         * Unites two sets of changes, null standing for everything.
+         */
+        private static <T> Set<T> union(Set<T> earlier, Set<T> later) {
+            if (earlier == null || later == null) {
+                return null;
+            }
+            Set<T> union = new LinkedHashSet<>(earlier);
+            union.addAll(later);
+            return union;
+        }
+    }
+}
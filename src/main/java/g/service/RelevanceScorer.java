@@ -0,0 +1,178 @@
+package g.service;
+
+import java.util.Arrays;
+
+/**
+ * Scores how well a recipe matches a set of search terms.
+ * A match in the title counts more than a match in an ingredient name, which
+ * counts more than a match in the instructions. Within a field, a term matching
+ * a whole word beats one matching the start of a word, which beats one matching
+ * inside a word. Fields containing all terms close together get a proximity bonus.
+ * Terms and field texts must be normalized by the same {@link Tokenizer}; the
+ * stored normalized text of each recipe is scored as is. Whether a recipe
+ * matches at all is decided by the query plan, not by the scorer.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class RelevanceScorer {
+
+    /** Weight of a match in the recipe title */
+    static final float TITLE_WEIGHT = 8f;
+
+    /** Weight of a match in an ingredient name */
+    static final float INGREDIENT_WEIGHT = 3f;
+
+    /** Weight of a match in the instructions */
+    static final float INSTRUCTION_WEIGHT = 1f;
+
+    /** Quality of a term matching a whole word */
+    private static final float WORD_MATCH = 3f;
+
+    /** Quality of a term matching the start of a word */
+    private static final float PREFIX_MATCH = 2f;
+
+    /** Quality of a term matching inside a word */
+    private static final float INFIX_MATCH = 1f;
+
+    /** Bonus for a title starting with the first term */
+    private static final float TITLE_START_BONUS = 4f;
+
+    /** Maximum occurrences of a term considered for proximity */
+    private static final int MAX_POSITIONS = 16;
+
+    /** The normalized search terms */
+    private final String[] terms;
+
+    /**
+     * Constructs a scorer for the given terms.
+     *
+     * @param terms the search terms, already normalized
+     */
+    public RelevanceScorer(String[] terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Scores a recipe. Field texts may be null.
+     *
+     * @param title the normalized recipe title
+     * @param ingredients the normalized ingredient names separated by newlines
+     * @param instruction the normalized cooking instructions
+     * @return the relevance score, higher is better, 0 if no term occurs in any field
+     */
+    public float score(String title, String ingredients, String instruction) {
+        title = orEmpty(title);
+        ingredients = orEmpty(ingredients);
+        instruction = orEmpty(instruction);
+        float score = fieldScore(title, TITLE_WEIGHT)
+                + fieldScore(ingredients, INGREDIENT_WEIGHT)
+                + fieldScore(instruction, INSTRUCTION_WEIGHT);
+        if (terms.length > 0 && title.startsWith(terms[0])) {
+            score += TITLE_START_BONUS;
+        }
+        return score;
+    }
+
+    /**
+     * Scores one field: match quality of each term plus the proximity bonus.
+     */
+    private float fieldScore(String text, float weight) {
+        if (text.isEmpty()) {
+            return 0f;
+        }
+        float score = 0f;
+        boolean allPresent = true;
+        for (String term : terms) {
+            float quality = matchQuality(text, term);
+            if (quality == 0f) {
+                allPresent = false;
+            }
+            score += quality;
+        }
+        if (allPresent && terms.length > 1) {
+            score += proximity(text);
+        }
+        return score * weight;
+    }
+
+    /**
+     * Finds the best match of a term in the text.
+     */
+    private static float matchQuality(String text, String term) {
+        float best = 0f;
+        int from = 0;
+        int index;
+        while ((index = text.indexOf(term, from)) >= 0) {
+            boolean startsWord = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+            if (startsWord) {
+                int end = index + term.length();
+                boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+                if (endsWord) {
+                    return WORD_MATCH;
+                }
+                best = PREFIX_MATCH;
+            } else if (best == 0f) {
+                best = INFIX_MATCH;
+            }
+            from = index + 1;
+        }
+        return best;
+    }
+
+    /**
+     * Computes a bonus in (0, terms] that grows as the smallest window containing
+     * every term shrinks, 1 per term when the terms are adjacent.
+     */
+    private float proximity(String text) {
+        int[][] positions = new int[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            positions[t] = positions(text, terms[t]);
+        }
+        int[] cursor = new int[terms.length];
+        int termChars = 0;
+        for (String term : terms) {
+            termChars += term.length() + 1;
+        }
+        int bestGap = Integer.MAX_VALUE;
+        while (true) {
+            int minTerm = 0;
+            int minStart = Integer.MAX_VALUE;
+            int maxEnd = Integer.MIN_VALUE;
+            for (int t = 0; t < terms.length; t++) {
+                int start = positions[t][cursor[t]];
+                if (start < minStart) {
+                    minStart = start;
+                    minTerm = t;
+                }
+                maxEnd = Math.max(maxEnd, start + terms[t].length());
+            }
+            bestGap = Math.min(bestGap, Math.max(0, maxEnd - minStart - termChars + 1));
+            if (++cursor[minTerm] >= positions[minTerm].length) {
+                break;
+            }
+        }
+        return terms.length / (1f + bestGap / 8f);
+    }
+
+    /**
+     * Lists the first occurrences of a term in the text.
+     */
+    private static int[] positions(String text, String term) {
+        int[] found = new int[MAX_POSITIONS];
+        int count = 0;
+        int index = text.indexOf(term);
+        while (index >= 0 && count < MAX_POSITIONS) {
+            found[count++] = index;
+            index = text.indexOf(term, index + 1);
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Maps a null field value to the empty string.
+     */
+    private static String orEmpty(String text) {
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,135 @@
+package g.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import g.dao.RecipeDAO;
+import g.dao.SearchIndexDAO;
+import g.model.SearchDocument;
+
+/**
+ * Service maintaining the search index behind {@link RecipeService} searches.
+ * Recipe text is normalized and tokenized by a pluggable {@link Tokenizer} when
+ * a recipe is saved, and both forms are stored, so searches only normalize the
+ * query. Recipes saved by an older tokenizer, or before the index existed, are
+ * indexed again by {@link #backfill()} at startup.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class SearchIndexService {
+
+    private static final Logger LOGGER = Logger.getLogger(SearchIndexService.class.getName());
+
+    /** Number of recipes indexed per transaction during a backfill */
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final Tokenizer tokenizer;
+    private final SearchIndexDAO searchIndexDAO;
+    private final RecipeDAO recipeDAO;
+
+    /**
+     * Default constructor for SearchIndexService, using a {@link MixedScriptTokenizer}.
+     */
+    public SearchIndexService() {
+        this(new MixedScriptTokenizer(), new SearchIndexDAO(), new RecipeDAO());
+    }
+
+    /**
+     * Constructs a new SearchIndexService with the specified tokenizer and DAOs.
+     */
+    public SearchIndexService(Tokenizer tokenizer, SearchIndexDAO searchIndexDAO, RecipeDAO recipeDAO) {
+        this.tokenizer = tokenizer;
+        this.searchIndexDAO = searchIndexDAO;
+        this.recipeDAO = recipeDAO;
+    }
+
+    /**
+     * Gets the tokenizer used for indexing and querying.
+     *
+     * @return the tokenizer
+     */
+    public Tokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    /**
+     * Indexes recipes again from their current text. Must be called after a
+     * recipe or its ingredients were written.
+     *
+     * @param recipeIds the IDs of the recipes to index
+     * @return true if all recipes were indexed, false otherwise
+     */
+    public boolean reindex(int... recipeIds) {
+        if (recipeIds.length == 0) {
+            return true;
+        }
+        List<SearchDocument> documents = new ArrayList<>(recipeIds.length);
+        boolean scanned = recipeDAO.scanRecipeText(recipeIds,
+                (recipeId, title, ingredients, instruction) ->
+                        documents.add(document(recipeId, title, ingredients, instruction)));
+        return scanned && searchIndexDAO.indexRecipes(tokenizer.name(), documents);
+    }
+
+    /**
+     * Removes a deleted recipe from the index.
+     *
+     * @param recipeId the recipe ID
+     * @return true if the recipe is no longer indexed, false otherwise
+     */
+    public boolean remove(int recipeId) {
+        return searchIndexDAO.removeRecipe(recipeId);
+    }
+
+    /**
+     * Removes every deleted recipe from the index with one set-based statement,
+     * after recipes were deleted in bulk.
+     *
+     * @return the number of recipes removed, or -1 if the index could not be written
+     */
+    public int removeDeleted() {
+        return searchIndexDAO.removeOrphans();
+    }
+
+    /**
+     * Brings the index up to date: removes deleted recipes and indexes the
+     * recipes missing from it or indexed by another tokenizer, in batches.
+     *
+     * @return the number of recipes indexed
+     */
+    public int backfill() {
+        long start = System.nanoTime();
+        searchIndexDAO.removeOrphans();
+        List<Integer> stale = searchIndexDAO.getStaleRecipeIds(tokenizer.name());
+        int indexed = 0;
+        for (int from = 0; from < stale.size(); from += BACKFILL_BATCH_SIZE) {
+            List<Integer> batch = stale.subList(from, Math.min(stale.size(), from + BACKFILL_BATCH_SIZE));
+            int[] recipeIds = batch.stream().mapToInt(Integer::intValue).toArray();
+            if (!reindex(recipeIds)) {
+                LOGGER.warning("Search index backfill stopped after " + indexed + " recipes");
+                break;
+            }
+            indexed += recipeIds.length;
+        }
+        if (indexed > 0) {
+            LOGGER.info("Indexed " + indexed + " recipes for search in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return indexed;
+    }
+
+    /**
+     * Normalizes and tokenizes the text of a recipe.
+     */
+    private SearchDocument document(int recipeId, String title, String ingredients, String instruction) {
+        String normalizedTitle = tokenizer.normalize(title);
+        String normalizedIngredients = tokenizer.normalize(ingredients);
+        String normalizedInstruction = tokenizer.normalize(instruction);
+        return new SearchDocument(recipeId,
+                normalizedTitle, normalizedIngredients, normalizedInstruction,
+                String.join(" ", tokenizer.tokenize(normalizedTitle)),
+                String.join(" ", tokenizer.tokenize(normalizedIngredients)),
+                String.join(" ", tokenizer.tokenize(normalizedInstruction)));
+    }
+}
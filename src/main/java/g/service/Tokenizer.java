@@ -0,0 +1,39 @@
+package g.service;
+
+import java.util.List;
+
+/**
+ * Splits text into the tokens stored in the search index.
+ * Text is normalized first, once when a recipe is indexed and once per query,
+ * and tokenized afterwards, so both sides of a search see the same tokens.
+ * Implementations must be stateless and thread-safe.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public interface Tokenizer {
+
+    /**
+     * Gets a name identifying this tokenizer and its version. Recipes indexed
+     * by a tokenizer with another name are indexed again.
+     *
+     * @return the tokenizer name
+     */
+    String name();
+
+    /**
+     * Normalizes text for matching, for example by folding case.
+     *
+     * @param text the text, may be null
+     * @return the normalized text, empty if the text is null
+     */
+    String normalize(String text);
+
+    /**
+     * Splits normalized text into index tokens.
+     *
+     * @param normalized text returned by {@link #normalize(String)}
+     * @return the tokens in text order
+     */
+    List<String> tokenize(String normalized);
+}
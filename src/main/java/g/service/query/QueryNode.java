@@ -0,0 +1,85 @@
+package g.service.query;
+
+import java.util.List;
+
+/**
+ * Node of a parsed search query, produced by {@link QueryParser} and compiled
+ * by {@link QueryPlanner}.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public sealed interface QueryNode
+        permits QueryNode.And, QueryNode.Or, QueryNode.Not, QueryNode.Text, QueryNode.CategoryMatch, QueryNode.Range {
+
+    /**
+     * Text fields a term can be restricted to.
+     */
+    enum TextField {
+        ANY,
+        TITLE,
+        INGREDIENT,
+        INSTRUCTION
+    }
+
+    /**
+     * Numeric fields a range can apply to.
+     */
+    enum NumericField {
+        TOTAL_TIME,
+        PREP_TIME,
+        COOK_TIME,
+        SERVES
+    }
+
+    /**
+     * Matches recipes matched by every child.
+     *
+     * @param children the conjuncts, an empty list matches everything
+     */
+    record And(List<QueryNode> children) implements QueryNode {
+    }
+
+    /**
+     * Matches recipes matched by any child.
+     *
+     * @param children the alternatives
+     */
+    record Or(List<QueryNode> children) implements QueryNode {
+    }
+
+    /**
+     * Matches recipes not matched by the child.
+     *
+     * @param child the negated node
+     */
+    record Not(QueryNode child) implements QueryNode {
+    }
+
+    /**
+     * Matches recipes whose field contains words starting with the words of the text.
+     *
+     * @param field the field searched
+     * @param text the text as typed
+     */
+    record Text(TextField field, String text) implements QueryNode {
+    }
+
+    /**
+     * Matches recipes in a category, by case-insensitive name.
+     *
+     * @param name the category name
+     */
+    record CategoryMatch(String name) implements QueryNode {
+    }
+
+    /**
+     * Matches recipes whose numeric field lies in an inclusive range.
+     *
+     * @param field the field compared
+     * @param min the lower bound, {@link Integer#MIN_VALUE} if none
+     * @param max the upper bound, {@link Integer#MAX_VALUE} if none
+     */
+    record Range(NumericField field, int min, int max) implements QueryNode {
+    }
+}
@@ -0,0 +1,289 @@
+package g.service.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import g.service.query.QueryNode.And;
+import g.service.query.QueryNode.CategoryMatch;
+import g.service.query.QueryNode.Not;
+import g.service.query.QueryNode.NumericField;
+import g.service.query.QueryNode.Or;
+import g.service.query.QueryNode.Range;
+import g.service.query.QueryNode.Text;
+import g.service.query.QueryNode.TextField;
+
+/**
+ * Parser of the search query language.
+ * Words are combined with AND unless separated by {@code OR}; {@code -} negates
+ * the following term; parentheses group; double quotes keep words together.
+ * A word of the form {@code field:value} restricts the value to a field:
+ * <ul>
+ *   <li>{@code title:}, {@code ingredient:}, {@code instruction:} search one text field</li>
+ *   <li>{@code category:} matches a category by name</li>
+ *   <li>{@code time:}, {@code prep:}, {@code cook:}, {@code serves:} compare a number,
+ *       as in {@code time:<30}, {@code serves:>=4}, {@code prep:10..20} or {@code serves:6-8}</li>
+ * </ul>
+ * Parsing never fails: anything that is not valid syntax is searched as text.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class QueryParser {
+
+    /** Keyword separating alternatives */
+    private static final String OR = "OR";
+
+    private final String input;
+    private int pos;
+
+    private QueryParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param query the query typed by the user, may be null
+     * @return the root node, an empty {@link And} if the query is blank
+     */
+    public static QueryNode parse(String query) {
+        QueryParser parser = new QueryParser(query == null ? "" : query);
+        List<QueryNode> parts = new ArrayList<>();
+        while (true) {
+            QueryNode node = parser.parseOr();
+            if (node != null) {
+                parts.add(node);
+            }
+            parser.skipSpace();
+            if (parser.atEnd()) {
+                break;
+            }
+            parser.pos++;
+        }
+        return parts.size() == 1 ? parts.get(0) : new And(flatten(parts));
+    }
+
+    /**
+     * Checks whether a query is only plain words, without operators or fields.
+     *
+     * @param query the query
+     * @return true if every word is searched in every text field
+     */
+    public static boolean isPlain(String query) {
+        QueryNode root = parse(query);
+        if (root instanceof Text text) {
+            return text.field() == TextField.ANY;
+        }
+        if (root instanceof And and) {
+            for (QueryNode child : and.children()) {
+                if (!(child instanceof Text text) || text.field() != TextField.ANY) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private QueryNode parseOr() {
+        List<QueryNode> alternatives = new ArrayList<>();
+        QueryNode first = parseAnd();
+        if (first != null) {
+            alternatives.add(first);
+        }
+        while (atKeyword(OR)) {
+            pos += OR.length();
+            QueryNode next = parseAnd();
+            if (next != null) {
+                alternatives.add(next);
+            }
+        }
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Or(alternatives);
+    }
+
+    private QueryNode parseAnd() {
+        List<QueryNode> parts = new ArrayList<>();
+        while (true) {
+            skipSpace();
+            if (atEnd() || peek() == ')' || atKeyword(OR)) {
+                break;
+            }
+            QueryNode node = parseUnary();
+            if (node != null) {
+                parts.add(node);
+            }
+        }
+        if (parts.isEmpty()) {
+            return null;
+        }
+        return parts.size() == 1 ? parts.get(0) : new And(flatten(parts));
+    }
+
+    private QueryNode parseUnary() {
+        if (peek() == '-' && pos + 1 < input.length() && !Character.isWhitespace(input.charAt(pos + 1))) {
+            pos++;
+            QueryNode child = parseUnary();
+            return child == null ? null : new Not(child);
+        }
+        return parsePrimary();
+    }
+
+    private QueryNode parsePrimary() {
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            QueryNode inner = parseOr();
+            skipSpace();
+            if (!atEnd() && peek() == ')') {
+                pos++;
+            }
+            return inner;
+        }
+        if (c == '"') {
+            return new Text(TextField.ANY, readQuoted());
+        }
+        String word = readWord();
+        int colon = word.indexOf(':');
+        if (colon > 0) {
+            String value = word.substring(colon + 1);
+            if (value.isEmpty() && !atEnd() && peek() == '"') {
+                value = readQuoted();
+            }
+            QueryNode field = fieldNode(word.substring(0, colon).toLowerCase(Locale.ROOT), value);
+            if (field != null) {
+                return field;
+            }
+            return new Text(TextField.ANY, word.substring(0, colon + 1) + value);
+        }
+        return new Text(TextField.ANY, word);
+    }
+
+    /**
+     * Builds the node of a field restriction.
+     *
+     * @return the node, or null if the field is unknown or the value invalid
+     */
+    private static QueryNode fieldNode(String field, String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+        return switch (field) {
+            case "title" -> new Text(TextField.TITLE, value);
+            case "ingredient", "ingredients" -> new Text(TextField.INGREDIENT, value);
+            case "instruction", "instructions" -> new Text(TextField.INSTRUCTION, value);
+            case "category", "cat" -> new CategoryMatch(value.trim());
+            case "time", "total" -> range(NumericField.TOTAL_TIME, value);
+            case "prep" -> range(NumericField.PREP_TIME, value);
+            case "cook" -> range(NumericField.COOK_TIME, value);
+            case "serves", "serve", "servings" -> range(NumericField.SERVES, value);
+            default -> null;
+        };
+    }
+
+    /**
+     * Parses a comparison: {@code <n}, {@code <=n}, {@code >n}, {@code >=n},
+     * {@code =n}, {@code n}, {@code a..b} or {@code a-b}.
+     *
+     * @return the range, or null if the value is not a comparison
+     */
+    private static Range range(NumericField field, String value) {
+        try {
+            if (value.startsWith("<=")) {
+                return new Range(field, Integer.MIN_VALUE, Integer.parseInt(value.substring(2)));
+            }
+            if (value.startsWith(">=")) {
+                return new Range(field, Integer.parseInt(value.substring(2)), Integer.MAX_VALUE);
+            }
+            if (value.startsWith("<")) {
+                return new Range(field, Integer.MIN_VALUE, Integer.parseInt(value.substring(1)) - 1);
+            }
+            if (value.startsWith(">")) {
+                return new Range(field, Integer.parseInt(value.substring(1)) + 1, Integer.MAX_VALUE);
+            }
+            if (value.startsWith("=")) {
+                int exact = Integer.parseInt(value.substring(1));
+                return new Range(field, exact, exact);
+            }
+            int separator = value.indexOf("..");
+            int separatorLength = 2;
+            if (separator < 0) {
+                separator = value.indexOf('-', 1);
+                separatorLength = 1;
+            }
+            if (separator > 0) {
+                return new Range(field, Integer.parseInt(value.substring(0, separator)),
+                        Integer.parseInt(value.substring(separator + separatorLength)));
+            }
+            int exact = Integer.parseInt(value);
+            return new Range(field, exact, exact);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Merges nested conjunctions into their parent.
+     */
+    private static List<QueryNode> flatten(List<QueryNode> parts) {
+        List<QueryNode> flat = new ArrayList<>(parts.size());
+        for (QueryNode part : parts) {
+            if (part instanceof And and) {
+                flat.addAll(and.children());
+            } else {
+                flat.add(part);
+            }
+        }
+        return flat;
+    }
+
+    private String readWord() {
+        int start = pos;
+        while (!atEnd()) {
+            char c = peek();
+            if (Character.isWhitespace(c) || c == '(' || c == ')' || (c == '"' && pos > start)) {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            pos++;
+        }
+        return input.substring(start, pos);
+    }
+
+    private String readQuoted() {
+        int start = ++pos;
+        int end = input.indexOf('"', start);
+        if (end < 0) {
+            pos = input.length();
+            return input.substring(start);
+        }
+        pos = end + 1;
+        return input.substring(start, end);
+    }
+
+    private boolean atKeyword(String keyword) {
+        skipSpace();
+        int end = pos + keyword.length();
+        return input.startsWith(keyword, pos)
+                && (end == input.length() || Character.isWhitespace(input.charAt(end)) || input.charAt(end) == '(');
+    }
+
+    private void skipSpace() {
+        while (!atEnd() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private boolean atEnd() {
+        return pos >= input.length();
+    }
+
+    private char peek() {
+        return input.charAt(pos);
+    }
+}
@@ -0,0 +1,91 @@
+package g.service.query;
+
+import java.util.List;
+
+/**
+ * Compiled form of a search query: a SQL condition on the recipe table,
+ * aliased {@code r}, with its parameters, and the terms used to rank matches.
+ * Plans are immutable and cached by {@link QueryPlanner}.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class QueryPlan {
+
+    private final String query;
+    private final String condition;
+    private final List<Object> parameters;
+    private final String[] rankingTerms;
+    private final boolean empty;
+    private final String explanation;
+
+    QueryPlan(String query, String condition, List<Object> parameters,
+            String[] rankingTerms, boolean empty, String explanation) {
+        this.query = query;
+        this.condition = condition;
+        this.parameters = List.copyOf(parameters);
+        this.rankingTerms = rankingTerms;
+        this.empty = empty;
+        this.explanation = explanation;
+    }
+
+    /**
+     * Gets the query the plan was compiled from.
+     *
+     * @return the query
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the SQL condition, most selective predicates first.
+     *
+     * @return the condition on the recipe table aliased {@code r}
+     */
+    public String getCondition() {
+        return condition;
+    }
+
+    /**
+     * Gets the values bound to the parameters of the condition, in order.
+     *
+     * @return the parameter values
+     */
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Gets the normalized terms matches are ranked by: the text the query
+     * looks for, excluding negated text.
+     *
+     * @return the ranking terms, empty if the query has no text
+     */
+    public String[] getRankingTerms() {
+        return rankingTerms.clone();
+    }
+
+    /**
+     * Checks whether the plan is known to match nothing, so it need not run.
+     *
+     * @return true if no recipe can match
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Describes the predicates in execution order with their estimated selectivity.
+     *
+     * @return a human-readable description of the plan
+     */
+    public String explain() {
+        return explanation;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan[" + query + " -> " + explanation + "]";
+    }
+}
@@ -0,0 +1,413 @@
+package g.service.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import g.service.MixedScriptTokenizer;
+import g.service.Tokenizer;
+import g.service.query.QueryNode.And;
+import g.service.query.QueryNode.CategoryMatch;
+import g.service.query.QueryNode.Not;
+import g.service.query.QueryNode.Or;
+import g.service.query.QueryNode.Range;
+import g.service.query.QueryNode.Text;
+
+/**
+ * Compiles parsed queries into {@link QueryPlan}s.
+ * Each predicate is pushed down to the index that answers it: text to the
+ * full-text index, where all the text of a conjunction becomes one lookup,
+ * categories to the category_recipe primary key, and ranges to the indexes on
+ * the recipe time and serving columns, including the generated total_time.
+ * Every leaf predicate gets a fixed selectivity estimate for its kind, and
+ * conjuncts are ordered from the most to the least selective so the cheapest
+ * rejections run first. Nothing is counted in the database while compiling,
+ * so a plan costs no query of its own; a conjunct that cannot match, such as
+ * an empty time range, still makes the whole plan empty without running it.
+ * <p>
+ * Plans depend on the query string alone, and are cached by it.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class QueryPlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryPlanner.class.getName());
+
+    /** Maximum number of cached plans */
+    private static final int CACHE_CAPACITY = 128;
+
+    /** Cached plans by query string, least recently used first */
+    private static final Map<String, QueryPlan> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    /** Estimated share of recipes matched by one full-text lookup */
+    private static final double FULL_TEXT_SELECTIVITY = 0.05;
+
+    /** Estimated share of recipes in one category */
+    private static final double CATEGORY_SELECTIVITY = 0.1;
+
+    /** Estimated share of recipes within a range bounded on both sides */
+    private static final double BOUNDED_RANGE_SELECTIVITY = 0.25;
+
+    /** Estimated share of recipes within a range bounded on one side */
+    private static final double OPEN_RANGE_SELECTIVITY = 0.5;
+
+    private static final String FULL_TEXT_CONDITION =
+        "r.recipe_id IN (SELECT rowid FROM recipe_fts WHERE recipe_fts MATCH ?)";
+    private static final String CATEGORY_CONDITION =
+        "r.recipe_id IN (SELECT cr.recipe_id FROM category_recipe cr " +
+        "JOIN category c ON c.category_id = cr.category_id WHERE c.category_name = ? COLLATE NOCASE)";
+
+    private final Tokenizer tokenizer;
+
+    /**
+     * Default constructor for QueryPlanner, using a {@link MixedScriptTokenizer}.
+     */
+    public QueryPlanner() {
+        this(new MixedScriptTokenizer());
+    }
+
+    /**
+     * Constructs a new QueryPlanner with the specified tokenizer.
+     * The tokenizer must be the one the search index was built with.
+     */
+    public QueryPlanner(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Gets the plan of a query, from the cache if it was compiled before.
+     *
+     * @param query the query typed by the user
+     * @return the plan
+     */
+    public QueryPlan plan(String query) {
+        String key = query == null ? "" : query.trim();
+        synchronized (CACHE) {
+            QueryPlan cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        QueryPlan plan = compile(key);
+        synchronized (CACHE) {
+            CACHE.put(key, plan);
+        }
+        LOGGER.fine("Planned " + plan);
+        return plan;
+    }
+
+    /**
+     * Parses and compiles a query.
+     */
+    private QueryPlan compile(String query) {
+        QueryNode root = QueryParser.parse(query);
+        Predicate predicate = new Compilation().compile(root);
+        List<String> rankingTerms = new ArrayList<>();
+        collectRankingTerms(root, rankingTerms);
+        if (predicate == null) {
+            predicate = NOTHING;
+        }
+        return new QueryPlan(query, predicate.condition, predicate.parameters,
+                rankingTerms.toArray(new String[0]), predicate.none, predicate.label);
+    }
+
+    /**
+     * Collects the normalized words of the text nodes that are not negated.
+     */
+    private void collectRankingTerms(QueryNode node, List<String> terms) {
+        if (node instanceof Text text) {
+            String normalized = tokenizer.normalize(text.text()).trim();
+            if (!normalized.isEmpty()) {
+                for (String term : normalized.split("\\s+")) {
+                    if (!terms.contains(term)) {
+                        terms.add(term);
+                    }
+                }
+            }
+        } else if (node instanceof And and) {
+            for (QueryNode child : and.children()) {
+                collectRankingTerms(child, terms);
+            }
+        } else if (node instanceof Or or) {
+            for (QueryNode child : or.children()) {
+                collectRankingTerms(child, terms);
+            }
+        }
+    }
+
+    /**
+     * Builds the full-text query matching every token of a text as a token
+     * prefix, restricted to the column of its field.
+     *
+     * @return the full-text query, or null if the text has no tokens
+     */
+    private String matchExpression(Text text) {
+        List<String> tokens = tokenizer.tokenize(tokenizer.normalize(text.text()));
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        StringBuilder expression = new StringBuilder();
+        switch (text.field()) {
+            case TITLE -> expression.append("{title} : ");
+            case INGREDIENT -> expression.append("{ingredients} : ");
+            case INSTRUCTION -> expression.append("{instruction} : ");
+            default -> {
+            }
+        }
+        expression.append('(');
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                expression.append(" AND ");
+            }
+            expression.append('"').append(tokens.get(i).replace("\"", "\"\"")).append("\"*");
+        }
+        return expression.append(')').toString();
+    }
+
+    /**
+     * Gets the SQL expression of a numeric field. Each is an indexed column.
+     */
+    private static String numericExpression(QueryNode.NumericField field) {
+        return switch (field) {
+            case TOTAL_TIME -> "r.total_time";
+            case PREP_TIME -> "r.prep_time";
+            case COOK_TIME -> "r.cook_time";
+            case SERVES -> "r.serve";
+        };
+    }
+
+    /**
+     * A compiled predicate with its estimated selectivity. {@code none} and
+     * {@code all} are only set when they are certain, so a plan is never
+     * skipped on an estimate.
+     */
+    private static final class Predicate {
+        final String condition;
+        final List<Object> parameters;
+        final double selectivity;
+        final boolean none;
+        final boolean all;
+        final String label;
+
+        /** Full-text query if the predicate is a single full-text lookup, null otherwise */
+        final String match;
+
+        Predicate(String condition, List<Object> parameters, double selectivity,
+                boolean none, boolean all, String label, String match) {
+            this.condition = condition;
+            this.parameters = parameters;
+            this.selectivity = selectivity;
+            this.none = none;
+            this.all = all;
+            this.label = label;
+            this.match = match;
+        }
+    }
+
+    /** Predicate known to match no recipe */
+    private static final Predicate NOTHING = new Predicate("0", List.of(), 0.0, true, false, "nothing", null);
+
+    /** Predicate known to match every recipe */
+    private static final Predicate EVERYTHING = new Predicate("1", List.of(), 1.0, false, true, "everything", null);
+
+    /**
+     * State of the compilation of one query.
+     */
+    private final class Compilation {
+
+        /**
+         * Compiles a node.
+         *
+         * @return the predicate, or null if the node has nothing to search for,
+         *         such as text made only of punctuation
+         */
+        Predicate compile(QueryNode node) {
+            if (node instanceof And and) {
+                return conjunction(and.children());
+            }
+            if (node instanceof Or or) {
+                return disjunction(or.children());
+            }
+            if (node instanceof Not not) {
+                return negation(compile(not.child()));
+            }
+            if (node instanceof Text text) {
+                String match = matchExpression(text);
+                return match == null ? null : fullText(match);
+            }
+            if (node instanceof CategoryMatch category) {
+                return leaf(CATEGORY_CONDITION, List.of(category.name()), CATEGORY_SELECTIVITY,
+                        "category:" + category.name(), null);
+            }
+            return range((Range) node);
+        }
+
+        private Predicate conjunction(List<QueryNode> children) {
+            List<Predicate> parts = new ArrayList<>();
+            List<Predicate> matches = new ArrayList<>();
+            boolean constrained = false;
+            for (QueryNode child : children) {
+                Predicate predicate = compile(child);
+                if (predicate == null) {
+                    continue;
+                }
+                constrained = true;
+                if (predicate.none) {
+                    return NOTHING;
+                }
+                if (predicate.all) {
+                    continue;
+                }
+                if (predicate.match != null) {
+                    matches.add(predicate);
+                } else {
+                    parts.add(predicate);
+                }
+            }
+            if (!matches.isEmpty()) {
+                parts.add(mergeFullText(matches, " AND "));
+            }
+            if (parts.isEmpty()) {
+                return constrained ? EVERYTHING : null;
+            }
+            return combine(parts, true);
+        }
+
+        private Predicate disjunction(List<QueryNode> children) {
+            List<Predicate> parts = new ArrayList<>();
+            List<Predicate> matches = new ArrayList<>();
+            boolean constrained = false;
+            for (QueryNode child : children) {
+                Predicate predicate = compile(child);
+                if (predicate == null) {
+                    continue;
+                }
+                constrained = true;
+                if (predicate.all) {
+                    return EVERYTHING;
+                }
+                if (predicate.none) {
+                    continue;
+                }
+                if (predicate.match != null) {
+                    matches.add(predicate);
+                } else {
+                    parts.add(predicate);
+                }
+            }
+            if (!matches.isEmpty()) {
+                parts.add(mergeFullText(matches, " OR "));
+            }
+            if (parts.isEmpty()) {
+                return constrained ? NOTHING : null;
+            }
+            return combine(parts, false);
+        }
+
+        /**
+         * Joins predicates with AND or OR, most selective first.
+         */
+        private Predicate combine(List<Predicate> parts, boolean and) {
+            parts.sort(Comparator.comparingDouble(predicate -> predicate.selectivity));
+            if (parts.size() == 1) {
+                return parts.get(0);
+            }
+            String operator = and ? " AND " : " OR ";
+            StringBuilder condition = new StringBuilder();
+            StringBuilder label = new StringBuilder();
+            List<Object> parameters = new ArrayList<>();
+            double selectivity = and ? 1.0 : 0.0;
+            for (Predicate part : parts) {
+                if (condition.length() > 0) {
+                    condition.append(operator);
+                    label.append(operator);
+                }
+                condition.append('(').append(part.condition).append(')');
+                label.append('(').append(part.label).append(')');
+                parameters.addAll(part.parameters);
+                selectivity = and ? selectivity * part.selectivity : Math.min(1.0, selectivity + part.selectivity);
+            }
+            return new Predicate(condition.toString(), parameters, selectivity, false, false, label.toString(), null);
+        }
+
+        private Predicate negation(Predicate child) {
+            if (child == null) {
+                return null;
+            }
+            if (child.all) {
+                return NOTHING;
+            }
+            if (child.none) {
+                return EVERYTHING;
+            }
+            return new Predicate("NOT (" + child.condition + ")", child.parameters, 1.0 - child.selectivity,
+                    false, false, "NOT " + child.label, null);
+        }
+
+        /**
+         * Merges full-text predicates into a single lookup of the full-text index.
+         */
+        private Predicate mergeFullText(List<Predicate> matches, String operator) {
+            if (matches.size() == 1) {
+                return matches.get(0);
+            }
+            boolean and = operator.equals(" AND ");
+            List<String> expressions = new ArrayList<>(matches.size());
+            double selectivity = and ? 1.0 : 0.0;
+            for (Predicate predicate : matches) {
+                expressions.add(predicate.match);
+                selectivity = and ? selectivity * predicate.selectivity
+                        : Math.min(1.0, selectivity + predicate.selectivity);
+            }
+            return fullText(String.join(operator, expressions), selectivity);
+        }
+
+        private Predicate fullText(String match) {
+            return fullText(match, FULL_TEXT_SELECTIVITY);
+        }
+
+        private Predicate fullText(String match, double selectivity) {
+            return leaf(FULL_TEXT_CONDITION, List.of(match), selectivity, match, match);
+        }
+
+        private Predicate range(Range range) {
+            if (range.min() > range.max()) {
+                return NOTHING;
+            }
+            if (range.min() == Integer.MIN_VALUE && range.max() == Integer.MAX_VALUE) {
+                return EVERYTHING;
+            }
+            String expression = numericExpression(range.field());
+            String name = range.field().name().toLowerCase(Locale.ROOT);
+            if (range.min() == Integer.MIN_VALUE) {
+                return leaf(expression + " <= ?", List.of(range.max()), OPEN_RANGE_SELECTIVITY,
+                        name + " <= " + range.max(), null);
+            }
+            if (range.max() == Integer.MAX_VALUE) {
+                return leaf(expression + " >= ?", List.of(range.min()), OPEN_RANGE_SELECTIVITY,
+                        name + " >= " + range.min(), null);
+            }
+            return leaf(expression + " BETWEEN ? AND ?", List.of(range.min(), range.max()),
+                    BOUNDED_RANGE_SELECTIVITY, name + " in " + range.min() + ".." + range.max(), null);
+        }
+
+        /**
+         * Builds a predicate with an estimated selectivity, shown in its label.
+         */
+        private Predicate leaf(String condition, List<Object> parameters, double selectivity,
+                String label, String match) {
+            return new Predicate(condition, parameters, selectivity, false, false,
+                    label + String.format(Locale.ROOT, " [~%.3f]", selectivity), match);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package g.service.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import g.dao.ImportDAO;
+
+/**
+ * The cookbook archive file format: a whole library, recipes and images, in
+ * one file that can be read at random. The file is laid out as
+ * <pre>
+ * header   "CBKA", version (short)
+ * body     recipe records and image files, in the order they were added
+ * footer   image count (int), then per image: name (UTF), offset (long),
+ *          length (long), SHA-256 (32 bytes);
+ *          recipe count (int), then per recipe: offset (long), length (int),
+ *          image index or -1 (int), title (UTF)
+ * trailer  footer offset (long), "CBKA"
+ * </pre>
+ * A recipe record is the JSON line {@link RecipeRecords} writes, without the
+ * line break. Image files are stored as they are, and copied in and out with
+ * {@link FileChannel#transferTo}, so their bytes never pass through the Java
+ * heap. Reading the trailer and footer is enough to find any recipe or image.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public final class CookbookArchive {
+
+    /** File name extension of archives */
+    public static final String EXTENSION = ".cookbook";
+
+    private static final byte[] MAGIC = {'C', 'B', 'K', 'A'};
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + Short.BYTES;
+    private static final int TRAILER_SIZE = Long.BYTES + MAGIC.length;
+    private static final int HASH_SIZE = 32;
+
+    /** Longest title or file name stored, at 3 bytes a character well under 65535 bytes */
+    private static final int MAX_UTF_CHARS = 20_000;
+
+    private CookbookArchive() {
+    }
+
+    /**
+     * Hashes a region of a file with SHA-256, reading it through a memory
+     * mapping rather than a heap buffer.
+     *
+     * @param channel the file
+     * @param offset where the region starts
+     * @param length the length of the region
+     * @return the 32-byte hash
+     * @throws IOException if the file cannot be read
+     */
+    static byte[] hash(FileChannel channel, long offset, long length) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            long chunk = Math.min(end - position, Integer.MAX_VALUE);
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, chunk));
+            position += chunk;
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Copies a region of one channel to the current position of another.
+     */
+    private static void transfer(FileChannel from, long offset, long length, FileChannel to) throws IOException {
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            long copied = from.transferTo(position, end - position, to);
+            if (copied <= 0) {
+                throw new IOException("Unexpected end of file while copying " + length + " bytes");
+            }
+            position += copied;
+        }
+    }
+
+    /**
+     * Writes an archive, sequentially, to a channel. Records are buffered;
+     * image files go straight from their channel to the archive. The footer
+     * entries are kept until {@link #finish()}, a few dozen bytes per recipe.
+     */
+    static final class Writer {
+
+        private final FileChannel out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final ByteArrayOutputStream utf = new ByteArrayOutputStream();
+        private long position;
+
+        private final List<String> imageNames = new ArrayList<>();
+        private long[] imageOffsets = new long[16];
+        private long[] imageLengths = new long[16];
+        private final List<byte[]> imageHashes = new ArrayList<>();
+
+        private final List<String> titles = new ArrayList<>();
+        private long[] recipeOffsets = new long[1024];
+        private int[] recipeLengths = new int[1024];
+        private int[] recipeImages = new int[1024];
+
+        /**
+         * Starts an archive at the beginning of a channel.
+         *
+         * @param out the empty file to write, not closed by the writer
+         */
+        Writer(FileChannel out) {
+            this.out = out;
+            buffer.put(MAGIC).putShort(VERSION);
+            position = HEADER_SIZE;
+        }
+
+        /**
+         * Adds an image file.
+         *
+         * @param name the file name, used again on import if it is free
+         * @param source the image file
+         * @param hash the SHA-256 of the file
+         * @return the index of the image, for {@link #addRecipe}
+         * @throws IOException if the file cannot be copied
+         */
+        int addImage(String name, FileChannel source, byte[] hash) throws IOException {
+            long length = source.size();
+            flush();
+            transfer(source, 0, length, out);
+            int index = imageNames.size();
+            if (index == imageOffsets.length) {
+                imageOffsets = Arrays.copyOf(imageOffsets, index * 2);
+                imageLengths = Arrays.copyOf(imageLengths, index * 2);
+            }
+            imageNames.add(name);
+            imageOffsets[index] = position;
+            imageLengths[index] = length;
+            imageHashes.add(hash);
+            position += length;
+            return index;
+        }
+
+        /**
+         * Adds a recipe record.
+         *
+         * @param title the recipe title, listed in the footer
+         * @param record the JSON record in UTF-8
+         * @param image the index of the recipe's image, or -1 if it has none
+         * @throws IOException if the record cannot be written
+         */
+        void addRecipe(String title, byte[] record, int image) throws IOException {
+            int index = titles.size();
+            if (index == recipeOffsets.length) {
+                recipeOffsets = Arrays.copyOf(recipeOffsets, index * 2);
+                recipeLengths = Arrays.copyOf(recipeLengths, index * 2);
+                recipeImages = Arrays.copyOf(recipeImages, index * 2);
+            }
+            titles.add(title);
+            recipeOffsets[index] = position;
+            recipeLengths[index] = record.length;
+            recipeImages[index] = image;
+            put(record);
+        }
+
+        /**
+         * Writes the footer and trailer and flushes everything to the channel.
+         *
+         * @throws IOException if they cannot be written
+         */
+        void finish() throws IOException {
+            long footerOffset = position;
+            putInt(imageNames.size());
+            for (int i = 0; i < imageNames.size(); i++) {
+                putUtf(imageNames.get(i));
+                putLong(imageOffsets[i]);
+                putLong(imageLengths[i]);
+                put(imageHashes.get(i));
+            }
+            putInt(titles.size());
+            for (int i = 0; i < titles.size(); i++) {
+                putLong(recipeOffsets[i]);
+                putInt(recipeLengths[i]);
+                putInt(recipeImages[i]);
+                putUtf(titles.get(i));
+            }
+            putLong(footerOffset);
+            put(MAGIC);
+            flush();
+        }
+
+        private void putInt(int value) throws IOException {
+            room(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        private void putLong(long value) throws IOException {
+            room(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+        }
+
+        /**
+         * Writes a string as {@link DataOutputStream#writeUTF} does, which
+         * {@link DataInputStream#readUTF} reads back. Strings are cut to
+         * {@link #MAX_UTF_CHARS}, so they always fit its 65535-byte limit.
+         */
+        private void putUtf(String value) throws IOException {
+            utf.reset();
+            new DataOutputStream(utf).writeUTF(value.length() > MAX_UTF_CHARS ? value.substring(0, MAX_UTF_CHARS) : value);
+            put(utf.toByteArray());
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+            position += bytes.length;
+        }
+
+        private void room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param file the archive
+     * @return the open archive, to be closed by the caller
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    public static Reader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new Reader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * An archive open for random access. Opening it reads only the header,
+     * trailer and footer; each recipe or image is read when asked for.
+     */
+    public static final class Reader implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final String[] imageNames;
+        private final long[] imageOffsets;
+        private final long[] imageLengths;
+        private final byte[][] imageHashes;
+
+        private final long[] recipeOffsets;
+        private final int[] recipeLengths;
+        private final int[] recipeImages;
+        private final String[] titles;
+
+        private Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Not a cookbook archive: too short");
+            }
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (!hasMagic(header) || header.getShort() != VERSION) {
+                throw new IOException("Not a cookbook archive, or of an unknown version");
+            }
+            ByteBuffer trailer = read(size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (!hasMagic(trailer) || footerOffset < HEADER_SIZE || footerOffset > size - TRAILER_SIZE) {
+                throw new IOException("Cookbook archive is truncated or damaged");
+            }
+            ByteBuffer footerBytes = read(footerOffset, Math.toIntExact(size - TRAILER_SIZE - footerOffset));
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(footerBytes.array()));
+
+            int images = footer.readInt();
+            imageNames = new String[images];
+            imageOffsets = new long[images];
+            imageLengths = new long[images];
+            imageHashes = new byte[images][HASH_SIZE];
+            for (int i = 0; i < images; i++) {
+                imageNames[i] = footer.readUTF();
+                imageOffsets[i] = footer.readLong();
+                imageLengths[i] = footer.readLong();
+                footer.readFully(imageHashes[i]);
+                checkRegion(imageOffsets[i], imageLengths[i], footerOffset);
+            }
+            int recipes = footer.readInt();
+            recipeOffsets = new long[recipes];
+            recipeLengths = new int[recipes];
+            recipeImages = new int[recipes];
+            titles = new String[recipes];
+            for (int i = 0; i < recipes; i++) {
+                recipeOffsets[i] = footer.readLong();
+                recipeLengths[i] = footer.readInt();
+                recipeImages[i] = footer.readInt();
+                titles[i] = footer.readUTF();
+                checkRegion(recipeOffsets[i], recipeLengths[i], footerOffset);
+                if (recipeImages[i] < -1 || recipeImages[i] >= images) {
+                    throw new IOException("Cookbook archive is damaged: bad image of recipe " + i);
+                }
+            }
+        }
+
+        /**
+         * Gets the number of recipes in the archive.
+         *
+         * @return the number of recipes
+         */
+        public int recipeCount() {
+            return titles.length;
+        }
+
+        /**
+         * Gets the title of a recipe without reading the recipe.
+         *
+         * @param index the recipe index, from 0 to {@link #recipeCount()} - 1
+         * @return the title
+         */
+        public String title(int index) {
+            return titles[index];
+        }
+
+        /**
+         * Finds the first recipe with a title, ignoring case.
+         *
+         * @param title the title
+         * @return the recipe index, or -1 if there is none
+         */
+        public int indexOf(String title) {
+            for (int i = 0; i < titles.length; i++) {
+                if (titles[i].equalsIgnoreCase(title)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Reads one recipe.
+         *
+         * @param index the recipe index
+         * @return the recipe with its ingredients and category names; its image
+         *         address is the one it had where it was exported
+         * @throws IOException if the record cannot be read
+         * @throws IllegalArgumentException if the record is not a valid recipe
+         */
+        public ImportDAO.RecipeRow recipe(int index) throws IOException {
+            ByteBuffer record = read(recipeOffsets[index], recipeLengths[index]);
+            return RecipeRecords.fromJson(new String(record.array(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Gets the image of a recipe.
+         *
+         * @param index the recipe index
+         * @return the image index, or -1 if the recipe has no image in the archive
+         */
+        public int imageOf(int index) {
+            return recipeImages[index];
+        }
+
+        /**
+         * Gets the number of distinct images in the archive.
+         *
+         * @return the number of images
+         */
+        public int imageCount() {
+            return imageNames.length;
+        }
+
+        /**
+         * Gets the file name an image had where it was exported.
+         *
+         * @param image the image index
+         * @return the file name
+         */
+        public String imageName(int image) {
+            return imageNames[image];
+        }
+
+        /**
+         * Gets the size of an image.
+         *
+         * @param image the image index
+         * @return the size in bytes
+         */
+        public long imageLength(int image) {
+            return imageLengths[image];
+        }
+
+        /**
+         * Gets the SHA-256 of an image, as recorded when it was exported.
+         *
+         * @param image the image index
+         * @return a copy of the 32-byte hash
+         */
+        public byte[] imageHash(int image) {
+            return imageHashes[image].clone();
+        }
+
+        /**
+         * Checks that the stored bytes of an image still match its hash.
+         *
+         * @param image the image index
+         * @return true if they match
+         * @throws IOException if the archive cannot be read
+         */
+        public boolean verifyImage(int image) throws IOException {
+            return Arrays.equals(hash(channel, imageOffsets[image], imageLengths[image]), imageHashes[image]);
+        }
+
+        /**
+         * Copies an image to the current position of a file.
+         *
+         * @param image the image index
+         * @param target the file to copy it to
+         * @throws IOException if it cannot be copied
+         */
+        public void copyImage(int image, FileChannel target) throws IOException {
+            transfer(channel, imageOffsets[image], imageLengths[image], target);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Cookbook archive is truncated");
+                }
+            }
+            return buffer.flip();
+        }
+
+        private static boolean hasMagic(ByteBuffer buffer) {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            return Arrays.equals(magic, MAGIC);
+        }
+
+        private static void checkRegion(long offset, long length, long footerOffset) throws IOException {
+            if (offset < HEADER_SIZE || length < 0 || offset + length > footerOffset) {
+                throw new IOException("Cookbook archive is damaged: entry outside the body");
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package g.service.transfer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.dao.ExportDAO;
+import g.dao.ImportDAO;
+import g.service.RecipeService;
+import g.utils.ProgressListener;
+
+/**
+ * Moves a whole cookbook between machines as one {@link CookbookArchive}:
+ * every recipe, and every image file its img_addr names in the image
+ * directory. Images are hashed when exported, so a file used by several
+ * recipes, or two files with the same content, are stored once. On import,
+ * an image whose hash matches a file already in the image directory reuses
+ * that file instead of adding a copy, and the recipes are pointed at the
+ * file names their images end up with.
+ * <p>
+ * The recipes of an archive are written like those of {@link RecipeImporter}:
+ * in large transactions with a checkpoint, so importing the same archive
+ * again after a crash resumes where it stopped.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class CookbookArchiver {
+
+    private static final Logger LOGGER = Logger.getLogger(CookbookArchiver.class.getName());
+
+    /** Recipes between two progress reports */
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /** Prefix some image addresses carry before the file name */
+    private static final String IMG_PREFIX = "imgs/";
+
+    private final ExportDAO exportDAO;
+    private final ImportDAO importDAO;
+    private final RecipeService recipeService;
+    private final RecipeImporter recipeImporter;
+    private final Path imageDir;
+
+    /**
+     * Default constructor for CookbookArchiver, using the image directory
+     * ~/.cookbook/imgs.
+     */
+    public CookbookArchiver() {
+        this(new ExportDAO(), new ImportDAO(), new RecipeService(), new RecipeImporter(),
+                Path.of(System.getProperty("user.home"), ".cookbook", "imgs"));
+    }
+
+    /**
+     * Constructs a new CookbookArchiver with the specified dependencies.
+     */
+    public CookbookArchiver(ExportDAO exportDAO, ImportDAO importDAO, RecipeService recipeService,
+                            RecipeImporter recipeImporter, Path imageDir) {
+        this.exportDAO = exportDAO;
+        this.importDAO = importDAO;
+        this.recipeService = recipeService;
+        this.recipeImporter = recipeImporter;
+        this.imageDir = imageDir;
+    }
+
+    /**
+     * Exports every recipe and its image to an archive, replacing the file if
+     * it exists. Recipes whose image file is missing are exported without it.
+     * Like {@link RecipeExporter}, it reads one snapshot without holding up writes.
+     *
+     * @param file the archive to write
+     * @param progress told the number of recipes exported and the number to export
+     * @return the number of recipes exported, or -1 if the export failed
+     */
+    public long exportArchive(Path file, ProgressListener progress) {
+        long start = System.nanoTime();
+        recipeService.flushPendingUpdates();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            long exported;
+            int images;
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CookbookArchive.Writer writer = new CookbookArchive.Writer(out);
+                Map<String, Integer> imageByAddr = new HashMap<>();
+                Map<String, Integer> imageByHash = new HashMap<>();
+                StringBuilder line = new StringBuilder(512);
+                try {
+                    exported = exportDAO.exportAll(row -> {
+                        String imgAddr = row.recipe().getImgAddr();
+                        int image = -1;
+                        if (imgAddr != null && !imgAddr.isBlank()) {
+                            Integer known = imageByAddr.get(imgAddr);
+                            image = known != null ? known : addImage(writer, imgAddr, imageByHash);
+                            imageByAddr.put(imgAddr, image);
+                        }
+                        line.setLength(0);
+                        RecipeRecords.toJson(line, row);
+                        writer.addRecipe(row.recipe().getTitle(), line.toString().getBytes(StandardCharsets.UTF_8), image);
+                    }, progress);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                images = imageByHash.size();
+                writer.finish();
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Archived " + exported + " recipes and " + images + " images to " + file + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return exported;
+        } catch (IOException | SQLException e) {
+            LOGGER.log(Level.SEVERE, "Archive export to " + file + " failed", e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Left behind, and overwritten by the next export
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Imports the recipes and images of an archive into the library. Each
+     * image is checked against its hash, and copied into the image directory
+     * unless a file with the same content is there already. A recipe archived
+     * without its image is imported without one.
+     *
+     * @param file the archive
+     * @param progress told the number of recipes imported and the number in the archive
+     * @return the outcome, or null if the import failed; the recipes
+     *         committed before the failure stay, and importing the archive
+     *         again resumes after them
+     */
+    public RecipeImporter.Result importArchive(Path file, ProgressListener progress) {
+        long start = System.nanoTime();
+        String source = file.toAbsolutePath().toString();
+        int imported = 0;
+        int skipped = 0;
+        try (CookbookArchive.Reader archive = CookbookArchive.open(file)) {
+            String[] imageNames = placeImages(archive);
+            ImportDAO.Checkpoint checkpoint = recipeImporter.checkpoint(file);
+            int total = archive.recipeCount();
+            int first = (int) Math.min(checkpoint.recordsDone(), total);
+            try (ImportDAO.Session session = importDAO.open(source, checkpoint)) {
+                for (int i = first; i < total; i++) {
+                    ImportDAO.RecipeRow row;
+                    try {
+                        row = archive.recipe(i);
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.fine("Skipping archived recipe " + i + ": " + e.getMessage());
+                        skipped++;
+                        continue;
+                    }
+                    // An image missing at export has no file here; its old name could name another one
+                    int image = archive.imageOf(i);
+                    row.recipe().setImgAddr(image >= 0 ? imageNames[image] : "");
+                    session.add(row);
+                    imported++;
+                    if (session.uncommitted() >= RecipeImporter.TRANSACTION_SIZE) {
+                        session.commit(i + 1);
+                    }
+                    if ((i + 1) % PROGRESS_INTERVAL == 0) {
+                        progress.progress(i + 1, total);
+                    }
+                }
+                session.commit(total);
+            }
+            progress.progress(total, total);
+            importDAO.clearCheckpoint(source);
+            LOGGER.info("Imported " + imported + " recipes from archive " + source + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return new RecipeImporter.Result(imported, skipped, first);
+        } catch (IOException | SQLException e) {
+            LOGGER.log(Level.SEVERE, "Archive import of " + source + " failed", e);
+            return null;
+        } finally {
+            if (imported > 0) {
+                recipeImporter.refresh();
+            }
+        }
+    }
+
+    /**
+     * Hashes an image file and adds it to the archive, unless a file with the
+     * same content was added already.
+     *
+     * @return the image index, or -1 if the file does not exist
+     * @throws UncheckedIOException if the file cannot be read, so it can leave the cursor loop
+     */
+    private int addImage(CookbookArchive.Writer writer, String imgAddr, Map<String, Integer> imageByHash) {
+        String name = imgAddr.startsWith(IMG_PREFIX) ? imgAddr.substring(IMG_PREFIX.length()) : imgAddr;
+        Path imageFile = imageDir.resolve(name).normalize();
+        if (!imageFile.startsWith(imageDir) || !Files.isRegularFile(imageFile)) {
+            LOGGER.warning("Image " + imgAddr + " not found, its recipe is archived without it");
+            return -1;
+        }
+        try (FileChannel source = FileChannel.open(imageFile, StandardOpenOption.READ)) {
+            byte[] hash = CookbookArchive.hash(source, 0, source.size());
+            String key = HexFormat.of().formatHex(hash);
+            Integer known = imageByHash.get(key);
+            if (known != null) {
+                return known;
+            }
+            int image = writer.addImage(imageFile.getFileName().toString(), source, hash);
+            imageByHash.put(key, image);
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Puts every image of an archive in the image directory, reusing the
+     * files that already hold the same content. The files already there are
+     * only hashed if their size matches an archived image.
+     *
+     * @return the file name each image is found under, by image index
+     * @throws IOException if an image is damaged or cannot be copied
+     */
+    private String[] placeImages(CookbookArchive.Reader archive) throws IOException {
+        Files.createDirectories(imageDir);
+        Map<Long, List<Path>> existingBySize = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(imageDir)) {
+            for (Path existing : files) {
+                if (Files.isRegularFile(existing)) {
+                    existingBySize.computeIfAbsent(Files.size(existing), size -> new ArrayList<>()).add(existing);
+                }
+            }
+        }
+        Map<Path, String> existingHashes = new HashMap<>();
+        String[] names = new String[archive.imageCount()];
+        int copied = 0;
+        for (int image = 0; image < names.length; image++) {
+            String hash = HexFormat.of().formatHex(archive.imageHash(image));
+            names[image] = findExisting(existingBySize.getOrDefault(archive.imageLength(image), List.of()),
+                    hash, existingHashes);
+            if (names[image] != null) {
+                continue;
+            }
+            if (!archive.verifyImage(image)) {
+                throw new IOException("Image " + archive.imageName(image) + " in the archive is damaged");
+            }
+            Path target = copyImage(archive, image, hash);
+            existingBySize.computeIfAbsent(archive.imageLength(image), size -> new ArrayList<>()).add(target);
+            existingHashes.put(target, hash);
+            names[image] = target.getFileName().toString();
+            copied++;
+        }
+        LOGGER.info("Archive images: " + copied + " copied, " + (names.length - copied) + " already present");
+        return names;
+    }
+
+    /**
+     * Finds a file with the given hash among files of the right size.
+     *
+     * @return its file name, or null if none matches
+     */
+    private static String findExisting(List<Path> candidates, String hash, Map<Path, String> hashes)
+            throws IOException {
+        for (Path candidate : candidates) {
+            String candidateHash = hashes.get(candidate);
+            if (candidateHash == null) {
+                try (FileChannel channel = FileChannel.open(candidate, StandardOpenOption.READ)) {
+                    candidateHash = HexFormat.of().formatHex(CookbookArchive.hash(channel, 0, channel.size()));
+                }
+                hashes.put(candidate, candidateHash);
+            }
+            if (candidateHash.equals(hash)) {
+                return candidate.getFileName().toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies an image into the image directory under its archived name, or
+     * under a name made from its hash if that one is taken.
+     *
+     * @return the new file
+     */
+    private Path copyImage(CookbookArchive.Reader archive, int image, String hash) throws IOException {
+        String name = Path.of(archive.imageName(image)).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot > 0 ? name.substring(dot) : "";
+        List<String> candidates = List.of(name, hash.substring(0, 16) + extension, hash + extension);
+        for (String candidate : candidates) {
+            Path target = imageDir.resolve(candidate);
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                archive.copyImage(image, out);
+                return target;
+            } catch (FileAlreadyExistsException e) {
+                // Taken by a file with other content, try the next name
+            } catch (IOException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+        throw new IOException("No free file name for image " + name);
+    }
+}
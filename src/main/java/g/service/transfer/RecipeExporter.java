@@ -0,0 +1,109 @@
+package g.service.transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.dao.ExportDAO;
+import g.service.RecipeService;
+import g.utils.ProgressListener;
+
+/**
+ * Exports the whole library as JSON lines, one recipe per line with its
+ * ingredients and category names, in the format {@link RecipeImporter} reads.
+ * Rows go straight from the database cursors through one reused line buffer
+ * into a buffered writer on a file channel, so memory use does not depend on
+ * the size of the library. The file is written under a temporary name and
+ * moved into place once complete, so a failed export never leaves half a file.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class RecipeExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(RecipeExporter.class.getName());
+
+    /** Size of the output buffer, in characters */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final ExportDAO exportDAO;
+    private final RecipeService recipeService;
+
+    /**
+     * Default constructor for RecipeExporter.
+     */
+    public RecipeExporter() {
+        this(new ExportDAO(), new RecipeService());
+    }
+
+    /**
+     * Constructs a new RecipeExporter with the specified dependencies.
+     */
+    public RecipeExporter(ExportDAO exportDAO, RecipeService recipeService) {
+        this.exportDAO = exportDAO;
+        this.recipeService = recipeService;
+    }
+
+    /**
+     * Exports every recipe to a file, replacing it if it exists. Edits still
+     * queued are written first, so they are included. It reads from one
+     * snapshot and does not hold up writes made while it runs.
+     *
+     * @param file the JSON lines file to write
+     * @param progress told the number of recipes exported and the number to export
+     * @return the number of recipes exported, or -1 if the export failed
+     */
+    public long exportFile(Path file, ProgressListener progress) {
+        long start = System.nanoTime();
+        recipeService.flushPendingUpdates();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            long exported;
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                exported = export(out, progress);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Exported " + exported + " recipes to " + file + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return exported;
+        } catch (IOException | SQLException e) {
+            LOGGER.log(Level.SEVERE, "Export to " + file + " failed", e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Left behind, and overwritten by the next export
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Writes every recipe as a JSON line.
+     *
+     * @param out the writer, not closed
+     * @param progress told the number of recipes exported and the number to export
+     * @return the number of recipes exported
+     * @throws SQLException if the database cannot be read
+     * @throws IOException if the writer fails
+     */
+    public long export(Writer out, ProgressListener progress) throws SQLException, IOException {
+        StringBuilder line = new StringBuilder(512);
+        return exportDAO.exportAll(row -> {
+            line.setLength(0);
+            RecipeRecords.toJson(line, row).append('\n');
+            out.append(line);
+        }, progress);
+    }
+}
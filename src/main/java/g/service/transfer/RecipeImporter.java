@@ -0,0 +1,392 @@
+package g.service.transfer;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import g.dao.ImportDAO;
+import g.service.DataVersions;
+import g.service.DataVersions.Table;
+import g.service.IngredientSuggestionService;
+import g.service.SearchIndexService;
+import g.utils.BackgroundExecutor;
+import g.utils.CsvReader;
+import g.utils.DBUtil;
+import g.utils.ProgressListener;
+
+/**
+ * Imports recipes from a CSV or JSON lines file of any size, in three stages:
+ * <ol>
+ * <li>a reader thread splits the file into records and hands them out in
+ * chunks of {@link #CHUNK_SIZE};</li>
+ * <li>a pool with a thread per core converts and validates the chunks, in
+ * parallel;</li>
+ * <li>the calling thread writes the parsed chunks in file order, through one
+ * {@link ImportDAO.Session}, committing every {@link #TRANSACTION_SIZE}
+ * recipes.</li>
+ * </ol>
+ * The chunks in flight are bounded, so the reader waits when parsing or
+ * writing falls behind and memory stays flat however big the file is.
+ * <p>
+ * Each commit saves how many records are in. Importing the same file again
+ * after a crash, unchanged, skips those records and carries on. For files of
+ * {@link #DEFER_INDEXES_BYTES} or more, the secondary indexes are dropped for
+ * the import and built once at the end, and the search index is always
+ * brought up to date at the end rather than per recipe.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+public class RecipeImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(RecipeImporter.class.getName());
+
+    /** Records parsed per task */
+    static final int CHUNK_SIZE = 500;
+
+    /** Recipes written per transaction */
+    static final int TRANSACTION_SIZE = 10_000;
+
+    /** Files at least this large are imported without the secondary indexes */
+    static final long DEFER_INDEXES_BYTES = 8L << 20;
+
+    /**
+     * Supported file formats.
+     */
+    public enum Format {
+        CSV,
+        JSON_LINES;
+
+        /**
+         * Picks the format from the file extension: .csv is CSV, anything else
+         * is read as JSON lines.
+         *
+         * @param file the file
+         * @return the format
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".csv") ? CSV : JSON_LINES;
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param imported the number of recipes imported by this run
+     * @param skipped the number of invalid records skipped by this run
+     * @param resumedAfter the number of records imported by an earlier,
+     *        interrupted run and not read again, 0 for a fresh import
+     */
+    public record Result(int imported, int skipped, long resumedAfter) {
+    }
+
+    /** Parsed records, or the end of the file if rows is null */
+    private record Chunk(List<ImportDAO.RecipeRow> rows, int skipped, long recordsDone, long bytesRead) {
+    }
+
+    private static final Chunk END = new Chunk(null, 0, 0, 0);
+
+    private final ImportDAO importDAO;
+    private final SearchIndexService searchIndexService;
+    private final IngredientSuggestionService ingredientSuggestionService;
+
+    /**
+     * Default constructor for RecipeImporter.
+     */
+    public RecipeImporter() {
+        this(new ImportDAO(), new SearchIndexService(), new IngredientSuggestionService());
+    }
+
+    /**
+     * Constructs a new RecipeImporter with the specified dependencies.
+     */
+    public RecipeImporter(ImportDAO importDAO, SearchIndexService searchIndexService,
+                          IngredientSuggestionService ingredientSuggestionService) {
+        this.importDAO = importDAO;
+        this.searchIndexService = searchIndexService;
+        this.ingredientSuggestionService = ingredientSuggestionService;
+    }
+
+    /**
+     * Imports a file, resuming an interrupted import of it if the file has
+     * not changed since. Invalid records are skipped and counted. It blocks
+     * until the import is done and should run on
+     * {@link BackgroundExecutor#writer()}.
+     *
+     * @param file the CSV or JSON lines file
+     * @param progress told the kilobytes read so far and the size of the file in kilobytes
+     * @return the outcome, or null if the import failed; the recipes
+     *         committed before the failure stay, and importing the file
+     *         again resumes after them
+     */
+    public Result importFile(Path file, ProgressListener progress) {
+        long start = System.nanoTime();
+        String source = file.toAbsolutePath().toString();
+        ImportDAO.Checkpoint checkpoint;
+        try {
+            checkpoint = checkpoint(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Cannot read " + source, e);
+            return null;
+        }
+        long resumedAfter = checkpoint.recordsDone();
+        long size = checkpoint.size();
+        boolean deferIndexes = size >= DEFER_INDEXES_BYTES;
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService parsers = BackgroundExecutor.newPool("cookbook-import", threads);
+        BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<>(threads * 2);
+        Thread reader = new Thread(() -> read(file, resumedAfter, parsers, chunks), "cookbook-import-reader");
+        reader.setDaemon(true);
+
+        int imported = 0;
+        int skipped = 0;
+        try {
+            if (deferIndexes) {
+                DBUtil.dropSecondaryIndexes();
+            }
+            try (ImportDAO.Session session = importDAO.open(source, checkpoint)) {
+                reader.start();
+                long recordsDone = resumedAfter;
+                while (true) {
+                    Chunk chunk = chunks.take().get();
+                    if (chunk == END) {
+                        break;
+                    }
+                    for (ImportDAO.RecipeRow row : chunk.rows()) {
+                        session.add(row);
+                    }
+                    imported += chunk.rows().size();
+                    skipped += chunk.skipped();
+                    recordsDone = chunk.recordsDone();
+                    if (session.uncommitted() >= TRANSACTION_SIZE) {
+                        session.commit(recordsDone);
+                    }
+                    progress.progress(kilobytes(chunk.bytesRead()), Math.max(1, kilobytes(size)));
+                }
+                session.commit(recordsDone);
+            }
+            importDAO.clearCheckpoint(source);
+            LOGGER.info("Imported " + imported + " recipes from " + source + ", skipped " + skipped
+                    + " invalid records in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return new Result(imported, skipped, resumedAfter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warning("Import of " + source + " interrupted, it resumes when imported again");
+            return null;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Import of " + source + " failed, it resumes when imported again", e);
+            return null;
+        } finally {
+            reader.interrupt();
+            parsers.shutdownNow();
+            if (deferIndexes) {
+                try {
+                    DBUtil.createSecondaryIndexes();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.SEVERE, "Error building indexes after import, they are built on next start", e);
+                }
+            }
+            if (imported > 0) {
+                refresh();
+            }
+        }
+    }
+
+    /**
+     * Brings everything derived from the tables up to date after recipes were
+     * imported: the data versions, the search index and the ingredient
+     * suggestions. Only then is the import announced, so views reloading on
+     * it do not read caches stamped before the import.
+     */
+    void refresh() {
+        DataVersions.bump(Table.RECIPE, Table.INGREDIENT, Table.CATEGORY, Table.CATEGORY_RECIPE);
+        searchIndexService.backfill();
+        ingredientSuggestionService.reload();
+        importDAO.publishImported();
+    }
+
+    /**
+     * Gets where an earlier import of a file stopped, if the file is unchanged.
+     *
+     * @param file the file being imported
+     * @return its size and modification time, and the number of records
+     *         committed by an interrupted import of it, 0 if there is none
+     * @throws IOException if the file cannot be read
+     */
+    ImportDAO.Checkpoint checkpoint(Path file) throws IOException {
+        String source = file.toAbsolutePath().toString();
+        ImportDAO.Checkpoint current =
+                new ImportDAO.Checkpoint(Files.size(file), Files.getLastModifiedTime(file).toMillis(), 0);
+        ImportDAO.Checkpoint saved = importDAO.getCheckpoint(source);
+        if (saved != null && saved.size() == current.size() && saved.modified() == current.modified()) {
+            LOGGER.info("Resuming import of " + source + " after " + saved.recordsDone() + " records");
+            return saved;
+        }
+        return current;
+    }
+
+    /**
+     * Splits the file into records on the reader thread, skipping the first
+     * ones, and queues a parse task per chunk. Stops when interrupted.
+     */
+    private void read(Path file, long skip, ExecutorService parsers, BlockingQueue<Future<Chunk>> chunks) {
+        Format format = Format.of(file);
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+             CsvReader csv = new CsvReader(lines)) {
+            Map<String, Integer> columns = format == Format.CSV ? header(csv.next()) : Map.of();
+            long recordNumber = 0;
+            List<Object> records = new ArrayList<>(CHUNK_SIZE);
+            while (!Thread.currentThread().isInterrupted()) {
+                Object record = format == Format.CSV ? csv.next() : nextLine(lines);
+                if (record == null) {
+                    break;
+                }
+                if (++recordNumber <= skip) {
+                    continue;
+                }
+                records.add(record);
+                if (records.size() == CHUNK_SIZE) {
+                    submit(records, recordNumber, in.count(), columns, parsers, chunks);
+                    records = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!records.isEmpty()) {
+                submit(records, recordNumber, in.count(), columns, parsers, chunks);
+            }
+            chunks.put(CompletableFuture.completedFuture(END));
+        } catch (InterruptedException e) {
+            // The writer stopped and no longer takes chunks
+        } catch (IOException | RuntimeException e) {
+            try {
+                chunks.put(CompletableFuture.failedFuture(e));
+            } catch (InterruptedException ignored) {
+                // The writer stopped and no longer takes chunks
+            }
+        }
+    }
+
+    /**
+     * Queues the parse of a chunk, waiting while too many chunks are in flight.
+     */
+    private static void submit(List<Object> records, long recordsDone, long bytesRead, Map<String, Integer> columns,
+                               ExecutorService parsers, BlockingQueue<Future<Chunk>> chunks)
+            throws InterruptedException {
+        chunks.put(parsers.submit(() -> parse(records, recordsDone, bytesRead, columns)));
+    }
+
+    /**
+     * Converts and validates a chunk on a parser thread.
+     */
+    private static Chunk parse(List<Object> records, long recordsDone, long bytesRead, Map<String, Integer> columns) {
+        List<ImportDAO.RecipeRow> rows = new ArrayList<>(records.size());
+        long recordNumber = recordsDone - records.size();
+        for (Object record : records) {
+            recordNumber++;
+            try {
+                rows.add(record instanceof String line
+                        ? RecipeRecords.fromJson(line)
+                        : RecipeRecords.fromCsv(castFields(record), columns));
+            } catch (RuntimeException e) {
+                LOGGER.fine("Skipping record " + recordNumber + ": " + e.getMessage());
+            }
+        }
+        return new Chunk(rows, records.size() - rows.size(), recordsDone, bytesRead);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> castFields(Object record) {
+        return (List<String>) record;
+    }
+
+    /**
+     * Maps the lower-cased column names of a CSV header to their positions.
+     */
+    private static Map<String, Integer> header(List<String> fields) throws IOException {
+        if (fields == null) {
+            throw new IOException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String name = fields.get(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns.putIfAbsent(name, i);
+        }
+        if (!columns.containsKey(RecipeRecords.TITLE)) {
+            throw new IOException("CSV header has no " + RecipeRecords.TITLE + " column");
+        }
+        return columns;
+    }
+
+    /**
+     * Reads the next line that is not blank.
+     */
+    private static String nextLine(BufferedReader lines) throws IOException {
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (!line.isBlank()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private static int kilobytes(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, bytes >> 10);
+    }
+
+    /**
+     * Counts the bytes read from a stream, for progress reports.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package g.service.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import g.dao.ImportDAO;
+import g.model.Ingredient;
+import g.model.Recipe;
+import g.utils.IngredientLineParser;
+import g.utils.Json;
+
+/**
+ * Converts between recipes and the records of a transfer file. Recipes are
+ * exported as JSON lines, and two formats are imported:
+ * <ul>
+ * <li>JSON lines: one object per line with the keys title, prep_time,
+ * cook_time, serve, instruction, img_addr, an ingredients array of objects
+ * with name, amount and unit, and a categories array of names;</li>
+ * <li>CSV with a header naming the same columns, where the ingredients
+ * column holds free-text entries such as "2 1/2 cups plain flour, sifted"
+ * and the categories column holds names, each separated by semicolons.</li>
+ * </ul>
+ * Records are validated by the model constructors, so a record the UI could
+ * not have saved is rejected with an {@link IllegalArgumentException}.
+ *
+ * @author Xinyuan Jiang
+ * @since 2025-6-15
+ */
+final class RecipeRecords {
+
+    static final String TITLE = "title";
+    static final String PREP_TIME = "prep_time";
+    static final String COOK_TIME = "cook_time";
+    static final String SERVE = "serve";
+    static final String INSTRUCTION = "instruction";
+    static final String IMG_ADDR = "img_addr";
+    static final String INGREDIENTS = "ingredients";
+    static final String CATEGORIES = "categories";
+    static final String NAME = "name";
+    static final String AMOUNT = "amount";
+    static final String UNIT = "unit";
+
+    /** Separator of the entries of a list held in one CSV field */
+    static final char LIST_SEPARATOR = ';';
+
+    private RecipeRecords() {
+    }
+
+    /**
+     * Converts one JSON line.
+     *
+     * @param line the line
+     * @return the recipe to import
+     * @throws IllegalArgumentException if the line is not a valid recipe
+     */
+    static ImportDAO.RecipeRow fromJson(String line) {
+        if (!(Json.parse(line) instanceof Map<?, ?> object)) {
+            throw new IllegalArgumentException("Not a JSON object");
+        }
+        Recipe recipe = new Recipe(0, text(object.get(TITLE)), number(object.get(PREP_TIME)),
+                number(object.get(COOK_TIME)), text(object.get(INSTRUCTION)), text(object.get(IMG_ADDR)),
+                number(object.get(SERVE)));
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (Object entry : list(object.get(INGREDIENTS))) {
+            if (!(entry instanceof Map<?, ?> ingredient)) {
+                throw new IllegalArgumentException("Ingredient is not a JSON object");
+            }
+            ingredients.add(new Ingredient(0, 0, text(ingredient.get(NAME)), number(ingredient.get(AMOUNT)),
+                    text(ingredient.get(UNIT))));
+        }
+        List<String> categories = new ArrayList<>();
+        for (Object entry : list(object.get(CATEGORIES))) {
+            String name = text(entry);
+            if (name != null && !name.isBlank()) {
+                categories.add(name.trim());
+            }
+        }
+        return new ImportDAO.RecipeRow(recipe, ingredients, categories);
+    }
+
+    /**
+     * Writes a recipe as one JSON line, without the line break, in the form
+     * {@link #fromJson(String)} reads back.
+     *
+     * @param out the text to append to
+     * @param row the recipe with its ingredients and category names
+     * @return the text appended to
+     */
+    static StringBuilder toJson(StringBuilder out, ImportDAO.RecipeRow row) {
+        Recipe recipe = row.recipe();
+        out.append('{');
+        Json.quote(out.append('"').append(TITLE).append("\":"), recipe.getTitle());
+        out.append(",\"").append(PREP_TIME).append("\":").append(recipe.getPrepTime());
+        out.append(",\"").append(COOK_TIME).append("\":").append(recipe.getCookTime());
+        out.append(",\"").append(SERVE).append("\":").append(recipe.getServe());
+        Json.quote(out.append(",\"").append(INSTRUCTION).append("\":"), recipe.getInstruction());
+        Json.quote(out.append(",\"").append(IMG_ADDR).append("\":"), recipe.getImgAddr());
+        out.append(",\"").append(INGREDIENTS).append("\":[");
+        for (int i = 0; i < row.ingredients().size(); i++) {
+            Ingredient ingredient = row.ingredients().get(i);
+            out.append(i == 0 ? "{\"" : ",{\"");
+            Json.quote(out.append(NAME).append("\":"), ingredient.getIngredientName());
+            out.append(",\"").append(AMOUNT).append("\":").append(ingredient.getIngredientAmount());
+            Json.quote(out.append(",\"").append(UNIT).append("\":"), ingredient.getIngredientUnit());
+            out.append('}');
+        }
+        out.append("],\"").append(CATEGORIES).append("\":[");
+        for (int i = 0; i < row.categories().size(); i++) {
+            Json.quote(i == 0 ? out : out.append(','), row.categories().get(i));
+        }
+        return out.append("]}");
+    }
+
+    /**
+     * Converts one CSV record.
+     *
+     * @param fields the fields of the record
+     * @param columns the position of each column named in the header, by lower-cased name
+     * @return the recipe to import
+     * @throws IllegalArgumentException if the record is not a valid recipe
+     */
+    static ImportDAO.RecipeRow fromCsv(List<String> fields, Map<String, Integer> columns) {
+        Recipe recipe = new Recipe(0, field(fields, columns, TITLE), number(field(fields, columns, PREP_TIME)),
+                number(field(fields, columns, COOK_TIME)), field(fields, columns, INSTRUCTION),
+                field(fields, columns, IMG_ADDR), number(field(fields, columns, SERVE)));
+        List<Ingredient> ingredients = new ArrayList<>();
+        IngredientLineParser parser = new IngredientLineParser();
+        for (String entry : split(field(fields, columns, INGREDIENTS))) {
+            ingredients.add(ingredient(parser, entry));
+        }
+        return new ImportDAO.RecipeRow(recipe, ingredients, split(field(fields, columns, CATEGORIES)));
+    }
+
+    /**
+     * Reads an ingredient written as free text, such as "2 1/2 cups plain
+     * flour, sifted", with {@link IngredientLineParser}. The amount is a whole
+     * number, so only a whole quantity becomes the amount, a range keeping its
+     * lower end. Any other quantity, such as "1/4 tsp", is not rounded: it stays
+     * in the name with its unit and the amount is 0, so it is read as written.
+     * The note after a comma is dropped, and an entry without a quantity is all
+     * name with an amount of 0.
+     *
+     * @param parser the parser to reuse
+     * @param entry the entry
+     * @throws IllegalArgumentException if the entry has no name
+     */
+    static Ingredient ingredient(IngredientLineParser parser, String entry) {
+        if (!parser.parse(entry)) {
+            throw new IllegalArgumentException("Ingredient '" + entry + "' has no name");
+        }
+        if (parser.hasWholeQuantity()) {
+            return new Ingredient(0, 0, parser.name(), (int) parser.quantity(), parser.unit());
+        }
+        if (parser.hasQuantity()) {
+            return new Ingredient(0, 0, entry.substring(parser.quantityStart(), parser.nameEnd()), 0, "");
+        }
+        return new Ingredient(0, 0, parser.name(), 0, parser.unit());
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    /**
+     * Splits a list held in one CSV field, dropping blank entries.
+     */
+    private static List<String> split(String field) {
+        List<String> entries = new ArrayList<>();
+        if (field == null) {
+            return entries;
+        }
+        int start = 0;
+        while (start <= field.length()) {
+            int end = field.indexOf(LIST_SEPARATOR, start);
+            if (end < 0) {
+                end = field.length();
+            }
+            String entry = field.substring(start, end).trim();
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+            start = end + 1;
+        }
+        return entries;
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Reads a whole number, rounding a decimal one. A missing or blank value is 0.
+     */
+    private static int number(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number number) {
+            return Math.toIntExact(Math.round(number.doubleValue()));
+        }
+        String text = value.toString().trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + text + "' is not a whole number");
+        }
+    }
+
+    private static List<?> list(Object value) {
+        if (value == null) {
+            return List.of();
+        }
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        throw new IllegalArgumentException("Expected a JSON array, found " + value);
+    }
+}
@@ -0,0 +1,134 @@
+package g.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared background executors used to keep database work off the JavaFX
+ * application thread. All threads are daemon threads so they never keep
+ * the application alive after the main window is closed.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public final class BackgroundExecutor {
+
+    /** Number of worker threads used for database reads */
+    private static final int IO_THREADS = 2;
+
+    /** Executor for database reads triggered by the UI */
+    private static final ExecutorService IO = Executors.newFixedThreadPool(IO_THREADS, daemonFactory("cookbook-io"));
+
+    /** Executor for speculative reads, on one low-priority thread so it never competes with the UI */
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(
+            lowPriority(daemonFactory("cookbook-prefetch")));
+
+    /** Executor for buffered writes, on one thread so they reach the database one batch at a time */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(daemonFactory("cookbook-writer"));
+
+    /** Executor dispatching batched lookups, on one thread so lookups made while it is busy form one batch */
+    private static final ExecutorService BATCH = Executors.newSingleThreadExecutor(daemonFactory("cookbook-batch"));
+
+    /** Executor for periodic maintenance such as flushing buffered writes */
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(daemonFactory("cookbook-scheduler"));
+
+    private BackgroundExecutor() {
+    }
+
+    /**
+     * Gets the executor for database reads triggered by the UI.
+     *
+     * @return the shared I/O executor
+     */
+    public static ExecutorService io() {
+        return IO;
+    }
+
+    /**
+     * Gets the executor for speculative reads such as prefetching. It has a
+     * single low-priority thread, so tasks queued on it run one at a time
+     * after the work the user is waiting for.
+     *
+     * @return the shared prefetch executor
+     */
+    public static ExecutorService prefetch() {
+        return PREFETCH;
+    }
+
+    /**
+     * Gets the executor for buffered writes. It has a single thread, so the
+     * batches queued on it are written one after another, in order.
+     *
+     * @return the shared writer executor
+     */
+    public static ExecutorService writer() {
+        return WRITER;
+    }
+
+    /**
+     * Gets the executor that dispatches batched lookups. It has a single
+     * thread, so the lookups registered while it runs one batch are merged
+     * into the next. Its tasks never wait for other executors, so threads of
+     * those can block on its results.
+     *
+     * @return the shared batch executor
+     */
+    public static ExecutorService batch() {
+        return BATCH;
+    }
+
+    /**
+     * Gets the executor for periodic maintenance tasks. It has a single thread,
+     * so tasks must be short and must not block on the UI.
+     *
+     * @return the shared scheduled executor
+     */
+    public static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * Creates a pool of daemon threads for one long task, such as parsing an
+     * import on every core. The caller shuts it down when the task ends.
+     *
+     * @param prefix the thread name prefix
+     * @param threads the number of threads
+     * @return the new executor
+     */
+    public static ExecutorService newPool(String prefix, int threads) {
+        return Executors.newFixedThreadPool(threads, daemonFactory(prefix));
+    }
+
+    /**
+     * Creates a thread factory producing named daemon threads.
+     *
+     * @param prefix the thread name prefix
+     * @return the thread factory
+     */
+    static ThreadFactory daemonFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Wraps a thread factory so that its threads run at the lowest priority.
+     *
+     * @param factory the thread factory
+     * @return the low-priority thread factory
+     */
+    static ThreadFactory lowPriority(ThreadFactory factory) {
+        return runnable -> {
+            Thread thread = factory.newThread(runnable);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+}
@@ -7,8 +7,10 @@ import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Properties;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -35,6 +37,54 @@ public class DBUtil {
      */
     private static String url;
 
+    /**
+     * Connection settings: foreign keys are enforced, so deleting a recipe
+     * cascades to its ingredients and category links; a write waits for the
+     * lock held by another connection, such as a running import, instead of
+     * failing at once; and the database is in WAL mode, so a long read such
+     * as an export keeps its snapshot while other connections commit
+     */
+    private static final Properties CONNECTION_PROPERTIES = new Properties();
+
+    static {
+        CONNECTION_PROPERTIES.setProperty("foreign_keys", "true");
+        CONNECTION_PROPERTIES.setProperty("busy_timeout", "10000");
+        CONNECTION_PROPERTIES.setProperty("journal_mode", "WAL");
+    }
+
+    /**
+     * Secondary indexes as name and indexed columns. An import drops them and
+     * builds them again once its rows are in, which is faster than updating
+     * them row by row.
+     */
+    private static final String[][] SECONDARY_INDEXES = {
+        // Range filter indexes
+        {"idx_recipe_total_time", "recipe (total_time)"},
+        {"idx_recipe_prep_time", "recipe (prep_time)"},
+        {"idx_recipe_cook_time", "recipe (cook_time)"},
+        {"idx_recipe_serve_total_time", "recipe (serve, total_time)"},
+        {"idx_category_recipe_recipe", "category_recipe (recipe_id, category_id)"},
+        // Lets a recipe delete find the ingredients it cascades to without a scan
+        {"idx_ingredient_recipe", "ingredient (recipe_id)"}
+    };
+
+    /** Columns of the ingredient table */
+    private static final String INGREDIENT_COLUMNS =
+            "pair_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "recipe_id INTEGER NOT NULL, " +
+            "ingredient_name TEXT NOT NULL, " +
+            "ingredient_amount INTEGER, " +
+            "unit TEXT, " +
+            "FOREIGN KEY(recipe_id) REFERENCES recipe(recipe_id) ON DELETE CASCADE";
+
+    /** Columns of the category_recipe table */
+    private static final String CATEGORY_RECIPE_COLUMNS =
+            "category_id INTEGER NOT NULL, " +
+            "recipe_id INTEGER NOT NULL, " +
+            "PRIMARY KEY(category_id, recipe_id), " +
+            "FOREIGN KEY(category_id) REFERENCES category(category_id) ON DELETE CASCADE, " +
+            "FOREIGN KEY(recipe_id) REFERENCES recipe(recipe_id) ON DELETE CASCADE";
+
     /**
      * Initializes the database path and copies the initial database from the jar resource
      * (resources/data/cookbook.db) to the user's home directory ONLY IF the database does not exist.
@@ -111,7 +161,7 @@ public class DBUtil {
         if (url == null) {
             throw new SQLException("Database URL is not initialized");
         }
-        return DriverManager.getConnection(url);
+        return DriverManager.getConnection(url, CONNECTION_PROPERTIES);
     }
 
     /**
@@ -121,6 +171,14 @@ public class DBUtil {
      * - recipe: stores recipe information
      * - ingredient: stores recipe ingredients
      * - category_recipe: stores the many-to-many relationship between categories and recipes
+     * - query_log: stores how often each search query was chosen
+     * - recipe_search: stores the normalized text of each recipe for search
+     * - recipe_fts: full-text index of the tokens of each recipe
+     * - import_job: stores how far each unfinished import has come
+     * It also adds the generated recipe.total_time column to older databases,
+     * rebuilds their ingredient and category_recipe tables so deleting a recipe
+     * or a category cascades to them, and creates the indexes used by time and
+     * serving filters and by those cascades.
      */
     public static void initializeDatabase() {
         try (Connection conn = getConnection();
@@ -142,21 +200,51 @@ public class DBUtil {
                         "serve INTEGER)");
             
             // Create ingredient table
-            stmt.execute("CREATE TABLE IF NOT EXISTS ingredient (" +
-                        "pair_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                        "recipe_id INTEGER NOT NULL, " +
-                        "ingredient_name TEXT NOT NULL, " +
-                        "ingredient_amount INTEGER, " +
-                        "unit TEXT, " +
-                        "FOREIGN KEY(recipe_id) REFERENCES recipe(recipe_id))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS ingredient (" + INGREDIENT_COLUMNS + ")");
             
             // Create category_recipe table
-            stmt.execute("CREATE TABLE IF NOT EXISTS category_recipe (" +
-                        "category_id INTEGER NOT NULL, " +
-                        "recipe_id INTEGER NOT NULL, " +
-                        "PRIMARY KEY(category_id, recipe_id), " +
-                        "FOREIGN KEY(category_id) REFERENCES category(category_id), " +
-                        "FOREIGN KEY(recipe_id) REFERENCES recipe(recipe_id))");
+            stmt.execute("CREATE TABLE IF NOT EXISTS category_recipe (" + CATEGORY_RECIPE_COLUMNS + ")");
+            
+            // Rebuild link tables of older databases whose foreign keys do not cascade
+            addCascadeIfMissing(conn, stmt, "ingredient", INGREDIENT_COLUMNS,
+                        "pair_id, recipe_id, ingredient_name, ingredient_amount, unit",
+                        "recipe_id IN (SELECT recipe_id FROM recipe)");
+            addCascadeIfMissing(conn, stmt, "category_recipe", CATEGORY_RECIPE_COLUMNS,
+                        "category_id, recipe_id",
+                        "recipe_id IN (SELECT recipe_id FROM recipe) AND category_id IN (SELECT category_id FROM category)");
+            
+            // Create query_log table
+            stmt.execute("CREATE TABLE IF NOT EXISTS query_log (" +
+                        "query_text TEXT PRIMARY KEY COLLATE NOCASE, " +
+                        "hits INTEGER NOT NULL DEFAULT 0, " +
+                        "last_used INTEGER)");
+            
+            // Create recipe_search table
+            stmt.execute("CREATE TABLE IF NOT EXISTS recipe_search (" +
+                        "recipe_id INTEGER PRIMARY KEY, " +
+                        "tokenizer TEXT NOT NULL, " +
+                        "title_norm TEXT, " +
+                        "ingredients_norm TEXT, " +
+                        "instruction_norm TEXT)");
+            
+            // Create recipe_fts table, tokens are produced by the application
+            stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS recipe_fts USING fts5(" +
+                        "title, ingredients, instruction, " +
+                        "tokenize = \"unicode61 remove_diacritics 0 categories 'L* N* Co M*'\")");
+            
+            // Total time of each recipe, computed by SQLite and materialized by its index
+            addColumnIfMissing(stmt, "recipe", "total_time",
+                        "INTEGER GENERATED ALWAYS AS (IFNULL(prep_time, 0) + IFNULL(cook_time, 0)) VIRTUAL");
+            
+            // Create import_job table, the checkpoint of each unfinished import
+            stmt.execute("CREATE TABLE IF NOT EXISTS import_job (" +
+                        "source TEXT PRIMARY KEY, " +
+                        "size INTEGER NOT NULL, " +
+                        "modified INTEGER NOT NULL, " +
+                        "records_done INTEGER NOT NULL)");
+            
+            // Create the secondary indexes, including any an interrupted import dropped
+            createSecondaryIndexes(stmt);
             
             LOGGER.info("Database tables initialized successfully");
         } catch (SQLException e) {
@@ -165,6 +253,107 @@ public class DBUtil {
         }
     }
 
+    /**
+     * Drops the secondary indexes ahead of a bulk insert. They must be built
+     * again with {@link #createSecondaryIndexes()}; if the application stops
+     * first, {@link #initializeDatabase()} builds them on the next start.
+     *
+     * @throws SQLException if an index cannot be dropped
+     */
+    public static void dropSecondaryIndexes() throws SQLException {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String[] index : SECONDARY_INDEXES) {
+                stmt.execute("DROP INDEX IF EXISTS " + index[0]);
+            }
+        }
+    }
+
+    /**
+     * Builds the secondary indexes that do not exist, after a bulk insert.
+     *
+     * @throws SQLException if an index cannot be built
+     */
+    public static void createSecondaryIndexes() throws SQLException {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            createSecondaryIndexes(stmt);
+        }
+    }
+
+    /**
+     * Builds the secondary indexes that do not exist.
+     *
+     * @param stmt the statement to run the schema changes with
+     * @throws SQLException if an index cannot be built
+     */
+    private static void createSecondaryIndexes(Statement stmt) throws SQLException {
+        for (String[] index : SECONDARY_INDEXES) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + index[0] + " ON " + index[1]);
+        }
+    }
+
+    /**
+     * Adds a column to a table unless it already exists. Generated columns are
+     * listed by table_xinfo only, so it is used instead of table_info.
+     *
+     * @param stmt the statement to run the schema queries with
+     * @param table the table name
+     * @param column the column name
+     * @param definition the column type and constraints
+     * @throws SQLException if the table cannot be read or altered
+     */
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String definition)
+            throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_xinfo(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        LOGGER.info("Added column " + table + "." + column);
+    }
+
+    /**
+     * Rebuilds a table whose foreign keys were created without ON DELETE CASCADE,
+     * since SQLite cannot alter a foreign key in place. The rows are copied into
+     * a table with the new definition, except those whose parent row is already
+     * gone, and the new table takes the old one's place, all in one transaction.
+     *
+     * @param conn the connection the statement belongs to
+     * @param stmt the statement to run the schema changes with
+     * @param table the table name
+     * @param columns the column definitions with cascading foreign keys
+     * @param columnNames the names of the columns to copy
+     * @param keep the condition a row must meet to be copied
+     * @throws SQLException if the table cannot be rebuilt; it is then left as it was
+     */
+    private static void addCascadeIfMissing(Connection conn, Statement stmt, String table, String columns,
+                                            String columnNames, String keep) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT sql FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'")) {
+            if (!rs.next() || rs.getString(1).toUpperCase().contains("ON DELETE CASCADE")) {
+                return;
+            }
+        }
+        conn.setAutoCommit(false);
+        try {
+            stmt.execute("CREATE TABLE " + table + "_cascade (" + columns + ")");
+            stmt.execute("INSERT INTO " + table + "_cascade (" + columnNames + ") SELECT " + columnNames
+                    + " FROM " + table + " WHERE " + keep);
+            stmt.execute("DROP TABLE " + table);
+            stmt.execute("ALTER TABLE " + table + "_cascade RENAME TO " + table);
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        LOGGER.info("Rebuilt table " + table + " with cascading foreign keys");
+    }
+
     /**
      * Safely closes a database connection. If the connection is null, no action
      * is taken. Any SQLExceptions that occur during closing are logged.
@@ -0,0 +1,71 @@
+package g.utils;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.scene.image.Image;
+
+/**
+ * Cache of recipe images, keyed by the image address stored with the recipe.
+ * The detail card, the list cells and the prefetcher share it, so an image
+ * decoded once is shown again without reading the file. The least recently
+ * used images are evicted beyond {@link #CAPACITY}. Images may be requested
+ * from any thread.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public final class ImageCache {
+
+    /** Maximum number of images kept */
+    private static final int CAPACITY = 32;
+
+    /** User image directory */
+    private static final String USER_IMG_DIR = System.getProperty("user.home") + File.separator + ".cookbook" + File.separator + "imgs";
+
+    /** Images by address, least recently used first */
+    private static final Map<String, Image> IMAGES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private ImageCache() {
+    }
+
+    /**
+     * Gets the image of a recipe, loading it on first use.
+     *
+     * @param imgAddr the image address stored with the recipe, such as imgs/name.png
+     * @param background true to decode the image in the background, as the UI
+     *        thread should; false to decode it before returning, as a prefetch should
+     * @return the image, or null if the recipe has no image or its file is missing
+     */
+    public static Image get(String imgAddr, boolean background) {
+        if (imgAddr == null || imgAddr.isEmpty()) {
+            return null;
+        }
+        synchronized (IMAGES) {
+            Image cached = IMAGES.get(imgAddr);
+            if (cached != null && !cached.isError()) {
+                return cached;
+            }
+        }
+        String imgFileName = imgAddr.startsWith("imgs/") ? imgAddr.substring(5) : imgAddr;
+        File imgFile = new File(USER_IMG_DIR + File.separator + imgFileName);
+        if (!imgFile.isFile()) {
+            return null;
+        }
+        Image image = new Image(imgFile.toURI().toString(), background);
+        synchronized (IMAGES) {
+            Image raced = IMAGES.get(imgAddr);
+            if (raced != null && !raced.isError()) {
+                return raced;
+            }
+            IMAGES.put(imgAddr, image);
+            return image;
+        }
+    }
+}
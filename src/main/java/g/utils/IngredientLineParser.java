@@ -0,0 +1,579 @@
+package g.utils;
+
+/**
+ * Hand-written parser for free-text ingredient lines such as
+ * "2 1/2 cups plain flour, sifted", splitting them into the quantity, unit
+ * and name an {@link g.model.Ingredient} holds. It reads:
+ * <ul>
+ * <li>quantities written as whole or decimal numbers, fractions ("1/2"),
+ * mixed numbers ("2 1/2", "2½"), Unicode fractions ("¾"), and the words one
+ * to twelve, "a" and "an";</li>
+ * <li>ranges joined by a dash, "to" or "or", such as "2-3" or "1 to 1 1/2";</li>
+ * <li>a unit from a fixed table of kitchen units, with or without a space
+ * ("200g") or a trailing period ("tbsp."), returned in one canonical
+ * spelling, singular or plural after the quantity;</li>
+ * <li>a name running up to the first comma outside parentheses, with what
+ * follows the comma kept as a note ("sifted").</li>
+ * </ul>
+ * A parenthesised size after the quantity, as in "1 (400 g) can tomatoes",
+ * and an "of" before the name are skipped. A line without a quantity is all
+ * name.
+ * <p>
+ * The line is walked once with {@link String#charAt}, and units are looked up
+ * in an open-addressing table hashed from the characters in place, so a parse
+ * allocates nothing until {@link #name()} or {@link #note()} copies the text
+ * out. An instance holds the result of its last parse and is not thread-safe;
+ * reuse one per thread.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public final class IngredientLineParser {
+
+    /** Size of the word table, a power of two well above the number of words */
+    private static final int TABLE_SIZE = 512;
+
+    /** Known words, by folded hash with linear probing */
+    private static final Word[] WORDS = new Word[TABLE_SIZE];
+
+    /** Canonical fluid ounce, which takes two words */
+    private static final String FLUID_OUNCE = "fl oz";
+
+    /** Canonical ounce */
+    private static final String OUNCE = "oz";
+
+    /** Capital T, which is a tablespoon while lower case t is a teaspoon */
+    private static final Word TABLESPOON;
+
+    /** Length of the longest known word, above which no lookup is made */
+    private static final int MAX_WORD_LENGTH = 11;
+
+    /**
+     * A known word: a unit alias with its canonical spellings, or a number word
+     * with its value.
+     */
+    private record Word(String text, String singular, String plural, double value) {
+    }
+
+    static {
+        unit("cup", "cups", "cup", "cups", "c");
+        unit("tbsp", "tbsp", "tbsp", "tbsps", "tbs", "tbl", "tbls", "tablespoon", "tablespoons");
+        unit("tsp", "tsp", "tsp", "tsps", "t", "teaspoon", "teaspoons");
+        unit("g", "g", "g", "gr", "gram", "grams", "gramme", "grammes");
+        unit("kg", "kg", "kg", "kgs", "kilo", "kilos", "kilogram", "kilograms");
+        unit("mg", "mg", "mg", "milligram", "milligrams");
+        unit("ml", "ml", "ml", "mls", "milliliter", "milliliters", "millilitre", "millilitres");
+        unit("cl", "cl", "cl", "centiliter", "centiliters", "centilitre", "centilitres");
+        unit("dl", "dl", "dl", "deciliter", "deciliters", "decilitre", "decilitres");
+        unit("l", "l", "l", "liter", "liters", "litre", "litres");
+        unit(OUNCE, OUNCE, OUNCE, "ounce", "ounces");
+        unit(FLUID_OUNCE, FLUID_OUNCE, "fl", "fluid");
+        unit("lb", "lb", "lb", "lbs", "pound", "pounds");
+        unit("pint", "pints", "pint", "pints", "pt", "pts");
+        unit("quart", "quarts", "quart", "quarts", "qt", "qts");
+        unit("gallon", "gallons", "gallon", "gallons", "gal");
+        unit("cm", "cm", "cm", "centimeter", "centimeters", "centimetre", "centimetres");
+        unit("mm", "mm", "mm");
+        unit("inch", "inches", "inch", "inches");
+        unit("pinch", "pinches", "pinch", "pinches");
+        unit("dash", "dashes", "dash", "dashes");
+        unit("drop", "drops", "drop", "drops");
+        unit("handful", "handfuls", "handful", "handfuls");
+        unit("clove", "cloves", "clove", "cloves");
+        unit("slice", "slices", "slice", "slices");
+        unit("piece", "pieces", "piece", "pieces", "pc", "pcs");
+        unit("can", "cans", "can", "cans");
+        unit("tin", "tins", "tin", "tins");
+        unit("jar", "jars", "jar", "jars");
+        unit("bottle", "bottles", "bottle", "bottles");
+        unit("package", "packages", "package", "packages", "pkg", "pkgs", "packet", "packets");
+        unit("bag", "bags", "bag", "bags");
+        unit("bunch", "bunches", "bunch", "bunches");
+        unit("sprig", "sprigs", "sprig", "sprigs");
+        unit("stick", "sticks", "stick", "sticks");
+        unit("stalk", "stalks", "stalk", "stalks");
+        unit("head", "heads", "head", "heads");
+        unit("sheet", "sheets", "sheet", "sheets");
+        unit("cube", "cubes", "cube", "cubes");
+        String[] numbers = {"one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten",
+            "eleven", "twelve"};
+        for (int i = 0; i < numbers.length; i++) {
+            put(new Word(numbers[i], null, null, i + 1));
+        }
+        put(new Word("a", null, null, 1));
+        put(new Word("an", null, null, 1));
+        TABLESPOON = lookup("tbsp", 0, 4);
+    }
+
+    /** The line last parsed */
+    private String line = "";
+
+    /** Read position within {@link #line} */
+    private int pos;
+
+    private int start;
+    private double quantity;
+    private double quantityTo;
+    private String unit;
+    private int nameStart;
+    private int nameEnd;
+    private int noteStart;
+    private int noteEnd;
+
+    /**
+     * Parses a line, replacing the result of the previous parse.
+     *
+     * @param line the ingredient line
+     * @return true if the line has a name; false if it is blank or only a
+     *         quantity and unit
+     */
+    public boolean parse(String line) {
+        this.line = line;
+        quantity = Double.NaN;
+        quantityTo = Double.NaN;
+        unit = "";
+        noteStart = 0;
+        noteEnd = 0;
+        int end = line.length();
+        pos = skipSpaces(0, end);
+        if (pos + 1 < end && isBullet(line.charAt(pos)) && isSpace(line.charAt(pos + 1))) {
+            pos = skipSpaces(pos + 1, end);
+        }
+        start = pos;
+        double first = number(end);
+        if (!Double.isNaN(first)) {
+            quantity = first;
+            quantityTo = first;
+            range(end);
+            unit(end);
+            skipOf(end);
+        }
+        name(end);
+        return nameEnd > nameStart;
+    }
+
+    /**
+     * @return whether the last line parsed starts with a quantity
+     */
+    public boolean hasQuantity() {
+        return !Double.isNaN(quantity);
+    }
+
+    /**
+     * @return the quantity, the lower end of a range, or NaN if there is none
+     */
+    public double quantity() {
+        return quantity;
+    }
+
+    /**
+     * @return whether the quantity, or the lower end of a range, is a whole
+     *         number of at least one, which an integer amount holds exactly
+     */
+    public boolean hasWholeQuantity() {
+        return quantity >= 1 && quantity == Math.rint(quantity);
+    }
+
+    /**
+     * @return the upper end of a range, the quantity itself if it is not a
+     *         range, or NaN if there is none
+     */
+    public double quantityTo() {
+        return quantityTo;
+    }
+
+    /**
+     * @return whether the quantity is a range
+     */
+    public boolean isRange() {
+        return quantityTo > quantity;
+    }
+
+    /**
+     * @return the canonical unit, or an empty string if there is none
+     */
+    public String unit() {
+        return unit;
+    }
+
+    /**
+     * @return the ingredient name
+     */
+    public String name() {
+        return line.substring(nameStart, nameEnd);
+    }
+
+    /**
+     * @return where the quantity starts in the line, past any bullet; where
+     *         the name starts if there is no quantity
+     */
+    public int quantityStart() {
+        return start;
+    }
+
+    /**
+     * @return where the name starts in the line, to read it without a copy
+     */
+    public int nameStart() {
+        return nameStart;
+    }
+
+    /**
+     * @return where the name ends in the line
+     */
+    public int nameEnd() {
+        return nameEnd;
+    }
+
+    /**
+     * @return the text after the first comma, such as "sifted", or an empty
+     *         string if there is none
+     */
+    public String note() {
+        return line.substring(noteStart, noteEnd);
+    }
+
+    /**
+     * Reads one amount at the read position: a whole or decimal number, a
+     * fraction, a mixed number, a Unicode fraction or a number word. The
+     * position moves past it.
+     *
+     * @return the amount, or NaN, leaving the position, if there is none
+     */
+    private double number(int end) {
+        int i = pos;
+        if (i >= end) {
+            return Double.NaN;
+        }
+        char c = line.charAt(i);
+        if (isDigit(c)) {
+            int digitsEnd = digitsEnd(i, end);
+            if (digitsEnd < 0) {
+                return Double.NaN;
+            }
+            long whole = digits(i, digitsEnd);
+            i = digitsEnd;
+            if (i + 1 < end && line.charAt(i) == '.' && isDigit(line.charAt(i + 1))) {
+                int fractionEnd = digitsEnd(i + 1, end);
+                if (fractionEnd < 0) {
+                    return Double.NaN;
+                }
+                pos = fractionEnd;
+                return whole + digits(i + 1, fractionEnd) / Math.pow(10, fractionEnd - i - 1);
+            }
+            if (i + 1 < end && isSlash(line.charAt(i))) {
+                int denominatorEnd = digitsEnd(i + 1, end);
+                if (denominatorEnd > i + 1) {
+                    long denominator = digits(i + 1, denominatorEnd);
+                    if (denominator > 0) {
+                        pos = denominatorEnd;
+                        return whole / (double) denominator;
+                    }
+                }
+            }
+            if (i < end && vulgar(line.charAt(i)) > 0) {
+                pos = i + 1;
+                return whole + vulgar(line.charAt(i));
+            }
+            if (i < end && isSpace(line.charAt(i))) {
+                double fraction = fraction(skipSpaces(i, end), end);
+                if (fraction > 0) {
+                    return whole + fraction;
+                }
+            }
+            pos = i;
+            return whole;
+        }
+        double fraction = fraction(i, end);
+        if (fraction > 0) {
+            return fraction;
+        }
+        int wordEnd = wordEnd(i, end);
+        if (wordEnd > i && (wordEnd == end || isSpace(line.charAt(wordEnd)))) {
+            Word word = lookup(line, i, wordEnd);
+            if (word != null && word.singular() == null) {
+                pos = wordEnd;
+                return word.value();
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Reads the fraction part of a mixed number at a position: a Unicode
+     * fraction or a proper fraction such as "1/2". The read position moves
+     * past it.
+     *
+     * @return the fraction, or 0 if there is none
+     */
+    private double fraction(int i, int end) {
+        if (i >= end) {
+            return 0;
+        }
+        double vulgar = vulgar(line.charAt(i));
+        if (vulgar > 0) {
+            pos = i + 1;
+            return vulgar;
+        }
+        int numeratorEnd = digitsEnd(i, end);
+        if (numeratorEnd <= i || numeratorEnd + 1 >= end || !isSlash(line.charAt(numeratorEnd))) {
+            return 0;
+        }
+        int denominatorEnd = digitsEnd(numeratorEnd + 1, end);
+        if (denominatorEnd <= numeratorEnd + 1) {
+            return 0;
+        }
+        long numerator = digits(i, numeratorEnd);
+        long denominator = digits(numeratorEnd + 1, denominatorEnd);
+        if (numerator <= 0 || numerator >= denominator) {
+            return 0;
+        }
+        pos = denominatorEnd;
+        return numerator / (double) denominator;
+    }
+
+    /**
+     * Reads the upper end of a range after the quantity, if one follows.
+     */
+    private void range(int end) {
+        int i = skipSpaces(pos, end);
+        if (i < end && isDash(line.charAt(i))) {
+            i++;
+        } else if (i + 2 < end && isSpace(line.charAt(i + 2))
+                && (line.regionMatches(true, i, "to", 0, 2) || line.regionMatches(true, i, "or", 0, 2))) {
+            i += 2;
+        } else {
+            return;
+        }
+        int before = pos;
+        pos = skipSpaces(i, end);
+        double to = number(end);
+        if (Double.isNaN(to) || to < quantity) {
+            pos = before;
+            return;
+        }
+        quantityTo = to;
+    }
+
+    /**
+     * Reads a unit after the quantity, skipping a parenthesised size before
+     * or after it. The read position is left before the name.
+     */
+    private void unit(int end) {
+        int i = skipParenthesis(skipSpaces(pos, end), end);
+        if (i < end && line.charAt(i) == '-') {
+            i++;
+        }
+        pos = i;
+        int wordEnd = wordEnd(i, end);
+        Word word = wordEnd - i == 1 && line.charAt(i) == 'T' ? TABLESPOON : lookup(line, i, wordEnd);
+        if (word == null || word.singular() == null) {
+            return;
+        }
+        int after = wordEnd < end && line.charAt(wordEnd) == '.' ? wordEnd + 1 : wordEnd;
+        if (FLUID_OUNCE.equals(word.singular())) {
+            int ounce = skipSpaces(after, end);
+            int ounceEnd = wordEnd(ounce, end);
+            Word next = lookup(line, ounce, ounceEnd);
+            if (next == null || !OUNCE.equals(next.singular())) {
+                return;
+            }
+            after = ounceEnd < end && line.charAt(ounceEnd) == '.' ? ounceEnd + 1 : ounceEnd;
+        }
+        if (after < end && !isSpace(line.charAt(after)) && line.charAt(after) != ',' && line.charAt(after) != '(') {
+            return;
+        }
+        unit = quantityTo > 1 ? word.plural() : word.singular();
+        pos = skipParenthesis(skipSpaces(after, end), end);
+    }
+
+    /**
+     * Skips an "of" before the name, as in "a pinch of salt".
+     */
+    private void skipOf(int end) {
+        int i = skipSpaces(pos, end);
+        if (i + 2 < end && isSpace(line.charAt(i + 2)) && line.regionMatches(true, i, "of", 0, 2)) {
+            pos = i + 2;
+        }
+    }
+
+    /**
+     * Marks the name from the read position up to the first comma outside
+     * parentheses, and the note after that comma.
+     */
+    private void name(int end) {
+        int i = skipSpaces(pos, end);
+        int depth = 0;
+        int j = i;
+        for (; j < end; j++) {
+            char c = line.charAt(j);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && depth > 0) {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                break;
+            }
+        }
+        nameStart = i;
+        nameEnd = trimEnd(i, j);
+        if (j < end) {
+            noteStart = skipSpaces(j + 1, end);
+            noteEnd = trimEnd(noteStart, end);
+        }
+    }
+
+    /**
+     * @return the position after a parenthesised part starting at a
+     *         position, followed by spaces, or the position itself if there
+     *         is none or it is not closed
+     */
+    private int skipParenthesis(int i, int end) {
+        if (i >= end || line.charAt(i) != '(') {
+            return i;
+        }
+        int close = line.indexOf(')', i + 1);
+        return close < 0 ? i : skipSpaces(close + 1, end);
+    }
+
+    private int skipSpaces(int i, int end) {
+        while (i < end && isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isSpace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private int wordEnd(int i, int end) {
+        while (i < end && Character.isLetter(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the end of the digits starting at a position, or -1 if there
+     *         are too many to be a quantity
+     */
+    private int digitsEnd(int i, int end) {
+        int start = i;
+        while (i < end && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i - start > 9 ? -1 : i;
+    }
+
+    private long digits(int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + line.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of a Unicode vulgar fraction, or 0 if the character is not one
+     */
+    private static double vulgar(char c) {
+        return switch (c) {
+            case '\u00BC' -> 0.25;
+            case '\u00BD' -> 0.5;
+            case '\u00BE' -> 0.75;
+            case '\u2150' -> 1.0 / 7;
+            case '\u2151' -> 1.0 / 9;
+            case '\u2152' -> 0.1;
+            case '\u2153' -> 1.0 / 3;
+            case '\u2154' -> 2.0 / 3;
+            case '\u2155' -> 0.2;
+            case '\u2156' -> 0.4;
+            case '\u2157' -> 0.6;
+            case '\u2158' -> 0.8;
+            case '\u2159' -> 1.0 / 6;
+            case '\u215A' -> 5.0 / 6;
+            case '\u215B' -> 0.125;
+            case '\u215C' -> 0.375;
+            case '\u215D' -> 0.625;
+            case '\u215E' -> 0.875;
+            default -> 0;
+        };
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\u00A0' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isSlash(char c) {
+        return c == '/' || c == '\u2044';
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || c == '\u2013' || c == '\u2014';
+    }
+
+    private static boolean isBullet(char c) {
+        return c == '-' || c == '*' || c == '\u2022';
+    }
+
+    /**
+     * Looks a word up in the table, ignoring case.
+     *
+     * @return the word, or null if it is not known
+     */
+    private static Word lookup(String text, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > MAX_WORD_LENGTH) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        for (int slot = slot(hash); WORDS[slot] != null; slot = (slot + 1) & (TABLE_SIZE - 1)) {
+            Word word = WORDS[slot];
+            if (word.text().length() == length && text.regionMatches(true, start, word.text(), 0, length)) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    private static void unit(String singular, String plural, String... aliases) {
+        for (String alias : aliases) {
+            put(new Word(alias, singular, plural, Double.NaN));
+        }
+    }
+
+    private static void put(Word word) {
+        assert word.text().length() <= MAX_WORD_LENGTH : word.text();
+        int hash = 0;
+        for (int i = 0; i < word.text().length(); i++) {
+            hash = 31 * hash + fold(word.text().charAt(i));
+        }
+        int slot = slot(hash);
+        while (WORDS[slot] != null) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        WORDS[slot] = word;
+    }
+
+    private static int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * Folds ASCII upper case to lower case, leaving other characters alone.
+     */
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
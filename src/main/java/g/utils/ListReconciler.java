@@ -0,0 +1,105 @@
+package g.utils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+import javafx.collections.ObservableList;
+
+/**
+ * Brings an observable list in line with a freshly loaded one by a keyed diff,
+ * instead of replacing its content. Rows whose key disappeared are removed,
+ * new rows are inserted where they belong, moved rows are moved, and rows that
+ * kept their key but changed are replaced in place; rows that did not change
+ * are not touched. A ListView showing the list therefore only lays out the
+ * cells that changed, and its selection and scroll position follow the rows
+ * they were on.
+ * <p>
+ * Consecutive removals and insertions are applied as ranges, so each run
+ * fires a single change event.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public final class ListReconciler {
+
+    private ListReconciler() {
+    }
+
+    /**
+     * Reconciles a list with its new content.
+     *
+     * @param <T> the type of the rows
+     * @param target the list to update
+     * @param source the new content, in the order it should have
+     * @param key the key identifying a row across both lists
+     * @param same tells whether two rows with the same key look the same
+     * @return the number of rows inserted, removed or replaced
+     */
+    public static <T> int reconcile(ObservableList<T> target, List<? extends T> source,
+                                    ToIntFunction<? super T> key, BiPredicate<? super T, ? super T> same) {
+        Set<Integer> wanted = new HashSet<>(source.size() * 2);
+        for (T item : source) {
+            wanted.add(key.applyAsInt(item));
+        }
+
+        int changes = 0;
+        int end = target.size();
+        while (end > 0) {
+            if (wanted.contains(key.applyAsInt(target.get(end - 1)))) {
+                end--;
+                continue;
+            }
+            int start = end - 1;
+            while (start > 0 && !wanted.contains(key.applyAsInt(target.get(start - 1)))) {
+                start--;
+            }
+            target.remove(start, end);
+            changes += end - start;
+            end = start;
+        }
+
+        Set<Integer> present = new HashSet<>(target.size() * 2);
+        for (T item : target) {
+            present.add(key.applyAsInt(item));
+        }
+        for (int i = 0; i < source.size(); i++) {
+            T item = source.get(i);
+            int itemKey = key.applyAsInt(item);
+            if (i < target.size() && key.applyAsInt(target.get(i)) == itemKey) {
+                if (!same.test(target.get(i), item)) {
+                    target.set(i, item);
+                    changes++;
+                }
+                continue;
+            }
+            if (!present.contains(itemKey)) {
+                int runEnd = i + 1;
+                while (runEnd < source.size() && !present.contains(key.applyAsInt(source.get(runEnd)))) {
+                    runEnd++;
+                }
+                target.addAll(i, source.subList(i, runEnd));
+                changes += runEnd - i;
+                i = runEnd - 1;
+                continue;
+            }
+            for (int j = i + 1; j < target.size(); j++) {
+                if (key.applyAsInt(target.get(j)) == itemKey) {
+                    target.remove(j);
+                    changes++;
+                    break;
+                }
+            }
+            target.add(i, item);
+            changes++;
+        }
+
+        if (target.size() > source.size()) {
+            changes += target.size() - source.size();
+            target.remove(source.size(), target.size());
+        }
+        return changes;
+    }
+}
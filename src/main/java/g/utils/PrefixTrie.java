@@ -0,0 +1,267 @@
+package g.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prefix trie of terms weighted by usage count, used for autocomplete.
+ * Matching is case-insensitive; each term keeps the spelling it was first added with.
+ * Every node stores the best terms of its subtree, so a lookup walks the prefix and
+ * returns the precomputed list: O(prefix length + k), independent of the number of
+ * terms. Children are kept in sorted parallel arrays rather than maps to stay compact.
+ * Counts are updated incrementally; only the nodes on the path of the changed term
+ * recompute their best terms.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class PrefixTrie {
+
+    /** Default number of suggestions kept per node */
+    public static final int DEFAULT_TOP_K = 8;
+
+    /** Number of suggestions kept per node */
+    private final int topK;
+
+    /** The root node, matching the empty prefix */
+    private final Node root = new Node();
+
+    /** Number of distinct terms with a positive count */
+    private int size;
+
+    /**
+     * Constructs an empty trie keeping {@link #DEFAULT_TOP_K} suggestions per node.
+     */
+    public PrefixTrie() {
+        this(DEFAULT_TOP_K);
+    }
+
+    /**
+     * Constructs an empty trie.
+     *
+     * @param topK the number of suggestions kept per node
+     */
+    public PrefixTrie(int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+    }
+
+    /**
+     * Adds to the count of a term, inserting it if needed. A negative delta
+     * decrements the count; terms whose count drops to zero are no longer suggested.
+     *
+     * @param term the term, ignored if blank
+     * @param delta the amount to add to its count
+     */
+    public synchronized void add(String term, int delta) {
+        Node[] path = increment(term, delta);
+        if (path == null) {
+            return;
+        }
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i].recomputeTop(topK);
+        }
+    }
+
+    /**
+     * Adds the counts of many terms at once. The best terms of each node are
+     * recomputed once at the end instead of after every term, which is much
+     * faster when building the trie.
+     *
+     * @param counts the amount to add to each term's count
+     */
+    public synchronized void addAll(Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            increment(entry.getKey(), entry.getValue());
+        }
+        recomputeAll(root);
+    }
+
+    /**
+     * Updates the count of a term without recomputing the best terms.
+     *
+     * @return the nodes from the root to the term, or null if nothing changed
+     */
+    private Node[] increment(String term, int delta) {
+        if (term == null || term.isBlank() || delta == 0) {
+            return null;
+        }
+        String display = term.trim();
+        String key = display.toLowerCase(Locale.ROOT);
+
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                if (delta < 0) {
+                    return null;
+                }
+                child = node.addChild(key.charAt(i));
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+
+        int before = node.count;
+        node.count = Math.max(0, node.count + delta);
+        if (node.display == null) {
+            node.display = display;
+        }
+        if (before == 0 && node.count > 0) {
+            size++;
+        } else if (before > 0 && node.count == 0) {
+            size--;
+        }
+        return path;
+    }
+
+    /**
+     * Recomputes the best terms of a subtree, children first.
+     */
+    private void recomputeAll(Node node) {
+        for (Node child : node.children) {
+            recomputeAll(child);
+        }
+        node.recomputeTop(topK);
+    }
+
+    /**
+     * Returns the most used terms starting with the prefix, best first.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit the maximum number of suggestions, at most the trie's top-k
+     * @return the matching terms in their original spelling
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int n = Math.min(limit, node.topSize);
+        List<String> suggestions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            suggestions.add(node.top[i].display);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Gets the count of a term.
+     *
+     * @param term the term
+     * @return its count, 0 if absent
+     */
+    public synchronized int count(String term) {
+        Node node = root;
+        String key = term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Gets the number of distinct terms with a positive count.
+     *
+     * @return the number of terms
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Node of the trie. Children are stored in two sorted parallel arrays.
+     */
+    private static final class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_NODES;
+
+        /** Usage count of the term ending here, 0 if none */
+        private int count;
+
+        /** Original spelling of the term ending here */
+        private String display;
+
+        /** Best terms of this subtree, best first */
+        private Node[] top = NO_NODES;
+        private int topSize;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int insert = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newLabels[insert] = label;
+            Node child = new Node();
+            newChildren[insert] = child;
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        /**
+         * Rebuilds the best terms from this node's own term and the best terms of
+         * its children, which already cover everything below them.
+         */
+        void recomputeTop(int k) {
+            Node[] best = top.length == k ? top : new Node[k];
+            int n = 0;
+            if (count > 0) {
+                best[n++] = this;
+            }
+            for (Node child : children) {
+                for (int i = 0; i < child.topSize; i++) {
+                    n = insert(best, n, k, child.top[i]);
+                }
+            }
+            for (int i = n; i < best.length; i++) {
+                best[i] = null;
+            }
+            top = best;
+            topSize = n;
+        }
+
+        /**
+         * Inserts a term into a best-first array of at most k terms.
+         */
+        private static int insert(Node[] best, int n, int k, Node candidate) {
+            int pos = n;
+            while (pos > 0 && ranksBefore(candidate, best[pos - 1])) {
+                pos--;
+            }
+            if (pos >= k) {
+                return n;
+            }
+            int end = Math.min(n, k - 1);
+            System.arraycopy(best, pos, best, pos + 1, end - pos);
+            best[pos] = candidate;
+            return Math.min(n + 1, k);
+        }
+
+        private static boolean ranksBefore(Node a, Node b) {
+            return a.count > b.count || (a.count == b.count && a.display.compareToIgnoreCase(b.display) < 0);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package g.utils;
+
+/**
+ * Receives the progress of a long-running operation, such as a bulk write
+ * over thousands of recipes. It is called on the thread doing the work, so a
+ * listener updating the UI must hand the update to the JavaFX thread.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /** A listener that ignores every report */
+    ProgressListener NONE = (done, total) -> { };
+
+    /**
+     * Reports how far the operation has come.
+     *
+     * @param done the number of items processed so far
+     * @param total the number of items to process
+     */
+    void progress(int done, int total);
+}
@@ -0,0 +1,291 @@
+package g.utils;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brute-force scan over a fixed set of titles, for queries no index can
+ * answer such as substrings inside words or regular expressions.
+ * The titles are folded once and packed into one contiguous char array, with
+ * an offset table marking where each title starts, so a scan walks memory
+ * sequentially without touching any per-title object. Regular expressions
+ * run on a second array packing the titles as given, since folding the
+ * pattern's text the same way would also fold its syntax. Below
+ * {@link #PARALLEL_THRESHOLD} characters the array is scanned by a single
+ * tight loop; above it, it is split by title ranges across the common
+ * ForkJoin pool.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public final class TitleScanKernel {
+
+    /** Total title length above which scans run in parallel */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Character reads between two checks of the cancellation flag */
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    /** Approximate number of characters scanned by one parallel task */
+    private static final int CHUNK_CHARS = 1 << 14;
+
+    /** Function folding titles and needles the same way */
+    private final UnaryOperator<String> fold;
+
+    /** All folded titles, back to back */
+    private final char[] chars;
+
+    /** Start of each title in {@link #chars}, followed by the total length */
+    private final int[] offsets;
+
+    /** All titles as given, back to back, for regular expressions */
+    private final char[] rawChars;
+
+    /** Start of each title in {@link #rawChars}, followed by the total length */
+    private final int[] rawOffsets;
+
+    /**
+     * Folds and packs the titles.
+     *
+     * @param titles the titles, in the order their indexes are reported
+     * @param fold folds a title or a needle, for example to lower case
+     */
+    public TitleScanKernel(List<String> titles, UnaryOperator<String> fold) {
+        this.fold = fold;
+        String[] raw = new String[titles.size()];
+        String[] folded = new String[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            String title = titles.get(i);
+            raw[i] = title == null ? "" : title;
+            folded[i] = title == null ? "" : fold.apply(title);
+        }
+        offsets = new int[raw.length + 1];
+        chars = pack(folded, offsets);
+        rawOffsets = new int[raw.length + 1];
+        rawChars = pack(raw, rawOffsets);
+    }
+
+    /**
+     * Packs strings back to back, filling in the offset of each followed by the total length.
+     */
+    private static char[] pack(String[] strings, int[] offsets) {
+        int total = 0;
+        for (String string : strings) {
+            total += string.length();
+        }
+        char[] packed = new char[total];
+        int position = 0;
+        for (int i = 0; i < strings.length; i++) {
+            offsets[i] = position;
+            strings[i].getChars(0, strings[i].length(), packed, position);
+            position += strings[i].length();
+        }
+        offsets[strings.length] = position;
+        return packed;
+    }
+
+    /**
+     * Gets the number of titles.
+     *
+     * @return the number of titles
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Finds the titles containing a substring. The needle is folded like the titles.
+     *
+     * @param needle the substring to look for
+     * @return the indexes of the matching titles, in ascending order
+     */
+    public int[] find(String needle) {
+        char[] folded = fold.apply(needle == null ? "" : needle).toCharArray();
+        if (folded.length == 0) {
+            return all();
+        }
+        return scan(() -> title -> contains(chars, offsets[title], offsets[title + 1], folded));
+    }
+
+    /**
+     * Finds the titles in which a regular expression finds a match. The
+     * expression runs on the titles as given, not folded: an accented letter
+     * only matches itself, and case is ignored only if the pattern asks for it.
+     *
+     * @param pattern the expression to look for
+     * @return the indexes of the matching titles, in ascending order
+     */
+    public int[] find(Pattern pattern) {
+        return scan(() -> {
+            Matcher matcher = pattern.matcher("");
+            return title -> matcher.reset(CharBuffer.wrap(rawChars, rawOffsets[title],
+                    rawOffsets[title + 1] - rawOffsets[title])).find();
+        });
+    }
+
+    /**
+     * Finds the titles in which a regular expression finds a match, giving up
+     * once the scan is cancelled. The flag is checked while the expression
+     * reads the titles, so a pattern that backtracks for a long time on one
+     * title stops too. Like {@link #find(Pattern)}, the expression runs on the
+     * titles as given.
+     *
+     * @param pattern the expression to look for
+     * @param cancelled tells whether the result is no longer wanted
+     * @return the indexes of the matching titles, in ascending order
+     * @throws CancellationException if the scan was cancelled
+     */
+    public int[] find(Pattern pattern, BooleanSupplier cancelled) {
+        return scan(() -> {
+            Matcher matcher = pattern.matcher("");
+            return title -> matcher.reset(
+                    new CancellableChars(rawOffsets[title], rawOffsets[title + 1], cancelled)).find();
+        });
+    }
+
+    /**
+     * Runs a scan, in parallel if the titles are long enough. Each task gets its
+     * own matcher, since regular expression matchers are not thread-safe.
+     */
+    private int[] scan(Supplier<RangeMatcher> matchers) {
+        if (chars.length < PARALLEL_THRESHOLD) {
+            return scanRange(matchers.get(), 0, size());
+        }
+        return ForkJoinPool.commonPool().invoke(new ScanTask(matchers, 0, size()));
+    }
+
+    /**
+     * Scans the titles from index {@code from} inclusive to {@code to} exclusive.
+     */
+    private int[] scanRange(RangeMatcher matcher, int from, int to) {
+        int[] hits = new int[Math.min(16, to - from)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (matcher.matches(i)) {
+                if (count == hits.length) {
+                    hits = Arrays.copyOf(hits, count * 2);
+                }
+                hits[count++] = i;
+            }
+        }
+        return count == hits.length ? hits : Arrays.copyOf(hits, count);
+    }
+
+    private int[] all() {
+        int[] hits = new int[size()];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = i;
+        }
+        return hits;
+    }
+
+    /**
+     * Checks whether chars[start, end) contains the needle.
+     */
+    private static boolean contains(char[] chars, int start, int end, char[] needle) {
+        char first = needle[0];
+        int last = end - needle.length;
+        for (int i = start; i <= last; i++) {
+            if (chars[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && chars[i + j] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests one title, given by its index.
+     */
+    private interface RangeMatcher {
+        boolean matches(int title);
+    }
+
+    /**
+     * One title of {@link #rawChars} as a character sequence that checks a
+     * cancellation flag every {@link #CANCEL_CHECK_INTERVAL} reads.
+     */
+    private final class CancellableChars implements CharSequence {
+        private final int start;
+        private final int end;
+        private final BooleanSupplier cancelled;
+        private int reads;
+
+        CancellableChars(int start, int end, BooleanSupplier cancelled) {
+            this.start = start;
+            this.end = end;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException("Title scan cancelled");
+            }
+            return rawChars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new CancellableChars(start + from, start + to, cancelled);
+        }
+
+        @Override
+        public String toString() {
+            return new String(rawChars, start, end - start);
+        }
+    }
+
+    /**
+     * Scans a range of titles, splitting it in halves until each part holds
+     * about {@link #CHUNK_CHARS} characters. Results are concatenated in order.
+     */
+    private final class ScanTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Supplier<RangeMatcher> matchers;
+        private final int from;
+        private final int to;
+
+        ScanTask(Supplier<RangeMatcher> matchers, int from, int to) {
+            this.matchers = matchers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= 1 || offsets[to] - offsets[from] <= CHUNK_CHARS) {
+                return scanRange(matchers.get(), from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(matchers, from, middle);
+            left.fork();
+            int[] right = new ScanTask(matchers, middle, to).compute();
+            int[] leftHits = left.join();
+            int[] hits = Arrays.copyOf(leftHits, leftHits.length + right.length);
+            System.arraycopy(right, 0, hits, leftHits.length, right.length);
+            return hits;
+        }
+    }
+}
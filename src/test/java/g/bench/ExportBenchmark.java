@@ -0,0 +1,134 @@
+package g.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import g.dao.ImportDAO;
+import g.model.Ingredient;
+import g.model.Recipe;
+import g.service.transfer.RecipeExporter;
+import g.utils.DBUtil;
+import g.utils.ProgressListener;
+
+/**
+ * Benchmark of the JSON lines export on a generated library, by default of
+ * one million ingredient rows. It loads the library through the import
+ * session, exports it a few times, and measures how long single-row edits
+ * committed by another connection wait while an export is reading.
+ * The database lives in a temporary home directory, deleted at the end.
+ * Run with {@code java -cp <test and main classes + sqlite-jdbc> g.bench.ExportBenchmark [ingredient rows]}.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class ExportBenchmark {
+
+    private static final int INGREDIENTS_PER_RECIPE = 10;
+    private static final String[] NAMES = {"Flour", "Sugar", "Butter", "Egg", "Milk", "Salt", "Garlic", "Onion",
+        "Olive oil", "Tomato", "Basil", "Rice", "Chicken", "Soy sauce", "Ginger"};
+    private static final String[] UNITS = {"g", "ml", "cups", "tbsp", "tsp", ""};
+    private static final String[] CATEGORIES = {"Breakfast", "Dinner", "Dessert", "Quick", "Vegetarian"};
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        // The results go to stdout, the import and export logs would drown them
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int ingredientRows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int recipes = ingredientRows / INGREDIENTS_PER_RECIPE;
+        Path home = Files.createTempDirectory("cookbook-export-bench");
+        System.setProperty("user.home", home.toString());
+        try {
+            DBUtil.initializeDatabase();
+            long start = System.nanoTime();
+            load(recipes);
+            double loadMs = (System.nanoTime() - start) / 1e6;
+            System.out.printf("Loaded %d recipes, %d ingredient rows in %.0f ms (%.0f rows/s)%n",
+                    recipes, recipes * INGREDIENTS_PER_RECIPE, loadMs, recipes * INGREDIENTS_PER_RECIPE / loadMs * 1000);
+
+            RecipeExporter exporter = new RecipeExporter();
+            Path file = home.resolve("export.jsonl");
+            for (int round = 1; round <= ROUNDS; round++) {
+                start = System.nanoTime();
+                long exported = exporter.exportFile(file, ProgressListener.NONE);
+                double ms = (System.nanoTime() - start) / 1e6;
+                double megabytes = Files.size(file) / 1e6;
+                System.out.printf("Export %d: %d recipes, %.1f MB in %.0f ms (%.0f ingredient rows/s, %.1f MB/s)%n",
+                        round, exported, megabytes, ms, recipes * INGREDIENTS_PER_RECIPE / ms * 1000, megabytes / ms * 1000);
+            }
+
+            List<Double> waits = editsDuringExport(exporter, file);
+            waits.sort(null);
+            System.out.printf("Edits committed during an export: %d, median wait %.2f ms, max %.2f ms%n",
+                    waits.size(), waits.get(waits.size() / 2), waits.get(waits.size() - 1));
+        } finally {
+            try (Stream<Path> files = Files.walk(home)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Fills the database through one import session.
+     */
+    private static void load(int recipes) throws SQLException {
+        ImportDAO importDAO = new ImportDAO();
+        try (ImportDAO.Session session = importDAO.open("benchmark", new ImportDAO.Checkpoint(0, 0, 0))) {
+            for (int i = 0; i < recipes; i++) {
+                List<Ingredient> ingredients = new ArrayList<>(INGREDIENTS_PER_RECIPE);
+                for (int j = 0; j < INGREDIENTS_PER_RECIPE; j++) {
+                    ingredients.add(new Ingredient(0, 0, NAMES[(i + j) % NAMES.length], (i * 7 + j) % 500,
+                            UNITS[j % UNITS.length]));
+                }
+                Recipe recipe = new Recipe(0, "Benchmark recipe " + i, i % 45, i % 90,
+                        "Combine everything and cook for " + (i % 90) + " minutes.\nServe \"warm\".", "", 1 + i % 6);
+                session.add(new ImportDAO.RecipeRow(recipe, ingredients,
+                        List.of(CATEGORIES[i % CATEGORIES.length], CATEGORIES[(i / 7) % CATEGORIES.length])));
+                if (session.uncommitted() >= 10_000) {
+                    session.commit(i + 1);
+                }
+            }
+            session.commit(recipes);
+        }
+        importDAO.clearCheckpoint("benchmark");
+    }
+
+    /**
+     * Runs an export while another connection renames recipes one at a time,
+     * and returns how long each rename took to commit, in milliseconds.
+     */
+    private static List<Double> editsDuringExport(RecipeExporter exporter, Path file) throws Exception {
+        AtomicBoolean exporting = new AtomicBoolean(true);
+        Thread export = new Thread(() -> {
+            exporter.exportFile(file, ProgressListener.NONE);
+            exporting.set(false);
+        });
+        List<Double> waits = new ArrayList<>();
+        export.start();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE recipe SET title = ? WHERE recipe_id = ?")) {
+            int edit = 0;
+            while (exporting.get() || waits.isEmpty()) {
+                long start = System.nanoTime();
+                stmt.setString(1, "Edited during export " + edit);
+                stmt.setInt(2, 1 + edit % 1000);
+                stmt.executeUpdate();
+                waits.add((System.nanoTime() - start) / 1e6);
+                edit++;
+                Thread.sleep(5);
+            }
+        }
+        export.join();
+        return waits;
+    }
+}
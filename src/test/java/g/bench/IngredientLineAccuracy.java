@@ -0,0 +1,91 @@
+package g.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import g.utils.IngredientLineParser;
+
+/**
+ * Accuracy check of {@link IngredientLineParser} against a corpus of
+ * ingredient lines labelled by hand, ingredient-lines.tsv next to this class.
+ * It compares the quantity, the upper end of a range, the unit and the name
+ * of every line, prints the lines that differ, and exits with status 1 when
+ * the share of fully correct lines is below the threshold.
+ * Run with {@code java -cp <test and main classes> g.bench.IngredientLineAccuracy [threshold, default 0.95]}.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class IngredientLineAccuracy {
+
+    private static final String CORPUS = "ingredient-lines.tsv";
+
+    /** Tolerance when comparing quantities, which fractions make inexact */
+    private static final double EPSILON = 1e-4;
+
+    public static void main(String[] args) throws IOException {
+        double threshold = args.length > 0 ? Double.parseDouble(args[0]) : 0.95;
+        IngredientLineParser parser = new IngredientLineParser();
+        int lines = 0;
+        int correct = 0;
+        int quantities = 0;
+        int ranges = 0;
+        int units = 0;
+        int names = 0;
+        try (InputStream in = IngredientLineAccuracy.class.getResourceAsStream(CORPUS)) {
+            if (in == null) {
+                throw new IOException("Corpus " + CORPUS + " not found on the class path");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String row;
+            while ((row = reader.readLine()) != null) {
+                if (row.isEmpty() || row.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = row.split("\t", -1);
+                String line = fields[0];
+                double quantity = quantity(fields[1]);
+                double quantityTo = fields[2].isEmpty() ? quantity : quantity(fields[2]);
+                String unit = fields[3];
+                String name = fields[4];
+
+                parser.parse(line);
+                boolean quantityOk = same(quantity, parser.quantity());
+                boolean rangeOk = same(quantityTo, parser.quantityTo());
+                boolean unitOk = unit.equals(parser.unit());
+                boolean nameOk = name.equals(parser.name());
+                lines++;
+                quantities += quantityOk ? 1 : 0;
+                ranges += rangeOk ? 1 : 0;
+                units += unitOk ? 1 : 0;
+                names += nameOk ? 1 : 0;
+                if (quantityOk && rangeOk && unitOk && nameOk) {
+                    correct++;
+                } else {
+                    System.out.printf("MISS  %-50s expected %s-%s [%s] '%s', got %s-%s [%s] '%s'%n", line,
+                            fields[1], fields[2], unit, name, parser.quantity(), parser.quantityTo(),
+                            parser.unit(), parser.name());
+                }
+            }
+        }
+        System.out.printf("Quantity %.1f%%, range %.1f%%, unit %.1f%%, name %.1f%%%n", 100.0 * quantities / lines,
+                100.0 * ranges / lines, 100.0 * units / lines, 100.0 * names / lines);
+        double accuracy = (double) correct / lines;
+        System.out.printf("%d of %d lines fully correct (%.1f%%), threshold %.1f%%%n", correct, lines,
+                accuracy * 100, threshold * 100);
+        if (accuracy < threshold) {
+            System.exit(1);
+        }
+    }
+
+    private static double quantity(String field) {
+        return field.isEmpty() ? Double.NaN : Double.parseDouble(field);
+    }
+
+    private static boolean same(double expected, double actual) {
+        return Double.isNaN(expected) ? Double.isNaN(actual) : Math.abs(expected - actual) < EPSILON;
+    }
+}
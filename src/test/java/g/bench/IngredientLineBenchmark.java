@@ -0,0 +1,118 @@
+package g.bench;
+
+import java.util.Random;
+
+import g.utils.IngredientLineParser;
+
+/**
+ * Throughput benchmark of {@link IngredientLineParser} on generated ingredient
+ * lines, by default one million distinct ones mixing whole numbers, fractions,
+ * mixed numbers, Unicode fractions, ranges, units with and without a space,
+ * and notes after a comma. It reports lines per second for the parser, read
+ * without copying the name out and with it, and for the whitespace split the
+ * CSV import used before as a baseline. Each measurement runs a few warm-up
+ * rounds before the timed ones.
+ * Run with {@code java -cp <test and main classes> g.bench.IngredientLineBenchmark [lines]}.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class IngredientLineBenchmark {
+
+    private static final String[] QUANTITIES = {"1", "2", "3", "12", "250", "1/2", "3/4", "1 1/2", "2½", "¼",
+        "1.5", "0.25", "2-3", "1 to 2", "a", "two"};
+    private static final String[] UNITS = {"cups", "cup", "tbsp", "tablespoons", "tsp", "teaspoon", "g", "kg",
+        "ml", "oz", "lb", "pinch", "cloves", "cans", "", ""};
+    private static final String[] NAMES = {"plain flour", "sugar", "unsalted butter", "eggs", "whole milk",
+        "salt", "garlic", "red onion", "olive oil", "chopped tomatoes", "fresh basil", "basmati rice",
+        "chicken thighs (boneless, skinless)", "soy sauce", "ginger", "dark chocolate"};
+    private static final String[] NOTES = {"", "", ", sifted", ", finely chopped", ", at room temperature",
+        ", to taste"};
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    /** Keeps the results alive so the loops cannot be optimised away */
+    private static long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] lines = generate(count);
+        IngredientLineParser parser = new IngredientLineParser();
+
+        measure("Parser, name by offsets", lines, () -> {
+            long sum = 0;
+            for (String line : lines) {
+                if (parser.parse(line)) {
+                    sum += parser.nameEnd() - parser.nameStart() + (long) parser.quantityTo() + parser.unit().length();
+                }
+            }
+            return sum;
+        });
+        measure("Parser, name copied out", lines, () -> {
+            long sum = 0;
+            for (String line : lines) {
+                if (parser.parse(line)) {
+                    sum += parser.name().length() + (long) parser.quantityTo() + parser.unit().length();
+                }
+            }
+            return sum;
+        });
+        measure("Baseline whitespace split", lines, () -> {
+            long sum = 0;
+            for (String line : lines) {
+                String[] tokens = line.trim().split("\\s+", 3);
+                try {
+                    sum += Integer.parseInt(tokens[0]) + tokens[tokens.length - 1].length();
+                } catch (NumberFormatException e) {
+                    sum += line.length();
+                }
+            }
+            return sum;
+        });
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    /**
+     * Something to time, returning a value to keep alive.
+     */
+    private interface Run {
+        long run();
+    }
+
+    private static void measure(String label, String[] lines, Run run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += run.run();
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += run.run();
+            best = Math.min(best, (System.nanoTime() - start) / 1e9);
+        }
+        System.out.printf("%-28s %6.2f M lines/s  %6.1f ns/line%n", label, lines.length / best / 1e6,
+                best * 1e9 / lines.length);
+    }
+
+    private static String[] generate(int count) {
+        Random random = new Random(42);
+        String[] lines = new String[count];
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < count; i++) {
+            line.setLength(0);
+            line.append(QUANTITIES[random.nextInt(QUANTITIES.length)]);
+            String unit = UNITS[random.nextInt(UNITS.length)];
+            if (!unit.isEmpty()) {
+                line.append(random.nextInt(4) == 0 && Character.isDigit(line.charAt(line.length() - 1)) ? "" : " ")
+                        .append(unit);
+            }
+            line.append(' ').append(NAMES[random.nextInt(NAMES.length)]);
+            if (random.nextBoolean()) {
+                line.append(' ').append(i % 1000);
+            }
+            line.append(NOTES[random.nextInt(NOTES.length)]);
+            lines[i] = line.toString();
+        }
+        return lines;
+    }
+}
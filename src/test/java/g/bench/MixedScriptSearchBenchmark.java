@@ -0,0 +1,214 @@
+package g.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import g.service.MixedScriptTokenizer;
+import g.service.RelevanceScorer;
+import g.service.Tokenizer;
+
+/**
+ * Benchmark of recipe search on a generated corpus mixing Chinese, Japanese,
+ * Korean and accented Latin text. It measures tokenizer throughput, scoring on
+ * stored normalized text against normalizing every candidate per query, and an
+ * FTS5 lookup on the tokens against a LIKE scan, on an in-memory database.
+ * Run with {@code java -cp <test and main classes + sqlite-jdbc> g.bench.MixedScriptSearchBenchmark [recipes]}.
+ *
+ * @author Junzhe Luo
+ * @since 2025-6-15
+ */
+public class MixedScriptSearchBenchmark {
+
+    private static final String[] HAN = {
+        "红烧", "宫保", "鸡丁", "麻婆", "豆腐", "糖醋", "排骨", "清蒸", "鲈鱼", "回锅", "肉", "酸辣", "汤",
+        "炒饭", "牛肉", "面", "凉拌", "黄瓜", "蒜蓉", "西兰花", "番茄", "炒蛋"
+    };
+    private static final String[] KANA = {"カレー", "ライス", "てりやき", "チキン", "みそ", "ラーメン", "おにぎり"};
+    private static final String[] HANGUL = {"김치", "찌개", "불고기", "비빔밥", "떡볶이"};
+    private static final String[] LATIN = {
+        "Jalapeño", "Crème", "Brûlée", "Purée", "Pâté", "chicken", "soup", "Curry", "Coconut", "Straße",
+        "salt", "pepper", "garlic", "onion", "braised", "pork", "ＦＵＬＬ－ＷＩＤＴＨ", "noodles"
+    };
+    private static final String[] QUERIES = {"红烧", "鸡丁", "豆腐 汤", "カレー", "김치", "jalapeno", "creme brulee", "chick", "curry 牛肉"};
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Tokenizer tokenizer = new MixedScriptTokenizer();
+        String[][] corpus = corpus(size, new Random(42));
+        System.out.printf("Corpus: %d recipes%n", size);
+
+        String[][] normalized = new String[size][];
+        double tokenizeMs = time(() -> {
+            for (int i = 0; i < size; i++) {
+                String[] doc = corpus[i];
+                normalized[i] = new String[] {
+                    tokenizer.normalize(doc[0]), tokenizer.normalize(doc[1]), tokenizer.normalize(doc[2])
+                };
+                for (String field : normalized[i]) {
+                    tokenizer.tokenize(field);
+                }
+            }
+        });
+        System.out.printf("Normalize + tokenize: %.1f ms (%.0f recipes/s)%n", tokenizeMs, size / tokenizeMs * 1000);
+
+        for (String query : QUERIES) {
+            String[] terms = tokenizer.normalize(query).trim().split("\\s+");
+            RelevanceScorer scorer = new RelevanceScorer(terms);
+            double stored = time(() -> {
+                for (String[] doc : normalized) {
+                    scorer.score(doc[0], doc[1], doc[2]);
+                }
+            });
+            double perQuery = time(() -> {
+                for (String[] doc : corpus) {
+                    scorer.score(tokenizer.normalize(doc[0]), tokenizer.normalize(doc[1]), tokenizer.normalize(doc[2]));
+                }
+            });
+            System.out.printf("Score '%s': stored %.2f ms, normalized per query %.2f ms%n", query, stored, perQuery);
+        }
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            load(conn, tokenizer, corpus, normalized);
+            for (String query : QUERIES) {
+                String[] terms = tokenizer.normalize(query).trim().split("\\s+");
+                int[] ftsHits = new int[1];
+                int[] likeHits = new int[1];
+                double fts = time(() -> ftsHits[0] = count(ftsQuery(conn, tokenizer, terms)));
+                double like = time(() -> likeHits[0] = count(likeQuery(conn, terms)));
+                System.out.printf("Lookup '%s': FTS %.2f ms (%d hits), LIKE scan %.2f ms (%d hits)%n",
+                        query, fts, ftsHits[0], like, likeHits[0]);
+            }
+        }
+    }
+
+    private static String[][] corpus(int size, Random random) {
+        String[][] corpus = new String[size][];
+        for (int i = 0; i < size; i++) {
+            String title = switch (i % 4) {
+                case 0 -> pick(HAN, random) + pick(HAN, random) + pick(HAN, random);
+                case 1 -> pick(KANA, random) + pick(KANA, random) + " " + pick(LATIN, random);
+                case 2 -> pick(HANGUL, random) + " " + pick(HAN, random);
+                default -> pick(LATIN, random) + " " + pick(LATIN, random) + " " + pick(LATIN, random);
+            };
+            StringBuilder ingredients = new StringBuilder();
+            for (int j = 0; j < 8; j++) {
+                ingredients.append(j % 2 == 0 ? pick(HAN, random) : pick(LATIN, random)).append('\n');
+            }
+            StringBuilder instruction = new StringBuilder();
+            for (int j = 0; j < 40; j++) {
+                instruction.append(j % 3 == 0 ? pick(HAN, random) : pick(LATIN, random).toLowerCase(Locale.ROOT)).append(' ');
+            }
+            corpus[i] = new String[] {title, ingredients.toString(), instruction.toString()};
+        }
+        return corpus;
+    }
+
+    private static String pick(String[] words, Random random) {
+        return words[random.nextInt(words.length)];
+    }
+
+    private static void load(Connection conn, Tokenizer tokenizer, String[][] corpus, String[][] normalized) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE recipe (recipe_id INTEGER PRIMARY KEY, title TEXT, ingredients TEXT, instruction TEXT)");
+            stmt.execute("CREATE VIRTUAL TABLE recipe_fts USING fts5(title, ingredients, instruction, "
+                    + "tokenize = \"unicode61 remove_diacritics 0 categories 'L* N* Co M*'\")");
+        }
+        conn.setAutoCommit(false);
+        try (PreparedStatement recipe = conn.prepareStatement("INSERT INTO recipe VALUES (?, ?, ?, ?)");
+             PreparedStatement fts = conn.prepareStatement("INSERT INTO recipe_fts (rowid, title, ingredients, instruction) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < corpus.length; i++) {
+                recipe.setInt(1, i + 1);
+                fts.setInt(1, i + 1);
+                for (int f = 0; f < 3; f++) {
+                    recipe.setString(f + 2, corpus[i][f]);
+                    fts.setString(f + 2, String.join(" ", tokenizer.tokenize(normalized[i][f])));
+                }
+                recipe.addBatch();
+                fts.addBatch();
+            }
+            recipe.executeBatch();
+            fts.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static PreparedStatement ftsQuery(Connection conn, Tokenizer tokenizer, String[] terms) throws SQLException {
+        List<String> tokens = new ArrayList<>();
+        for (String term : terms) {
+            for (String token : tokenizer.tokenize(term)) {
+                tokens.add('"' + token + "\"*");
+            }
+        }
+        PreparedStatement stmt = conn.prepareStatement("SELECT rowid FROM recipe_fts WHERE recipe_fts MATCH ?");
+        stmt.setString(1, String.join(" AND ", tokens));
+        return stmt;
+    }
+
+    private static PreparedStatement likeQuery(Connection conn, String[] terms) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT recipe_id FROM recipe WHERE 1 = 1");
+        for (int i = 0; i < terms.length; i++) {
+            sql.append(" AND (title LIKE ? OR ingredients LIKE ? OR instruction LIKE ?)");
+        }
+        PreparedStatement stmt = conn.prepareStatement(sql.toString());
+        int index = 1;
+        for (String term : terms) {
+            for (int f = 0; f < 3; f++) {
+                stmt.setString(index++, "%" + term + "%");
+            }
+        }
+        return stmt;
+    }
+
+    private static int count(PreparedStatement stmt) {
+        int rows = 0;
+        try (stmt; ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Runs the task a few times to warm up, then returns its median time in milliseconds.
+     */
+    private static double time(SqlTask task) {
+        double[] times = new double[ROUNDS];
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                task.run();
+            }
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                task.run();
+                times[i] = (System.nanoTime() - start) / 1e6;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        Arrays.sort(times);
+        return times[ROUNDS / 2];
+    }
+
+    /**
+     * A benchmarked task that may access the database.
+     */
+    private interface SqlTask {
+        void run() throws SQLException;
+    }
+}